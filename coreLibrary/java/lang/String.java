@@ -2,4 +2,6 @@ package java.lang;
 
 public class String {
     public static native String valueOf(int i);
-}
\ No newline at end of file
+
+    public native String intern();
+}
@@ -3,6 +3,8 @@ package cn.sheratan.jvm;
 import org.freeinternals.format.FileFormatException;
 import org.freeinternals.format.classfile.*;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
@@ -21,17 +23,130 @@ public class Class {
     private boolean isStaticInited;
 
     /**
-     * @Description: 方法实体
+     * @Description: 类中声明的方法运行时实体
+     */
+    private final Method[] methods;
+
+    /**
+     * @Description: 类中声明的字段运行时实体，链接阶段分配存储布局时创建
+     */
+    private Field[] fields = new Field[0];
+
+    /**
+     * @Description: 运行时常量池缓存
+     */
+    private final ConstantPoolCache cpCache;
+
+    /**
+     * @Description: java/lang/Object中可被重写的方法签名，按顺序占据每个类vtable的前几个下标。
+     * java/lang/Object暂不支持加载，未被重写时对应的vtable项为null
+     */
+    static final String[] OBJECT_VTABLE = {
+            "equals(Ljava/lang/Object;)Z",
+            "hashCode()I",
+            "toString()Ljava/lang/String;",
+            "clone()Ljava/lang/Object;"
+    };
+
+    /**
+     * @Description: 父类，父类为java/lang/Object或当前类为接口时为null
+     */
+    private Class superClass;
+
+    /**
+     * @Description: 直接实现（或继承）的接口
+     */
+    private Class[] interfaces = new Class[0];
+
+    /**
+     * @Description: 虚方法表，链接阶段构建。对于类，继承父类的虚方法表并以重写方法覆盖对应项，新声明的方法追加在末尾；
+     * 对于接口，按声明顺序存放接口方法，其下标即为该方法在各实现类itable中的下标
+     */
+    private Method[] vtable = new Method[0];
+
+    /**
+     * @Description: 接口方法表，链接阶段构建，每个被实现的接口（包括间接实现）对应一项
+     */
+    private ItableEntry[] itable = new ItableEntry[0];
+
+    /**
+     * @Description: 实例对象布局，链接阶段计算：实例中数值字段与引用字段的数量，均包括父类中声明的字段（父类字段在前）
+     */
+    private int instanceValueCount;
+    private int instanceRefCount;
+
+    /**
+     * @Description: 主超类型显示表（display）的固定长度。继承深度小于该值的类，其所有父类（含自身）按深度存放在display中，
+     * 判断是否为这些类的子类只需比较display中对应深度的一项
+     */
+    public static final int DISPLAY_SIZE = 8;
+
+    /**
+     * @Description: 接口编号分配器，每个接口链接时分配一个全局唯一编号，作为接口位图中的位下标
+     */
+    private static final AtomicInteger NEXT_INTERFACE_ID = new AtomicInteger();
+
+    /**
+     * @Description: 继承深度，直接继承java/lang/Object的类及接口为0
+     */
+    private int depth;
+
+    /**
+     * @Description: 主超类型显示表，display[i]为深度为i的父类（含自身），只记录前DISPLAY_SIZE层
+     */
+    private Class[] display = new Class[0];
+
+    /**
+     * @Description: 接口编号，非接口为-1
+     */
+    private int interfaceId = -1;
+
+    /**
+     * @Description: 实现的全部接口（包括父类实现的、接口继承的，接口自身也计入）的编号位图
+     */
+    private long[] interfaceBits = new long[0];
+
+    /**
+     * @Description: 静态字段存储，链接阶段按本类声明的静态字段分配，下标即字段偏移，分为数值与引用两部分（同LObject）
+     */
+    private long[] staticValues = new long[0];
+    private Object[] staticRefs = new Object[0];
+
+    /**
+     * @Description: 方法实体，作为常量池缓存项，解析后不再改变
      */
     public static class Symbol {
-        public Class clazz;
-        public MethodInfo method;
-        public int argCount;
+        public final Class clazz;
+        public final Method method;
+        public final int argCount;
+
+        /**
+         * @Description: 调用java/lang/Object中可重写方法时，该方法在vtable中的固定下标，其余情况为-1
+         */
+        public final int objectVtableIndex;
+
+        public Symbol(Class clazz, Method method, int argCount) {
+            this(clazz, method, argCount, -1);
+        }
 
-        public Symbol(Class clazz, MethodInfo method, int argCount) {
+        public Symbol(Class clazz, Method method, int argCount, int objectVtableIndex) {
             this.clazz = clazz;
             this.method = method;
             this.argCount = argCount;
+            this.objectVtableIndex = objectVtableIndex;
+        }
+    }
+
+    /**
+     * @Description: itable项，按接口vtable的下标顺序存放该接口方法在实现类中的具体实现
+     */
+    static final class ItableEntry {
+        final Class iface;
+        final Method[] methods;
+
+        ItableEntry(Class iface, Method[] methods) {
+            this.iface = iface;
+            this.methods = methods;
         }
     }
 
@@ -39,67 +154,161 @@ public class Class {
         this.CF = CF;
         this.CL = CL;
         this.CLASS_NAME = className;
+        MethodInfo[] infos = CF.getMethods();
+        this.methods = new Method[infos == null ? 0 : infos.length];
+        for (int i = 0; i < methods.length; i++) {
+            methods[i] = new Method(this, infos[i]);
+        }
+        this.cpCache = new ConstantPoolCache(this);
     }
 
     /**
      * @Description: 获取类方法
      * @Param name 类名称
      * @Param descriptor 类描述符
-     * @return: org.freeinternals.format.classfile.MethodInfo
-     */
-    public MethodInfo findMethod(String name, String descriptor) {
-        for (MethodInfo methodInfo : CF.getMethods()) {
-            String methodName = getStringFromConstantPool(methodInfo.getNameIndex());
-            String methodDescriptor = getStringFromConstantPool(methodInfo.getDescriptorIndex());
-            if (methodName.equals(name) && methodDescriptor.equals(methodDescriptor)) {
-                return methodInfo;
+     * @return: cn.sheratan.jvm.Method
+     */
+    public Method findMethod(String name, String descriptor) {
+        for (Method method : methods) {
+            if (method.getName().equals(name) && method.getDescriptor().equals(descriptor)) {
+                return method;
             }
         }
         return null;
     }
 
     /**
-     * @Description: 获取类属性
+     * @Description: 按方法解析规则查找方法：依次查找当前类及其父类，再查找所有实现的接口
+     * @Param name 方法名称
+     * @Param descriptor 方法描述符
+     * @return: cn.sheratan.jvm.Method 未找到时返回null
+     */
+    public Method resolveMethod(String name, String descriptor) {
+        for (Class c = this; c != null; c = c.superClass) {
+            Method method = c.findMethod(name, descriptor);
+            if (method != null) {
+                return method;
+            }
+        }
+        for (Class c = this; c != null; c = c.superClass) {
+            for (Class iface : c.interfaces) {
+                Method method = iface.resolveMethod(name, descriptor);
+                if (method != null) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @Description: 按字段解析规则查找字段：依次查找当前类、实现的接口及父类
+     * @return: cn.sheratan.jvm.Field 未找到时返回null
+     */
+    public Field resolveField(String name, String descriptor) {
+        Field field = findField(name, descriptor);
+        if (field != null) {
+            return field;
+        }
+        for (Class iface : interfaces) {
+            field = iface.resolveField(name, descriptor);
+            if (field != null) {
+                return field;
+            }
+        }
+        return superClass == null ? null : superClass.resolveField(name, descriptor);
+    }
+
+    /**
+     * @Description: 按名称查找实例字段，沿继承链查找，子类字段优先，供本地方法等按名称访问对象字段时使用
+     * @Param name 字段名称
+     * @return: cn.sheratan.jvm.Field 未找到时返回null
      */
-    public FieldInfo findField(String name, String descriptor) {
-        for (FieldInfo fieldInfo : CF.getFields()) {
-            String fieldName = getStringFromConstantPool(fieldInfo.getNameIndex());
-            if (fieldName.equals(name)) {
-                return fieldInfo;
+    public Field findInstanceField(String name) {
+        for (Class c = this; c != null; c = c.superClass) {
+            for (Field field : c.fields) {
+                if (!field.isStatic() && field.getName().equals(name)) {
+                    return field;
+                }
             }
         }
         return null;
     }
 
     /**
-     * @Description: 通过常量池下标获取栈帧中调用的方法的全称（包括描述符），并生成方法实体Symbol
-     * @Param constantIndex 常量池下标
-     * @return: cn.sheratan.jvm.Class.Symbol
+     * @Description: 判断当前类型是否可赋值给指定类型（自身、父类或实现的接口），链接阶段已完成的类常数时间内完成：
+     * 接口查位图，深度小于DISPLAY_SIZE的类查display，更深的类才沿继承链查找
+     * @Param target 目标类型
+     * @return: boolean
      */
-    public Symbol resloveMethodByRef(int constantIndex) {
-        //获取常量池
-        AbstractCPInfo[] pool = CF.getConstantPool();
+    public boolean isSubtypeOf(Class target) {
+        if (target.interfaceId >= 0) {
+            int id = target.interfaceId;
+            return (id >>> 6) < interfaceBits.length && (interfaceBits[id >>> 6] & (1L << id)) != 0;
+        }
+        int d = target.depth;
+        if (d < DISPLAY_SIZE) {
+            return d < display.length && display[d] == target;
+        }
+        return isSubclassOf(target);
+    }
 
-        //获取方法表结构
-        AbstractCPInfo info = pool[constantIndex];
-        assert (info.getTag() == AbstractCPInfo.CONSTANT_Methodref);
-        ConstantMethodrefInfo methodrefInfo = (ConstantMethodrefInfo) info;
+    /**
+     * @Description: 判断当前类是否为指定类本身或其子类
+     */
+    public boolean isSubclassOf(Class clazz) {
+        for (Class c = this; c != null; c = c.superClass) {
+            if (c == clazz) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        //由方法表结构获取声明该方法的类表结构
-        ConstantClassInfo classInfo = (ConstantClassInfo) pool[methodrefInfo.getClassIndex()];
-        String className = getStringFromConstantPool(classInfo.getNameIndex());
-        Class clazz = CL.loadClass(className);
-        if (clazz == null) {
-            //出现null的情况是clazz为Object对象，暂无实现
-            return null;
+    /**
+     * @Description: 按vtable下标获取虚方法
+     * @Param index vtable下标
+     * @return: cn.sheratan.jvm.Method 对应java/lang/Object方法且未被重写时返回null
+     */
+    public Method getVirtualMethod(int index) {
+        return vtable[index];
+    }
+
+    /**
+     * @Description: 按itable获取接口方法的实现
+     * @Param iface 声明该方法的接口
+     * @Param index 方法在接口vtable中的下标
+     * @return: cn.sheratan.jvm.Method 当前类未实现该接口时返回null
+     */
+    public Method getInterfaceMethod(Class iface, int index) {
+        for (ItableEntry entry : itable) {
+            if (entry.iface == iface) {
+                return entry.methods[index];
+            }
         }
+        return null;
+    }
 
-        ConstantNameAndTypeInfo nameAndTypeInfo = (ConstantNameAndTypeInfo) pool[methodrefInfo.getNameAndTypeIndex()];
-        String methodName = getStringFromConstantPool(nameAndTypeInfo.getNameIndex());
-        String methodDescription = getStringFromConstantPool(nameAndTypeInfo.getDescriptorIndex());
-        MethodInfo method = clazz.findMethod(methodName, methodDescription);
+    /**
+     * @Description: 获取类属性
+     */
+    public Field findField(String name, String descriptor) {
+        for (Field field : fields) {
+            if (field.getName().equals(name) && field.getDescriptor().equals(descriptor)) {
+                return field;
+            }
+        }
+        return null;
+    }
 
-        return new Symbol(clazz, method, getMethodArgCount(method, methodDescription));
+    /**
+     * @Description: 通过常量池下标获取栈帧中调用的方法的全称（包括描述符），并生成方法实体Symbol。
+     * 解析结果缓存在运行时常量池缓存中，同一下标只解析一次
+     * @Param constantIndex 常量池下标
+     * @return: cn.sheratan.jvm.Class.Symbol
+     */
+    public Symbol resloveMethodByRef(int constantIndex) {
+        return cpCache.resolveMethod(constantIndex);
     }
 
     /**
@@ -115,25 +324,6 @@ public class Class {
         }
     }
 
-    /**
-     * @Description: 获取方法的参数数量，需要注意的是：非静态方法隐含传入“this”参数，故最少参数数量为1
-     * @Param method 目标解析方法，由该参数判断是否静态方法
-     * @Param methodDescription 方法描述符，主要通过分割该参数获取数量
-     * @return: int
-     */
-    private int getMethodArgCount(MethodInfo method, String methodDescription) {
-        int argCount;
-        int left = methodDescription.indexOf("(") + 1;
-        int right = methodDescription.indexOf(")");
-        argCount = ((method.getAccessFlags() & MethodInfo.ACC_STATIC) == 0) ? 1 : 0;
-        for (int i = left; i < right; i++, argCount++) {
-            if (methodDescription.charAt(i) == 'L') {
-                i = methodDescription.indexOf(';', i);
-            }
-        }
-        return argCount;
-    }
-
     public String getClassName() {
         return CLASS_NAME;
     }
@@ -146,6 +336,113 @@ public class Class {
         isStaticInited = true;
     }
 
+    public boolean isInterface() {
+        return (CF.getAccessFlags().getValue() & AccessFlags.ACC_INTERFACE) != 0;
+    }
+
+    public Class getSuperClass() {
+        return superClass;
+    }
+
+    void setSuperClass(Class superClass) {
+        this.superClass = superClass;
+    }
+
+    public Class[] getInterfaces() {
+        return interfaces;
+    }
+
+    void setInterfaces(Class[] interfaces) {
+        this.interfaces = interfaces;
+    }
+
+    public Method[] getVtable() {
+        return vtable;
+    }
+
+    void setVtable(Method[] vtable) {
+        this.vtable = vtable;
+    }
+
+    void setItable(ItableEntry[] itable) {
+        this.itable = itable;
+    }
+
+    public int getInstanceValueCount() {
+        return instanceValueCount;
+    }
+
+    public int getInstanceRefCount() {
+        return instanceRefCount;
+    }
+
+    public long[] getStaticValues() {
+        return staticValues;
+    }
+
+    public Object[] getStaticRefs() {
+        return staticRefs;
+    }
+
+    void setStaticStorage(long[] values, Object[] refs) {
+        this.staticValues = values;
+        this.staticRefs = refs;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    Class[] getDisplay() {
+        return display;
+    }
+
+    /**
+     * @Description: 设置超类型信息，链接阶段调用
+     * @Param depth 继承深度
+     * @Param display 主超类型显示表
+     * @Param interfaces 实现的全部接口（接口自身需先通过assignInterfaceId分配编号）
+     * @return: void
+     */
+    void setSupertypes(int depth, Class[] display, Iterable<Class> interfaces) {
+        this.depth = depth;
+        this.display = display;
+        long[] bits = new long[0];
+        for (Class iface : interfaces) {
+            int id = iface.interfaceId;
+            if ((id >>> 6) >= bits.length) {
+                bits = Arrays.copyOf(bits, (id >>> 6) + 1);
+            }
+            bits[id >>> 6] |= 1L << id;
+        }
+        this.interfaceBits = bits;
+    }
+
+    void assignInterfaceId() {
+        this.interfaceId = NEXT_INTERFACE_ID.getAndIncrement();
+    }
+
+    void setFields(Field[] fields) {
+        this.fields = fields;
+    }
+
+    void setInstanceLayout(int valueCount, int refCount) {
+        this.instanceValueCount = valueCount;
+        this.instanceRefCount = refCount;
+    }
+
+    public Method[] getMethods() {
+        return methods;
+    }
+
+    public Field[] getFields() {
+        return fields;
+    }
+
+    public ConstantPoolCache getConstantPoolCache() {
+        return cpCache;
+    }
+
     public ClassFile getClassFile() {
         return CF;
     }
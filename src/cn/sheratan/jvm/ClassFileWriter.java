@@ -0,0 +1,251 @@
+package cn.sheratan.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 类文件生成器，只生成运行时生成类所需的常量池项、字段与只含Code属性的方法。
+ * 即时编译器以其生成宿主JVM执行的类，invokedynamic以其生成lambda表达式的实现类（由虚拟机的类加载器定义）。
+ * 常量池项按内容去重
+ * @Author aries
+ * @Data 2026-10-18 08:38
+ */
+public final class ClassFileWriter {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+    public static final int ACC_BRIDGE = 0x0040;
+    public static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_Float = 4;
+    private static final int CONSTANT_Long = 5;
+    private static final int CONSTANT_Double = 6;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_Fieldref = 9;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_InterfaceMethodref = 11;
+    private static final int CONSTANT_NameAndType = 12;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final ByteArrayOutputStream memberBytes = new ByteArrayOutputStream();
+    private final DataOutputStream fields = new DataOutputStream(memberBytes);
+    private int fieldCount;
+
+    private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+    private final DataOutputStream methods = new DataOutputStream(methodBytes);
+    private int methodCount;
+
+    private final int version;
+    private final int access;
+    private final String className;
+    private final int thisClass;
+    private final int superClass;
+    private final List<Integer> interfaces = new ArrayList<>();
+
+    /**
+     * @Description: 创建类文件
+     * @Param version 类文件主版本号
+     * @Param access 类的访问标志
+     * @Param className 类的内部名称，如cn/sheratan/jvm/JIT/Compiled$1
+     * @Param superName 父类内部名称
+     * @Param interfaceNames 实现的接口内部名称
+     */
+    public ClassFileWriter(int version, int access, String className, String superName, String... interfaceNames) {
+        this.version = version;
+        this.access = access;
+        this.className = className;
+        this.thisClass = classRef(className);
+        this.superClass = classRef(superName);
+        for (String iface : interfaceNames) {
+            interfaces.add(classRef(iface));
+        }
+    }
+
+    public String thisName() {
+        return className;
+    }
+
+    public void addField(int access, String name, String descriptor) {
+        try {
+            fields.writeShort(access);
+            fields.writeShort(utf8(name));
+            fields.writeShort(utf8(descriptor));
+            fields.writeShort(0);
+            fieldCount++;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @Description: 添加方法，方法体只含Code属性
+     * @Param access 访问标志
+     * @Param name 方法名称
+     * @Param descriptor 方法描述符
+     * @Param maxStack 操作数栈最大深度
+     * @Param maxLocals 局部变量表大小
+     * @Param code 字节码
+     * @Param exceptionTable 异常表，每项为{start_pc, end_pc, handler_pc, catch_type}
+     * @return: void
+     */
+    public void addMethod(int access, String name, String descriptor, int maxStack, int maxLocals, byte[] code, int[][] exceptionTable) {
+        try {
+            methods.writeShort(access);
+            methods.writeShort(utf8(name));
+            methods.writeShort(utf8(descriptor));
+            methods.writeShort(1);
+            methods.writeShort(utf8("Code"));
+            methods.writeInt(2 + 2 + 4 + code.length + 2 + exceptionTable.length * 8 + 2);
+            methods.writeShort(maxStack);
+            methods.writeShort(maxLocals);
+            methods.writeInt(code.length);
+            methods.write(code);
+            methods.writeShort(exceptionTable.length);
+            for (int[] entry : exceptionTable) {
+                for (int v : entry) {
+                    methods.writeShort(v);
+                }
+            }
+            methods.writeShort(0);
+            methodCount++;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(version);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(access);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.size());
+            for (int iface : interfaces) {
+                out.writeShort(iface);
+            }
+            out.writeShort(fieldCount);
+            out.write(memberBytes.toByteArray());
+            out.writeShort(methodCount);
+            out.write(methodBytes.toByteArray());
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public int utf8(String value) {
+        return entry("U" + value, () -> {
+            pool.writeByte(CONSTANT_Utf8);
+            pool.writeUTF(value);
+        }, 1);
+    }
+
+    public int classRef(String name) {
+        int nameIndex = utf8(name);
+        return entry("C" + name, () -> {
+            pool.writeByte(CONSTANT_Class);
+            pool.writeShort(nameIndex);
+        }, 1);
+    }
+
+    public int intConstant(int value) {
+        return entry("I" + value, () -> {
+            pool.writeByte(CONSTANT_Integer);
+            pool.writeInt(value);
+        }, 1);
+    }
+
+    public int floatConstant(float value) {
+        return entry("F" + Float.floatToRawIntBits(value), () -> {
+            pool.writeByte(CONSTANT_Float);
+            pool.writeFloat(value);
+        }, 1);
+    }
+
+    /**
+     * @Description: long与double常量在常量池中占两项
+     */
+    public int longConstant(long value) {
+        return entry("J" + value, () -> {
+            pool.writeByte(CONSTANT_Long);
+            pool.writeLong(value);
+        }, 2);
+    }
+
+    public int doubleConstant(double value) {
+        return entry("D" + Double.doubleToRawLongBits(value), () -> {
+            pool.writeByte(CONSTANT_Double);
+            pool.writeDouble(value);
+        }, 2);
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_Fieldref, owner, name, descriptor);
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_Methodref, owner, name, descriptor);
+    }
+
+    public int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_InterfaceMethodref, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int classIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + name + ":" + descriptor, () -> {
+            pool.writeByte(CONSTANT_NameAndType);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        }, 1);
+        return entry(tag + owner + "." + name + descriptor, () -> {
+            pool.writeByte(tag);
+            pool.writeShort(classIndex);
+            pool.writeShort(nameAndType);
+        }, 1);
+    }
+
+    private interface PoolEntry {
+        void write() throws IOException;
+    }
+
+    private int entry(String key, PoolEntry writer, int size) {
+        Integer idx = poolIndex.get(key);
+        if (idx == null) {
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            idx = poolCount;
+            poolCount += size;
+            if (poolCount > 0xFFFF) {
+                throw new IllegalStateException("constant pool overflow");
+            }
+            poolIndex.put(key, idx);
+        }
+        return idx;
+    }
+}
@@ -1,9 +1,29 @@
 package cn.sheratan.jvm;
 
+import cn.sheratan.jvm.Instruction.NativeInstructionFactory;
+import cn.sheratan.jvm.Instruction.NativeMethod;
+import cn.sheratan.jvm.Instruction.Superinstructions;
+import org.freeinternals.format.FileFormatException;
+import org.freeinternals.format.classfile.AbstractCPInfo;
+import org.freeinternals.format.classfile.AttributeConstantValue;
 import org.freeinternals.format.classfile.ClassFile;
+import org.freeinternals.format.classfile.ConstantClassInfo;
+import org.freeinternals.format.classfile.ConstantDoubleInfo;
+import org.freeinternals.format.classfile.ConstantFloatInfo;
+import org.freeinternals.format.classfile.ConstantIntegerInfo;
+import org.freeinternals.format.classfile.ConstantLongInfo;
+import org.freeinternals.format.classfile.FieldInfo;
+import org.freeinternals.format.classfile.Interface;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,11 +46,28 @@ public class ClassLoader {
      */
     private Map<String, Class> classTable;
 
-    public ClassLoader(ClassPath classpath) {
+    /**
+     * @Description: 解码由该类加载器加载的方法时参与融合的超级指令
+     */
+    private final Superinstructions superinstructions;
+
+    public ClassLoader(ClassPath classpath, Superinstructions superinstructions) {
         this.classPath = classpath;
+        this.superinstructions = superinstructions;
         classTable = new HashMap<>();
     }
 
+    public Superinstructions getSuperinstructions() {
+        return superinstructions;
+    }
+
+    /**
+     * @Description: 获取已加载的全部类
+     */
+    public Collection<Class> getLoadedClasses() {
+        return classTable.values();
+    }
+
     /**
      * @Description: 根据类的完整名称（xx/xx/xx.class）执行类加载过程，无法加载Object类
      * @Param fullName
@@ -48,12 +85,36 @@ public class ClassLoader {
             return clazz;
         }
 
-        //下面步骤模拟类装载链接（只执行验证、准备两个阶段，解析阶段是无法确定什么时候执行的）过程
         ClassFile cf = classPath.loadClassFile(fullName);
         if(cf == null){
             throw new RuntimeException("could not found the classFile :" + fullName);
         }
-        clazz = newClass(cf, fullName);
+        return defineClass(cf, fullName);
+    }
+
+    /**
+     * @Description: 由运行时生成的类文件字节定义类（如invokedynamic为lambda表达式生成的实现类），之后同样可按名称加载
+     * @Param fullName 类的完整名称
+     * @Param bytes 类文件字节
+     * @Param thread 执行线程，类已存在时抛出LinkageError，类文件格式错误时抛出ClassFormatError
+     * @return: cn.sheratan.jvm.Class
+     */
+    public Class defineClass(String fullName, byte[] bytes, Thread thread) {
+        if (classTable.containsKey(fullName)) {
+            throw new GuestException(thread.newThrowable("java/lang/LinkageError", "duplicate class definition: " + fullName));
+        }
+        ClassFile cf;
+        try {
+            cf = new ClassFile(bytes);
+        } catch (IOException | FileFormatException e) {
+            throw new GuestException(thread.newThrowable("java/lang/ClassFormatError", fullName + ": " + e.getMessage()));
+        }
+        return defineClass(cf, fullName);
+    }
+
+    private Class defineClass(ClassFile cf, String fullName) {
+        //下面步骤模拟类装载链接（只执行验证、准备两个阶段，解析阶段是无法确定什么时候执行的）过程
+        Class clazz = newClass(cf, fullName);
         resloveSuperClass(clazz);
         resloveInterfaces(clazz);
         link(clazz);
@@ -67,23 +128,311 @@ public class ClassLoader {
      * @Description: 处理继承父类
      */
     private void resloveSuperClass(Class clazz){
-
+        int superIndex = clazz.getClassFile().getSuperClass().getValue();
+        //java/lang/Object没有父类，接口的父类固定为java/lang/Object，二者均无需处理
+        if (superIndex == 0 || clazz.isInterface()) {
+            return;
+        }
+        clazz.setSuperClass(loadClass(getClassName(clazz, superIndex)));
     }
 
     /**
      * @Description: 处理实现接口
      */
     private void resloveInterfaces(Class clazz){
-
+        Interface[] infos = clazz.getClassFile().getInterfaces();
+        if (infos == null || infos.length == 0) {
+            return;
+        }
+        Class[] interfaces = new Class[infos.length];
+        for (int i = 0; i < infos.length; i++) {
+            interfaces[i] = loadClass(getClassName(clazz, infos[i].getValue()));
+        }
+        clazz.setInterfaces(interfaces);
     }
 
     /**
-     * @Description: 完成类装载后，执行链接阶段处理
+     * @Description: 完成类装载后，执行链接阶段处理。目前只计算字段布局，分配静态字段存储（准备），绑定本地方法，计算超类型信息并构建vtable和itable，
+     * 父类与接口此时均已链接完成
      * @Param clazz
      * @return: void
      */
     private void link(Class clazz){
-        //TODO：验证，准备，解析
+        linkFields(clazz);
+        prepareStatics(clazz);
+        bindNatives(clazz);
+        linkSupertypes(clazz);
+        if (clazz.isInterface()) {
+            linkInterface(clazz);
+        } else {
+            linkVtable(clazz);
+            linkItable(clazz);
+        }
+    }
+
+    /**
+     * @Description: 准备阶段：按linkFields分配的下标为本类声明的静态字段分配存储并赋零值。
+     * 带有ConstantValue属性的static final字段（基本类型常量及字符串常量）在此直接以常量池中的值初始化，
+     * 编译器不会为这类字段在<clinit>中生成赋值指令
+     */
+    private void prepareStatics(Class clazz) {
+        int valueCount = 0;
+        int refCount = 0;
+        for (Field field : clazz.getFields()) {
+            if (field.isStatic()) {
+                if (field.isReference()) {
+                    refCount++;
+                } else {
+                    valueCount++;
+                }
+            }
+        }
+        long[] values = new long[valueCount];
+        Object[] refs = new Object[refCount];
+        AbstractCPInfo[] pool = clazz.getClassFile().getConstantPool();
+        for (Field field : clazz.getFields()) {
+            AttributeConstantValue attr = field.isStatic() && field.isFinal() ? field.getConstantValueAttribute() : null;
+            if (attr == null) {
+                continue;
+            }
+            AbstractCPInfo info = pool[attr.getConstantValueIndex()];
+            switch (info.getTag()) {
+                case AbstractCPInfo.CONSTANT_Integer:
+                    values[field.getOffset()] = ((ConstantIntegerInfo) info).getValue();
+                    break;
+                case AbstractCPInfo.CONSTANT_Float:
+                    values[field.getOffset()] = Float.floatToRawIntBits(((ConstantFloatInfo) info).getValue());
+                    break;
+                case AbstractCPInfo.CONSTANT_Long:
+                    values[field.getOffset()] = ((ConstantLongInfo) info).getValue();
+                    break;
+                case AbstractCPInfo.CONSTANT_Double:
+                    values[field.getOffset()] = Double.doubleToRawLongBits(((ConstantDoubleInfo) info).getValue());
+                    break;
+                case AbstractCPInfo.CONSTANT_String:
+                    refs[field.getOffset()] = clazz.getConstantPoolCache().resolveString(attr.getConstantValueIndex());
+                    break;
+                default:
+                    throw new RuntimeException("illegal constant value of the field: " + field);
+            }
+        }
+        clazz.setStaticStorage(values, refs);
+    }
+
+    /**
+     * @Description: 为本地方法绑定宿主实现，未找到实现的方法在调用时才报错
+     */
+    private void bindNatives(Class clazz) {
+        for (Method method : clazz.getMethods()) {
+            if (method.isNative()) {
+                NativeMethod nativeMethod = NativeInstructionFactory.lookup(method);
+                if (nativeMethod == null) {
+                    LOGGER.warning("could not found the native method : " + clazz.getClassName() + "." + method.getName() + method.getDescriptor());
+                }
+                method.setNativeMethod(nativeMethod);
+            }
+        }
+    }
+
+    /**
+     * @Description: 计算类型检查所需的超类型信息：继承父类的display并在自身深度处追加自身；
+     * 接口分配编号，接口位图为父类的全部接口、自身直接实现的接口及其父接口（接口还包括自身）
+     */
+    private void linkSupertypes(Class clazz) {
+        Class superClass = clazz.getSuperClass();
+        int depth = superClass == null ? 0 : superClass.getDepth() + 1;
+        Class[] display = superClass == null ? new Class[0] : superClass.getDisplay();
+        if (depth < Class.DISPLAY_SIZE) {
+            display = Arrays.copyOf(display, depth + 1);
+            display[depth] = clazz;
+        }
+        Set<Class> interfaces = new LinkedHashSet<>();
+        if (clazz.isInterface()) {
+            clazz.assignInterfaceId();
+            interfaces.add(clazz);
+        }
+        for (Class c = clazz; c != null; c = c.getSuperClass()) {
+            for (Class iface : c.getInterfaces()) {
+                collectInterfaces(iface, interfaces);
+            }
+        }
+        clazz.setSupertypes(depth, display, interfaces);
+    }
+
+    /**
+     * @Description: 计算字段布局并创建字段实体，字段的下标在创建后不再改变。实例字段在父类布局之后依次分配下标，
+     * 静态字段在所属类的静态存储中从0开始分配下标，二者均为数值字段与引用字段分别编号。
+     * long与double在对象中只占一个数值下标
+     */
+    private void linkFields(Class clazz) {
+        Class superClass = clazz.getSuperClass();
+        int valueCount = superClass == null ? 0 : superClass.getInstanceValueCount();
+        int refCount = superClass == null ? 0 : superClass.getInstanceRefCount();
+        int staticValueCount = 0;
+        int staticRefCount = 0;
+        FieldInfo[] infos = clazz.getClassFile().getFields();
+        Field[] fields = new Field[infos == null ? 0 : infos.length];
+        for (int i = 0; i < fields.length; i++) {
+            boolean reference = Field.isReference(clazz.getStringFromConstantPool(infos[i].getDescriptorIndex()));
+            int offset;
+            if ((infos[i].getAccessFlags() & FieldInfo.ACC_STATIC) != 0) {
+                offset = reference ? staticRefCount++ : staticValueCount++;
+            } else {
+                offset = reference ? refCount++ : valueCount++;
+            }
+            fields[i] = new Field(clazz, infos[i], offset);
+        }
+        clazz.setFields(fields);
+        clazz.setInstanceLayout(valueCount, refCount);
+    }
+
+    /**
+     * @Description: 接口的vtable按声明顺序存放接口方法（抽象方法与默认方法），下标即itable下标
+     */
+    private void linkInterface(Class clazz) {
+        List<Method> vtable = new ArrayList<>();
+        for (Method method : clazz.getMethods()) {
+            if (method.isVirtual()) {
+                method.setTableIndex(vtable.size());
+                vtable.add(method);
+            }
+        }
+        clazz.setVtable(vtable.toArray(new Method[0]));
+    }
+
+    /**
+     * @Description: 复制父类vtable，签名相同的方法覆盖父类对应项，新声明的方法追加在末尾。
+     * 没有父类（即直接继承java/lang/Object）时，以java/lang/Object中可重写的方法占据前几项
+     */
+    private void linkVtable(Class clazz) {
+        Class superClass = clazz.getSuperClass();
+        List<Method> vtable = new ArrayList<>();
+        List<String> signatures = new ArrayList<>();
+        if (superClass == null) {
+            for (String signature : Class.OBJECT_VTABLE) {
+                vtable.add(null);
+                signatures.add(signature);
+            }
+        } else {
+            for (Method method : superClass.getVtable()) {
+                vtable.add(method);
+                signatures.add(signatureOf(method, signatures.size()));
+            }
+        }
+        for (Method method : clazz.getMethods()) {
+            if (!method.isVirtual()) {
+                continue;
+            }
+            String signature = method.getName() + method.getDescriptor();
+            int index = signatures.indexOf(signature);
+            if (index < 0) {
+                index = vtable.size();
+                vtable.add(method);
+                signatures.add(signature);
+            } else {
+                vtable.set(index, method);
+            }
+            method.setTableIndex(index);
+        }
+        clazz.setVtable(vtable.toArray(new Method[0]));
+    }
+
+    /**
+     * @Description: 为类实现的每个接口（包括父类实现的及接口继承的）构建itable项。
+     * 接口方法优先由vtable中签名相同的方法实现，其次为接口中的默认方法，均不存在时保留抽象方法，调用时报错
+     */
+    private void linkItable(Class clazz) {
+        Set<Class> interfaces = new LinkedHashSet<>();
+        for (Class c = clazz; c != null; c = c.getSuperClass()) {
+            for (Class iface : c.getInterfaces()) {
+                collectInterfaces(iface, interfaces);
+            }
+        }
+        Method[] vtable = clazz.getVtable();
+        List<Class.ItableEntry> itable = new ArrayList<>();
+        for (Class iface : interfaces) {
+            Method[] ifaceMethods = iface.getVtable();
+            Method[] methods = new Method[ifaceMethods.length];
+            for (int i = 0; i < ifaceMethods.length; i++) {
+                Method impl = findBySignature(vtable, ifaceMethods[i]);
+                if (impl == null || impl.isAbstract()) {
+                    impl = findDefault(interfaces, ifaceMethods[i]);
+                }
+                methods[i] = impl != null ? impl : ifaceMethods[i];
+            }
+            itable.add(new Class.ItableEntry(iface, methods));
+        }
+        clazz.setItable(itable.toArray(new Class.ItableEntry[0]));
+    }
+
+    private void collectInterfaces(Class iface, Set<Class> result) {
+        if (result.add(iface)) {
+            for (Class superIface : iface.getInterfaces()) {
+                collectInterfaces(superIface, result);
+            }
+        }
+    }
+
+    /**
+     * @Description: 在类实现的接口中选择默认方法：只考虑最具体的声明，即声明所在接口不是其他声明所在接口的父接口，
+     * 其中恰有一个非抽象方法时选择该方法，否则返回null
+     */
+    private Method findDefault(Set<Class> interfaces, Method ifaceMethod) {
+        List<Method> candidates = new ArrayList<>();
+        for (Class iface : interfaces) {
+            Method method = findBySignature(iface.getVtable(), ifaceMethod);
+            if (method != null) {
+                candidates.add(method);
+            }
+        }
+        Method result = null;
+        for (Method method : candidates) {
+            if (method.isAbstract() || isOverridden(method, candidates)) {
+                continue;
+            }
+            if (result != null) {
+                return null;
+            }
+            result = method;
+        }
+        return result;
+    }
+
+    private boolean isOverridden(Method method, List<Method> candidates) {
+        for (Method other : candidates) {
+            if (other != method && extendsInterface(other.getmClass(), method.getmClass())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean extendsInterface(Class iface, Class superIface) {
+        for (Class c : iface.getInterfaces()) {
+            if (c == superIface || extendsInterface(c, superIface)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Method findBySignature(Method[] table, Method target) {
+        for (Method method : table) {
+            if (method != null && method.getName().equals(target.getName())
+                    && method.getDescriptor().equals(target.getDescriptor())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private String signatureOf(Method method, int index) {
+        return method == null ? Class.OBJECT_VTABLE[index] : method.getName() + method.getDescriptor();
+    }
+
+    private String getClassName(Class clazz, int classIndex) {
+        ConstantClassInfo info = (ConstantClassInfo) clazz.getClassFile().getConstantPool()[classIndex];
+        return clazz.getStringFromConstantPool(info.getNameIndex());
     }
 
     /** 
@@ -0,0 +1,168 @@
+package cn.sheratan.jvm;
+
+import org.freeinternals.format.classfile.*;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @Description: 运行时常量池缓存，按常量池下标缓存Methodref、InterfaceMethodref、Fieldref、Class及String项的解析结果。
+ * 每个符号引用只在首次使用时解析（遍历常量池、解码名称、加载目标类、查找方法并计算参数slot数量），之后直接返回缓存项。
+ * 缓存项只在解析完成后通过AtomicReferenceArray发布：Symbol与Field的成员均为final，所引用的Class在发布前已完成链接，
+ * 其他线程读到缓存项时即可看到完整初始化的结果。并发解析同一下标时各自解析，以先发布的结果为准
+ * @Author aries
+ * @Data 2026-10-18 06:52
+ */
+public final class ConstantPoolCache {
+
+    /**
+     * @Description: java/lang/Object暂不支持加载，指向其的Class项以该对象占位，避免每次重复尝试
+     */
+    private static final Object UNLOADABLE_CLASS = new Object();
+
+    private final Class owner;
+    private final AbstractCPInfo[] pool;
+
+    /**
+     * @Description: 以常量池下标索引的解析结果
+     */
+    private final AtomicReferenceArray<Object> entries;
+
+    ConstantPoolCache(Class owner) {
+        this.owner = owner;
+        this.pool = owner.getClassFile().getConstantPool();
+        this.entries = new AtomicReferenceArray<>(pool.length);
+    }
+
+    /**
+     * @Description: 解析方法引用（Methodref或InterfaceMethodref）
+     * @Param idx 常量池下标
+     * @return: cn.sheratan.jvm.Class.Symbol 方法声明于java/lang/Object时，clazz与method均为null，argCount仍然有效
+     */
+    public Class.Symbol resolveMethod(int idx) {
+        Object entry = entries.get(idx);
+        if (entry == null) {
+            entry = doResolveMethod(idx);
+            entry = publish(idx, entry);
+        }
+        return (Class.Symbol) entry;
+    }
+
+    /**
+     * @Description: 解析字段引用
+     * @Param idx 常量池下标
+     * @return: cn.sheratan.jvm.Field
+     */
+    public Field resolveField(int idx) {
+        Object entry = entries.get(idx);
+        if (entry == null) {
+            entry = doResolveField(idx);
+            entry = publish(idx, entry);
+        }
+        return (Field) entry;
+    }
+
+    /**
+     * @Description: 解析类引用
+     * @Param idx 常量池下标
+     * @return: cn.sheratan.jvm.Class 目标为java/lang/Object时返回null
+     */
+    public Class resolveClass(int idx) {
+        Object entry = entries.get(idx);
+        if (entry == null) {
+            Class clazz = loadClass(((ConstantClassInfo) pool[idx]).getNameIndex());
+            entry = clazz == null ? UNLOADABLE_CLASS : clazz;
+            entry = publish(idx, entry);
+        }
+        return entry == UNLOADABLE_CLASS ? null : (Class) entry;
+    }
+
+    /**
+     * @Description: 解析字符串常量，首次解析时解码并在全局字符串常量池中驻留
+     * @Param idx CONSTANT_String常量池下标
+     * @return: java.lang.String
+     */
+    public String resolveString(int idx) {
+        Object entry = entries.get(idx);
+        if (entry == null) {
+            entry = StringTable.intern(owner.getStringFromConstantPool(((ConstantStringInfo) pool[idx]).getStringIndex()));
+            entry = publish(idx, entry);
+        }
+        return (String) entry;
+    }
+
+    /**
+     * @Description: 获取类符号引用中的类名，不加载该类。数组类的类名即为其类型描述符（如[I）
+     * @Param idx CONSTANT_Class常量池下标
+     * @return: java.lang.String
+     */
+    public String getClassName(int idx) {
+        return owner.getStringFromConstantPool(((ConstantClassInfo) pool[idx]).getNameIndex());
+    }
+
+    /**
+     * @Description: 发布解析结果，其他线程已先发布时返回其结果
+     */
+    private Object publish(int idx, Object entry) {
+        return entries.compareAndSet(idx, null, entry) ? entry : entries.get(idx);
+    }
+
+    private Class.Symbol doResolveMethod(int idx) {
+        AbstractCPInfo info = pool[idx];
+        int classIndex;
+        int nameAndTypeIndex;
+        if (info.getTag() == AbstractCPInfo.CONSTANT_Methodref) {
+            classIndex = ((ConstantMethodrefInfo) info).getClassIndex();
+            nameAndTypeIndex = ((ConstantMethodrefInfo) info).getNameAndTypeIndex();
+        } else if (info.getTag() == AbstractCPInfo.CONSTANT_InterfaceMethodref) {
+            classIndex = ((ConstantInterfaceMethodrefInfo) info).getClassIndex();
+            nameAndTypeIndex = ((ConstantInterfaceMethodrefInfo) info).getNameAndTypeIndex();
+        } else {
+            throw new RuntimeException("constant pool entry " + idx + " is not a method reference");
+        }
+
+        ConstantNameAndTypeInfo nameAndTypeInfo = (ConstantNameAndTypeInfo) pool[nameAndTypeIndex];
+        String methodName = owner.getStringFromConstantPool(nameAndTypeInfo.getNameIndex());
+        String methodDescription = owner.getStringFromConstantPool(nameAndTypeInfo.getDescriptorIndex());
+
+        //数组类型（如[I）的方法均为java/lang/Object中的方法，如clone
+        Class clazz = getClassName(classIndex).charAt(0) == '[' ? null : resolveClass(classIndex);
+        //沿继承链及接口查找，Symbol中的clazz为方法实际声明所在的类
+        Method method = clazz == null ? null : clazz.resolveMethod(methodName, methodDescription);
+        if (method != null) {
+            return new Class.Symbol(method.getmClass(), method, method.getArgSlots());
+        }
+        int objectVtableIndex = objectVtableIndex(methodName + methodDescription);
+        if (clazz == null || objectVtableIndex >= 0) {
+            //java/lang/Object中的方法（当前类未重写时）均视为实例方法，参数需计入this
+            return new Class.Symbol(null, null, Method.countArgSlots(methodDescription) + 1, objectVtableIndex);
+        }
+        throw new RuntimeException("could not found the method: " + clazz.getClassName() + "." + methodName + methodDescription);
+    }
+
+    private static int objectVtableIndex(String signature) {
+        for (int i = 0; i < Class.OBJECT_VTABLE.length; i++) {
+            if (Class.OBJECT_VTABLE[i].equals(signature)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Field doResolveField(int idx) {
+        ConstantFieldrefInfo info = (ConstantFieldrefInfo) pool[idx];
+        ConstantNameAndTypeInfo nameAndTypeInfo = (ConstantNameAndTypeInfo) pool[info.getNameAndTypeIndex()];
+        String fieldName = owner.getStringFromConstantPool(nameAndTypeInfo.getNameIndex());
+        String fieldDescription = owner.getStringFromConstantPool(nameAndTypeInfo.getDescriptorIndex());
+
+        Class clazz = resolveClass(info.getClassIndex());
+        Field field = clazz == null ? null : clazz.resolveField(fieldName, fieldDescription);
+        if (field == null) {
+            throw new RuntimeException("could not found the field: " + fieldName + ":" + fieldDescription);
+        }
+        return field;
+    }
+
+    private Class loadClass(int nameIndex) {
+        return owner.getClassLoader().loadClass(owner.getStringFromConstantPool(nameIndex));
+    }
+}
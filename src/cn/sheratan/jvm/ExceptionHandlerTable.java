@@ -0,0 +1,125 @@
+package cn.sheratan.jvm;
+
+import cn.sheratan.jvm.Instruction.DecodedCode;
+import org.freeinternals.format.classfile.AttributeCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * @Description: 方法异常表的区间索引。将异常表中各项的[start_pc, end_pc)换算为预解码指令流下标后，
+ * 以所有区间端点把指令流切分为若干互不重叠的小段，并为每一段预先记录覆盖它的异常表项（保持异常表中的原始顺序）。
+ * 查找处理器时先二分定位所在小段，再只检查覆盖该段的表项，无需在每次抛出异常时线性扫描整个异常表
+ * @Author aries
+ * @Data 2026-10-18 07:19
+ */
+public final class ExceptionHandlerTable {
+
+    private static final ExceptionHandlerTable EMPTY = new ExceptionHandlerTable(null, new int[0], new int[0][], new int[0], new int[0]);
+
+    private final Class owner;
+
+    /**
+     * @Description: 各小段的起始下标，升序排列；第i段为[segmentStarts[i], segmentStarts[i + 1])
+     */
+    private final int[] segmentStarts;
+
+    /**
+     * @Description: 覆盖各小段的异常表项下标，最后一个端点之后的小段不被任何表项覆盖
+     */
+    private final int[][] segmentEntries;
+
+    /**
+     * @Description: 异常表项的处理器下标
+     */
+    private final int[] handlers;
+
+    /**
+     * @Description: 异常表项捕获的异常类型（常量池下标），0表示捕获任意异常（finally）
+     */
+    private final int[] catchTypes;
+
+    private ExceptionHandlerTable(Class owner, int[] segmentStarts, int[][] segmentEntries, int[] handlers, int[] catchTypes) {
+        this.owner = owner;
+        this.segmentStarts = segmentStarts;
+        this.segmentEntries = segmentEntries;
+        this.handlers = handlers;
+        this.catchTypes = catchTypes;
+    }
+
+    /**
+     * @Description: 依据Code属性中的异常表构建区间索引
+     * @Param owner 方法所属类，用于解析捕获的异常类型
+     * @Param attr Code属性
+     * @Param code 预解码指令流
+     * @return: cn.sheratan.jvm.ExceptionHandlerTable
+     */
+    static ExceptionHandlerTable build(Class owner, AttributeCode attr, DecodedCode code) {
+        int n = attr.getExceptionTableLength();
+        if (n == 0) {
+            return EMPTY;
+        }
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        int[] handlers = new int[n];
+        int[] catchTypes = new int[n];
+        TreeSet<Integer> points = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            AttributeCode.ExceptionTable entry = attr.getExceptionTable(i);
+            starts[i] = code.toIndex(entry.getStartPc());
+            ends[i] = code.toIndex(entry.getEndPc());
+            handlers[i] = code.toIndex(entry.getHandlerPc());
+            catchTypes[i] = entry.getCatchType();
+            if (starts[i] < 0 || ends[i] < 0 || handlers[i] < 0) {
+                throw new RuntimeException("illegal exception table entry in " + owner.getClassName() + ": " + entry.getStartPc()
+                        + ", " + entry.getEndPc() + ", " + entry.getHandlerPc());
+            }
+            points.add(starts[i]);
+            points.add(ends[i]);
+        }
+        int[] segmentStarts = new int[points.size()];
+        int[][] segmentEntries = new int[points.size()][];
+        int s = 0;
+        for (int point : points) {
+            List<Integer> covering = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (starts[i] <= point && point < ends[i]) {
+                    covering.add(i);
+                }
+            }
+            segmentStarts[s] = point;
+            segmentEntries[s++] = covering.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new ExceptionHandlerTable(owner, segmentStarts, segmentEntries, handlers, catchTypes);
+    }
+
+    /**
+     * @Description: 查找能够处理异常的处理器
+     * @Param pc 抛出异常的指令所在下标（或指令内任意下标）
+     * @Param exceptionClass 异常对象所属类
+     * @return: int 处理器下标，未找到时返回-1
+     */
+    public int findHandler(int pc, Class exceptionClass) {
+        int s = Arrays.binarySearch(segmentStarts, pc);
+        if (s < 0) {
+            //未命中端点时取插入位置的前一段
+            s = -s - 2;
+            if (s < 0) {
+                return -1;
+            }
+        }
+        for (int entry : segmentEntries[s]) {
+            int catchType = catchTypes[entry];
+            if (catchType == 0) {
+                return handlers[entry];
+            }
+            Class catchClass = owner.getConstantPoolCache().resolveClass(catchType);
+            if (catchClass != null && exceptionClass.isSubtypeOf(catchClass)) {
+                return handlers[entry];
+            }
+        }
+        return -1;
+    }
+}
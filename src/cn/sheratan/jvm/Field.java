@@ -0,0 +1,108 @@
+package cn.sheratan.jvm;
+
+import org.freeinternals.format.classfile.AttributeConstantValue;
+import org.freeinternals.format.classfile.AttributeInfo;
+import org.freeinternals.format.classfile.FieldInfo;
+
+/**
+ * @Description: 字段运行时实体，封装解析得到的FieldInfo，缓存字段名称与描述符
+ * @Author aries
+ * @Data 2026-10-18 06:52
+ */
+public class Field {
+    private final Class fClass;
+    private final FieldInfo fInfo;
+    private final String fName;
+    private final String fDescriptor;
+
+    /**
+     * @Description: 由描述符得到的字段种类，字段存取时频繁使用，故在创建时计算
+     */
+    private final int fSlotSize;
+    private final boolean fReference;
+
+    /**
+     * @Description: 字段在存储布局中的下标，链接阶段分配后才创建字段实体：实例字段为LObject中的下标，静态字段为所属类静态存储中的下标。
+     * 引用类型字段为引用数组的下标，其余为数值数组的下标
+     */
+    private final int fOffset;
+
+    Field(Class clazz, FieldInfo info, int offset) {
+        this.fClass = clazz;
+        this.fOffset = offset;
+        this.fInfo = info;
+        this.fName = clazz.getStringFromConstantPool(info.getNameIndex());
+        this.fDescriptor = clazz.getStringFromConstantPool(info.getDescriptorIndex());
+        char c = fDescriptor.charAt(0);
+        this.fSlotSize = c == 'J' || c == 'D' ? 2 : 1;
+        this.fReference = isReference(fDescriptor);
+    }
+
+    /**
+     * @Description: 判断字段描述符是否为引用类型（对象或数组）
+     */
+    static boolean isReference(String descriptor) {
+        char c = descriptor.charAt(0);
+        return c == 'L' || c == '[';
+    }
+
+    public boolean isStatic() {
+        return (fInfo.getAccessFlags() & FieldInfo.ACC_STATIC) != 0;
+    }
+
+    public boolean isFinal() {
+        return (fInfo.getAccessFlags() & FieldInfo.ACC_FINAL) != 0;
+    }
+
+    /**
+     * @Description: 获取字段的ConstantValue属性，没有时返回null
+     */
+    public AttributeConstantValue getConstantValueAttribute() {
+        for (int i = 0; i < fInfo.getAttributesCount(); i++) {
+            AttributeInfo attr = fInfo.getAttribute(i);
+            if (attr instanceof AttributeConstantValue) {
+                return (AttributeConstantValue) attr;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @Description: 字段所占slot数量，long与double类型占用两个slot
+     */
+    public int getSlotSize() {
+        return fSlotSize;
+    }
+
+    /**
+     * @Description: 是否为引用类型（对象或数组）字段
+     */
+    public boolean isReference() {
+        return fReference;
+    }
+
+    public int getOffset() {
+        return fOffset;
+    }
+
+    public Class getfClass() {
+        return fClass;
+    }
+
+    public FieldInfo getFieldInfo() {
+        return fInfo;
+    }
+
+    public String getName() {
+        return fName;
+    }
+
+    public String getDescriptor() {
+        return fDescriptor;
+    }
+
+    @Override
+    public String toString() {
+        return fClass.getClassName() + "." + fName + ":" + fDescriptor;
+    }
+}
@@ -1,11 +1,10 @@
 package cn.sheratan.jvm;
 
+import cn.sheratan.jvm.Instruction.DecodedCode;
 import cn.sheratan.jvm.Instruction.InstructionFactory;
-import org.freeinternals.format.classfile.*;
+import org.freeinternals.format.classfile.AttributeCode;
 
-import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Arrays;
 
 /**
  * @Description: 栈帧
@@ -13,165 +12,309 @@ import java.util.logging.Logger;
  * @Data 2019-03-11 17:32
  */
 public class Frame {
-    private static final Logger LOGGER = Logger.getLogger(Frame.class.getName());
-
     private final Thread fThread;
-    private final Class fClass;
-    private final MethodInfo fMethod;
+    private Class fClass;
+    private Method fMethod;
 
     /**
-     * @Description: 字节码指令偏移值
+     * @Description: 当前指令在预解码指令流中的下标
      */
     private int fPC;
 
     /**
-     * @Description: 局部变量表
+     * @Description: 线程栈的数值部分，由同一线程的所有栈帧共享。本栈帧占用其中[fLocalsBase, fStackBase)作为局部变量表，
+     * 其后作为操作数栈。int、short、byte、char以符号扩展后的值存储，不再装箱为Slot对象
+     */
+    private final long[] fValues;
+
+    /**
+     * @Description: 线程栈的引用部分，与fValues下标一一对应。slot的类型由指令决定：只有存放引用的slot在此处的项有意义，
+     * 存放基本类型的slot在此处可能残留之前的引用（解释器写入基本类型时不清除），不能据此判断slot的类型
      */
-    private Slot[] fLocals;
+    private final Object[] fRefs;
 
     /**
-     * @Description: 操作数栈
+     * @Description: 局部变量表在线程栈中的起始下标。被调用方法的局部变量表与调用者操作数栈顶的参数重叠，参数无需复制
      */
-    private Slot[] fOperStacks;
+    private int fLocalsBase;
 
     /**
-     * @Description: 操作数栈深度指针
+     * @Description: 操作数栈深度指针，指向fValues/fRefs中下一个空闲位置
      */
     private int fStackPos;
 
     /**
-     * @Description: Code属性输入流，通过该对象解析方法字节码指令
+     * @Description: 操作数栈在fValues/fRefs中的起始下标，即fLocalsBase + maxLocals
+     */
+    private int fStackBase;
+
+    /**
+     * @Description: 方法预解码指令流，同一方法的所有栈帧共享
      */
-    private PosDataInputStream fCodeStream;
+    private DecodedCode fCode;
 
-    public Frame(Thread thread, Class clazz, MethodInfo method) {
+    /**
+     * @Description: 栈帧由线程按深度预先创建并重复使用，压栈时通过init指向被调用方法
+     */
+    Frame(Thread thread, long[] values, Object[] refs) {
         this.fThread = thread;
-        this.fClass = clazz;
-        this.fMethod = method;
-        initialize();
+        this.fValues = values;
+        this.fRefs = refs;
     }
 
     public void run() {
-        InstructionFactory.Instruction inst = InstructionFactory.createInstruction(fCodeStream);
-        fPC = fCodeStream.getPos();
-        inst.exec(fCodeStream, this);
+        int pc = fPC;
+        int[] insts = fCode.getInsts();
+        InstructionFactory.Instruction inst = InstructionFactory.createInstruction(insts[pc]);
+        //先将PC指向下一条指令，跳转指令执行时再覆盖
+        fPC = pc + DecodedCode.length(insts, pc);
+        inst.exec(insts, pc, this);
     }
 
-    private void initialize() {
-        fPC = 0;
-        AttributeCode attr = getAttributeCode();
+    /**
+     * @Description: 使栈帧指向被调用方法
+     * @Param clazz 方法所属类
+     * @Param method 被调用方法
+     * @Param localsBase 局部变量表在线程栈中的起始下标
+     * @return: void
+     */
+    void init(Class clazz, Method method, int localsBase) {
+        AttributeCode attr = method.getCodeAttribute();
         if (attr == null) {
             throw new RuntimeException("could not found the code attribute");
         }
-        fLocals = new Slot[attr.getMaxLocals()];
-        fOperStacks = new Slot[attr.getMaxStack()];
-        fStackPos = 0;
-        //以字节流形式读取code属性
-        fCodeStream = new PosDataInputStream(new PosByteArrayInputStream(attr.getCode()));
-        try {
-            //标记Code属性字节开始位置，用于需要跳转的指令，传入参数意为若一次读取超过参数大小的字节，mark标记将失效
-            fCodeStream.mark(fCodeStream.available());
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, null, e);
-        }
-    }
-
-    /** 
-     * @Description: 操控偏移PC，若offset为负数，需要reset fCodeStream
-     * @Param offset 偏移值
-     * @return: void 
-     */ 
-    public void offsetPC(int offset){
-        int pc = fPC - 1;
-        if(offset > 0){
-            //举个栗子：读取到字节指令偏移值为5的ifeq指令，紧接着读取到两字节的目标指令偏移值9，即跳至偏移值为14的指令
-            //此时，fPC=6,fCodeStream.getPos=8,offset=9
-            //所以实际上fCodeStream需要skip的字节数为6，跳至14。之所以需要减1，偏移值9是相对ifeq指令来说，而此时fPC的下标实际上比ifeq指令偏移值多1字节
-            offset = offset - (fCodeStream.getPos() - fPC) - 1;
-        }else{
-            try {
-                fCodeStream.reset();
-                offset = pc + offset;
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-
-        try {
-            fCodeStream.skip(offset);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-    
-    /**
-     * @Description: 获取Code属性值
-     */
-    private AttributeCode getAttributeCode() {
-        return (AttributeCode) getAttributeInfo(AttributeInfo.TypeCode);
+        fClass = clazz;
+        fMethod = method;
+        fPC = 0;
+        fLocalsBase = localsBase;
+        fStackBase = localsBase + attr.getMaxLocals();
+        fStackPos = fStackBase;
+        fCode = method.getDecodedCode();
     }
 
     /**
-     * @Description: 获取属性信息
-     * @Param name 属性名称
-     * @return: org.freeinternals.format.classfile.AttributeInfo
+     * @Description: 跳转至目标指令
+     * @Param target 目标指令在预解码指令流中的下标
+     * @return: void
      */
-    private AttributeInfo getAttributeInfo(String name) {
-        for (int i = 0; i < fMethod.getAttributesCount(); i++) {
-            AttributeInfo attr = fMethod.getAttribute(i);
-            if (name.equals(attr.getName())) {
-                return attr;
-            }
-        }
-        return null;
+    public void jumpTo(int target) {
+        fPC = target;
     }
 
     public void pushInt(int i) {
-        fOperStacks[fStackPos++] = new Slot(i);
+        fRefs[fStackPos] = null;
+        fValues[fStackPos++] = i;
     }
 
     public int popInt() {
-        return (Integer) fOperStacks[--fStackPos].getObj();
+        return (int) fValues[--fStackPos];
     }
 
     public void storeInt(int idx, int v) {
-        fLocals[idx] = new Slot(v);
+        fRefs[fLocalsBase + idx] = null;
+        fValues[fLocalsBase + idx] = v;
     }
 
     public int loadInt(int idx) {
-        return (Integer) fLocals[idx].getObj();
+        return (int) fValues[fLocalsBase + idx];
     }
 
-    public void pushSlot(Slot s) {
-        fOperStacks[fStackPos++] = s;
+    /**
+     * @Description: long类型按虚拟机规范占用两个slot，数值完整保存在低下标slot中，高下标slot仅作占位
+     */
+    public void pushLong(long v) {
+        fRefs[fStackPos] = null;
+        fValues[fStackPos] = v;
+        fStackPos += 2;
     }
 
-    public Slot popSlot() {
-        return fOperStacks[--fStackPos];
+    public long popLong() {
+        fStackPos -= 2;
+        return fValues[fStackPos];
     }
 
-    public void storeSlot(int idx, Slot s) {
-        fLocals[idx] = s;
+    public void storeLong(int idx, long v) {
+        fRefs[fLocalsBase + idx] = null;
+        fValues[fLocalsBase + idx] = v;
+    }
+
+    public long loadLong(int idx) {
+        return fValues[fLocalsBase + idx];
+    }
+
+    /**
+     * @Description: float以其IEEE 754位模式（Float.floatToRawIntBits）保存，占用一个slot
+     */
+    public void pushFloat(float f) {
+        pushInt(Float.floatToRawIntBits(f));
     }
 
-    public Slot loadSlot(int idx) {
-        return fLocals[idx];
+    public float popFloat() {
+        return Float.intBitsToFloat(popInt());
+    }
+
+    public void storeFloat(int idx, float f) {
+        storeInt(idx, Float.floatToRawIntBits(f));
+    }
+
+    public float loadFloat(int idx) {
+        return Float.intBitsToFloat(loadInt(idx));
+    }
+
+    /**
+     * @Description: double以其IEEE 754位模式（Double.doubleToRawLongBits）保存，与long相同占用两个slot
+     */
+    public void pushDouble(double d) {
+        pushLong(Double.doubleToRawLongBits(d));
+    }
+
+    public double popDouble() {
+        return Double.longBitsToDouble(popLong());
+    }
+
+    public void storeDouble(int idx, double d) {
+        storeLong(idx, Double.doubleToRawLongBits(d));
+    }
+
+    public double loadDouble(int idx) {
+        return Double.longBitsToDouble(loadLong(idx));
     }
 
     public void pushRef(Object obj) {
-        fOperStacks[fStackPos++] = new Slot(obj);
+        fRefs[fStackPos++] = obj;
     }
 
     public Object popRef() {
-        return fOperStacks[--fStackPos].getObj();
+        Object obj = fRefs[--fStackPos];
+        fRefs[fStackPos] = null;
+        return obj;
+    }
+
+    /**
+     * @Description: 读取栈中引用但不弹出
+     * @Param depth 距栈顶的slot数量，0表示栈顶
+     * @return: java.lang.Object
+     */
+    public Object peekRef(int depth) {
+        return fRefs[fStackPos - 1 - depth];
     }
 
     public void storeRef(int idx, Object obj) {
-        fLocals[idx] = new Slot(obj);
+        fRefs[fLocalsBase + idx] = obj;
     }
 
     public Object loadRef(int idx) {
-        return fLocals[idx].getObj();
+        return fRefs[fLocalsBase + idx];
+    }
+
+    /**
+     * @Description: 以Slot视图压入栈值，供本地方法使用，按Slot的类型写入数值或引用
+     */
+    public void pushSlot(Slot s) {
+        switch (s.getType()) {
+            case INT:
+            case FLOAT:
+                pushInt(s.getInt());
+                break;
+            case LONG:
+            case DOUBLE:
+                pushLong(s.getLong());
+                break;
+            default:
+                pushRef(s.getRef());
+        }
+    }
+
+    /**
+     * @Description: 以Slot视图弹出栈值，供本地方法使用（会分配Slot对象，解释器内部不应使用）。
+     * 存放基本类型的slot可能残留引用，值的类型须由调用者按描述符指定
+     * @Param type 栈顶值的类型
+     * @return: cn.sheratan.jvm.Slot
+     */
+    public Slot popSlot(Slot.Type type) {
+        switch (type) {
+            case INT:
+                return new Slot(popInt());
+            case LONG:
+                return new Slot(popLong());
+            case FLOAT:
+                return new Slot(popFloat());
+            case DOUBLE:
+                return new Slot(popDouble());
+            default:
+                return new Slot(popRef());
+        }
+    }
+
+    public void storeSlot(int idx, Slot s) {
+        switch (s.getType()) {
+            case INT:
+            case FLOAT:
+                storeInt(idx, s.getInt());
+                break;
+            case LONG:
+            case DOUBLE:
+                storeLong(idx, s.getLong());
+                break;
+            default:
+                storeRef(idx, s.getRef());
+        }
+    }
+
+    /**
+     * @Description: 以Slot视图读取局部变量，值的类型须由调用者指定（同popSlot）
+     */
+    public Slot loadSlot(int idx, Slot.Type type) {
+        switch (type) {
+            case INT:
+                return new Slot(loadInt(idx));
+            case LONG:
+                return new Slot(loadLong(idx));
+            case FLOAT:
+                return new Slot(loadFloat(idx));
+            case DOUBLE:
+                return new Slot(loadDouble(idx));
+            default:
+                return new Slot(loadRef(idx));
+        }
+    }
+
+    /**
+     * @Description: 丢弃栈顶n个slot
+     */
+    public void popSlots(int n) {
+        fStackPos -= n;
+    }
+
+    /**
+     * @Description: 复制栈顶copyAmount个slot，并插入到其下depth个slot之后，用于dup系列指令
+     * 例如dup_x1：..., v2, v1 -> ..., v1, v2, v1
+     * @Param copyAmount 复制的slot数量
+     * @Param depth 插入位置距离被复制值的slot数量
+     * @return: void
+     */
+    public void dupSlots(int copyAmount, int depth) {
+        int top = fStackPos;
+        int base = top - copyAmount - depth;
+        //整体上移copyAmount个位置，被复制的值随之移至[top, top + copyAmount)，再将其复制回base处
+        System.arraycopy(fValues, base, fValues, base + copyAmount, copyAmount + depth);
+        System.arraycopy(fRefs, base, fRefs, base + copyAmount, copyAmount + depth);
+        System.arraycopy(fValues, top, fValues, base, copyAmount);
+        System.arraycopy(fRefs, top, fRefs, base, copyAmount);
+        fStackPos = top + copyAmount;
+    }
+
+    /**
+     * @Description: 交换栈顶两个slot
+     */
+    public void swapSlots() {
+        int i = fStackPos - 1;
+        long v = fValues[i];
+        Object r = fRefs[i];
+        fValues[i] = fValues[i - 1];
+        fRefs[i] = fRefs[i - 1];
+        fValues[i - 1] = v;
+        fRefs[i - 1] = r;
     }
 
     public Thread getfThread() {
@@ -182,11 +325,47 @@ public class Frame {
         return fClass;
     }
 
-    public MethodInfo getfMethod() {
+    public Method getfMethod() {
         return fMethod;
     }
 
-    public PosDataInputStream getfCodeStream() {
-        return fCodeStream;
+    public DecodedCode getfCode() {
+        return fCode;
+    }
+
+    int getfPC() {
+        return fPC;
+    }
+
+    public long[] getfValues() {
+        return fValues;
+    }
+
+    public Object[] getfRefs() {
+        return fRefs;
+    }
+
+    public int getfLocalsBase() {
+        return fLocalsBase;
+    }
+
+    int getfStackBase() {
+        return fStackBase;
+    }
+
+    int getfStackPos() {
+        return fStackPos;
+    }
+
+    public void setfStackPos(int stackPos) {
+        fStackPos = stackPos;
+    }
+
+    /**
+     * @Description: 清空操作数栈，进入异常处理器前使用
+     */
+    public void clearStack() {
+        Arrays.fill(fRefs, fStackBase, fStackPos, null);
+        fStackPos = fStackBase;
     }
 }
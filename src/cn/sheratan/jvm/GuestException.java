@@ -0,0 +1,25 @@
+package cn.sheratan.jvm;
+
+/**
+ * @Description: 在宿主层面传递虚拟机内抛出的异常对象。athrow及虚拟机生成的异常均以该异常从指令处理中抛出，
+ * 由解释器捕获后在线程栈帧中查找处理器并展开栈帧。异常用于控制流时抛出频繁，故不填充宿主调用栈
+ * @Author aries
+ * @Data 2026-10-18 07:19
+ */
+public final class GuestException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @Description: 虚拟机内的异常对象（java/lang/Throwable的子类实例）
+     */
+    private final LObject throwable;
+
+    public GuestException(LObject throwable) {
+        super(throwable.getlClazz().getClassName(), null, false, false);
+        this.throwable = throwable;
+    }
+
+    public LObject getThrowable() {
+        return throwable;
+    }
+}
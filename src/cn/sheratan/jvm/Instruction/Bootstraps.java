@@ -0,0 +1,193 @@
+package cn.sheratan.jvm.Instruction;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.GuestException;
+import cn.sheratan.jvm.Thread;
+import org.freeinternals.format.classfile.AbstractCPInfo;
+import org.freeinternals.format.classfile.AttributeBootstrapMethods;
+import org.freeinternals.format.classfile.AttributeInfo;
+import org.freeinternals.format.classfile.ConstantClassInfo;
+import org.freeinternals.format.classfile.ConstantIntegerInfo;
+import org.freeinternals.format.classfile.ConstantInterfaceMethodrefInfo;
+import org.freeinternals.format.classfile.ConstantInvokeDynamicInfo;
+import org.freeinternals.format.classfile.ConstantMethodHandleInfo;
+import org.freeinternals.format.classfile.ConstantMethodTypeInfo;
+import org.freeinternals.format.classfile.ConstantMethodrefInfo;
+import org.freeinternals.format.classfile.ConstantNameAndTypeInfo;
+import org.freeinternals.format.classfile.ConstantStringInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description: invokedynamic引导方法的解析与执行。leafVM不加载java/lang/invoke，引导方法不以虚拟机代码执行，
+ * 而是按其所属类与名称匹配虚拟机内置的实现（intrinsic）：LambdaMetafactory的metafactory/altMetafactory（lambda表达式与方法引用）
+ * 及StringConcatFactory的makeConcatWithConstants/makeConcat（字符串拼接），其余引导方法抛出BootstrapMethodError
+ * @Author aries
+ * @Data 2026-10-18 08:19
+ */
+final class Bootstraps {
+    private static final String LAMBDA_METAFACTORY = "java/lang/invoke/LambdaMetafactory";
+    private static final String STRING_CONCAT_FACTORY = "java/lang/invoke/StringConcatFactory";
+
+    private Bootstraps() {
+    }
+
+    /**
+     * @Description: 常量池中的方法句柄（CONSTANT_MethodHandle），引用方法或字段的符号
+     */
+    static final class MethodHandleRef {
+        final int kind;
+        final String owner;
+        final String name;
+        final String descriptor;
+        final boolean isInterface;
+
+        MethodHandleRef(int kind, String owner, String name, String descriptor, boolean isInterface) {
+            this.kind = kind;
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.isInterface = isInterface;
+        }
+
+        @Override
+        public String toString() {
+            return owner + "." + name + descriptor;
+        }
+    }
+
+    /**
+     * @Description: 方法类型（CONSTANT_MethodType），以方法描述符表示
+     */
+    static final class MethodTypeRef {
+        final String descriptor;
+
+        MethodTypeRef(String descriptor) {
+            this.descriptor = descriptor;
+        }
+    }
+
+    /**
+     * @Description: 运行invokedynamic指令的引导方法，得到该指令的调用点
+     * @Param frame 执行invokedynamic指令的栈帧
+     * @Param idx CONSTANT_InvokeDynamic常量池下标
+     * @return: cn.sheratan.jvm.Instruction.CallSite
+     */
+    static CallSite link(Frame frame, int idx) {
+        Class caller = frame.getfClass();
+        Thread thread = frame.getfThread();
+        AbstractCPInfo[] pool = caller.getClassFile().getConstantPool();
+        ConstantInvokeDynamicInfo info = (ConstantInvokeDynamicInfo) pool[idx];
+        ConstantNameAndTypeInfo nameAndType = (ConstantNameAndTypeInfo) pool[info.getNameAndTypeIndex()];
+        String name = caller.getStringFromConstantPool(nameAndType.getNameIndex());
+        String descriptor = caller.getStringFromConstantPool(nameAndType.getDescriptorIndex());
+
+        AttributeBootstrapMethods.BootstrapMethod bsm = bootstrapMethods(caller, thread).getBootstrapMethod(info.getBootstrapMethodAttrIndex());
+        MethodHandleRef bootstrap = (MethodHandleRef) constant(caller, bsm.getBootstrapMethodRef(), thread);
+        Object[] args = new Object[bsm.getNumBootstrapArguments()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = constant(caller, bsm.getBootstrapArgument(i), thread);
+        }
+
+        if (LAMBDA_METAFACTORY.equals(bootstrap.owner)) {
+            if ("metafactory".equals(bootstrap.name) || "altMetafactory".equals(bootstrap.name)) {
+                return LambdaCallSite.create(caller, name, descriptor, args, thread);
+            }
+        } else if (STRING_CONCAT_FACTORY.equals(bootstrap.owner)) {
+            if ("makeConcatWithConstants".equals(bootstrap.name)) {
+                return StringConcatCallSite.create(descriptor, args, thread);
+            } else if ("makeConcat".equals(bootstrap.name)) {
+                return StringConcatCallSite.create(descriptor);
+            }
+        }
+        throw new GuestException(thread.newThrowable("java/lang/BootstrapMethodError", "unsupported bootstrap method "
+                + bootstrap + " for " + caller.getClassName() + " " + name + descriptor));
+    }
+
+    private static AttributeBootstrapMethods bootstrapMethods(Class clazz, Thread thread) {
+        for (AttributeInfo attr : clazz.getClassFile().getAttributes()) {
+            if (attr instanceof AttributeBootstrapMethods) {
+                return (AttributeBootstrapMethods) attr;
+            }
+        }
+        throw new GuestException(thread.newThrowable("java/lang/ClassFormatError",
+                "missing BootstrapMethods attribute in " + clazz.getClassName()));
+    }
+
+    /**
+     * @Description: 解析引导方法的静态参数：字符串、int常量、类名（CONSTANT_Class）、方法类型与方法句柄
+     */
+    private static Object constant(Class clazz, int idx, Thread thread) {
+        AbstractCPInfo[] pool = clazz.getClassFile().getConstantPool();
+        AbstractCPInfo info = pool[idx];
+        switch (info.getTag()) {
+            case AbstractCPInfo.CONSTANT_String:
+                return clazz.getConstantPoolCache().resolveString(idx);
+            case AbstractCPInfo.CONSTANT_Integer:
+                return ((ConstantIntegerInfo) info).getValue();
+            case AbstractCPInfo.CONSTANT_Class:
+                return clazz.getStringFromConstantPool(((ConstantClassInfo) info).getNameIndex());
+            case AbstractCPInfo.CONSTANT_MethodType:
+                return new MethodTypeRef(clazz.getStringFromConstantPool(((ConstantMethodTypeInfo) info).getDescriptorIndex()));
+            case AbstractCPInfo.CONSTANT_MethodHandle: {
+                ConstantMethodHandleInfo handle = (ConstantMethodHandleInfo) info;
+                AbstractCPInfo ref = pool[handle.getReferenceIndex()];
+                int classIndex;
+                int nameAndTypeIndex;
+                if (ref instanceof ConstantInterfaceMethodrefInfo) {
+                    classIndex = ((ConstantInterfaceMethodrefInfo) ref).getClassIndex();
+                    nameAndTypeIndex = ((ConstantInterfaceMethodrefInfo) ref).getNameAndTypeIndex();
+                } else if (ref instanceof ConstantMethodrefInfo) {
+                    classIndex = ((ConstantMethodrefInfo) ref).getClassIndex();
+                    nameAndTypeIndex = ((ConstantMethodrefInfo) ref).getNameAndTypeIndex();
+                } else {
+                    throw new GuestException(thread.newThrowable("java/lang/BootstrapMethodError",
+                            "unsupported method handle kind " + handle.getReferenceKind() + " in " + clazz.getClassName()));
+                }
+                ConstantNameAndTypeInfo nameAndType = (ConstantNameAndTypeInfo) pool[nameAndTypeIndex];
+                return new MethodHandleRef(handle.getReferenceKind(),
+                        clazz.getStringFromConstantPool(((ConstantClassInfo) pool[classIndex]).getNameIndex()),
+                        clazz.getStringFromConstantPool(nameAndType.getNameIndex()),
+                        clazz.getStringFromConstantPool(nameAndType.getDescriptorIndex()),
+                        ref instanceof ConstantInterfaceMethodrefInfo);
+            }
+            default:
+                throw new GuestException(thread.newThrowable("java/lang/BootstrapMethodError",
+                        "unsupported bootstrap argument " + info.getName() + " in " + clazz.getClassName()));
+        }
+    }
+
+    /**
+     * @Description: 拆分方法描述符的参数类型，如(ILjava/lang/String;[J)V -> [I, Ljava/lang/String;, [J]
+     */
+    static String[] parameterTypes(String descriptor) {
+        List<String> types = new ArrayList<>();
+        int right = descriptor.indexOf(')');
+        for (int i = descriptor.indexOf('(') + 1; i < right; ) {
+            int start = i;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            i = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+            types.add(descriptor.substring(start, i));
+        }
+        return types.toArray(new String[0]);
+    }
+
+    /**
+     * @Description: 方法描述符的返回类型
+     */
+    static String returnType(String descriptor) {
+        return descriptor.substring(descriptor.indexOf(')') + 1);
+    }
+
+    /**
+     * @Description: 类型所占slot数量，long与double占两个，void为0
+     */
+    static int slotSize(String type) {
+        char c = type.charAt(0);
+        return c == 'J' || c == 'D' ? 2 : c == 'V' ? 0 : 1;
+    }
+}
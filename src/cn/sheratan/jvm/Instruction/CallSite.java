@@ -0,0 +1,15 @@
+package cn.sheratan.jvm.Instruction;
+
+import cn.sheratan.jvm.Frame;
+
+/**
+ * @Description: invokedynamic的调用点。每条invokedynamic指令首次执行时运行引导方法（见Bootstraps）得到调用点，
+ * 指令随即改写为invokedynamic_quick并永久链接到该调用点，之后每次执行直接调用，不再运行引导方法。
+ * 参数位于调用者栈帧的操作数栈顶（按indy描述符排列），调用点弹出参数并压入返回值，约定同NativeMethod
+ * @Author aries
+ * @Data 2026-10-18 08:19
+ */
+@FunctionalInterface
+public interface CallSite {
+    void invoke(Frame frame);
+}
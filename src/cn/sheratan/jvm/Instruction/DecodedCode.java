@@ -0,0 +1,594 @@
+package cn.sheratan.jvm.Instruction;
+
+import org.freeinternals.format.classfile.Opcode;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * @Description: 预解码的方法指令流。将Code属性中的字节码一次性解码为紧凑的int数组：
+ * 每条指令依次存放操作码及其预先提取的操作数，跳转指令的偏移量被换算为指令流中的绝对下标，
+ * 执行时直接通过下标访问，不再借助输入流读取字节、也不再需要reset/skip实现跳转。
+ * 另外对部分指令作了归一化处理：ldc_w归为ldc，goto_w归为goto，jsr_w归为jsr，wide前缀指令展开为对应的普通指令。
+ * invokevirtual与invokeinterface末尾追加一个操作数，为该调用点内联缓存的下标。
+ * 解码完成后，再将基本块内已启用的常见指令序列融合为超级指令（见Superinstructions，启用哪些由类加载器的配置决定）
+ * @Author aries
+ * @Data 2026-10-18 06:41
+ */
+public final class DecodedCode {
+
+    /**
+     * @Description: 解码后每个操作码所携带的操作数个数（tableswitch与lookupswitch为变长，单独计算）
+     */
+    private static final int[] OPERAND_COUNT = new int[256];
+
+    static {
+        int[] oneOperand = {
+                Opcode.op_bipush, Opcode.op_sipush, Opcode.op_ldc, Opcode.op_ldc_w, Opcode.op_ldc2_w,
+                Opcode.op_iload, Opcode.op_lload, Opcode.op_fload, Opcode.op_dload, Opcode.op_aload,
+                Opcode.op_istore, Opcode.op_lstore, Opcode.op_fstore, Opcode.op_dstore, Opcode.op_astore,
+                Opcode.op_ret, Opcode.op_newarray, Opcode.op_ifnull, Opcode.op_ifnonnull,
+                Opcode.op_goto_w, Opcode.op_jsr_w,
+                Opcode.op_getstatic, Opcode.op_putstatic, Opcode.op_getfield, Opcode.op_putfield,
+                Opcode.op_invokespecial, Opcode.op_invokestatic, Opcode.op_invokedynamic,
+                Opcode.op_new, Opcode.op_anewarray, Opcode.op_checkcast, Opcode.op_instanceof
+        };
+        for (int op : oneOperand) {
+            OPERAND_COUNT[op] = 1;
+        }
+        //ifeq ~ jsr
+        for (int op = Opcode.op_ifeq; op <= Opcode.op_jsr; op++) {
+            OPERAND_COUNT[op] = 1;
+        }
+        OPERAND_COUNT[QuickOpcode.op_ldc_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_invokestatic_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_invokespecial_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_new_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_getfield_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_putfield_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_getstatic_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_putstatic_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_anewarray_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_checkcast_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_instanceof_quick] = 1;
+        OPERAND_COUNT[QuickOpcode.op_invokedynamic_quick] = 1;
+        for (int i = 0; i < Superinstructions.OPERAND_COUNT.length; i++) {
+            OPERAND_COUNT[Superinstructions.op_iload_iload_iop_istore + i] = Superinstructions.OPERAND_COUNT[i];
+        }
+        OPERAND_COUNT[Opcode.op_iinc] = 2;
+        //invokevirtual: idx, site；invokeinterface: idx, count, site
+        OPERAND_COUNT[Opcode.op_invokevirtual] = 2;
+        OPERAND_COUNT[Opcode.op_invokeinterface] = 3;
+        OPERAND_COUNT[Opcode.op_multianewarray] = 2;
+        OPERAND_COUNT[QuickOpcode.op_multianewarray_quick] = 2;
+    }
+
+    /**
+     * @Description: 指令流
+     */
+    private final int[] insts;
+
+    /**
+     * @Description: 字节码偏移值 -> 指令流下标，非指令起始位置为-1
+     */
+    private final int[] bciToIndex;
+
+    /**
+     * @Description: 指令流下标 -> 字节码偏移值，只有指令起始下标有意义
+     */
+    private final int[] indexToBci;
+
+    /**
+     * @Description: 调用点内联缓存，按调用点在方法中出现的顺序编号
+     */
+    private final InlineCache[] inlineCaches;
+
+    /**
+     * @Description: 快速指令引用的解析结果（方法、类、字符串等），由quicken按需追加
+     */
+    private Object[] resolved = new Object[4];
+    private int resolvedCount;
+
+    private DecodedCode(int[] insts, int[] bciToIndex, int[] indexToBci, InlineCache[] inlineCaches) {
+        this.insts = insts;
+        this.bciToIndex = bciToIndex;
+        this.indexToBci = indexToBci;
+        this.inlineCaches = inlineCaches;
+    }
+
+    /**
+     * @Description: 计算指令流中下标pc处指令（含操作数）所占长度
+     * @Param insts 指令流
+     * @Param pc 指令所在下标
+     * @return: int
+     */
+    public static int length(int[] insts, int pc) {
+        int op = insts[pc];
+        if (op == Opcode.op_tableswitch) {
+            //op, default, low, high, targets[high - low + 1]
+            return 4 + insts[pc + 3] - insts[pc + 2] + 1;
+        } else if (op == Opcode.op_lookupswitch) {
+            //op, default, npairs, (key, target)[npairs]
+            return 3 + 2 * insts[pc + 2];
+        }
+        return 1 + OPERAND_COUNT[op];
+    }
+
+    /**
+     * @Description: 计算tableswitch的跳转目标。解码后的跳转表即为稠密数组，按key - low直接索引
+     * @Param insts 指令流
+     * @Param pc tableswitch指令所在下标
+     * @Param key 栈顶int值
+     * @return: int 跳转目标下标
+     */
+    public static int tableSwitchTarget(int[] insts, int pc, int key) {
+        int low = insts[pc + 2];
+        int high = insts[pc + 3];
+        return key >= low && key <= high ? insts[pc + 4 + (key - low)] : insts[pc + 1];
+    }
+
+    /**
+     * @Description: 计算lookupswitch的跳转目标。JVM规范要求各key升序排列，故在(key, target)对上二分查找
+     * @Param insts 指令流
+     * @Param pc lookupswitch指令所在下标
+     * @Param key 栈顶int值
+     * @return: int 跳转目标下标
+     */
+    public static int lookupSwitchTarget(int[] insts, int pc, int key) {
+        int base = pc + 3;
+        int lo = 0;
+        int hi = insts[pc + 2] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = insts[base + 2 * mid];
+            if (k < key) {
+                lo = mid + 1;
+            } else if (k > key) {
+                hi = mid - 1;
+            } else {
+                return insts[base + 2 * mid + 1];
+            }
+        }
+        return insts[pc + 1];
+    }
+
+    /**
+     * @Description: 解码Code属性字节码，融合全部超级指令
+     * @Param code Code属性中的code字节数组
+     * @return: cn.sheratan.jvm.Instruction.DecodedCode
+     */
+    public static DecodedCode decode(byte[] code) {
+        return decode(code, new int[0], Superinstructions.all());
+    }
+
+    /**
+     * @Description: 解码Code属性字节码
+     * @Param code Code属性中的code字节数组
+     * @Param boundaries 必须保持为指令边界的字节码偏移值（如异常表中的start_pc、end_pc与handler_pc），融合超级指令时不会跨越这些位置
+     * @Param superinstructions 参与融合的超级指令
+     * @return: cn.sheratan.jvm.Instruction.DecodedCode
+     */
+    public static DecodedCode decode(byte[] code, int[] boundaries, Superinstructions superinstructions) {
+        Decoder decoder = new Decoder(code, boundaries, superinstructions);
+        decoder.run();
+        return decoder.build();
+    }
+
+    public int[] getInsts() {
+        return insts;
+    }
+
+    /**
+     * @Description: 将pc处已成功解析的指令原地改写为快速指令，解析结果存入解析结果表，其下标写入原操作数位置。
+     * 快速指令与原指令长度相同，先写操作数再写操作码；leafVM只保证单线程执行，未考虑并发改写
+     * @Param pc 指令所在下标
+     * @Param quickOp 快速指令操作码
+     * @Param target 解析结果
+     * @return: void
+     */
+    public void quicken(int pc, int quickOp, Object target) {
+        if (resolvedCount == resolved.length) {
+            resolved = Arrays.copyOf(resolved, resolvedCount * 2);
+        }
+        resolved[resolvedCount] = target;
+        insts[pc + 1] = resolvedCount++;
+        insts[pc] = quickOp;
+    }
+
+    /**
+     * @Description: 将指令原地改写为操作数自包含（无需解析结果表）的快速指令
+     * @Param pc 指令所在下标
+     * @Param quickOp 快速指令操作码
+     * @Param operand 快速指令操作数
+     * @return: void
+     */
+    public void rewrite(int pc, int quickOp, int operand) {
+        insts[pc + 1] = operand;
+        insts[pc] = quickOp;
+    }
+
+    /**
+     * @Description: 获取快速指令操作数对应的解析结果
+     */
+    public Object getResolved(int idx) {
+        return resolved[idx];
+    }
+
+    public InlineCache getInlineCache(int site) {
+        return inlineCaches[site];
+    }
+
+    public InlineCache[] getInlineCaches() {
+        return inlineCaches;
+    }
+
+    /**
+     * @Description: 输出多态及megamorphic调用点的内联缓存计数
+     * @Param method 方法名称，作为输出中调用点的前缀
+     * @Param out 输出流
+     * @return: void
+     */
+    public void reportInlineCaches(String method, PrintStream out) {
+        for (int pc = 0; pc < insts.length; pc += length(insts, pc)) {
+            int op = insts[pc];
+            if (op != Opcode.op_invokevirtual && op != Opcode.op_invokeinterface) {
+                continue;
+            }
+            InlineCache cache = inlineCaches[insts[pc + (op == Opcode.op_invokeinterface ? 3 : 2)]];
+            if (!cache.isTrivial()) {
+                out.println(method + "@" + indexToBci[pc] + " " + cache);
+            }
+        }
+    }
+
+    /**
+     * @Description: 字节码偏移值转换为指令流下标，字节码末尾（如异常表中的end_pc）对应指令流长度
+     */
+    public int toIndex(int bci) {
+        if (bci == bciToIndex.length) {
+            return insts.length;
+        }
+        return bci >= 0 && bci < bciToIndex.length ? bciToIndex[bci] : -1;
+    }
+
+    /**
+     * @Description: 指令流下标转换为字节码偏移值
+     */
+    public int toBci(int index) {
+        return indexToBci[index];
+    }
+
+    /**
+     * @Description: 指令流下标（可为操作数所在位置）所在指令的操作码，超级指令中的下标对应超级指令本身
+     */
+    public int opAt(int index) {
+        return insts[bciToIndex[indexToBci[index]]];
+    }
+
+    /**
+     * @Description: 解码器，解码分两步：先顺序解码所有指令（跳转目标暂存为字节码偏移值），再统一将跳转目标修正为指令流下标
+     */
+    private static final class Decoder {
+        private final byte[] code;
+        private int[] out;
+        private int size;
+        private int[] indexToBci;
+
+        /**
+         * @Description: 记录指令流中存放跳转目标的位置，待第二步修正
+         */
+        private int[] fixups;
+        private int fixupCount;
+        private final int[] bciToIndex;
+
+        /**
+         * @Description: 虚方法调用点数量
+         */
+        private int siteCount;
+
+        /**
+         * @Description: 必须保持为指令边界的字节码偏移值
+         */
+        private final int[] boundaries;
+
+        private final Superinstructions superinstructions;
+
+        Decoder(byte[] code, int[] boundaries, Superinstructions superinstructions) {
+            this.code = code;
+            this.boundaries = boundaries;
+            this.superinstructions = superinstructions;
+            this.out = new int[code.length + 8];
+            this.indexToBci = new int[out.length];
+            this.fixups = new int[16];
+            this.bciToIndex = new int[code.length];
+            Arrays.fill(bciToIndex, -1);
+        }
+
+        void run() {
+            int bci = 0;
+            while (bci < code.length) {
+                bciToIndex[bci] = size;
+                bci = decodeOne(bci);
+            }
+            for (int i = 0; i < fixupCount; i++) {
+                int pos = fixups[i];
+                int target = bciToIndex[out[pos]];
+                if (target < 0) {
+                    throw new RuntimeException("illegal jump target: " + out[pos]);
+                }
+                out[pos] = target;
+            }
+            fuse();
+        }
+
+        /**
+         * @Description: 融合超级指令。重新生成指令流，融合后的指令可能比原序列更长或更短，
+         * 故需记录原下标到新下标的映射，最后统一修正跳转目标与字节码偏移值映射；被融合序列内部的字节码偏移值不再对应任何指令
+         */
+        private void fuse() {
+            boolean[] isTarget = new boolean[size + 1];
+            boolean[] isFixup = new boolean[size];
+            for (int i = 0; i < fixupCount; i++) {
+                isTarget[out[fixups[i]]] = true;
+                isFixup[fixups[i]] = true;
+            }
+            for (int bci : boundaries) {
+                if (bci < bciToIndex.length && bciToIndex[bci] >= 0) {
+                    isTarget[bciToIndex[bci]] = true;
+                }
+            }
+            int[] newIndex = new int[size + 1];
+            Arrays.fill(newIndex, -1);
+            int[] result = new int[size * 2];
+            int[] resultBci = new int[result.length];
+            int[] newFixups = new int[fixupCount];
+            int newFixupCount = 0;
+            int[] fused = new int[8];
+            boolean changed = false;
+            int n = 0;
+            int i = 0;
+            while (i < size) {
+                newIndex[i] = n;
+                int consumed = superinstructions.match(out, i, size, isTarget, fused);
+                if (consumed > 0) {
+                    int len = length(fused, 0);
+                    System.arraycopy(fused, 0, result, n, len);
+                    Arrays.fill(resultBci, n, n + len, indexToBci[i]);
+                    int targetOperand = Superinstructions.targetOperand(fused[0]);
+                    if (targetOperand > 0) {
+                        newFixups[newFixupCount++] = n + targetOperand;
+                    }
+                    n += len;
+                    i += consumed;
+                    changed = true;
+                } else {
+                    int len = length(out, i);
+                    System.arraycopy(out, i, result, n, len);
+                    System.arraycopy(indexToBci, i, resultBci, n, len);
+                    for (int k = 0; k < len; k++) {
+                        if (isFixup[i + k]) {
+                            newFixups[newFixupCount++] = n + k;
+                        }
+                    }
+                    n += len;
+                    i += len;
+                }
+            }
+            if (!changed) {
+                return;
+            }
+            newIndex[size] = n;
+            for (int k = 0; k < newFixupCount; k++) {
+                result[newFixups[k]] = newIndex[result[newFixups[k]]];
+            }
+            for (int b = 0; b < bciToIndex.length; b++) {
+                if (bciToIndex[b] >= 0) {
+                    bciToIndex[b] = newIndex[bciToIndex[b]];
+                }
+            }
+            out = result;
+            indexToBci = resultBci;
+            size = n;
+            fixups = newFixups;
+            fixupCount = newFixupCount;
+        }
+
+        DecodedCode build() {
+            InlineCache[] inlineCaches = new InlineCache[siteCount];
+            for (int i = 0; i < siteCount; i++) {
+                inlineCaches[i] = new InlineCache();
+            }
+            return new DecodedCode(Arrays.copyOf(out, size), bciToIndex, Arrays.copyOf(indexToBci, size), inlineCaches);
+        }
+
+        /**
+         * @Description: 解码一条指令
+         * @Param bci 指令的字节码偏移值
+         * @return: int 下一条指令的字节码偏移值
+         */
+        private int decodeOne(int bci) {
+            int op = u1(bci);
+            switch (op) {
+                case Opcode.op_bipush:
+                case Opcode.op_newarray:
+                    emit(op, bci);
+                    emit(op == Opcode.op_bipush ? s1(bci + 1) : u1(bci + 1), bci);
+                    return bci + 2;
+                case Opcode.op_sipush:
+                    emit(op, bci);
+                    emit(s2(bci + 1), bci);
+                    return bci + 3;
+                case Opcode.op_ldc:
+                    emit(op, bci);
+                    emit(u1(bci + 1), bci);
+                    return bci + 2;
+                case Opcode.op_ldc_w:
+                    emit(Opcode.op_ldc, bci);
+                    emit(u2(bci + 1), bci);
+                    return bci + 3;
+                case Opcode.op_iload:
+                case Opcode.op_lload:
+                case Opcode.op_fload:
+                case Opcode.op_dload:
+                case Opcode.op_aload:
+                case Opcode.op_istore:
+                case Opcode.op_lstore:
+                case Opcode.op_fstore:
+                case Opcode.op_dstore:
+                case Opcode.op_astore:
+                case Opcode.op_ret:
+                    emit(op, bci);
+                    emit(u1(bci + 1), bci);
+                    return bci + 2;
+                case Opcode.op_iinc:
+                    emit(op, bci);
+                    emit(u1(bci + 1), bci);
+                    emit(s1(bci + 2), bci);
+                    return bci + 3;
+                case Opcode.op_wide:
+                    return decodeWide(bci);
+                case Opcode.op_goto_w:
+                case Opcode.op_jsr_w:
+                    emit(op == Opcode.op_goto_w ? Opcode.op_goto : Opcode.op_jsr, bci);
+                    emitTarget(bci + s4(bci + 1), bci);
+                    return bci + 5;
+                case Opcode.op_tableswitch:
+                    return decodeTableSwitch(bci);
+                case Opcode.op_lookupswitch:
+                    return decodeLookupSwitch(bci);
+                case Opcode.op_invokeinterface:
+                    //第三个字节为count，第四个字节恒为0
+                    emit(op, bci);
+                    emit(u2(bci + 1), bci);
+                    emit(u1(bci + 3), bci);
+                    emit(siteCount++, bci);
+                    return bci + 5;
+                case Opcode.op_invokevirtual:
+                    emit(op, bci);
+                    emit(u2(bci + 1), bci);
+                    emit(siteCount++, bci);
+                    return bci + 3;
+                case Opcode.op_invokedynamic:
+                    emit(op, bci);
+                    emit(u2(bci + 1), bci);
+                    return bci + 5;
+                case Opcode.op_multianewarray:
+                    emit(op, bci);
+                    emit(u2(bci + 1), bci);
+                    emit(u1(bci + 3), bci);
+                    return bci + 4;
+                default:
+                    break;
+            }
+
+            if ((op >= Opcode.op_ifeq && op <= Opcode.op_jsr) || op == Opcode.op_ifnull || op == Opcode.op_ifnonnull) {
+                emit(op, bci);
+                emitTarget(bci + s2(bci + 1), bci);
+                return bci + 3;
+            }
+            if (OPERAND_COUNT[op] == 1) {
+                //常量池下标类指令：ldc2_w, get/put field/static, invoke*, new, anewarray, checkcast, instanceof
+                emit(op, bci);
+                emit(u2(bci + 1), bci);
+                return bci + 3;
+            }
+            emit(op, bci);
+            return bci + 1;
+        }
+
+        /**
+         * @Description: wide指令扩展局部变量下标为两字节，iinc的常量值同样扩展为两字节有符号数
+         */
+        private int decodeWide(int bci) {
+            int op = u1(bci + 1);
+            emit(op, bci);
+            emit(u2(bci + 2), bci);
+            if (op == Opcode.op_iinc) {
+                emit(s2(bci + 4), bci);
+                return bci + 6;
+            }
+            return bci + 4;
+        }
+
+        /**
+         * @Description: tableswitch解码为：op, default, low, high, targets...
+         */
+        private int decodeTableSwitch(int bci) {
+            int p = align(bci);
+            int def = s4(p);
+            int low = s4(p + 4);
+            int high = s4(p + 8);
+            p += 12;
+            emit(Opcode.op_tableswitch, bci);
+            emitTarget(bci + def, bci);
+            emit(low, bci);
+            emit(high, bci);
+            for (int i = 0; i <= high - low; i++, p += 4) {
+                emitTarget(bci + s4(p), bci);
+            }
+            return p;
+        }
+
+        /**
+         * @Description: lookupswitch解码为：op, default, npairs, (key, target)...
+         */
+        private int decodeLookupSwitch(int bci) {
+            int p = align(bci);
+            int def = s4(p);
+            int npairs = s4(p + 4);
+            p += 8;
+            emit(Opcode.op_lookupswitch, bci);
+            emitTarget(bci + def, bci);
+            emit(npairs, bci);
+            for (int i = 0; i < npairs; i++, p += 8) {
+                emit(s4(p), bci);
+                emitTarget(bci + s4(p + 4), bci);
+            }
+            return p;
+        }
+
+        /**
+         * @Description: switch指令操作码之后有0~3字节的padding，保证default字节的起始偏移值为4的倍数
+         */
+        private int align(int bci) {
+            return (bci + 4) & ~3;
+        }
+
+        private void emit(int v, int bci) {
+            if (size == out.length) {
+                out = Arrays.copyOf(out, size * 2);
+                indexToBci = Arrays.copyOf(indexToBci, size * 2);
+            }
+            indexToBci[size] = bci;
+            out[size++] = v;
+        }
+
+        private void emitTarget(int targetBci, int bci) {
+            if (fixupCount == fixups.length) {
+                fixups = Arrays.copyOf(fixups, fixupCount * 2);
+            }
+            fixups[fixupCount++] = size;
+            emit(targetBci, bci);
+        }
+
+        private int u1(int p) {
+            return code[p] & 0xff;
+        }
+
+        private int s1(int p) {
+            return code[p];
+        }
+
+        private int u2(int p) {
+            return ((code[p] & 0xff) << 8) | (code[p + 1] & 0xff);
+        }
+
+        private int s2(int p) {
+            return (short) u2(p);
+        }
+
+        private int s4(int p) {
+            return ((code[p] & 0xff) << 24) | ((code[p + 1] & 0xff) << 16) | ((code[p + 2] & 0xff) << 8) | (code[p + 3] & 0xff);
+        }
+    }
+}
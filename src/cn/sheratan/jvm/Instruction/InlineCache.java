@@ -0,0 +1,162 @@
+package cn.sheratan.jvm.Instruction;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Method;
+
+/**
+ * @Description: invokevirtual/invokeinterface调用点的内联缓存。每个调用点记录最近出现的至多4个接收者类型及其分派结果，
+ * 命中时无需再查vtable/itable；接收者类型超过4个后转为megamorphic状态，之后统一查询全局的(接收者类型, 方法)缓存。
+ * 同时统计每个调用点的命中、未命中、megamorphic查询及其中全局缓存未命中的次数，虚拟机在输出操作码统计时一并输出多态调用点的计数。
+ * leafVM只保证单线程下执行，缓存的更新与计数均未加锁
+ * @Author aries
+ * @Data 2026-10-18 07:01
+ */
+public final class InlineCache {
+
+    /**
+     * @Description: 单个调用点最多缓存的接收者类型数量
+     */
+    public static final int MAX_RECEIVERS = 4;
+
+    /**
+     * @Description: 全局缓存大小，须为2的幂
+     */
+    private static final int GLOBAL_SIZE = 1024;
+
+    /**
+     * @Description: 全局缓存，按(接收者类型, 方法)的哈希值直接映射，冲突时直接覆盖
+     */
+    private static final GlobalEntry[] GLOBAL = new GlobalEntry[GLOBAL_SIZE];
+
+    private final Class[] receivers = new Class[MAX_RECEIVERS];
+    private final Method[] targets = new Method[MAX_RECEIVERS];
+    private int size;
+    private boolean megamorphic;
+
+    private long hits;
+    private long misses;
+    private long megamorphicLookups;
+    private long globalMisses;
+
+    /**
+     * @Description: 全局缓存项，只含final字段
+     */
+    private static final class GlobalEntry {
+        final Class receiver;
+        final Method selector;
+        final Method target;
+
+        GlobalEntry(Class receiver, Method selector, Method target) {
+            this.receiver = receiver;
+            this.selector = selector;
+            this.target = target;
+        }
+    }
+
+    /**
+     * @Description: 在调用点缓存中查找接收者类型对应的目标方法
+     * @Param receiver 接收者类型
+     * @return: cn.sheratan.jvm.Method 未命中时返回null
+     */
+    public Method lookup(Class receiver) {
+        for (int i = 0; i < size; i++) {
+            if (receivers[i] == receiver) {
+                hits++;
+                return targets[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @Description: 未命中时记录分派结果。调用点已缓存4个接收者类型时转为megamorphic，不再记录到调用点
+     * @Param receiver 接收者类型
+     * @Param target 分派得到的目标方法
+     * @return: void
+     */
+    public void update(Class receiver, Method target) {
+        misses++;
+        if (size < MAX_RECEIVERS) {
+            receivers[size] = receiver;
+            targets[size++] = target;
+        } else {
+            megamorphic = true;
+        }
+    }
+
+    /**
+     * @Description: megamorphic状态下查询全局缓存
+     * @Param receiver 接收者类型
+     * @Param selector 解析得到的方法
+     * @return: cn.sheratan.jvm.Method 未命中时返回null
+     */
+    public Method lookupGlobal(Class receiver, Method selector) {
+        megamorphicLookups++;
+        GlobalEntry entry = GLOBAL[globalIndex(receiver, selector)];
+        if (entry != null && entry.receiver == receiver && entry.selector == selector) {
+            return entry.target;
+        }
+        globalMisses++;
+        return null;
+    }
+
+    public static void updateGlobal(Class receiver, Method selector, Method target) {
+        GLOBAL[globalIndex(receiver, selector)] = new GlobalEntry(receiver, selector, target);
+    }
+
+    private static int globalIndex(Class receiver, Method selector) {
+        int h = System.identityHashCode(receiver) * 31 + System.identityHashCode(selector);
+        return (h ^ (h >>> 16)) & (GLOBAL_SIZE - 1);
+    }
+
+    public boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    /**
+     * @Description: 已缓存的接收者类型数量：0为未初始化，1为单态，2~4为多态
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @Description: 第i个缓存的接收者类型及其分派结果，0 <= i < getSize()
+     */
+    public Class getReceiver(int i) {
+        return receivers[i];
+    }
+
+    public Method getTarget(int i) {
+        return targets[i];
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getMegamorphicLookups() {
+        return megamorphicLookups;
+    }
+
+    public long getGlobalMisses() {
+        return globalMisses;
+    }
+
+    /**
+     * @Description: 调用点是否未出现过多个接收者类型（未执行或单态），输出计数时略过这类调用点
+     */
+    public boolean isTrivial() {
+        return !megamorphic && size <= 1;
+    }
+
+    @Override
+    public String toString() {
+        return "InlineCache{receivers=" + size + ", megamorphic=" + megamorphic + ", hits=" + hits
+                + ", misses=" + misses + ", megamorphicLookups=" + megamorphicLookups + ", globalMisses=" + globalMisses + "}";
+    }
+}
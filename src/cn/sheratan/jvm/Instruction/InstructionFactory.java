@@ -1,18 +1,19 @@
 package cn.sheratan.jvm.Instruction;
 
 import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Field;
+import cn.sheratan.jvm.GuestException;
 import cn.sheratan.jvm.Frame;
-import cn.sheratan.jvm.Slot;
+import cn.sheratan.jvm.JIT.CompiledMethod;
+import cn.sheratan.jvm.JIT.TieredPolicy;
+import cn.sheratan.jvm.LArray;
+import cn.sheratan.jvm.LObject;
+import cn.sheratan.jvm.Method;
 import cn.sheratan.jvm.Thread;
 import org.freeinternals.format.classfile.*;
 
-import java.io.DataInputStream;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.logging.Logger;
 
 /**
@@ -28,11 +29,16 @@ public class InstructionFactory {
      */
     private static final Map<Integer, Instruction> instructionMap = new HashMap<>();
 
+    /**
+     * @Description: 按操作码索引的指令处理（未经日志封装），供switch分派解释器处理复杂指令时直接调用
+     */
+    private static final Instruction[] handlers = new Instruction[256];
+
     /**
      * @Description: 指令对象
      */
     public interface Instruction {
-        void exec(DataInputStream codeStream, Frame frame);
+        void exec(int[] code, int pc, Frame frame);
     }
 
     static {
@@ -44,11 +50,11 @@ public class InstructionFactory {
      * @return: void
      */
     private static void initialize() {
-        register(Opcode.op_nop, (codeStream, frame) -> {
+        register(Opcode.op_nop, (code, pc, frame) -> {
             //nothing to do of 'nop' instruction
         });
 
-        register(Opcode.op_aconst_null, (codeStream, frame) -> {
+        register(Opcode.op_aconst_null, (code, pc, frame) -> {
             frame.pushRef(null);
         });
 
@@ -60,99 +66,83 @@ public class InstructionFactory {
         register(Opcode.op_iconst_4, createIConst(4));
         register(Opcode.op_iconst_5, createIConst(5));
 
-        register(Opcode.op_lconst_0, createLConst(0));
+        register(Opcode.op_lconst_0, createLConst(0L));
+        register(Opcode.op_lconst_1, createLConst(1L));
 
-        register(Opcode.op_bipush, (codeStream, frame) -> {
-            try {
-                int c1 = codeStream.readByte();
-                frame.pushInt(c1);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        register(Opcode.op_fconst_0, createFConst(0.0f));
+        register(Opcode.op_fconst_1, createFConst(1.0f));
+        register(Opcode.op_fconst_2, createFConst(2.0f));
+
+        register(Opcode.op_dconst_0, createDConst(0.0));
+        register(Opcode.op_dconst_1, createDConst(1.0));
+
+        register(Opcode.op_bipush, (code, pc, frame) -> {
+            frame.pushInt(code[pc + 1]);
         });
 
-        register(Opcode.op_sipush, (codeStream, frame) -> {
-            try {
-                frame.pushInt(codeStream.readShort());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        register(Opcode.op_sipush, (code, pc, frame) -> {
+            frame.pushInt(code[pc + 1]);
         });
 
 
         /**
          * @Description: Ldc is only usable for constant pool indexes up to 255. When in doubt, use ldc_w, since it always works
+         * 解码时ldc_w已被归一化为ldc，常量池下标统一存放在操作数中
          */
-        register(Opcode.op_ldc, (codeStream, frame) -> {
-            try {
-                int idx = codeStream.readByte();
-                AbstractCPInfo info = frame.getfClass().getClassFile().getConstantPool()[idx];
-                int tag = info.getTag();
-                switch (tag) {
-                    case AbstractCPInfo.CONSTANT_Integer:
-                        int val = ((ConstantIntegerInfo) info).getValue();
-                        frame.pushInt(val);
-                        break;
-                    case AbstractCPInfo.CONSTANT_Float:
-                        //TODO
-                        break;
-                    case AbstractCPInfo.CONSTANT_String:
-                        String str = frame.getfClass().getStringFromConstantPool(((ConstantStringInfo) info).getStringIndex());
-                        frame.pushRef(str);
-                        break;
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_ldc, (code, pc, frame) -> {
+            int idx = code[pc + 1];
+            AbstractCPInfo info = frame.getfClass().getClassFile().getConstantPool()[idx];
+            int tag = info.getTag();
+            switch (tag) {
+                case AbstractCPInfo.CONSTANT_Integer:
+                    int val = ((ConstantIntegerInfo) info).getValue();
+                    frame.pushInt(val);
+                    break;
+                case AbstractCPInfo.CONSTANT_Float:
+                    frame.pushFloat(((ConstantFloatInfo) info).getValue());
+                    break;
+                case AbstractCPInfo.CONSTANT_String:
+                    String str = frame.getfClass().getConstantPoolCache().resolveString(idx);
+                    frame.pushRef(str);
+                    frame.getfCode().quicken(pc, QuickOpcode.op_ldc_quick, str);
+                    break;
             }
         });
 
-        register(Opcode.op_ldc_w, (codeStream, frame) -> {
-            //TODO 宽索引暂未确定占用多少个字节，需考证
+        register(QuickOpcode.op_ldc_quick, (code, pc, frame) -> {
+            frame.pushRef(frame.getfCode().getResolved(code[pc + 1]));
         });
 
-        register(Opcode.op_ldc2_w, (codeStream, frame) -> {
-            try {
-//                int c1 = codeStream.readByte() & 0xff;
-//                int c2 = codeStream.readByte() & 0xff;
-//                int idx = (c1 << 8) + c2;
-                int idx = codeStream.readShort();
-                //long数据类型需要占用8个字节，拆开存储到两个Slot（Slot为4个字节），用字符串存储（可行性待商榷）
-                //这里采取存储原数值对应的补码，正负数都保留符号位
-                String value = frame.getfClass().getStringFromConstantPool(idx);
-                if ("l".equalsIgnoreCase(value.substring(value.length() - 1))) {
-                    value = value.substring(0, value.length() - 1);
-                }
-                StringBuilder v = new StringBuilder(Long.toBinaryString(Long.valueOf(value)));
-                if (value.length() < 64) {
-                    for (int i = value.length(); i < 64; i++) {
-                        v = v.insert(0, "0");
-                    }
-                }
-                //低32位先进栈
-                frame.pushRef(v.substring(32, 64));
-                frame.pushRef(v.substring(0, 32));
-            } catch (IOException e) {
-                e.printStackTrace();
+        /**
+         * @Description: 加载long或double常量，占用两个slot
+         */
+        register(Opcode.op_ldc2_w, (code, pc, frame) -> {
+            AbstractCPInfo info = frame.getfClass().getClassFile().getConstantPool()[code[pc + 1]];
+            if (info.getTag() == AbstractCPInfo.CONSTANT_Long) {
+                frame.pushLong(((ConstantLongInfo) info).getValue());
+            } else if (info.getTag() == AbstractCPInfo.CONSTANT_Double) {
+                frame.pushDouble(((ConstantDoubleInfo) info).getValue());
             }
         });
 
-        register(Opcode.op_iload, (codeStream, frame) -> {
-            try {
-                int v = codeStream.readByte();
-                frame.pushInt(v);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        register(Opcode.op_iload, (code, pc, frame) -> {
+            frame.pushInt(frame.loadInt(code[pc + 1]));
         });
 
-        register(Opcode.op_aload, (codeStream, frame) -> {
-            try {
-                int idx = codeStream.readByte() & 0xff;
-                Object obj = frame.loadRef(idx);
-                frame.pushRef(obj);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        register(Opcode.op_aload, (code, pc, frame) -> {
+            frame.pushRef(frame.loadRef(code[pc + 1]));
+        });
+
+        register(Opcode.op_lload, (code, pc, frame) -> {
+            frame.pushLong(frame.loadLong(code[pc + 1]));
+        });
+
+        register(Opcode.op_fload, (code, pc, frame) -> {
+            frame.pushFloat(frame.loadFloat(code[pc + 1]));
+        });
+
+        register(Opcode.op_dload, (code, pc, frame) -> {
+            frame.pushDouble(frame.loadDouble(code[pc + 1]));
         });
 
         register(Opcode.op_iload_0, createILoad(0));
@@ -160,29 +150,87 @@ public class InstructionFactory {
         register(Opcode.op_iload_2, createILoad(2));
         register(Opcode.op_iload_3, createILoad(3));
 
+        register(Opcode.op_lload_0, createLLoad(0));
+        register(Opcode.op_lload_1, createLLoad(1));
+        register(Opcode.op_lload_2, createLLoad(2));
+        register(Opcode.op_lload_3, createLLoad(3));
+
+        register(Opcode.op_fload_0, createFLoad(0));
+        register(Opcode.op_fload_1, createFLoad(1));
+        register(Opcode.op_fload_2, createFLoad(2));
+        register(Opcode.op_fload_3, createFLoad(3));
+
+        register(Opcode.op_dload_0, createDLoad(0));
+        register(Opcode.op_dload_1, createDLoad(1));
+        register(Opcode.op_dload_2, createDLoad(2));
+        register(Opcode.op_dload_3, createDLoad(3));
+
         register(Opcode.op_aload_0, createALoad(0));
         register(Opcode.op_aload_1, createALoad(1));
         register(Opcode.op_aload_2, createALoad(2));
         register(Opcode.op_aload_3, createALoad(3));
 
-        register(Opcode.op_istore, (codeStream, frame) -> {
-            try {
-                int idx = codeStream.readByte() & 0xff;
-                int v = frame.popInt();
-                frame.storeInt(idx, v);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        /**
+         * @Description: 数组元素读取。数组为null或下标越界时，由宿主抛出的异常转换为虚拟机异常
+         */
+        register(Opcode.op_iaload, (code, pc, frame) -> {
+            int index = frame.popInt();
+            frame.pushInt(((LArray) frame.popRef()).getInts()[index]);
         });
 
-        register(Opcode.op_astore, (codeStream, frame) -> {
-            try {
-                int idx = codeStream.readByte() & 0xff;
-                Object obj = frame.popRef();
-                frame.storeRef(idx, obj);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        register(Opcode.op_laload, (code, pc, frame) -> {
+            int index = frame.popInt();
+            frame.pushLong(((LArray) frame.popRef()).getLongs()[index]);
+        });
+
+        register(Opcode.op_faload, (code, pc, frame) -> {
+            int index = frame.popInt();
+            frame.pushFloat(((LArray) frame.popRef()).getFloats()[index]);
+        });
+
+        register(Opcode.op_daload, (code, pc, frame) -> {
+            int index = frame.popInt();
+            frame.pushDouble(((LArray) frame.popRef()).getDoubles()[index]);
+        });
+
+        register(Opcode.op_aaload, (code, pc, frame) -> {
+            int index = frame.popInt();
+            frame.pushRef(((LArray) frame.popRef()).getRefs()[index]);
+        });
+
+        register(Opcode.op_baload, (code, pc, frame) -> {
+            int index = frame.popInt();
+            frame.pushInt(((LArray) frame.popRef()).getBytes()[index]);
+        });
+
+        register(Opcode.op_caload, (code, pc, frame) -> {
+            int index = frame.popInt();
+            frame.pushInt(((LArray) frame.popRef()).getChars()[index]);
+        });
+
+        register(Opcode.op_saload, (code, pc, frame) -> {
+            int index = frame.popInt();
+            frame.pushInt(((LArray) frame.popRef()).getShorts()[index]);
+        });
+
+        register(Opcode.op_istore, (code, pc, frame) -> {
+            frame.storeInt(code[pc + 1], frame.popInt());
+        });
+
+        register(Opcode.op_astore, (code, pc, frame) -> {
+            frame.storeRef(code[pc + 1], frame.popRef());
+        });
+
+        register(Opcode.op_lstore, (code, pc, frame) -> {
+            frame.storeLong(code[pc + 1], frame.popLong());
+        });
+
+        register(Opcode.op_fstore, (code, pc, frame) -> {
+            frame.storeFloat(code[pc + 1], frame.popFloat());
+        });
+
+        register(Opcode.op_dstore, (code, pc, frame) -> {
+            frame.storeDouble(code[pc + 1], frame.popDouble());
         });
 
         register(Opcode.op_istore_0, createIStore(0));
@@ -190,13 +238,88 @@ public class InstructionFactory {
         register(Opcode.op_istore_2, createIStore(2));
         register(Opcode.op_istore_3, createIStore(3));
 
+        register(Opcode.op_lstore_0, createLStore(0));
+        register(Opcode.op_lstore_1, createLStore(1));
+        register(Opcode.op_lstore_2, createLStore(2));
+        register(Opcode.op_lstore_3, createLStore(3));
+
+        register(Opcode.op_fstore_0, createFStore(0));
+        register(Opcode.op_fstore_1, createFStore(1));
+        register(Opcode.op_fstore_2, createFStore(2));
+        register(Opcode.op_fstore_3, createFStore(3));
+
+        register(Opcode.op_dstore_0, createDStore(0));
+        register(Opcode.op_dstore_1, createDStore(1));
+        register(Opcode.op_dstore_2, createDStore(2));
+        register(Opcode.op_dstore_3, createDStore(3));
+
         register(Opcode.op_astore_0, createAStore(0));
         register(Opcode.op_astore_1, createAStore(1));
         register(Opcode.op_astore_2, createAStore(2));
         register(Opcode.op_astore_3, createAStore(3));
 
-        register(Opcode.op_pop, (codeStream, frame) -> {
-            frame.popSlot();
+        /**
+         * @Description: 数组元素写入，栈中依次为数组、下标、值
+         */
+        register(Opcode.op_iastore, (code, pc, frame) -> {
+            int v = frame.popInt();
+            int index = frame.popInt();
+            ((LArray) frame.popRef()).getInts()[index] = v;
+        });
+
+        register(Opcode.op_lastore, (code, pc, frame) -> {
+            long v = frame.popLong();
+            int index = frame.popInt();
+            ((LArray) frame.popRef()).getLongs()[index] = v;
+        });
+
+        register(Opcode.op_fastore, (code, pc, frame) -> {
+            float v = frame.popFloat();
+            int index = frame.popInt();
+            ((LArray) frame.popRef()).getFloats()[index] = v;
+        });
+
+        register(Opcode.op_dastore, (code, pc, frame) -> {
+            double v = frame.popDouble();
+            int index = frame.popInt();
+            ((LArray) frame.popRef()).getDoubles()[index] = v;
+        });
+
+        /**
+         * @Description: 写入引用类型数组前检查值能否赋给数组元素类型，否则抛出ArrayStoreException
+         */
+        register(Opcode.op_aastore, (code, pc, frame) -> {
+            Object v = frame.popRef();
+            int index = frame.popInt();
+            LArray array = (LArray) frame.popRef();
+            TypeCheck.checkArrayStore(array, v, frame.getfThread(), frame.getfClass().getClassLoader());
+            array.getRefs()[index] = v;
+        });
+
+        /**
+         * @Description: boolean数组与byte数组共用bastore，写入boolean数组时只保留最低位
+         */
+        register(Opcode.op_bastore, (code, pc, frame) -> {
+            int v = frame.popInt();
+            int index = frame.popInt();
+            LArray array = (LArray) frame.popRef();
+            array.getBytes()[index] = (byte) (array.getElementType() == 'Z' ? v & 1 : v);
+        });
+
+        register(Opcode.op_castore, (code, pc, frame) -> {
+            int v = frame.popInt();
+            int index = frame.popInt();
+            ((LArray) frame.popRef()).getChars()[index] = (char) v;
+        });
+
+        register(Opcode.op_sastore, (code, pc, frame) -> {
+            int v = frame.popInt();
+            int index = frame.popInt();
+            ((LArray) frame.popRef()).getShorts()[index] = (short) v;
+        });
+
+        register(Opcode.op_pop, (code, pc, frame) -> {
+            frame.popSlots(1);
         });
 
         /**
@@ -208,9 +331,8 @@ public class InstructionFactory {
          * POP2
          *
          */
-        register(Opcode.op_pop2, (codeStream, frame) -> {
-            frame.popSlot();
-            frame.popSlot();
+        register(Opcode.op_pop2, (code, pc, frame) -> {
+            frame.popSlots(2);
         });
 
         /**
@@ -254,41 +376,44 @@ public class InstructionFactory {
          */
         register(Opcode.op_dup2_x2, createDup(2, 2));
 
-        register(Opcode.op_swap, (codeStream, frame) -> {
-            //貌似jvm目前不支持swap opCode
+        /**
+         * @Description: 交换栈顶两个值（两个值都必须为类型1），javac很少生成该指令
+         */
+        register(Opcode.op_swap, (code, pc, frame) -> {
+            frame.swapSlots();
         });
 
-        register(Opcode.op_iadd, (codeStream, frame) -> {
+        register(Opcode.op_iadd, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             frame.pushInt(i2 + i1);
         });
 
-        register(Opcode.op_isub, (codeStream, frame) -> {
+        register(Opcode.op_isub, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             frame.pushInt(i2 - i1);
         });
 
-        register(Opcode.op_imul, (codeStream, frame) -> {
+        register(Opcode.op_imul, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             frame.pushInt(i2 * i1);
         });
 
-        register(Opcode.op_idiv, (codeStream, frame) -> {
+        register(Opcode.op_idiv, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             frame.pushInt(i2 / i1);
         });
 
-        register(Opcode.op_irem, (codeStream, frame) -> {
+        register(Opcode.op_irem, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             frame.pushInt(i2 % i1);
         });
 
-        register(Opcode.op_ineg, (codeStream, frame) -> {
+        register(Opcode.op_ineg, (code, pc, frame) -> {
             int i1 = frame.popInt();
             frame.pushInt(-i1);
         });
@@ -297,7 +422,7 @@ public class InstructionFactory {
          * @Description: 将int型数值左移指定位数并将结果压入栈顶，注意最大只支持移动31位，溢出的取模（x%32，若x为负数的取模后再+32）
          * 若移动位数位long型，会利用l2i指令强转为int，强转策略为抛弃高32位（若为负数补码也相同直接抛弃补码前32位）
          */
-        register(Opcode.op_ishl, (codeStream, frame) -> {
+        register(Opcode.op_ishl, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             i1 = i1 < 0 ? (i1 % 32) + 32 : i1 % 32;
@@ -307,7 +432,7 @@ public class InstructionFactory {
         /**
          * @Description: 带符号右移，负数左边补1，正数补0
          */
-        register(Opcode.op_ishr, (codeStream, frame) -> {
+        register(Opcode.op_ishr, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             i1 = i1 < 0 ? (i1 % 32) + 32 : i1 % 32;
@@ -317,45 +442,188 @@ public class InstructionFactory {
         /**
          * @Description: 无符号右移，正负数左边均补1
          */
-        register(Opcode.op_iushr, (codeStream, frame) -> {
+        register(Opcode.op_iushr, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             i1 = i1 < 0 ? (i1 % 32) + 32 : i1 % 32;
             frame.pushInt(i2 >>> i1);
         });
 
-        register(Opcode.op_iand, (codeStream, frame) -> {
+        register(Opcode.op_iand, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             frame.pushInt(i2 & i1);
         });
 
-        register(Opcode.op_ior, (codeStream, frame) -> {
+        register(Opcode.op_ior, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             frame.pushInt(i2 | i1);
         });
 
-        register(Opcode.op_ixor, (codeStream, frame) -> {
+        register(Opcode.op_ixor, (code, pc, frame) -> {
             int i1 = frame.popInt();
             int i2 = frame.popInt();
             frame.pushInt(i2 ^ i1);
         });
 
+        register(Opcode.op_ladd, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 + l1);
+        });
+
+        register(Opcode.op_lsub, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 - l1);
+        });
+
+        register(Opcode.op_lmul, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 * l1);
+        });
+
+        register(Opcode.op_ldiv, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 / l1);
+        });
+
+        register(Opcode.op_lrem, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 % l1);
+        });
+
+        register(Opcode.op_lneg, (code, pc, frame) -> {
+            frame.pushLong(-frame.popLong());
+        });
+
+        /**
+         * @Description: long型移位，移动位数为int型且只取低6位
+         */
+        register(Opcode.op_lshl, (code, pc, frame) -> {
+            int i1 = frame.popInt();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 << i1);
+        });
+
+        register(Opcode.op_lshr, (code, pc, frame) -> {
+            int i1 = frame.popInt();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 >> i1);
+        });
+
+        register(Opcode.op_lushr, (code, pc, frame) -> {
+            int i1 = frame.popInt();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 >>> i1);
+        });
+
+        register(Opcode.op_land, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 & l1);
+        });
+
+        register(Opcode.op_lor, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 | l1);
+        });
+
+        register(Opcode.op_lxor, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushLong(l2 ^ l1);
+        });
+
+        /**
+         * @Description: 浮点运算遵循IEEE 754，直接使用宿主Java的float/double运算即可得到与虚拟机规范一致的结果（包括NaN、无穷与负零）
+         */
+        register(Opcode.op_fadd, (code, pc, frame) -> {
+            float f1 = frame.popFloat();
+            float f2 = frame.popFloat();
+            frame.pushFloat(f2 + f1);
+        });
+
+        register(Opcode.op_fsub, (code, pc, frame) -> {
+            float f1 = frame.popFloat();
+            float f2 = frame.popFloat();
+            frame.pushFloat(f2 - f1);
+        });
+
+        register(Opcode.op_fmul, (code, pc, frame) -> {
+            float f1 = frame.popFloat();
+            float f2 = frame.popFloat();
+            frame.pushFloat(f2 * f1);
+        });
+
+        register(Opcode.op_fdiv, (code, pc, frame) -> {
+            float f1 = frame.popFloat();
+            float f2 = frame.popFloat();
+            frame.pushFloat(f2 / f1);
+        });
+
+        /**
+         * @Description: 浮点取余的结果符号与被除数相同（类似C的fmod，而非IEEE 754的remainder）
+         */
+        register(Opcode.op_frem, (code, pc, frame) -> {
+            float f1 = frame.popFloat();
+            float f2 = frame.popFloat();
+            frame.pushFloat(f2 % f1);
+        });
+
+        register(Opcode.op_fneg, (code, pc, frame) -> {
+            frame.pushFloat(-frame.popFloat());
+        });
+
+        register(Opcode.op_dadd, (code, pc, frame) -> {
+            double d1 = frame.popDouble();
+            double d2 = frame.popDouble();
+            frame.pushDouble(d2 + d1);
+        });
+
+        register(Opcode.op_dsub, (code, pc, frame) -> {
+            double d1 = frame.popDouble();
+            double d2 = frame.popDouble();
+            frame.pushDouble(d2 - d1);
+        });
+
+        register(Opcode.op_dmul, (code, pc, frame) -> {
+            double d1 = frame.popDouble();
+            double d2 = frame.popDouble();
+            frame.pushDouble(d2 * d1);
+        });
+
+        register(Opcode.op_ddiv, (code, pc, frame) -> {
+            double d1 = frame.popDouble();
+            double d2 = frame.popDouble();
+            frame.pushDouble(d2 / d1);
+        });
+
+        register(Opcode.op_drem, (code, pc, frame) -> {
+            double d1 = frame.popDouble();
+            double d2 = frame.popDouble();
+            frame.pushDouble(d2 % d1);
+        });
+
+        register(Opcode.op_dneg, (code, pc, frame) -> {
+            frame.pushDouble(-frame.popDouble());
+        });
+
         /**
          * @Description: 该指令含需要两个参数：目标在局部变量表中的下标，常量值
          * 下标值范围：0~256
          * 常量值范围：-128~127
          * 该操作指令可以与wide指令结合，javap中指令显示为：iinc_w。将下标值拓展为两字节无符号位（0~65535），将常量值拓展为两字节符号位（-32768~32767）
+         * wide形式在解码时已展开，这里不需要区分
          */
-        register(Opcode.op_iinc, (codeStream, frame) -> {
-            try {
-                int index = codeStream.readByte();
-                int value = codeStream.readByte();
-                frame.storeInt(index, frame.loadInt(index) + value);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        register(Opcode.op_iinc, (code, pc, frame) -> {
+            int index = code[pc + 1];
+            frame.storeInt(index, frame.loadInt(index) + code[pc + 2]);
         });
 
         /**
@@ -365,220 +633,235 @@ public class InstructionFactory {
 
         register(Opcode.op_i2c, createIntConverted(16, false));
 
+        register(Opcode.op_i2l, (code, pc, frame) -> {
+            frame.pushLong(frame.popInt());
+        });
+
+        /**
+         * @Description: long型转int型，直接抛弃高32位
+         */
+        register(Opcode.op_l2i, (code, pc, frame) -> {
+            frame.pushInt((int) frame.popLong());
+        });
+
+        register(Opcode.op_i2f, (code, pc, frame) -> {
+            frame.pushFloat(frame.popInt());
+        });
+
+        register(Opcode.op_i2d, (code, pc, frame) -> {
+            frame.pushDouble(frame.popInt());
+        });
+
+        register(Opcode.op_l2f, (code, pc, frame) -> {
+            frame.pushFloat(frame.popLong());
+        });
+
+        register(Opcode.op_l2d, (code, pc, frame) -> {
+            frame.pushDouble(frame.popLong());
+        });
+
+        /**
+         * @Description: 浮点转整型：NaN转为0，超出范围的值取目标类型的最大（小）值，与Java强转语义一致
+         */
+        register(Opcode.op_f2i, (code, pc, frame) -> {
+            frame.pushInt((int) frame.popFloat());
+        });
+
+        register(Opcode.op_f2l, (code, pc, frame) -> {
+            frame.pushLong((long) frame.popFloat());
+        });
+
+        register(Opcode.op_f2d, (code, pc, frame) -> {
+            frame.pushDouble(frame.popFloat());
+        });
+
+        register(Opcode.op_d2i, (code, pc, frame) -> {
+            frame.pushInt((int) frame.popDouble());
+        });
+
+        register(Opcode.op_d2l, (code, pc, frame) -> {
+            frame.pushLong((long) frame.popDouble());
+        });
+
+        register(Opcode.op_d2f, (code, pc, frame) -> {
+            frame.pushFloat((float) frame.popDouble());
+        });
+
+        /**
+         * @Description: 比较栈顶两个long值，大于、等于、小于分别压入1、0、-1
+         */
+        register(Opcode.op_lcmp, (code, pc, frame) -> {
+            long l1 = frame.popLong();
+            long l2 = frame.popLong();
+            frame.pushInt(Long.compare(l2, l1));
+        });
+
+        /**
+         * @Description: 比较栈顶两个浮点值，与lcmp不同在于存在NaN时无法比较：
+         * xcmpl压入-1，xcmpg压入1，javac据此保证任一操作数为NaN时条件判断失败
+         */
+        register(Opcode.op_fcmpl, (code, pc, frame) -> {
+            float f1 = frame.popFloat();
+            float f2 = frame.popFloat();
+            frame.pushInt(floatCompare(f2, f1, -1));
+        });
+
+        register(Opcode.op_fcmpg, (code, pc, frame) -> {
+            float f1 = frame.popFloat();
+            float f2 = frame.popFloat();
+            frame.pushInt(floatCompare(f2, f1, 1));
+        });
+
+        register(Opcode.op_dcmpl, (code, pc, frame) -> {
+            double d1 = frame.popDouble();
+            double d2 = frame.popDouble();
+            frame.pushInt(doubleCompare(d2, d1, -1));
+        });
+
+        register(Opcode.op_dcmpg, (code, pc, frame) -> {
+            double d1 = frame.popDouble();
+            double d2 = frame.popDouble();
+            frame.pushInt(doubleCompare(d2, d1, 1));
+        });
+
         register(Opcode.op_i2s, createIntConverted(16, true));
 
         /**
          * @Description: 当栈顶数值等于0时跳转
          */
-        register(Opcode.op_ifeq, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v = frame.popInt();
-                if (v == 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_ifeq, (code, pc, frame) -> {
+            int v = frame.popInt();
+            if (v == 0) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_ifne, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v = frame.popInt();
-                if (v != 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_ifne, (code, pc, frame) -> {
+            int v = frame.popInt();
+            if (v != 0) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_iflt, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v = frame.popInt();
-                if (v < 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_iflt, (code, pc, frame) -> {
+            int v = frame.popInt();
+            if (v < 0) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_ifge, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v = frame.popInt();
-                if (v >= 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_ifge, (code, pc, frame) -> {
+            int v = frame.popInt();
+            if (v >= 0) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_ifgt, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v = frame.popInt();
-                if (v > 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_ifgt, (code, pc, frame) -> {
+            int v = frame.popInt();
+            if (v > 0) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_ifle, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v = frame.popInt();
-                if (v <= 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_ifle, (code, pc, frame) -> {
+            int v = frame.popInt();
+            if (v <= 0) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_if_icmpeq, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v1 = frame.popInt();
-                int v2 = frame.popInt();
-                if (v2 == v1) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_if_icmpeq, (code, pc, frame) -> {
+            int v1 = frame.popInt();
+            int v2 = frame.popInt();
+            if (v2 == v1) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_if_icmpne, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v1 = frame.popInt();
-                int v2 = frame.popInt();
-                if (v2 != v1) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_if_icmpne, (code, pc, frame) -> {
+            int v1 = frame.popInt();
+            int v2 = frame.popInt();
+            if (v2 != v1) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_if_icmplt, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v1 = frame.popInt();
-                int v2 = frame.popInt();
-                if (v2 - v1 < 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_if_icmplt, (code, pc, frame) -> {
+            int v1 = frame.popInt();
+            int v2 = frame.popInt();
+            if (v2 < v1) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_if_icmpge, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v1 = frame.popInt();
-                int v2 = frame.popInt();
-                if (v2 - v1 >= 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_if_icmpge, (code, pc, frame) -> {
+            int v1 = frame.popInt();
+            int v2 = frame.popInt();
+            if (v2 >= v1) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_if_icmpgt, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v1 = frame.popInt();
-                int v2 = frame.popInt();
-                if (v2 - v1 > 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_if_icmpgt, (code, pc, frame) -> {
+            int v1 = frame.popInt();
+            int v2 = frame.popInt();
+            if (v2 > v1) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_if_icmple, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                int v1 = frame.popInt();
-                int v2 = frame.popInt();
-                if (v2 - v1 <= 0) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_if_icmple, (code, pc, frame) -> {
+            int v1 = frame.popInt();
+            int v2 = frame.popInt();
+            if (v2 <= v1) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_if_acmpeq, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                Object o1 = frame.popRef();
-                Object o2 = frame.popRef();
-                if (o1 == o2) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_if_acmpeq, (code, pc, frame) -> {
+            Object o1 = frame.popRef();
+            Object o2 = frame.popRef();
+            if (o1 == o2) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_if_acmpne, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                Object o1 = frame.popRef();
-                Object o2 = frame.popRef();
-                if (o1 != o2) {
-                    frame.offsetPC(offset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_if_acmpne, (code, pc, frame) -> {
+            Object o1 = frame.popRef();
+            Object o2 = frame.popRef();
+            if (o1 != o2) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_goto, (codeStream, frame) -> {
-            try {
-                int offset = codeStream.readUnsignedShort();
-                frame.offsetPC(offset);
-            } catch (IOException e) {
-                e.printStackTrace();
+        register(Opcode.op_ifnull, (code, pc, frame) -> {
+            if (frame.popRef() == null) {
+                frame.jumpTo(code[pc + 1]);
             }
         });
 
-        register(Opcode.op_jsr, (codeStream, frame) -> {
+        register(Opcode.op_ifnonnull, (code, pc, frame) -> {
+            if (frame.popRef() != null) {
+                frame.jumpTo(code[pc + 1]);
+            }
+        });
+
+        register(Opcode.op_goto, (code, pc, frame) -> {
+            frame.jumpTo(code[pc + 1]);
+        });
+
+        register(Opcode.op_jsr, (code, pc, frame) -> {
             //jsr指令貌似被抛弃。具体用法虚拟机规范中写道：
             //the jsr instruction was used with the ret instruction in the implementation of the finally clause.
             //To implement the try-finally construct, a compiler for the Java programming language that generates class files with
             //version number 50.0 or below may use the exception-handling facilities together with two special instructions: jsr ("jump to subroutine") and ret ("return from subroutine").
         });
 
-        register(Opcode.op_ret, (codeStream, frame) -> {
+        register(Opcode.op_ret, (code, pc, frame) -> {
             //通常与jsr配合使用
         });
 
-        Function<Frame, Void> paddingSkip = (frame) -> {
-            PosDataInputStream codeStream = frame.getfCodeStream();
-            //计算相对tableswitch指令需要偏移的padding offset值
-            int current = codeStream.getPos();
-            if (current % 4 != 0) {
-                //4 - (current % 4)计算得到的是相对codeStream.pos的偏移值
-                //而我们目标是获得相对tableswitch指令（比codeStream.pos落后1字节）的偏移值，故需要+1
-                int offset = 4 - (current % 4) + 1;
-                frame.offsetPC(offset);
-            }
-            return null;
-        };
-
         /**
          * @Description: 当jump table比较紧致时(例如：1,2,4,5)，采取tableswitch指令。jump table中会插入若干对指向default的映射，使得table连续且升序排序。
          * The length of tableswitch is equal to 1 for the opcode
@@ -586,27 +869,10 @@ public class InstructionFactory {
          * + 4 bytes for the default jump offset
          * + 4 bytes for low + 4 bytes for high
          * + 4 bytes for each jump offset (there are high-low+1 of them).
+         * 解码后的格式为：op, default, low, high, targets...（padding已去除，偏移值已换算为绝对下标）
          */
-        register(Opcode.op_tableswitch, (codeStream, frame) -> {
-            paddingSkip.apply(frame);
-            try {
-                Map<Integer, Integer> offsetMap = new HashMap<>();
-                int defaultOffset = codeStream.readInt();
-                int start = codeStream.readInt();
-                int end = codeStream.readInt();
-                for (int i = start; i <= end; i++) {
-                    offsetMap.put(i, codeStream.readInt());
-                }
-                int target = frame.popInt();
-                if (offsetMap.containsKey(target)) {
-                    frame.offsetPC(offsetMap.get(target));
-                } else {
-                    frame.offsetPC(defaultOffset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-
+        register(Opcode.op_tableswitch, (code, pc, frame) -> {
+            frame.jumpTo(DecodedCode.tableSwitchTarget(code, pc, frame.popInt()));
         });
 
         /**
@@ -617,78 +883,273 @@ public class InstructionFactory {
          * + 4 bytes for the default jump offset
          * + 4 bytes for npairs pairs number
          * + each pair (consists of an int match and a signed 32-bit offset).
+         * 解码后的格式为：op, default, npairs, (key, target)...
          */
-        register(Opcode.op_lookupswitch, (codeStream, frame) -> {
-            paddingSkip.apply(frame);
-            try {
-                Map<Integer, Integer> offsetMap = new HashMap<>();
-                int defaultOffset = codeStream.readInt();
-                int tatal = codeStream.readInt();
-                for (int i = 0; i < tatal; i++) {
-                    int key = codeStream.readInt();
-                    int offset = codeStream.readInt();
-                    offsetMap.put(key, offset);
-                }
-                int target = frame.popInt();
-                if (offsetMap.containsKey(target)) {
-                    frame.offsetPC(offsetMap.get(target));
-                } else {
-                    frame.offsetPC(defaultOffset);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-
+        register(Opcode.op_lookupswitch, (code, pc, frame) -> {
+            frame.jumpTo(DecodedCode.lookupSwitchTarget(code, pc, frame.popInt()));
         });
 
-        register(Opcode.op_ireturn, (codeStream, frame) -> {
+        register(Opcode.op_ireturn, (code, pc, frame) -> {
             int i = frame.popInt();
             frame.getfThread().popFrame();
             frame.getfThread().topFrame().pushInt(i);
         });
 
-        register(Opcode.op_areturn, (codeStream, frame) -> {
+        register(Opcode.op_lreturn, (code, pc, frame) -> {
+            long l = frame.popLong();
+            frame.getfThread().popFrame();
+            frame.getfThread().topFrame().pushLong(l);
+        });
+
+        register(Opcode.op_freturn, (code, pc, frame) -> {
+            float f = frame.popFloat();
+            frame.getfThread().popFrame();
+            frame.getfThread().topFrame().pushFloat(f);
+        });
+
+        register(Opcode.op_dreturn, (code, pc, frame) -> {
+            double d = frame.popDouble();
+            frame.getfThread().popFrame();
+            frame.getfThread().topFrame().pushDouble(d);
+        });
+
+        register(Opcode.op_areturn, (code, pc, frame) -> {
             Object obj = frame.popRef();
             frame.getfThread().popFrame();
             frame.getfThread().topFrame().pushRef(obj);
         });
 
-        register(Opcode.op_return, (codeStream, frame) -> {
+        register(Opcode.op_return, (code, pc, frame) -> {
             frame.getfThread().popFrame();
         });
 
-        register(Opcode.op_getstatic, (codeStream, frame) -> {
+        register(Superinstructions.op_iload_iload_iop_istore, (code, pc, frame) -> {
+            frame.storeInt(code[pc + 4], Superinstructions.intOp(code[pc + 3], frame.loadInt(code[pc + 1]), frame.loadInt(code[pc + 2])));
+        });
 
+        register(Superinstructions.op_iload_iload_iop, (code, pc, frame) -> {
+            frame.pushInt(Superinstructions.intOp(code[pc + 3], frame.loadInt(code[pc + 1]), frame.loadInt(code[pc + 2])));
         });
 
-        register(Opcode.op_putstatic, (codeStream, frame) -> {
+        register(Superinstructions.op_iinc_goto, (code, pc, frame) -> {
+            frame.storeInt(code[pc + 1], frame.loadInt(code[pc + 1]) + code[pc + 2]);
+            frame.jumpTo(code[pc + 3]);
+        });
 
+        register(Superinstructions.op_iload_iload_if_icmp, (code, pc, frame) -> {
+            if (Superinstructions.intCompare(code[pc + 3], frame.loadInt(code[pc + 1]), frame.loadInt(code[pc + 2]))) {
+                frame.jumpTo(code[pc + 4]);
+            }
         });
 
-        Function<Boolean, Instruction> createInvokeInst = (isStatic) -> {
-            return (codeStream, frame) -> {
-                try {
-                    //获取指向常量池的下标
-//                    int c1 = codeStream.readByte() & 0xff;
-//                    int c2 = codeStream.readByte() & 0xff;
-//                    int idx = (c1 << 8) + c2;
-                    int idx = codeStream.readShort();
-
-                    Class.Symbol symbol = frame.getfClass().resloveMethodByRef(idx);
-                    if (symbol != null) {
-                        //初始化目标方法所属类
-                        initClass(frame.getfThread(), symbol.clazz);
-                    }
-                    //执行方法
-                    invokeMethod(symbol, frame, isStatic);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            };
+        register(Superinstructions.op_iload_iconst_if_icmp, (code, pc, frame) -> {
+            if (Superinstructions.intCompare(code[pc + 3], frame.loadInt(code[pc + 1]), code[pc + 2])) {
+                frame.jumpTo(code[pc + 4]);
+            }
+        });
+
+        /**
+         * @Description: 静态字段存放于声明该字段的类中。首次执行时解析字段并初始化其所属类，之后改写为快速指令
+         */
+        register(Opcode.op_getstatic, (code, pc, frame) -> {
+            Field field = frame.getfClass().getConstantPoolCache().resolveField(code[pc + 1]);
+            initClass(frame.getfThread(), field.getfClass());
+            frame.getfCode().quicken(pc, QuickOpcode.op_getstatic_quick, field);
+            getStatic(frame, field);
+        });
+
+        register(QuickOpcode.op_getstatic_quick, (code, pc, frame) -> {
+            getStatic(frame, (Field) frame.getfCode().getResolved(code[pc + 1]));
+        });
+
+        register(Opcode.op_putstatic, (code, pc, frame) -> {
+            Field field = frame.getfClass().getConstantPoolCache().resolveField(code[pc + 1]);
+            initClass(frame.getfThread(), field.getfClass());
+            frame.getfCode().quicken(pc, QuickOpcode.op_putstatic_quick, field);
+            putStatic(frame, field);
+        });
+
+        register(QuickOpcode.op_putstatic_quick, (code, pc, frame) -> {
+            putStatic(frame, (Field) frame.getfCode().getResolved(code[pc + 1]));
+        });
+
+        register(Opcode.op_invokestatic, (code, pc, frame) -> {
+            Class.Symbol symbol = frame.getfClass().resloveMethodByRef(code[pc + 1]);
+            //初始化目标方法所属类，之后改写为快速指令，不再重复检查
+            initClass(frame.getfThread(), symbol.clazz);
+            frame.getfCode().quicken(pc, QuickOpcode.op_invokestatic_quick, symbol.method);
+            invokeMethod(symbol.method, frame, symbol.argCount);
+        });
+
+        register(Opcode.op_invokespecial, (code, pc, frame) -> {
+            //构造方法、私有方法及super调用，直接调用解析得到的方法，不做动态分派
+            Class.Symbol symbol = frame.getfClass().resloveMethodByRef(code[pc + 1]);
+            if (symbol.method == null) {
+                invokeObjectMethod(symbol, frame);
+            } else {
+                frame.getfCode().quicken(pc, QuickOpcode.op_invokespecial_quick, symbol.method);
+                invokeMethod(symbol.method, frame, symbol.argCount);
+            }
+        });
+
+        Instruction invokeQuick = (code, pc, frame) -> {
+            Method method = (Method) frame.getfCode().getResolved(code[pc + 1]);
+            invokeMethod(method, frame, method.getArgSlots());
         };
-        register(Opcode.op_invokevirtual, createInvokeInst.apply(false));
-        register(Opcode.op_invokespecial, createInvokeInst.apply(false));
-        register(Opcode.op_invokestatic, createInvokeInst.apply(true));
+        register(QuickOpcode.op_invokestatic_quick, invokeQuick);
+        register(QuickOpcode.op_invokespecial_quick, invokeQuick);
+
+        register(Opcode.op_invokevirtual, createVirtualInvoke(2));
+        register(Opcode.op_invokeinterface, createVirtualInvoke(3));
+
+        /**
+         * @Description: 首次执行时运行引导方法得到调用点，之后改写为快速指令，永久链接到该调用点
+         */
+        register(Opcode.op_invokedynamic, (code, pc, frame) -> {
+            CallSite site = Bootstraps.link(frame, code[pc + 1]);
+            frame.getfCode().quicken(pc, QuickOpcode.op_invokedynamic_quick, site);
+            site.invoke(frame);
+        });
+
+        register(QuickOpcode.op_invokedynamic_quick, (code, pc, frame) -> {
+            ((CallSite) frame.getfCode().getResolved(code[pc + 1])).invoke(frame);
+        });
+
+        /**
+         * @Description: 实例字段按链接阶段计算的偏移存取，首次执行后改写为快速指令，不再解析字段；
+         * 对象为null时宿主抛出的空指针异常会被转换为虚拟机的NullPointerException
+         */
+        register(Opcode.op_getfield, (code, pc, frame) -> {
+            Field field = frame.getfClass().getConstantPoolCache().resolveField(code[pc + 1]);
+            int operand = QuickOpcode.fieldOperand(field.getOffset(), fieldKind(field));
+            frame.getfCode().rewrite(pc, QuickOpcode.op_getfield_quick, operand);
+            getField(frame, operand);
+        });
+
+        register(QuickOpcode.op_getfield_quick, (code, pc, frame) -> getField(frame, code[pc + 1]));
+
+        register(Superinstructions.op_aload_0_getfield, (code, pc, frame) -> {
+            Field field = frame.getfClass().getConstantPoolCache().resolveField(code[pc + 1]);
+            int operand = QuickOpcode.fieldOperand(field.getOffset(), fieldKind(field));
+            frame.getfCode().rewrite(pc, Superinstructions.op_aload_0_getfield_quick, operand);
+            frame.pushRef(frame.loadRef(0));
+            getField(frame, operand);
+        });
+
+        register(Superinstructions.op_aload_0_getfield_quick, (code, pc, frame) -> {
+            frame.pushRef(frame.loadRef(0));
+            getField(frame, code[pc + 1]);
+        });
+
+        register(Opcode.op_putfield, (code, pc, frame) -> {
+            Field field = frame.getfClass().getConstantPoolCache().resolveField(code[pc + 1]);
+            int operand = QuickOpcode.fieldOperand(field.getOffset(), fieldKind(field));
+            frame.getfCode().rewrite(pc, QuickOpcode.op_putfield_quick, operand);
+            putField(frame, operand);
+        });
+
+        register(QuickOpcode.op_putfield_quick, (code, pc, frame) -> putField(frame, code[pc + 1]));
+
+        /**
+         * @Description: 抛出栈顶异常对象，由解释器查找处理器；异常对象为null时抛出NullPointerException
+         */
+        register(Opcode.op_athrow, (code, pc, frame) -> {
+            Object throwable = frame.popRef();
+            if (throwable == null) {
+                throw new NullPointerException();
+            }
+            throw new GuestException((LObject) throwable);
+        });
+
+        /**
+         * @Description: 虚拟机只有单个执行线程，监视器无需实际加锁，只弹出对象；对象为null时抛出NullPointerException
+         */
+        register(Opcode.op_monitorenter, (code, pc, frame) -> {
+            if (frame.popRef() == null) {
+                throw new NullPointerException();
+            }
+        });
+
+        register(Opcode.op_monitorexit, (code, pc, frame) -> {
+            if (frame.popRef() == null) {
+                throw new NullPointerException();
+            }
+        });
+
+        register(Opcode.op_new, (code, pc, frame) -> {
+            Class clazz = frame.getfClass().getConstantPoolCache().resolveClass(code[pc + 1]);
+            if (clazz == null) {
+                throw new RuntimeException("unsupported to instantiate java/lang/Object");
+            }
+            initClass(frame.getfThread(), clazz);
+            frame.getfCode().quicken(pc, QuickOpcode.op_new_quick, clazz);
+            frame.pushRef(new LObject(clazz));
+        });
+
+        register(QuickOpcode.op_new_quick, (code, pc, frame) -> {
+            frame.pushRef(new LObject((Class) frame.getfCode().getResolved(code[pc + 1])));
+        });
+
+        register(Opcode.op_newarray, (code, pc, frame) -> {
+            frame.pushRef(LArray.ofAtype(code[pc + 1], frame.popInt()));
+        });
+
+        /**
+         * @Description: 创建引用类型数组。数组元素类型只以描述符记录，不加载元素类（java/lang/Object暂不支持加载）
+         */
+        register(Opcode.op_anewarray, (code, pc, frame) -> {
+            String name = frame.getfClass().getConstantPoolCache().getClassName(code[pc + 1]);
+            String descriptor = "[" + (name.charAt(0) == '[' ? name : "L" + name + ";");
+            frame.getfCode().quicken(pc, QuickOpcode.op_anewarray_quick, descriptor);
+            frame.pushRef(new LArray(descriptor, frame.popInt()));
+        });
+
+        register(QuickOpcode.op_anewarray_quick, (code, pc, frame) -> {
+            frame.pushRef(new LArray((String) frame.getfCode().getResolved(code[pc + 1]), frame.popInt()));
+        });
+
+        /**
+         * @Description: 创建多维数组，操作数为数组类型（常量池下标）及维数，各维长度位于栈顶（最外层维度在最下）
+         */
+        Instruction multianewarray = (code, pc, frame) -> {
+            int[] dims = new int[code[pc + 2]];
+            for (int i = dims.length - 1; i >= 0; i--) {
+                dims[i] = frame.popInt();
+            }
+            frame.pushRef(LArray.multi((String) frame.getfCode().getResolved(code[pc + 1]), dims));
+        };
+        register(Opcode.op_multianewarray, (code, pc, frame) -> {
+            frame.getfCode().quicken(pc, QuickOpcode.op_multianewarray_quick,
+                    frame.getfClass().getConstantPoolCache().getClassName(code[pc + 1]));
+            multianewarray.exec(code, pc, frame);
+        });
+        register(QuickOpcode.op_multianewarray_quick, multianewarray);
+
+        /**
+         * @Description: 类型检查，首次执行时解析目标类型并改写为带有类型缓存的快速指令
+         */
+        register(Opcode.op_checkcast, (code, pc, frame) -> {
+            createTypeCheck(code, pc, frame, QuickOpcode.op_checkcast_quick).checkCast(frame.peekRef(0), frame.getfThread());
+        });
+
+        register(QuickOpcode.op_checkcast_quick, (code, pc, frame) -> {
+            ((TypeCheck) frame.getfCode().getResolved(code[pc + 1])).checkCast(frame.peekRef(0), frame.getfThread());
+        });
+
+        register(Opcode.op_instanceof, (code, pc, frame) -> {
+            TypeCheck check = createTypeCheck(code, pc, frame, QuickOpcode.op_instanceof_quick);
+            Object obj = frame.popRef();
+            frame.pushInt(obj != null && check.isInstance(obj) ? 1 : 0);
+        });
+
+        register(QuickOpcode.op_instanceof_quick, (code, pc, frame) -> {
+            Object obj = frame.popRef();
+            frame.pushInt(obj != null && ((TypeCheck) frame.getfCode().getResolved(code[pc + 1])).isInstance(obj) ? 1 : 0);
+        });
+
+        register(Opcode.op_arraylength, (code, pc, frame) -> {
+            frame.pushInt(((LArray) frame.popRef()).getLength());
+        });
 
     }
 
@@ -700,143 +1161,484 @@ public class InstructionFactory {
      * @return: void
      */
     private static void register(int bytecode, Instruction inst) {
+        handlers[bytecode] = inst;
         //这里对传入的inst参数再次封装成Instruction对象，目的在于减少代码冗余（抽取日志记录代码），有点类似代理模式
-        instructionMap.put(bytecode, (codeStream, frame) -> {
+        instructionMap.put(bytecode, (code, pc, frame) -> {
             LOGGER.info("register instruction: " + bytecode);
-            inst.exec(codeStream, frame);
+            inst.exec(code, pc, frame);
         });
     }
 
-    public static Instruction createInstruction(DataInputStream codeStream) {
-        int codeByte = 0;
-        try {
-            codeByte = codeStream.readByte() & 0xff;
-            Instruction inst = instructionMap.get(codeByte);
-            if (inst == null) {
-                throw new RuntimeException("could not found the instruction: " + codeByte);
-            }
-            return inst;
-        } catch (IOException e) {
-            e.printStackTrace();
+    public static Instruction createInstruction(int codeByte) {
+        Instruction inst = instructionMap.get(codeByte);
+        if (inst == null) {
+            throw new RuntimeException("could not found the instruction: " + codeByte);
+        }
+        return inst;
+    }
+
+    /**
+     * @Description: 判断宿主异常是否由依赖宿主检查的指令抛出：数组访问、除法，以及对null访问字段、调用方法（含arraylength、athrow与monitor指令）
+     * 均不在指令中显式检查，由宿主在执行时抛出对应异常
+     * @Param op 出错指令的操作码（可为快速指令与超级指令），出错指令未知（编译代码）时为-1，此时只按异常类型判断
+     * @Param e 宿主异常
+     * @return: java.lang.String 对应的虚拟机异常类全称，不是这类异常时返回null
+     */
+    public static String hostCheckException(int op, RuntimeException e) {
+        if (e instanceof NullPointerException) {
+            return op < 0 || isNullChecked(op) ? "java/lang/NullPointerException" : null;
+        } else if (e instanceof ArrayIndexOutOfBoundsException) {
+            return op < 0 || isArrayAccess(op) ? "java/lang/ArrayIndexOutOfBoundsException" : null;
+        } else if (e instanceof ArithmeticException) {
+            return op < 0 || op == Opcode.op_idiv || op == Opcode.op_ldiv || op == Opcode.op_irem || op == Opcode.op_lrem
+                    ? "java/lang/ArithmeticException" : null;
+        } else if (e instanceof NegativeArraySizeException) {
+            return op < 0 || op == Opcode.op_newarray || op == Opcode.op_anewarray || op == QuickOpcode.op_anewarray_quick
+                    || op == Opcode.op_multianewarray || op == QuickOpcode.op_multianewarray_quick
+                    ? "java/lang/NegativeArraySizeException" : null;
         }
         return null;
     }
 
-    private static void initClass(Thread thread, Class clazz) {
+    private static boolean isArrayAccess(int op) {
+        return (op >= Opcode.op_iaload && op <= Opcode.op_saload) || (op >= Opcode.op_iastore && op <= Opcode.op_sastore);
+    }
+
+    private static boolean isNullChecked(int op) {
+        switch (op) {
+            case Opcode.op_getfield:
+            case Opcode.op_putfield:
+            case QuickOpcode.op_getfield_quick:
+            case QuickOpcode.op_putfield_quick:
+            case Superinstructions.op_aload_0_getfield:
+            case Superinstructions.op_aload_0_getfield_quick:
+            case Opcode.op_invokevirtual:
+            case Opcode.op_invokespecial:
+            case QuickOpcode.op_invokespecial_quick:
+            case Opcode.op_invokeinterface:
+            case Opcode.op_arraylength:
+            case Opcode.op_athrow:
+            case Opcode.op_monitorenter:
+            case Opcode.op_monitorexit:
+                return true;
+            default:
+                return isArrayAccess(op);
+        }
+    }
+
+    /**
+     * @Description: 获取操作码对应的指令处理
+     * @Param codeByte 操作码
+     * @return: cn.sheratan.jvm.Instruction.InstructionFactory.Instruction
+     */
+    public static Instruction getHandler(int codeByte) {
+        Instruction inst = handlers[codeByte];
+        if (inst == null) {
+            throw new RuntimeException("could not found the instruction: " + codeByte);
+        }
+        return inst;
+    }
+
+    /**
+     * @Description: 类初始化，父类先于子类初始化，每个类只初始化一次
+     * @Param thread 执行线程
+     * @Param clazz 待初始化的类
+     * @return: void
+     */
+    public static void initClass(Thread thread, Class clazz) {
         if (clazz.isStaticInited()) {
             //类已经初始化
             return;
         }
         //初始化阶段主要工作：为静态变量赋初始值。即执行<clinit>:()V方法，只在该类首次初始化时执行
         clazz.setStaticInited();
-        MethodInfo clinitMethod = clazz.findMethod("<clinit>", "()V");
+        //父类需先于子类完成初始化
+        if (clazz.getSuperClass() != null) {
+            initClass(thread, clazz.getSuperClass());
+        }
+        Method clinitMethod = clazz.findMethod("<clinit>", "()V");
         if (clinitMethod != null) {
-            Frame f = new Frame(thread, clazz, clinitMethod);
             //必须等初始化方法完成后，才能继续执行指令
-            thread.runToEnd(f);
+            thread.runToEnd(clinitMethod, 0);
             LOGGER.info("OnInitComplete the " + clazz.getClassName());
         }
     }
 
-    private static void invokeMethod(Class.Symbol symbol, Frame frame, boolean isStatic) {
-        //如symbol为null，表示调用的是java.lang.Object类方法，暂时不支持,作特殊处理
-        if (symbol == null) {
-            if (!isStatic) {
-                //如果调用的是非静态方法，应该从操作数栈中将存储参数的局部变量弹出
-                //TODO 这里处理不当，假如调用java.lang.Object类中的wait(long timeout)方法，应该从操作数栈中弹出两个slot，分别存储this和timeout局部变量
-                frame.popSlot();
+    /**
+     * @Description: 依据接收者的实际类型选择被调用的方法。类方法通过vtable下标分派，接口方法通过itable分派，
+     * 私有方法等不参与动态分派的方法以及接收者不是虚拟机对象（如字符串常量）时，直接使用解析得到的方法
+     * @Param symbol 解析得到的方法实体
+     * @Param receiver 接收者，即操作数栈中位于参数之下的this
+     * @Param thread 执行线程，接收者的类未实现接口时抛出IncompatibleClassChangeError，选中抽象方法时抛出AbstractMethodError
+     * @return: cn.sheratan.jvm.Method 调用的是未被重写的java/lang/Object方法时返回null
+     */
+    public static Method selectMethod(Class.Symbol symbol, Object receiver, Thread thread) {
+        if (receiver == null) {
+            throw new NullPointerException();
+        }
+        if (!(receiver instanceof LObject)) {
+            return symbol.method;
+        }
+        Class receiverClass = ((LObject) receiver).getlClazz();
+        Method method = symbol.method;
+        if (method == null) {
+            return symbol.objectVtableIndex < 0 ? null : receiverClass.getVirtualMethod(symbol.objectVtableIndex);
+        }
+        if (method.getTableIndex() < 0) {
+            return method;
+        }
+        Method target = symbol.clazz.isInterface()
+                ? receiverClass.getInterfaceMethod(symbol.clazz, method.getTableIndex())
+                : receiverClass.getVirtualMethod(method.getTableIndex());
+        if (target == null) {
+            throw new GuestException(thread.newThrowable("java/lang/IncompatibleClassChangeError",
+                    receiverClass.getClassName() + " does not implement " + symbol.clazz.getClassName()));
+        }
+        if (target.isAbstract()) {
+            throw new GuestException(thread.newThrowable("java/lang/AbstractMethodError",
+                    receiverClass.getClassName() + "." + target.getName() + target.getDescriptor()));
+        }
+        return target;
+    }
+
+    /**
+     * @Description: 创建invokevirtual/invokeinterface指令
+     * @Param siteOperand 内联缓存下标在指令中的操作数位置
+     * @return: cn.sheratan.jvm.Instruction.InstructionFactory.Instruction
+     */
+    private static Instruction createVirtualInvoke(int siteOperand) {
+        return (code, pc, frame) -> {
+            Class.Symbol symbol = frame.getfClass().resloveMethodByRef(code[pc + 1]);
+            invokeVirtual(symbol, frame.getfCode().getInlineCache(code[pc + siteOperand]), frame);
+        };
+    }
+
+    /**
+     * @Description: 动态分派调用，先查询调用点内联缓存，未命中时再经vtable/itable分派并记录到缓存。
+     * 编译后的代码同样经由此处调用，使调用点的内联缓存持续记录接收者类型，作为优化编译的类型剖析信息
+     * @Param symbol 解析得到的方法实体
+     * @Param cache 调用点的内联缓存，为null时直接经vtable/itable分派
+     * @Param frame 调用者栈帧，参数已压入其操作数栈
+     * @return: void
+     */
+    public static void invokeVirtual(Class.Symbol symbol, InlineCache cache, Frame frame) {
+        Object receiver = frame.peekRef(symbol.argCount - 1);
+        Method method;
+        if (cache != null && receiver instanceof LObject && symbol.method != null) {
+            Class receiverClass = ((LObject) receiver).getlClazz();
+            method = cache.lookup(receiverClass);
+            if (method == null) {
+                method = cache.isMegamorphic() ? cache.lookupGlobal(receiverClass, symbol.method) : null;
+                if (method == null) {
+                    method = selectMethod(symbol, receiver, frame.getfThread());
+                    if (cache.isMegamorphic()) {
+                        InlineCache.updateGlobal(receiverClass, symbol.method, method);
+                    } else {
+                        cache.update(receiverClass, method);
+                    }
+                }
             }
-            return;
+        } else {
+            method = selectMethod(symbol, receiver, frame.getfThread());
+        }
+        if (method == null) {
+            invokeObjectMethod(symbol, frame);
+        } else {
+            invokeMethod(method, frame, symbol.argCount);
         }
+    }
 
-        if (callNative(symbol, frame)) {
+    /**
+     * @Description: 调用已选定的方法：本地方法直接执行，已编译的方法在宿主中执行至返回，否则压入其栈帧由调用者继续解释执行
+     * @Param method 被调用方法
+     * @Param frame 调用者栈帧，参数已压入其操作数栈
+     * @Param argCount 参数所占slot数量
+     * @return: void
+     */
+    public static void invokeMethod(Method method, Frame frame, int argCount) {
+        if (callNative(method, frame)) {
             return;
         }
 
-        //将参数从当前frame的栈帧中弹出，并存入到新的frame的局部变量表中（注意存储顺序）
-        Frame newFrame = new Frame(frame.getfThread(), symbol.clazz, symbol.method);
-        if (symbol.argCount > 0) {
-            for (int i = symbol.argCount - 1; i >= 0; i--) {
-                Slot s = frame.popSlot();
-                newFrame.storeSlot(i, s);
+        //被调用方法的局部变量表直接从当前frame操作数栈顶的参数处开始，参数无需复制
+        Thread thread = frame.getfThread();
+        TieredPolicy jit = thread.getJit();
+        if (jit != null) {
+            CompiledMethod compiled = jit.onInvoke(method);
+            if (compiled != null && jit.enter()) {
+                //已编译的方法在宿主中同步执行至返回，返回值已压入当前frame的操作数栈
+                try {
+                    compiled.run(thread.pushFrame(method, argCount));
+                } finally {
+                    jit.exit();
+                }
+                return;
+            }
+        }
+        thread.pushFrame(method, argCount);
+    }
+
+    /**
+     * @Description: 供编译后的代码调用不做动态分派的方法（invokestatic、invokespecial），参数已压入frame的操作数栈。
+     * 被调用方法为解释执行时只压入其栈帧，由调用者继续执行（见JitRuntime）
+     * @Param symbol 解析得到的方法实体
+     * @Param frame 调用者栈帧
+     * @return: void
+     */
+    public static void invoke(Class.Symbol symbol, Frame frame) {
+        if (symbol.method == null) {
+            invokeObjectMethod(symbol, frame);
+        } else {
+            invokeMethod(symbol.method, frame, symbol.argCount);
+        }
+    }
+
+    /**
+     * @Description: java.lang.Object类暂不支持加载，其方法在此作特殊处理：equals、hashCode及toString按其默认语义执行，
+     * 接收者为字符串（宿主String）时按字符串的语义执行；clone只支持数组，复制其元素；
+     * 其余方法（如构造方法、notify）仅将参数（包括this）从操作数栈中弹出，例如wait(long timeout)需要弹出三个slot
+     */
+    private static void invokeObjectMethod(Class.Symbol symbol, Frame frame) {
+        switch (symbol.objectVtableIndex) {
+            case 0: {
+                Object other = frame.popRef();
+                Object receiver = frame.popRef();
+                boolean equal = receiver instanceof String ? receiver.equals(other) : receiver == other;
+                frame.pushInt(equal ? 1 : 0);
+                break;
+            }
+            case 1: {
+                Object receiver = frame.popRef();
+                frame.pushInt(receiver instanceof String ? receiver.hashCode() : System.identityHashCode(receiver));
+                break;
+            }
+            case 2: {
+                Object receiver = frame.popRef();
+                frame.pushRef(receiver instanceof String ? receiver : defaultToString(receiver));
+                break;
+            }
+            case 3: {
+                Object receiver = frame.popRef();
+                if (!(receiver instanceof LArray)) {
+                    throw new RuntimeException("unsupported to clone " + defaultToString(receiver));
+                }
+                frame.pushRef(((LArray) receiver).copy());
+                break;
+            }
+            default:
+                frame.popSlots(symbol.argCount);
+        }
+    }
+
+    /**
+     * @Description: java/lang/Object.toString()的默认实现：类名@十六进制哈希值
+     */
+    static String defaultToString(Object obj) {
+        String name;
+        if (obj instanceof LObject) {
+            name = ((LObject) obj).getlClazz().getClassName().replace('/', '.');
+        } else if (obj instanceof LArray) {
+            name = ((LArray) obj).getlDescriptor().replace('/', '.');
+        } else {
+            name = obj.getClass().getName();
+        }
+        return name + "@" + Integer.toHexString(System.identityHashCode(obj));
+    }
+
+    /**
+     * @Description: 解析checkcast/instanceof的目标类型并将指令改写为快速指令
+     */
+    private static TypeCheck createTypeCheck(int[] code, int pc, Frame frame, int quickOp) {
+        TypeCheck check = TypeCheck.resolve(frame.getfClass(), code[pc + 1]);
+        frame.getfCode().quicken(pc, quickOp, check);
+        return check;
+    }
+
+    private static int fieldKind(Field field) {
+        if (field.isReference()) {
+            return QuickOpcode.FIELD_REF;
+        }
+        return field.getSlotSize() == 2 ? QuickOpcode.FIELD_LONG : QuickOpcode.FIELD_INT;
+    }
+
+    /**
+     * @Description: 按快速字段指令的操作数读取栈顶对象的字段
+     */
+    private static void getField(Frame frame, int operand) {
+        LObject obj = (LObject) frame.popRef();
+        int offset = operand >> 2;
+        switch (operand & 3) {
+            case QuickOpcode.FIELD_INT:
+                frame.pushInt((int) obj.getlValues()[offset]);
+                break;
+            case QuickOpcode.FIELD_LONG:
+                frame.pushLong(obj.getlValues()[offset]);
+                break;
+            default:
+                frame.pushRef(obj.getlRefs()[offset]);
+        }
+    }
+
+    /**
+     * @Description: 按快速字段指令的操作数写入对象字段，值位于栈顶，对象位于其下
+     */
+    private static void putField(Frame frame, int operand) {
+        int offset = operand >> 2;
+        switch (operand & 3) {
+            case QuickOpcode.FIELD_INT: {
+                int v = frame.popInt();
+                ((LObject) frame.popRef()).getlValues()[offset] = v;
+                break;
+            }
+            case QuickOpcode.FIELD_LONG: {
+                long v = frame.popLong();
+                ((LObject) frame.popRef()).getlValues()[offset] = v;
+                break;
             }
+            default: {
+                Object v = frame.popRef();
+                ((LObject) frame.popRef()).getlRefs()[offset] = v;
+            }
+        }
+    }
+
+    private static void getStatic(Frame frame, Field field) {
+        Class clazz = field.getfClass();
+        if (field.isReference()) {
+            frame.pushRef(clazz.getStaticRefs()[field.getOffset()]);
+        } else if (field.getSlotSize() == 2) {
+            frame.pushLong(clazz.getStaticValues()[field.getOffset()]);
+        } else {
+            frame.pushInt((int) clazz.getStaticValues()[field.getOffset()]);
+        }
+    }
+
+    private static void putStatic(Frame frame, Field field) {
+        Class clazz = field.getfClass();
+        if (field.isReference()) {
+            clazz.getStaticRefs()[field.getOffset()] = frame.popRef();
+        } else if (field.getSlotSize() == 2) {
+            clazz.getStaticValues()[field.getOffset()] = frame.popLong();
+        } else {
+            clazz.getStaticValues()[field.getOffset()] = frame.popInt();
         }
-        frame.getfThread().pushFrame(newFrame);
     }
 
-    private static boolean callNative(Class.Symbol symbol, Frame frame) {
-        MethodInfo method = symbol.method;
-        Class clazz = symbol.clazz;
-        if ((method.getAccessFlags() & MethodInfo.ACC_NATIVE) != 0) {
-            String clazzName = clazz.getClassName();
-            String methodName = clazz.getStringFromConstantPool(method.getNameIndex());
-            String methodDescription = clazz.getStringFromConstantPool(method.getDescriptorIndex());
-            NativeInstructionFactory.invoke(clazzName, methodName, methodDescription, frame);
+    private static boolean callNative(Method method, Frame frame) {
+        if (method.isNative()) {
+            NativeInstructionFactory.invoke(method, frame);
             return true;
         }
         return false;
     }
 
     private static Instruction createIConst(int v) {
-        return (codeStream, frame) -> {
+        return (code, pc, frame) -> {
             frame.pushInt(v);
         };
     }
 
-    private static Instruction createLConst(int v) {
-        return (codeStream, frame) -> {
+    private static Instruction createLConst(long v) {
+        return (code, pc, frame) -> {
+            frame.pushLong(v);
+        };
+    }
+
+    private static Instruction createLLoad(int idx) {
+        return (code, pc, frame) -> {
+            frame.pushLong(frame.loadLong(idx));
+        };
+    }
+
+    private static Instruction createLStore(int idx) {
+        return (code, pc, frame) -> {
+            frame.storeLong(idx, frame.popLong());
+        };
+    }
+
+    private static Instruction createFConst(float v) {
+        return (code, pc, frame) -> {
+            frame.pushFloat(v);
+        };
+    }
+
+    private static Instruction createDConst(double v) {
+        return (code, pc, frame) -> {
+            frame.pushDouble(v);
+        };
+    }
+
+    private static Instruction createFLoad(int idx) {
+        return (code, pc, frame) -> {
+            frame.pushFloat(frame.loadFloat(idx));
+        };
+    }
+
+    private static Instruction createDLoad(int idx) {
+        return (code, pc, frame) -> {
+            frame.pushDouble(frame.loadDouble(idx));
+        };
+    }
+
+    private static Instruction createFStore(int idx) {
+        return (code, pc, frame) -> {
+            frame.storeFloat(idx, frame.popFloat());
+        };
+    }
 
+    private static Instruction createDStore(int idx) {
+        return (code, pc, frame) -> {
+            frame.storeDouble(idx, frame.popDouble());
         };
     }
 
+    /**
+     * @Description: 浮点比较，任一操作数为NaN时返回nanResult
+     */
+    public static int floatCompare(float v1, float v2, int nanResult) {
+        return v1 > v2 ? 1 : v1 == v2 ? 0 : v1 < v2 ? -1 : nanResult;
+    }
+
+    public static int doubleCompare(double v1, double v2, int nanResult) {
+        return v1 > v2 ? 1 : v1 == v2 ? 0 : v1 < v2 ? -1 : nanResult;
+    }
+
     private static Instruction createALoad(int idx) {
-        return (codeStream, frame) -> {
+        return (code, pc, frame) -> {
             Object obj = frame.loadRef(idx);
             frame.pushRef(obj);
         };
     }
 
     private static Instruction createIStore(int idx) {
-        return (codeStream, frame) -> {
+        return (code, pc, frame) -> {
             int v = frame.popInt();
             frame.storeInt(idx, v);
         };
     }
 
     private static Instruction createAStore(int idx) {
-        return (codeStream, frame) -> {
+        return (code, pc, frame) -> {
             Object obj = frame.popRef();
             frame.storeRef(idx, obj);
         };
     }
 
     private static Instruction createILoad(int idx) {
-        return (codeStream, frame) -> {
+        return (code, pc, frame) -> {
             int v = frame.loadInt(idx);
             frame.pushInt(v);
         };
     }
 
     private static Instruction createDup(int copyAmount, int maxDepth) {
-        List<Slot> tempLst = new ArrayList<>();
-        return (codeStream, frame) -> {
-            for (int i = 0; i < copyAmount; i++) {
-                tempLst.add(frame.popSlot());
-            }
-            for (int i = 0; i < maxDepth; i++) {
-                tempLst.add(frame.popSlot());
-            }
-            for (int i = 0; i < copyAmount; i++) {
-                tempLst.add(tempLst.get(i));
-            }
-            for (int i = tempLst.size() - 1; i >= 0; i--) {
-                frame.pushSlot(tempLst.get(i));
-            }
+        return (code, pc, frame) -> {
+            frame.dupSlots(copyAmount, maxDepth);
         };
     }
 
     private static Instruction createIntConverted(int digitNum, boolean signExtended) {
-        return (codeStream, frame) -> {
+        return (code, pc, frame) -> {
             int target = frame.popInt();
             int skew = 1 << digitNum - 1;
             int low = target & (1 << digitNum) - 1;
@@ -0,0 +1,28 @@
+package cn.sheratan.jvm.Instruction;
+
+import cn.sheratan.jvm.StringTable;
+
+/**
+ * @Description: 虚拟机内置的java/lang本地方法
+ * @Author aries
+ * @Data 2026-10-18 08:05
+ */
+final class JavaLangNatives implements NativeLibrary {
+    private static final String SYSTEM_CLASS = "java/lang/System";
+    private static final String STRING_CLASS = "java/lang/String";
+
+    @Override
+    public void register(Registrar registrar) {
+        registrar.register(SYSTEM_CLASS, "println", "(Ljava/lang/String;)V", (frame) -> {
+            System.out.println((String) frame.popRef());
+        });
+
+        registrar.register(STRING_CLASS, "valueOf", "(I)Ljava/lang/String;", (frame) -> {
+            frame.pushRef(String.valueOf(frame.popInt()));
+        });
+
+        registrar.register(STRING_CLASS, "intern", "()Ljava/lang/String;", (frame) -> {
+            frame.pushRef(StringTable.intern((String) frame.popRef()));
+        });
+    }
+}
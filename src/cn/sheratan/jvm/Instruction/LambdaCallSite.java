@@ -0,0 +1,348 @@
+package cn.sheratan.jvm.Instruction;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.ClassFileWriter;
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.GuestException;
+import cn.sheratan.jvm.LObject;
+import cn.sheratan.jvm.Thread;
+import org.freeinternals.format.classfile.ConstantMethodHandleInfo;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description: LambdaMetafactory.metafactory/altMetafactory的内置实现。链接时为lambda表达式（或方法引用）生成一个实现函数式接口的类：
+ * 捕获的参数存放在实例字段arg$1、arg$2...中，接口方法（及altMetafactory要求的桥接方法）依次加载捕获参数与方法参数后调用目标方法。
+ * 生成的类与普通类一样经由类加载器定义、链接，因而接口调用同样经过itable分派与调用点内联缓存。
+ * 调用点每次执行时创建该类的实例并写入捕获参数；不捕获参数的lambda只创建一个实例，之后总是返回它。
+ * 参数与返回值只支持类型一致（或同为引用类型）的适配，不支持装箱、拆箱与基本类型的拓宽转换
+ * @Author aries
+ * @Data 2026-10-18 08:19
+ */
+final class LambdaCallSite implements CallSite {
+    private static final int FLAG_MARKERS = 1 << 1;
+    private static final int FLAG_BRIDGES = 1 << 2;
+
+    /**
+     * @Description: lambda实现类的访问标志，类文件版本为52.0
+     */
+    private static final int LAMBDA_CLASS_ACCESS = ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER | ClassFileWriter.ACC_SYNTHETIC;
+
+    /**
+     * @Description: 生成类的编号，类名为"调用者类名$$Lambda$编号"
+     */
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final Class lambdaClass;
+
+    /**
+     * @Description: 各捕获参数的类型（描述符首字符）及其在实例中的字段偏移
+     */
+    private final char[] captureTypes;
+    private final int[] captureOffsets;
+
+    /**
+     * @Description: 不捕获参数时共享的唯一实例，否则为null
+     */
+    private final LObject instance;
+
+    private LambdaCallSite(Class lambdaClass, char[] captureTypes, int[] captureOffsets) {
+        this.lambdaClass = lambdaClass;
+        this.captureTypes = captureTypes;
+        this.captureOffsets = captureOffsets;
+        this.instance = captureTypes.length == 0 ? new LObject(lambdaClass) : null;
+    }
+
+    /**
+     * @Description: 生成并定义lambda实现类
+     * @Param caller 执行invokedynamic的类
+     * @Param name 函数式接口方法名称
+     * @Param descriptor indy描述符，参数为捕获的值，返回值为函数式接口
+     * @Param args 引导方法的静态参数：接口方法类型（擦除后）、目标方法句柄、实例化后的方法类型，altMetafactory另有标志及标记接口、桥接方法类型
+     * @Param thread 执行线程
+     * @return: cn.sheratan.jvm.Instruction.LambdaCallSite
+     */
+    static LambdaCallSite create(Class caller, String name, String descriptor, Object[] args, Thread thread) {
+        String samDescriptor = ((Bootstraps.MethodTypeRef) args[0]).descriptor;
+        Bootstraps.MethodHandleRef impl = (Bootstraps.MethodHandleRef) args[1];
+        String returnType = Bootstraps.returnType(descriptor);
+        String iface = returnType.substring(1, returnType.length() - 1);
+
+        Set<String> interfaces = new LinkedHashSet<>();
+        interfaces.add(iface);
+        Set<String> bridges = new LinkedHashSet<>();
+        if (args.length > 3) {
+            int flags = (Integer) args[3];
+            int i = 4;
+            if ((flags & FLAG_MARKERS) != 0) {
+                int count = (Integer) args[i++];
+                for (int j = 0; j < count; j++) {
+                    String marker = (String) args[i++];
+                    //java/io/Serializable等内置接口无法加载，不作为生成类的接口
+                    if (!TypeCheck.isBuiltinType(marker)) {
+                        interfaces.add(marker);
+                    }
+                }
+            }
+            if ((flags & FLAG_BRIDGES) != 0) {
+                int count = (Integer) args[i++];
+                for (int j = 0; j < count; j++) {
+                    bridges.add(((Bootstraps.MethodTypeRef) args[i++]).descriptor);
+                }
+            }
+            bridges.remove(samDescriptor);
+        }
+
+        String[] captures = Bootstraps.parameterTypes(descriptor);
+        String className = caller.getClassName() + "$$Lambda$" + NEXT_ID.incrementAndGet();
+        checkAdaptation(impl, samDescriptor, captures, thread);
+        for (String bridge : bridges) {
+            checkAdaptation(impl, bridge, captures, thread);
+        }
+        ClassFileWriter writer = new ClassFileWriter(52, LAMBDA_CLASS_ACCESS, className, "java/lang/Object",
+                interfaces.toArray(new String[0]));
+        for (int i = 0; i < captures.length; i++) {
+            writer.addField(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_FINAL, "arg$" + (i + 1), captures[i]);
+        }
+        addMethod(writer, ClassFileWriter.ACC_PUBLIC, name, samDescriptor, captures, impl);
+        for (String bridge : bridges) {
+            addMethod(writer, ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_BRIDGE | ClassFileWriter.ACC_SYNTHETIC,
+                    name, bridge, captures, impl);
+        }
+        Class lambdaClass = caller.getClassLoader().defineClass(className, writer.toByteArray(), thread);
+
+        char[] captureTypes = new char[captures.length];
+        int[] captureOffsets = new int[captures.length];
+        for (int i = 0; i < captures.length; i++) {
+            captureTypes[i] = captures[i].charAt(0);
+            captureOffsets[i] = lambdaClass.findField("arg$" + (i + 1), captures[i]).getOffset();
+        }
+        return new LambdaCallSite(lambdaClass, captureTypes, captureOffsets);
+    }
+
+    @Override
+    public void invoke(Frame frame) {
+        if (instance != null) {
+            frame.pushRef(instance);
+            return;
+        }
+        LObject obj = new LObject(lambdaClass);
+        long[] values = obj.getlValues();
+        Object[] refs = obj.getlRefs();
+        for (int i = captureTypes.length - 1; i >= 0; i--) {
+            int offset = captureOffsets[i];
+            switch (captureTypes[i]) {
+                case 'J':
+                    values[offset] = frame.popLong();
+                    break;
+                case 'D':
+                    values[offset] = Double.doubleToRawLongBits(frame.popDouble());
+                    break;
+                case 'F':
+                    values[offset] = Float.floatToRawIntBits(frame.popFloat());
+                    break;
+                case 'L':
+                case '[':
+                    refs[offset] = frame.popRef();
+                    break;
+                default:
+                    values[offset] = frame.popInt();
+            }
+        }
+        frame.pushRef(obj);
+    }
+
+    /**
+     * @Description: 检查目标方法能否适配为接口方法：方法句柄须为调用方法的种类，捕获参数与方法参数依次对应目标方法的参数（含接收者），
+     * 且参数与返回值的存储种类一致，否则抛出BootstrapMethodError（原因为LambdaConversionException）
+     * @Param impl 目标方法
+     * @Param descriptor 接口方法（或桥接方法）描述符
+     * @Param captures 捕获参数的类型
+     * @Param thread 执行线程
+     * @return: void
+     */
+    private static void checkAdaptation(Bootstraps.MethodHandleRef impl, String descriptor, String[] captures, Thread thread) {
+        List<String> implParams = new ArrayList<>();
+        switch (impl.kind) {
+            case ConstantMethodHandleInfo.REF_invokeVirtual:
+            case ConstantMethodHandleInfo.REF_invokeInterface:
+            case ConstantMethodHandleInfo.REF_invokeSpecial:
+                implParams.add("L" + impl.owner + ";");
+                break;
+            case ConstantMethodHandleInfo.REF_invokeStatic:
+            case ConstantMethodHandleInfo.REF_newInvokeSpecial:
+                break;
+            default:
+                throw unsupported(impl, descriptor, thread);
+        }
+        for (String p : Bootstraps.parameterTypes(impl.descriptor)) {
+            implParams.add(p);
+        }
+        String[] params = Bootstraps.parameterTypes(descriptor);
+        if (implParams.size() != captures.length + params.length) {
+            throw unsupported(impl, descriptor, thread);
+        }
+        for (int i = 0; i < params.length; i++) {
+            if (kind(params[i]) != kind(implParams.get(captures.length + i))) {
+                throw unsupported(impl, descriptor, thread);
+            }
+        }
+        String returnType = Bootstraps.returnType(descriptor);
+        String implReturn = impl.kind == ConstantMethodHandleInfo.REF_newInvokeSpecial
+                ? "L" + impl.owner + ";" : Bootstraps.returnType(impl.descriptor);
+        if (kind(returnType) != 'V' && kind(returnType) != kind(implReturn)) {
+            throw unsupported(impl, descriptor, thread);
+        }
+    }
+
+    private static GuestException unsupported(Bootstraps.MethodHandleRef impl, String descriptor, Thread thread) {
+        return new GuestException(thread.newThrowable("java/lang/BootstrapMethodError",
+                "java.lang.invoke.LambdaConversionException: unsupported adaptation of " + impl + " to " + descriptor));
+    }
+
+    /**
+     * @Description: 类型的存储种类：引用、int（含boolean、byte、char、short）、long、float、double、void
+     */
+    private static char kind(String type) {
+        char c = type.charAt(0);
+        switch (c) {
+            case '[':
+                return 'L';
+            case 'Z':
+            case 'B':
+            case 'C':
+            case 'S':
+                return 'I';
+            default:
+                return c;
+        }
+    }
+
+    /**
+     * @Description: 生成接口方法：加载捕获参数与方法参数，调用目标方法并按方法返回类型返回。适配须已经过checkAdaptation检查
+     * @Param cw lambda实现类的类文件
+     * @Param access 访问标志
+     * @Param name 方法名称
+     * @Param descriptor 方法描述符
+     * @Param captures 捕获参数的类型
+     * @Param impl 目标方法
+     * @return: void
+     */
+    private static void addMethod(ClassFileWriter cw, int access, String name, String descriptor, String[] captures,
+                                  Bootstraps.MethodHandleRef impl) {
+        String[] params = Bootstraps.parameterTypes(descriptor);
+        boolean constructor = impl.kind == ConstantMethodHandleInfo.REF_newInvokeSpecial;
+        String returnType = Bootstraps.returnType(descriptor);
+        String implReturn = constructor ? "L" + impl.owner + ";" : Bootstraps.returnType(impl.descriptor);
+
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+        int stack = 0;
+        int slot = 1;
+        try {
+            if (constructor) {
+                code.writeByte(Opcode.op_new);
+                code.writeShort(cw.classRef(impl.owner));
+                code.writeByte(Opcode.op_dup);
+                stack += 2;
+            }
+            for (int i = 0; i < captures.length; i++) {
+                code.writeByte(Opcode.op_aload_0);
+                code.writeByte(Opcode.op_getfield);
+                code.writeShort(cw.fieldRef(cw.thisName(), "arg$" + (i + 1), captures[i]));
+                stack += Bootstraps.slotSize(captures[i]);
+            }
+            for (String p : params) {
+                code.writeByte(loadOpcode(kind(p)));
+                code.writeByte(slot);
+                slot += Bootstraps.slotSize(p);
+            }
+            stack += slot - 1;
+
+            int implRef = impl.isInterface ? cw.interfaceMethodRef(impl.owner, impl.name, impl.descriptor)
+                    : cw.methodRef(impl.owner, impl.name, impl.descriptor);
+            switch (impl.kind) {
+                case ConstantMethodHandleInfo.REF_invokeStatic:
+                    code.writeByte(Opcode.op_invokestatic);
+                    code.writeShort(implRef);
+                    break;
+                case ConstantMethodHandleInfo.REF_invokeVirtual:
+                    code.writeByte(Opcode.op_invokevirtual);
+                    code.writeShort(implRef);
+                    break;
+                case ConstantMethodHandleInfo.REF_invokeInterface:
+                    code.writeByte(Opcode.op_invokeinterface);
+                    code.writeShort(implRef);
+                    code.writeByte(1 + countSlots(Bootstraps.parameterTypes(impl.descriptor)));
+                    code.writeByte(0);
+                    break;
+                case ConstantMethodHandleInfo.REF_invokeSpecial:
+                case ConstantMethodHandleInfo.REF_newInvokeSpecial:
+                    code.writeByte(Opcode.op_invokespecial);
+                    code.writeShort(implRef);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupported method handle kind " + impl.kind);
+            }
+
+            if (kind(returnType) == 'V') {
+                int size = Bootstraps.slotSize(implReturn);
+                if (size > 0) {
+                    code.writeByte(size == 2 ? Opcode.op_pop2 : Opcode.op_pop);
+                }
+                code.writeByte(Opcode.op_return);
+            } else {
+                code.writeByte(returnOpcode(kind(returnType)));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        cw.addMethod(access, name, descriptor, Math.max(stack, 2), slot, codeBytes.toByteArray(), new int[0][]);
+    }
+
+    private static int countSlots(String[] types) {
+        int slots = 0;
+        for (String type : types) {
+            slots += Bootstraps.slotSize(type);
+        }
+        return slots;
+    }
+
+    private static int loadOpcode(char kind) {
+        switch (kind) {
+            case 'I':
+                return Opcode.op_iload;
+            case 'J':
+                return Opcode.op_lload;
+            case 'F':
+                return Opcode.op_fload;
+            case 'D':
+                return Opcode.op_dload;
+            default:
+                return Opcode.op_aload;
+        }
+    }
+
+    private static int returnOpcode(char kind) {
+        switch (kind) {
+            case 'I':
+                return Opcode.op_ireturn;
+            case 'J':
+                return Opcode.op_lreturn;
+            case 'F':
+                return Opcode.op_freturn;
+            case 'D':
+                return Opcode.op_dreturn;
+            default:
+                return Opcode.op_areturn;
+        }
+    }
+}
@@ -1,54 +1,57 @@
 package cn.sheratan.jvm.Instruction;
 
 import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.GuestException;
+import cn.sheratan.jvm.Method;
 
 import java.util.HashMap;
+import java.util.ServiceLoader;
 import java.util.logging.Logger;
 
 /**
- * @Description: 本地方法指令处理
+ * @Description: 本地方法指令处理。本地方法在类链接时按类名、方法名及描述符查找一次并绑定到方法上，调用时直接执行绑定的实现。
+ * 除内置的java/lang本地方法外，其余本地方法库通过ServiceLoader加载（见NativeLibrary）
  * @Author aries
  * @Data 2019-03-18 16:27
  */
 public class NativeInstructionFactory {
     private static final Logger LOGGER = Logger.getLogger(NativeInstructionFactory.class.getName());
-    private static final String SYSTEM_CLASS = "java/lang/System";
-    private static final String STRING_CLASS = "java/lang/String";
-
-    private interface NativeMethod{
-        void exec(Frame frame);
-    }
 
     /**
-     * @Description: 存储本地方法
+     * @Description: 存储本地方法，仅在链接时查找
      */
     private static final HashMap<String, NativeMethod> nativeMethodMap;
 
     static{
         nativeMethodMap = new HashMap<>();
-        registerNativeMethod();
+        NativeLibrary.Registrar registrar = (clazzName, methodName, methodDescription, method) -> {
+            nativeMethodMap.put(keyProduce(clazzName, methodName, methodDescription), method);
+        };
+        new JavaLangNatives().register(registrar);
+        for (NativeLibrary library : ServiceLoader.load(NativeLibrary.class)) {
+            LOGGER.info("register the native library : " + library.getClass().getName());
+            library.register(registrar);
+        }
     }
 
-    private static void registerNativeMethod() {
-        nativeMethodMap.put(keyProduce(SYSTEM_CLASS, "println", "(Ljava/lang/String;)V"), (frame) ->{
-            String s = (String)frame.popRef();
-            System.out.println(s);
-        });
-
-        nativeMethodMap.put(keyProduce(STRING_CLASS, "valueOf", "(I)Ljava/lang/String;"), (frame) ->{
-            int v = frame.popInt();
-            String str = String.valueOf(v);
-            frame.pushRef(str);
-        });
+    /**
+     * @Description: 查找本地方法的实现
+     * @Param method 本地方法
+     * @return: cn.sheratan.jvm.Instruction.NativeMethod 未找到时返回null
+     */
+    public static NativeMethod lookup(Method method) {
+        return nativeMethodMap.get(keyProduce(method.getmClass().getClassName(), method.getName(), method.getDescriptor()));
     }
 
-    public static void invoke(String clazzName, String methodName, String methodDescription, Frame frame){
-        String key = keyProduce(clazzName, methodName, methodDescription);
-        NativeMethod nativeMethod = nativeMethodMap.get(key);
-        if(nativeMethod == null){
-            throw new RuntimeException("not found the native method : " + key);
+    /**
+     * @Description: 执行本地方法，方法在链接时未能绑定实现时抛出UnsatisfiedLinkError
+     */
+    public static void invoke(Method method, Frame frame) {
+        NativeMethod nativeMethod = method.getNativeMethod();
+        if (nativeMethod == null) {
+            throw new GuestException(frame.getfThread().newThrowable("java/lang/UnsatisfiedLinkError",
+                    method.getmClass().getClassName() + "." + method.getName() + method.getDescriptor()));
         }
-        LOGGER.info("call the native method : " + key);
         nativeMethod.exec(frame);
     }
 
@@ -0,0 +1,30 @@
+package cn.sheratan.jvm.Instruction;
+
+/**
+ * @Description: 本地方法库SPI。实现类通过java.util.ServiceLoader发现（在META-INF/services/cn.sheratan.jvm.Instruction.NativeLibrary
+ * 中声明），虚拟机启动时一次性登记其提供的全部本地方法，之后在类链接时绑定到对应的方法上
+ * @Author aries
+ * @Data 2026-10-18 08:05
+ */
+public interface NativeLibrary {
+
+    /**
+     * @Description: 登记本库提供的本地方法
+     * @Param registrar 登记入口
+     * @return: void
+     */
+    void register(Registrar registrar);
+
+    @FunctionalInterface
+    interface Registrar {
+        /**
+         * @Description: 登记一个本地方法，同一方法重复登记时后登记者生效
+         * @Param className 类全称，如java/lang/System
+         * @Param methodName 方法名称
+         * @Param descriptor 方法描述符
+         * @Param method 宿主实现
+         * @return: void
+         */
+        void register(String className, String methodName, String descriptor, NativeMethod method);
+    }
+}
@@ -0,0 +1,14 @@
+package cn.sheratan.jvm.Instruction;
+
+import cn.sheratan.jvm.Frame;
+
+/**
+ * @Description: 本地方法的宿主实现。参数位于调用者栈帧的操作数栈顶，实现通过Frame的类型化方法（popInt、popLong、popRef等）
+ * 按描述符逆序弹出参数（实例方法最后弹出this），返回值以对应的push方法压入，参数与返回值均不装箱
+ * @Author aries
+ * @Data 2026-10-18 08:05
+ */
+@FunctionalInterface
+public interface NativeMethod {
+    void exec(Frame frame);
+}
@@ -0,0 +1,115 @@
+package cn.sheratan.jvm.Instruction;
+
+import org.freeinternals.format.classfile.Opcode;
+
+/**
+ * @Description: 虚拟机内部使用的快速指令操作码，占用JVM规范中未定义的操作码区间（203 ~ 219，220起为超级指令，见Superinstructions）。
+ * 需要解析符号引用的指令首次执行成功后，被原地改写为对应的快速指令，操作数改为预解码方法中解析结果表的下标，
+ * 之后执行时直接取用解析结果，不再经过常量池缓存与类初始化检查
+ * @Author aries
+ * @Data 2026-10-18 07:03
+ */
+public final class QuickOpcode {
+
+    private QuickOpcode() {
+    }
+
+    /**
+     * @Description: ldc加载字符串常量，解析结果为字符串对象
+     */
+    public static final int op_ldc_quick = 203;
+
+    /**
+     * @Description: 解析结果为目标方法，所属类已完成初始化
+     */
+    public static final int op_invokestatic_quick = 204;
+
+    /**
+     * @Description: 解析结果为目标方法
+     */
+    public static final int op_invokespecial_quick = 205;
+
+    /**
+     * @Description: 解析结果为待实例化的类，该类已完成初始化
+     */
+    public static final int op_new_quick = 206;
+
+    /**
+     * @Description: 实例字段存取，操作数不是解析结果表的下标，而是由fieldOperand编码的字段偏移与字段种类
+     */
+    public static final int op_getfield_quick = 207;
+    public static final int op_putfield_quick = 208;
+
+    /**
+     * @Description: 解析结果为静态字段，所属类已完成初始化
+     */
+    public static final int op_getstatic_quick = 209;
+    public static final int op_putstatic_quick = 210;
+
+    /**
+     * @Description: 解析结果为数组类型描述符
+     */
+    public static final int op_anewarray_quick = 211;
+    public static final int op_multianewarray_quick = 212;
+
+    /**
+     * @Description: 解析结果为类型检查点（TypeCheck），带有该位置最近一次通过检查的类型缓存
+     */
+    public static final int op_checkcast_quick = 213;
+    public static final int op_instanceof_quick = 214;
+
+    /**
+     * @Description: 解析结果为引导方法返回的调用点（CallSite），每条invokedynamic指令一个
+     */
+    public static final int op_invokedynamic_quick = 215;
+
+    /**
+     * @Description: 快速字段指令的字段种类：存放于对象数值部分的单slot值、双slot值（long、double），以及引用
+     */
+    public static final int FIELD_INT = 0;
+    public static final int FIELD_LONG = 1;
+    public static final int FIELD_REF = 2;
+
+    /**
+     * @Description: 编码快速字段指令的操作数，低2位为字段种类，其余为字段偏移
+     */
+    public static int fieldOperand(int offset, int kind) {
+        return offset << 2 | kind;
+    }
+
+    /**
+     * @Description: 获取快速指令对应的原始指令操作码，非快速指令原样返回
+     */
+    public static int original(int op) {
+        switch (op) {
+            case op_ldc_quick:
+                return Opcode.op_ldc;
+            case op_invokestatic_quick:
+                return Opcode.op_invokestatic;
+            case op_invokespecial_quick:
+                return Opcode.op_invokespecial;
+            case op_new_quick:
+                return Opcode.op_new;
+            case op_getfield_quick:
+                return Opcode.op_getfield;
+            case op_putfield_quick:
+                return Opcode.op_putfield;
+            case op_getstatic_quick:
+                return Opcode.op_getstatic;
+            case op_putstatic_quick:
+                return Opcode.op_putstatic;
+            case op_anewarray_quick:
+                return Opcode.op_anewarray;
+            case op_multianewarray_quick:
+                return Opcode.op_multianewarray;
+            case op_checkcast_quick:
+                return Opcode.op_checkcast;
+            case op_instanceof_quick:
+                return Opcode.op_instanceof;
+            case op_invokedynamic_quick:
+                return Opcode.op_invokedynamic;
+            default:
+                return op;
+        }
+    }
+}
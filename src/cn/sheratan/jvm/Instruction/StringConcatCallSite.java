@@ -0,0 +1,180 @@
+package cn.sheratan.jvm.Instruction;
+
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.GuestException;
+import cn.sheratan.jvm.LObject;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Thread;
+
+/**
+ * @Description: StringConcatFactory.makeConcatWithConstants/makeConcat的内置实现。链接时将拼接模板（recipe）预先拆分为
+ * 常量片段与参数位置，调用时按描述符从操作数栈弹出参数（基本类型不装箱），依次转换为字符串后拼接。
+ * 基本类型按String.valueOf的语义转换，对象调用其toString方法（未重写时为java/lang/Object的默认实现），null转换为"null"
+ * @Author aries
+ * @Data 2026-10-18 08:19
+ */
+final class StringConcatCallSite implements CallSite {
+
+    /**
+     * @Description: recipe中代表一个参数的标记
+     */
+    private static final char TAG_ARG = '\u0001';
+
+    /**
+     * @Description: recipe中代表一个引导方法常量参数的标记
+     */
+    private static final char TAG_CONST = '\u0002';
+
+    /**
+     * @Description: toString()在vtable中的固定下标（见Class.OBJECT_VTABLE）
+     */
+    private static final int TO_STRING_INDEX = 2;
+
+    /**
+     * @Description: 各参数的类型（描述符首字符，数组按引用处理）
+     */
+    private final char[] types;
+
+    /**
+     * @Description: 常量片段，constants[i]位于第i个参数之前，最后一项位于所有参数之后
+     */
+    private final String[] constants;
+
+    private StringConcatCallSite(char[] types, String[] constants) {
+        this.types = types;
+        this.constants = constants;
+    }
+
+    /**
+     * @Description: makeConcatWithConstants：静态参数依次为recipe及recipe中TAG_CONST引用的常量
+     * @Param descriptor indy描述符，参数即待拼接的值
+     * @Param args 引导方法的静态参数
+     * @Param thread 执行线程，recipe中的标记与参数或常量的个数不符时抛出BootstrapMethodError（原因为StringConcatException）
+     * @return: cn.sheratan.jvm.Instruction.StringConcatCallSite
+     */
+    static StringConcatCallSite create(String descriptor, Object[] args, Thread thread) {
+        String recipe = (String) args[0];
+        String[] parameters = Bootstraps.parameterTypes(descriptor);
+        char[] types = new char[parameters.length];
+        String[] constants = new String[parameters.length + 1];
+        StringBuilder sb = new StringBuilder();
+        int argIndex = 0;
+        int constIndex = 1;
+        for (int i = 0; i < recipe.length(); i++) {
+            char c = recipe.charAt(i);
+            if (c == TAG_ARG) {
+                if (argIndex == parameters.length) {
+                    throw mismatched(descriptor, thread);
+                }
+                constants[argIndex] = sb.toString();
+                types[argIndex] = parameters[argIndex].charAt(0);
+                argIndex++;
+                sb.setLength(0);
+            } else if (c == TAG_CONST) {
+                if (constIndex == args.length) {
+                    throw mismatched(descriptor, thread);
+                }
+                sb.append(args[constIndex++]);
+            } else {
+                sb.append(c);
+            }
+        }
+        if (argIndex != parameters.length) {
+            throw mismatched(descriptor, thread);
+        }
+        constants[argIndex] = sb.toString();
+        return new StringConcatCallSite(types, constants);
+    }
+
+    private static GuestException mismatched(String descriptor, Thread thread) {
+        return new GuestException(thread.newThrowable("java/lang/BootstrapMethodError",
+                "java.lang.invoke.StringConcatException: mismatched recipe for " + descriptor));
+    }
+
+    /**
+     * @Description: makeConcat：参数直接依次拼接，没有常量片段
+     */
+    static StringConcatCallSite create(String descriptor) {
+        String[] parameters = Bootstraps.parameterTypes(descriptor);
+        char[] types = new char[parameters.length];
+        String[] constants = new String[parameters.length + 1];
+        for (int i = 0; i < parameters.length; i++) {
+            types[i] = parameters[i].charAt(0);
+            constants[i] = "";
+        }
+        constants[parameters.length] = "";
+        return new StringConcatCallSite(types, constants);
+    }
+
+    @Override
+    public void invoke(Frame frame) {
+        int n = types.length;
+        long[] values = new long[n];
+        Object[] refs = new Object[n];
+        for (int i = n - 1; i >= 0; i--) {
+            switch (types[i]) {
+                case 'J':
+                    values[i] = frame.popLong();
+                    break;
+                case 'D':
+                    values[i] = Double.doubleToRawLongBits(frame.popDouble());
+                    break;
+                case 'L':
+                case '[':
+                    refs[i] = frame.popRef();
+                    break;
+                default:
+                    values[i] = frame.popInt();
+            }
+        }
+        StringBuilder sb = new StringBuilder(constants[0]);
+        for (int i = 0; i < n; i++) {
+            switch (types[i]) {
+                case 'Z':
+                    sb.append(values[i] != 0);
+                    break;
+                case 'C':
+                    sb.append((char) values[i]);
+                    break;
+                case 'J':
+                    sb.append(values[i]);
+                    break;
+                case 'F':
+                    sb.append(Float.intBitsToFloat((int) values[i]));
+                    break;
+                case 'D':
+                    sb.append(Double.longBitsToDouble(values[i]));
+                    break;
+                case 'L':
+                case '[':
+                    sb.append(toString(frame, refs[i]));
+                    break;
+                default:
+                    sb.append((int) values[i]);
+            }
+            sb.append(constants[i + 1]);
+        }
+        frame.pushRef(sb.toString());
+    }
+
+    /**
+     * @Description: 对象转换为字符串，重写了toString的虚拟机对象在当前线程中同步执行其toString方法
+     */
+    private static String toString(Frame frame, Object obj) {
+        if (obj == null || obj instanceof String) {
+            return String.valueOf(obj);
+        } else if (obj instanceof LObject) {
+            Method method = ((LObject) obj).getlClazz().getVirtualMethod(TO_STRING_INDEX);
+            if (method != null) {
+                frame.pushRef(obj);
+                if (method.isNative()) {
+                    NativeInstructionFactory.invoke(method, frame);
+                } else {
+                    frame.getfThread().runToEnd(method, 1);
+                }
+                return String.valueOf(frame.popRef());
+            }
+        }
+        return InstructionFactory.defaultToString(obj);
+    }
+}
@@ -0,0 +1,369 @@
+package cn.sheratan.jvm.Instruction;
+
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @Description: 超级指令。将常见的短指令序列在预解码时融合为一条指令，减少解释器的分派次数。
+ * 可融合的候选序列固定在此类中，每个实例表示其中参与融合的子集，由VM配置（-s）指定并交给该虚拟机的类加载器，解码方法时使用：
+ * 可按名称指定，也可由OpcodeProfiler（-p）保存的操作码n-gram统计文件按实测频率选出收益最高的若干个（见OpcodeProfiler.topSuperinstructions），默认全部启用。
+ * 融合只发生在基本块内部：序列中除第一条指令外，其余指令均不能是跳转目标
+ * @Author aries
+ * @Data 2026-10-18 07:10
+ */
+public final class Superinstructions {
+
+    /**
+     * @Description: iload a; iload b; iop; istore c -> op, a, b, iop, c
+     */
+    public static final int op_iload_iload_iop_istore = 220;
+
+    /**
+     * @Description: iload a; iload b; iop -> op, a, b, iop
+     */
+    public static final int op_iload_iload_iop = 221;
+
+    /**
+     * @Description: iinc idx, c; goto target -> op, idx, c, target
+     */
+    public static final int op_iinc_goto = 222;
+
+    /**
+     * @Description: iload a; iload b; if_icmpXX target -> op, a, b, if_icmpXX, target
+     */
+    public static final int op_iload_iload_if_icmp = 223;
+
+    /**
+     * @Description: iload a; iconst/bipush/sipush k; if_icmpXX target -> op, a, k, if_icmpXX, target
+     */
+    public static final int op_iload_iconst_if_icmp = 224;
+
+    /**
+     * @Description: aload_0; getfield idx -> op, idx。首次执行时解析字段，改写为op_aload_0_getfield_quick
+     */
+    public static final int op_aload_0_getfield = 225;
+
+    /**
+     * @Description: aload_0; getfield -> op, operand，操作数同快速getfield（见QuickOpcode.fieldOperand），不单独启用
+     */
+    public static final int op_aload_0_getfield_quick = 226;
+
+    private static final int FIRST = op_iload_iload_iop_istore;
+
+    private static final String[] NAMES = {
+            "iload_iload_iop_istore",
+            "iload_iload_iop",
+            "iinc_goto",
+            "iload_iload_if_icmp",
+            "iload_iconst_if_icmp",
+            "aload_0_getfield"
+    };
+
+    /**
+     * @Description: 各超级指令（含快速形式）的操作数个数
+     */
+    static final int[] OPERAND_COUNT = {4, 3, 3, 4, 4, 1, 1};
+
+    /**
+     * @Description: 按超级指令（减去FIRST后）下标记录是否启用
+     */
+    private final boolean[] enabled;
+
+    private Superinstructions(boolean[] enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @Description: 所有超级指令名称
+     */
+    public static List<String> names() {
+        return Arrays.asList(NAMES);
+    }
+
+    /**
+     * @Description: 启用全部超级指令
+     */
+    public static Superinstructions all() {
+        return new Superinstructions(flags(true));
+    }
+
+    /**
+     * @Description: 不融合任何超级指令，保持原始指令流
+     */
+    public static Superinstructions none() {
+        return new Superinstructions(flags(false));
+    }
+
+    /**
+     * @Description: 只启用指定的超级指令
+     * @Param names 超级指令名称
+     * @return: cn.sheratan.jvm.Instruction.Superinstructions
+     */
+    public static Superinstructions of(Collection<String> names) {
+        boolean[] flags = flags(false);
+        for (String name : names) {
+            int i = Arrays.asList(NAMES).indexOf(name);
+            if (i < 0) {
+                throw new IllegalArgumentException("unknown superinstruction: " + name + ", available: " + names());
+            }
+            flags[i] = true;
+        }
+        return new Superinstructions(flags);
+    }
+
+    private static boolean[] flags(boolean flag) {
+        boolean[] flags = new boolean[NAMES.length];
+        Arrays.fill(flags, flag);
+        return flags;
+    }
+
+    /**
+     * @Description: 已启用的超级指令名称
+     */
+    public List<String> enabledNames() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            if (enabled[i]) {
+                names.add(NAMES[i]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @Description: 判断一个（未融合的）操作码序列是否恰好是某个超级指令融合的序列，供依据n-gram统计挑选超级指令时使用
+     * @Param ops 操作码序列
+     * @return: java.lang.String 对应的超级指令名称，不对应任何超级指令时返回null
+     */
+    public static String candidate(int[] ops) {
+        switch (ops.length) {
+            case 2:
+                if (ops[0] == Opcode.op_aload_0 && ops[1] == Opcode.op_getfield) {
+                    return NAMES[op_aload_0_getfield - FIRST];
+                }
+                if (ops[0] == Opcode.op_iinc && ops[1] == Opcode.op_goto) {
+                    return NAMES[op_iinc_goto - FIRST];
+                }
+                return null;
+            case 3:
+                if (iloadIndex(ops[0]) == -1 || !isIfIcmp(ops[2]) && !isIntOp(ops[2])) {
+                    return null;
+                }
+                if (iloadIndex(ops[1]) != -1) {
+                    return NAMES[(isIntOp(ops[2]) ? op_iload_iload_iop : op_iload_iload_if_icmp) - FIRST];
+                }
+                return isIntConst(ops[1]) && isIfIcmp(ops[2]) ? NAMES[op_iload_iconst_if_icmp - FIRST] : null;
+            case 4:
+                if (iloadIndex(ops[0]) != -1 && iloadIndex(ops[1]) != -1 && isIntOp(ops[2]) && istoreIndex(ops[3]) != -1) {
+                    return NAMES[op_iload_iload_iop_istore - FIRST];
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    static boolean isSuperinstruction(int op) {
+        return op >= FIRST && op < FIRST + OPERAND_COUNT.length;
+    }
+
+    /**
+     * @Description: 超级指令中跳转目标所在的操作数位置，不含跳转目标时为-1
+     */
+    static int targetOperand(int op) {
+        switch (op) {
+            case op_iinc_goto:
+                return 3;
+            case op_iload_iload_if_icmp:
+            case op_iload_iconst_if_icmp:
+                return 4;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @Description: 尝试在下标i处匹配已启用的超级指令，按序列由长到短依次尝试
+     * @Param code 预解码指令流（跳转目标已为指令流下标）
+     * @Param i 指令起始下标
+     * @Param end 指令流长度
+     * @Param isTarget 各下标是否为跳转目标
+     * @Param fused 匹配成功时写入融合后的指令（操作码及操作数）
+     * @return: int 被融合的原指令序列总长度，未匹配时返回0
+     */
+    int match(int[] code, int i, int end, boolean[] isTarget, int[] fused) {
+        boolean[] flags = enabled;
+        if (code[i] == Opcode.op_aload_0 && flags[op_aload_0_getfield - FIRST]) {
+            int j = i + 1;
+            if (j < end && !isTarget[j] && code[j] == Opcode.op_getfield) {
+                fill(fused, op_aload_0_getfield, code[j + 1]);
+                return j + 2 - i;
+            }
+            return 0;
+        }
+        int a = iloadIndex(code[i]);
+        if (a == -2) {
+            a = code[i + 1];
+        }
+        if (a >= 0) {
+            int j = i + DecodedCode.length(code, i);
+            if (j >= end || isTarget[j]) {
+                return 0;
+            }
+            int b = iloadIndex(code[j]);
+            if (b == -2) {
+                b = code[j + 1];
+            }
+            int k = j + DecodedCode.length(code, j);
+            if (k >= end || isTarget[k]) {
+                return 0;
+            }
+            if (b >= 0 && isIntOp(code[k])) {
+                int l = k + 1;
+                int c = l < end && !isTarget[l] ? istoreIndex(code[l]) : -1;
+                if (c == -2) {
+                    c = code[l + 1];
+                }
+                if (c >= 0 && flags[op_iload_iload_iop_istore - FIRST]) {
+                    fill(fused, op_iload_iload_iop_istore, a, b, code[k], c);
+                    return l + DecodedCode.length(code, l) - i;
+                }
+                if (flags[op_iload_iload_iop - FIRST]) {
+                    fill(fused, op_iload_iload_iop, a, b, code[k]);
+                    return l - i;
+                }
+                return 0;
+            }
+            if (isIfIcmp(code[k])) {
+                if (b >= 0 && flags[op_iload_iload_if_icmp - FIRST]) {
+                    fill(fused, op_iload_iload_if_icmp, a, b, code[k], code[k + 1]);
+                    return k + 2 - i;
+                }
+                if (isIntConst(code[j]) && flags[op_iload_iconst_if_icmp - FIRST]) {
+                    fill(fused, op_iload_iconst_if_icmp, a, intConst(code, j), code[k], code[k + 1]);
+                    return k + 2 - i;
+                }
+            }
+            return 0;
+        }
+        if (code[i] == Opcode.op_iinc && flags[op_iinc_goto - FIRST]) {
+            int j = i + 3;
+            if (j < end && !isTarget[j] && code[j] == Opcode.op_goto) {
+                fill(fused, op_iinc_goto, code[i + 1], code[i + 2], code[j + 1]);
+                return j + 2 - i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @Description: 写入融合后的指令
+     */
+    private static void fill(int[] fused, int... insts) {
+        System.arraycopy(insts, 0, fused, 0, insts.length);
+    }
+
+    /**
+     * @Description: iload_n返回n，iload返回-2（下标在操作数中），其他指令返回-1
+     */
+    private static int iloadIndex(int op) {
+        if (op >= Opcode.op_iload_0 && op <= Opcode.op_iload_3) {
+            return op - Opcode.op_iload_0;
+        }
+        return op == Opcode.op_iload ? -2 : -1;
+    }
+
+    private static int istoreIndex(int op) {
+        if (op >= Opcode.op_istore_0 && op <= Opcode.op_istore_3) {
+            return op - Opcode.op_istore_0;
+        }
+        return op == Opcode.op_istore ? -2 : -1;
+    }
+
+    private static boolean isIntConst(int op) {
+        return (op >= Opcode.op_iconst_m1 && op <= Opcode.op_iconst_5) || op == Opcode.op_bipush || op == Opcode.op_sipush;
+    }
+
+    private static int intConst(int[] code, int i) {
+        int op = code[i];
+        return op == Opcode.op_bipush || op == Opcode.op_sipush ? code[i + 1] : op - Opcode.op_iconst_0;
+    }
+
+    /**
+     * @Description: 不会抛出异常的int二元运算（不含idiv与irem）
+     */
+    private static boolean isIntOp(int op) {
+        switch (op) {
+            case Opcode.op_iadd:
+            case Opcode.op_isub:
+            case Opcode.op_imul:
+            case Opcode.op_iand:
+            case Opcode.op_ior:
+            case Opcode.op_ixor:
+            case Opcode.op_ishl:
+            case Opcode.op_ishr:
+            case Opcode.op_iushr:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isIfIcmp(int op) {
+        return op >= Opcode.op_if_icmpeq && op <= Opcode.op_if_icmple;
+    }
+
+    /**
+     * @Description: 执行int二元运算
+     * @Param op 运算对应的操作码
+     * @return: int
+     */
+    public static int intOp(int op, int a, int b) {
+        switch (op) {
+            case Opcode.op_iadd:
+                return a + b;
+            case Opcode.op_isub:
+                return a - b;
+            case Opcode.op_imul:
+                return a * b;
+            case Opcode.op_iand:
+                return a & b;
+            case Opcode.op_ior:
+                return a | b;
+            case Opcode.op_ixor:
+                return a ^ b;
+            case Opcode.op_ishl:
+                return a << b;
+            case Opcode.op_ishr:
+                return a >> b;
+            default:
+                return a >>> b;
+        }
+    }
+
+    /**
+     * @Description: 执行if_icmpXX比较
+     * @Param op 比较对应的操作码
+     * @return: boolean 是否跳转
+     */
+    public static boolean intCompare(int op, int a, int b) {
+        switch (op) {
+            case Opcode.op_if_icmpeq:
+                return a == b;
+            case Opcode.op_if_icmpne:
+                return a != b;
+            case Opcode.op_if_icmplt:
+                return a < b;
+            case Opcode.op_if_icmpge:
+                return a >= b;
+            case Opcode.op_if_icmpgt:
+                return a > b;
+            default:
+                return a <= b;
+        }
+    }
+}
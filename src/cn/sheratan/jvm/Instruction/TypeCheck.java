@@ -0,0 +1,219 @@
+package cn.sheratan.jvm.Instruction;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.ClassLoader;
+import cn.sheratan.jvm.ConstantPoolCache;
+import cn.sheratan.jvm.GuestException;
+import cn.sheratan.jvm.LArray;
+import cn.sheratan.jvm.LObject;
+import cn.sheratan.jvm.Thread;
+
+/**
+ * @Description: checkcast/instanceof指令的类型检查点，作为快速指令的解析结果，每个指令位置一个。
+ * 对象类型的检查基于Class.isSubtypeOf（display与接口位图，常数时间），并在检查点上缓存最近一次通过检查的对象类型，
+ * 同一位置反复检查同一类型的对象时只需一次比较。字符串（以宿主String表示）与数组按其类型名称检查，
+ * 检查点同样缓存最近一次通过检查的数组类型描述符，同一位置反复检查同一类型的数组时不再解析元素类型
+ * @Author aries
+ * @Data 2026-10-18 08:11
+ */
+public final class TypeCheck {
+    private static final String OBJECT_CLASS = "java/lang/Object";
+
+    /**
+     * @Description: 目标类型名称，类为其全称，数组为其类型描述符
+     */
+    private final String targetName;
+
+    /**
+     * @Description: 目标类，目标为内置类型（见isBuiltinType）时为null
+     */
+    private final Class target;
+
+    /**
+     * @Description: 解析数组元素类型所用的类加载器
+     */
+    private final ClassLoader loader;
+
+    /**
+     * @Description: 最近一次通过检查的对象类型
+     */
+    private Class lastHit;
+
+    /**
+     * @Description: 最近一次通过检查的数组类型描述符
+     */
+    private String lastArrayHit;
+
+    TypeCheck(String targetName, Class target, ClassLoader loader) {
+        this.targetName = targetName;
+        this.target = target;
+        this.loader = loader;
+    }
+
+    /**
+     * @Description: 解析常量池中的类型为类型检查点。目标为数组、java/lang/Object等内置类型时不加载类
+     * @Param clazz 指令所在类
+     * @Param idx 目标类型的常量池下标
+     * @return: cn.sheratan.jvm.Instruction.TypeCheck
+     */
+    public static TypeCheck resolve(Class clazz, int idx) {
+        ConstantPoolCache cpCache = clazz.getConstantPoolCache();
+        String name = cpCache.getClassName(idx);
+        Class target = isBuiltinType(name) ? null : cpCache.resolveClass(idx);
+        return new TypeCheck(name, target, clazz.getClassLoader());
+    }
+
+    /**
+     * @Description: 判断非null对象是否为目标类型的实例
+     */
+    public boolean isInstance(Object obj) {
+        if (obj instanceof LObject) {
+            Class clazz = ((LObject) obj).getlClazz();
+            if (clazz == lastHit) {
+                return true;
+            }
+            if (target == null ? OBJECT_CLASS.equals(targetName) : clazz.isSubtypeOf(target)) {
+                lastHit = clazz;
+                return true;
+            }
+            return false;
+        } else if (obj instanceof LArray) {
+            String descriptor = ((LArray) obj).getlDescriptor();
+            if (descriptor.equals(lastArrayHit)) {
+                return true;
+            }
+            if (isInstance(obj, targetName, loader)) {
+                lastArrayHit = descriptor;
+                return true;
+            }
+            return false;
+        }
+        return isInstance(obj, targetName, loader);
+    }
+
+    /**
+     * @Description: checkcast：对象不为目标类型的实例时抛出ClassCastException，null总能通过检查
+     */
+    public void checkCast(Object obj, Thread thread) {
+        if (obj != null && !isInstance(obj)) {
+            throw new GuestException(thread.newThrowable("java/lang/ClassCastException",
+                    typeName(obj) + " cannot be cast to " + targetName.replace('/', '.')));
+        }
+    }
+
+    /**
+     * @Description: aastore的数组存储检查：值不能赋给数组元素类型时抛出ArrayStoreException。
+     * 对象元素的元素类在首次检查时解析并缓存在数组上，之后只需一次子类型检查；元素类型为java/lang/Object时无需检查
+     * @Param array 数组
+     * @Param value 存入的值
+     * @Param thread 执行线程
+     * @Param loader 解析元素类型所用的类加载器
+     * @return: void
+     */
+    public static void checkArrayStore(LArray array, Object value, Thread thread, ClassLoader loader) {
+        if (value == null) {
+            return;
+        }
+        Class componentClass = array.getComponentClass();
+        boolean assignable;
+        if (componentClass != null && value instanceof LObject) {
+            assignable = ((LObject) value).getlClazz().isSubtypeOf(componentClass);
+        } else {
+            String componentName = array.getComponentName();
+            if (OBJECT_CLASS.equals(componentName)) {
+                return;
+            }
+            if (value instanceof LObject && !isBuiltinType(componentName)) {
+                componentClass = loader.loadClass(componentName);
+                array.setComponentClass(componentClass);
+                assignable = ((LObject) value).getlClazz().isSubtypeOf(componentClass);
+            } else {
+                assignable = isInstance(value, componentName, loader);
+            }
+        }
+        if (!assignable) {
+            throw new GuestException(thread.newThrowable("java/lang/ArrayStoreException", typeName(value)));
+        }
+    }
+
+    /**
+     * @Description: 判断非null对象是否为指定类型的实例
+     * @Param obj 对象
+     * @Param typeName 类型名称，类为其全称，数组为其类型描述符
+     * @Param loader 类加载器
+     * @return: boolean
+     */
+    static boolean isInstance(Object obj, String typeName, ClassLoader loader) {
+        if (OBJECT_CLASS.equals(typeName)) {
+            return true;
+        }
+        if (obj instanceof LObject) {
+            return !isBuiltinType(typeName) && ((LObject) obj).getlClazz().isSubtypeOf(loader.loadClass(typeName));
+        } else if (obj instanceof String) {
+            return isStringSupertype(typeName);
+        } else if (obj instanceof LArray) {
+            String descriptor = ((LArray) obj).getlDescriptor();
+            return typeName.charAt(0) == '[' ? isArrayAssignable(descriptor, typeName, loader) : isArraySupertype(typeName);
+        }
+        return false;
+    }
+
+    /**
+     * @Description: 判断数组类型s能否赋值给数组类型t：元素类型均为基本类型时须相同，均为引用类型时按元素类型递归判断
+     */
+    private static boolean isArrayAssignable(String s, String t, ClassLoader loader) {
+        if (s.equals(t)) {
+            return true;
+        }
+        char sc = s.charAt(1);
+        char tc = t.charAt(1);
+        if (tc == 'L') {
+            String targetName = t.substring(2, t.length() - 1);
+            if (OBJECT_CLASS.equals(targetName)) {
+                return sc == 'L' || sc == '[';
+            } else if (sc == 'L') {
+                String sourceName = s.substring(2, s.length() - 1);
+                if (OBJECT_CLASS.equals(sourceName)) {
+                    return false;
+                } else if ("java/lang/String".equals(sourceName)) {
+                    return isStringSupertype(targetName);
+                } else if (isBuiltinType(targetName)) {
+                    return false;
+                }
+                return loader.loadClass(sourceName).isSubtypeOf(loader.loadClass(targetName));
+            } else if (sc == '[') {
+                return isArraySupertype(targetName);
+            }
+            return false;
+        } else if (tc == '[') {
+            return sc == '[' && isArrayAssignable(s.substring(1), t.substring(1), loader);
+        }
+        return false;
+    }
+
+    /**
+     * @Description: 判断类型是否无需（或无法）作为类加载：数组类型，以及java/lang/Object、String及其超类型、数组的超接口。
+     * 这些类型的实例以宿主对象表示，虚拟机中的对象（LObject）不会是它们的实例
+     */
+    static boolean isBuiltinType(String typeName) {
+        return typeName.charAt(0) == '[' || OBJECT_CLASS.equals(typeName) || isStringSupertype(typeName) || isArraySupertype(typeName);
+    }
+
+    private static boolean isStringSupertype(String typeName) {
+        return "java/lang/String".equals(typeName) || "java/lang/CharSequence".equals(typeName)
+                || "java/lang/Comparable".equals(typeName) || "java/io/Serializable".equals(typeName);
+    }
+
+    private static boolean isArraySupertype(String typeName) {
+        return "java/lang/Cloneable".equals(typeName) || "java/io/Serializable".equals(typeName);
+    }
+
+    private static String typeName(Object obj) {
+        if (obj instanceof LObject) {
+            return ((LObject) obj).getlClazz().getClassName().replace('/', '.');
+        } else if (obj instanceof LArray) {
+            return ((LArray) obj).getlDescriptor().replace('/', '.');
+        }
+        return obj instanceof String ? "java.lang.String" : obj.getClass().getName();
+    }
+}
@@ -0,0 +1,896 @@
+package cn.sheratan.jvm;
+
+import cn.sheratan.jvm.Instruction.DecodedCode;
+import cn.sheratan.jvm.Instruction.InstructionFactory;
+import cn.sheratan.jvm.Instruction.QuickOpcode;
+import cn.sheratan.jvm.Instruction.Superinstructions;
+import cn.sheratan.jvm.Instruction.TypeCheck;
+import cn.sheratan.jvm.JIT.CompiledMethod;
+import cn.sheratan.jvm.JIT.TieredPolicy;
+import org.freeinternals.format.classfile.Opcode;
+
+/**
+ * @Description: switch分派解释器。在单个循环内执行预解码指令流，pc、栈顶指针、局部变量表及操作数栈均保存在局部变量中，
+ * int值直接读写栈帧的long[]存储，不产生装箱；long值占用两个slot，完整数值保存在低下标slot中；
+ * float、double分别以IEEE 754位模式保存在一个、两个slot中，故浮点的加载、存储与int、long完全相同；
+ * 常用指令直接在switch分支内完成；调用、常量池解析等复杂指令则同步状态到栈帧后交由InstructionFactory中的指令处理，
+ * 处理完成后重新从线程栈顶栈帧载入状态（栈帧可能因调用或返回而切换）。
+ * 执行中抛出的异常（athrow或由宿主异常转换的虚拟机异常）交由线程查找处理器，之后从处理器所在栈帧继续执行。
+ * 开启JIT时，跳转指令在回边处累计循环执行次数（见TieredPolicy），并可由循环头栈上替换进入编译代码，轨迹模式下先由循环头进入轨迹代码
+ * @Author aries
+ * @Data 2026-10-18 06:43
+ */
+final class Interpreter {
+
+    private Interpreter() {
+    }
+
+    /**
+     * @Description: 从线程栈顶栈帧开始执行，直到栈深度小于baseDepth（即深度为baseDepth的栈帧返回）为止
+     * @Param thread 执行线程
+     * @Param baseDepth 起始栈帧所在深度
+     * @return: void
+     */
+    static void execute(Thread thread, int baseDepth) {
+        TieredPolicy jit = thread.getJit();
+        Frame frame = thread.topFrame();
+        while (true) {
+            int[] code = frame.getfCode().getInsts();
+            //所有栈帧共用线程栈数组，lb为局部变量表起始下标，sp为栈顶的绝对下标
+            long[] vals = frame.getfValues();
+            Object[] refs = frame.getfRefs();
+            int lb = frame.getfLocalsBase();
+            int pc = frame.getfPC();
+            int sp = frame.getfStackPos();
+
+            try {
+                dispatch:
+                while (true) {
+                    int op = code[pc];
+                    int target;
+                    branch:
+                    {
+                        switch (op) {
+                            case Opcode.op_nop:
+                                pc++;
+                                break;
+                            case Opcode.op_aconst_null:
+                                refs[sp++] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_iconst_m1:
+                            case Opcode.op_iconst_0:
+                            case Opcode.op_iconst_1:
+                            case Opcode.op_iconst_2:
+                            case Opcode.op_iconst_3:
+                            case Opcode.op_iconst_4:
+                            case Opcode.op_iconst_5:
+                                vals[sp++] = op - Opcode.op_iconst_0;
+                                pc++;
+                                break;
+                            case Opcode.op_lconst_0:
+                            case Opcode.op_lconst_1:
+                                vals[sp] = op - Opcode.op_lconst_0;
+                                sp += 2;
+                                pc++;
+                                break;
+                            case Opcode.op_fconst_0:
+                            case Opcode.op_fconst_1:
+                            case Opcode.op_fconst_2:
+                                vals[sp++] = fbits(op - Opcode.op_fconst_0);
+                                pc++;
+                                break;
+                            case Opcode.op_dconst_0:
+                            case Opcode.op_dconst_1:
+                                vals[sp] = dbits(op - Opcode.op_dconst_0);
+                                sp += 2;
+                                pc++;
+                                break;
+                            case Opcode.op_bipush:
+                            case Opcode.op_sipush:
+                                vals[sp++] = code[pc + 1];
+                                pc += 2;
+                                break;
+                            case Opcode.op_iload:
+                            case Opcode.op_fload:
+                                vals[sp++] = vals[lb + code[pc + 1]];
+                                pc += 2;
+                                break;
+                            case Opcode.op_lload:
+                            case Opcode.op_dload:
+                                vals[sp] = vals[lb + code[pc + 1]];
+                                sp += 2;
+                                pc += 2;
+                                break;
+                            case Opcode.op_aload:
+                                refs[sp++] = refs[lb + code[pc + 1]];
+                                pc += 2;
+                                break;
+                            case Opcode.op_iload_0:
+                            case Opcode.op_iload_1:
+                            case Opcode.op_iload_2:
+                            case Opcode.op_iload_3:
+                                vals[sp++] = vals[lb + op - Opcode.op_iload_0];
+                                pc++;
+                                break;
+                            case Opcode.op_lload_0:
+                            case Opcode.op_lload_1:
+                            case Opcode.op_lload_2:
+                            case Opcode.op_lload_3:
+                                vals[sp] = vals[lb + op - Opcode.op_lload_0];
+                                sp += 2;
+                                pc++;
+                                break;
+                            case Opcode.op_fload_0:
+                            case Opcode.op_fload_1:
+                            case Opcode.op_fload_2:
+                            case Opcode.op_fload_3:
+                                vals[sp++] = vals[lb + op - Opcode.op_fload_0];
+                                pc++;
+                                break;
+                            case Opcode.op_dload_0:
+                            case Opcode.op_dload_1:
+                            case Opcode.op_dload_2:
+                            case Opcode.op_dload_3:
+                                vals[sp] = vals[lb + op - Opcode.op_dload_0];
+                                sp += 2;
+                                pc++;
+                                break;
+                            case Opcode.op_aload_0:
+                            case Opcode.op_aload_1:
+                            case Opcode.op_aload_2:
+                            case Opcode.op_aload_3:
+                                refs[sp++] = refs[lb + op - Opcode.op_aload_0];
+                                pc++;
+                                break;
+                            case Opcode.op_iaload:
+                                sp--;
+                                vals[sp - 1] = ((LArray) refs[sp - 1]).getInts()[(int) vals[sp]];
+                                refs[sp - 1] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_laload:
+                                vals[sp - 2] = ((LArray) refs[sp - 2]).getLongs()[(int) vals[sp - 1]];
+                                refs[sp - 2] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_faload:
+                                sp--;
+                                vals[sp - 1] = fbits(((LArray) refs[sp - 1]).getFloats()[(int) vals[sp]]);
+                                refs[sp - 1] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_daload:
+                                vals[sp - 2] = dbits(((LArray) refs[sp - 2]).getDoubles()[(int) vals[sp - 1]]);
+                                refs[sp - 2] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_aaload:
+                                sp--;
+                                refs[sp - 1] = ((LArray) refs[sp - 1]).getRefs()[(int) vals[sp]];
+                                pc++;
+                                break;
+                            case Opcode.op_baload:
+                                sp--;
+                                vals[sp - 1] = ((LArray) refs[sp - 1]).getBytes()[(int) vals[sp]];
+                                refs[sp - 1] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_caload:
+                                sp--;
+                                vals[sp - 1] = ((LArray) refs[sp - 1]).getChars()[(int) vals[sp]];
+                                refs[sp - 1] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_saload:
+                                sp--;
+                                vals[sp - 1] = ((LArray) refs[sp - 1]).getShorts()[(int) vals[sp]];
+                                refs[sp - 1] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_istore:
+                            case Opcode.op_fstore:
+                                vals[lb + code[pc + 1]] = vals[--sp];
+                                pc += 2;
+                                break;
+                            case Opcode.op_lstore:
+                            case Opcode.op_dstore:
+                                sp -= 2;
+                                vals[lb + code[pc + 1]] = vals[sp];
+                                pc += 2;
+                                break;
+                            case Opcode.op_astore:
+                                refs[lb + code[pc + 1]] = refs[--sp];
+                                pc += 2;
+                                break;
+                            case Opcode.op_istore_0:
+                            case Opcode.op_istore_1:
+                            case Opcode.op_istore_2:
+                            case Opcode.op_istore_3:
+                                vals[lb + op - Opcode.op_istore_0] = vals[--sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lstore_0:
+                            case Opcode.op_lstore_1:
+                            case Opcode.op_lstore_2:
+                            case Opcode.op_lstore_3:
+                                sp -= 2;
+                                vals[lb + op - Opcode.op_lstore_0] = vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_fstore_0:
+                            case Opcode.op_fstore_1:
+                            case Opcode.op_fstore_2:
+                            case Opcode.op_fstore_3:
+                                vals[lb + op - Opcode.op_fstore_0] = vals[--sp];
+                                pc++;
+                                break;
+                            case Opcode.op_dstore_0:
+                            case Opcode.op_dstore_1:
+                            case Opcode.op_dstore_2:
+                            case Opcode.op_dstore_3:
+                                sp -= 2;
+                                vals[lb + op - Opcode.op_dstore_0] = vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_astore_0:
+                            case Opcode.op_astore_1:
+                            case Opcode.op_astore_2:
+                            case Opcode.op_astore_3:
+                                refs[lb + op - Opcode.op_astore_0] = refs[--sp];
+                                pc++;
+                                break;
+                            case Opcode.op_iastore:
+                                sp -= 3;
+                                ((LArray) refs[sp]).getInts()[(int) vals[sp + 1]] = (int) vals[sp + 2];
+                                refs[sp] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_lastore:
+                                sp -= 4;
+                                ((LArray) refs[sp]).getLongs()[(int) vals[sp + 1]] = vals[sp + 2];
+                                refs[sp] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_fastore:
+                                sp -= 3;
+                                ((LArray) refs[sp]).getFloats()[(int) vals[sp + 1]] = f(vals[sp + 2]);
+                                refs[sp] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_dastore:
+                                sp -= 4;
+                                ((LArray) refs[sp]).getDoubles()[(int) vals[sp + 1]] = d(vals[sp + 2]);
+                                refs[sp] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_aastore:
+                                sp -= 3;
+                                TypeCheck.checkArrayStore((LArray) refs[sp], refs[sp + 2], thread, frame.getfClass().getClassLoader());
+                                ((LArray) refs[sp]).getRefs()[(int) vals[sp + 1]] = refs[sp + 2];
+                                refs[sp] = null;
+                                refs[sp + 2] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_bastore: {
+                                sp -= 3;
+                                LArray array = (LArray) refs[sp];
+                                int v = (int) vals[sp + 2];
+                                array.getBytes()[(int) vals[sp + 1]] = (byte) (array.getElementType() == 'Z' ? v & 1 : v);
+                                refs[sp] = null;
+                                pc++;
+                                break;
+                            }
+                            case Opcode.op_castore:
+                                sp -= 3;
+                                ((LArray) refs[sp]).getChars()[(int) vals[sp + 1]] = (char) vals[sp + 2];
+                                refs[sp] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_sastore:
+                                sp -= 3;
+                                ((LArray) refs[sp]).getShorts()[(int) vals[sp + 1]] = (short) vals[sp + 2];
+                                refs[sp] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_arraylength:
+                                vals[sp - 1] = ((LArray) refs[sp - 1]).getLength();
+                                refs[sp - 1] = null;
+                                pc++;
+                                break;
+                            case Opcode.op_pop:
+                                sp--;
+                                pc++;
+                                break;
+                            case Opcode.op_pop2:
+                                sp -= 2;
+                                pc++;
+                                break;
+                            case Opcode.op_dup:
+                                vals[sp] = vals[sp - 1];
+                                refs[sp] = refs[sp - 1];
+                                sp++;
+                                pc++;
+                                break;
+                            case Opcode.op_dup_x1:
+                                vals[sp] = vals[sp - 1];
+                                refs[sp] = refs[sp - 1];
+                                vals[sp - 1] = vals[sp - 2];
+                                refs[sp - 1] = refs[sp - 2];
+                                vals[sp - 2] = vals[sp];
+                                refs[sp - 2] = refs[sp];
+                                sp++;
+                                pc++;
+                                break;
+                            case Opcode.op_dup2:
+                                vals[sp] = vals[sp - 2];
+                                refs[sp] = refs[sp - 2];
+                                vals[sp + 1] = vals[sp - 1];
+                                refs[sp + 1] = refs[sp - 1];
+                                sp += 2;
+                                pc++;
+                                break;
+                            case Opcode.op_swap: {
+                                long v = vals[sp - 1];
+                                Object r = refs[sp - 1];
+                                vals[sp - 1] = vals[sp - 2];
+                                refs[sp - 1] = refs[sp - 2];
+                                vals[sp - 2] = v;
+                                refs[sp - 2] = r;
+                                pc++;
+                                break;
+                            }
+                            case Opcode.op_iadd:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] + (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_isub:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] - (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_imul:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] * (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_idiv:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] / (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_irem:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] % (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_ineg:
+                                vals[sp - 1] = -(int) vals[sp - 1];
+                                pc++;
+                                break;
+                            case Opcode.op_ishl:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] << (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_ishr:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] >> (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_iushr:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] >>> (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_iand:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] & (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_ior:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] | (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_ixor:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1] ^ (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_ladd:
+                                sp -= 2;
+                                vals[sp - 2] += vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lsub:
+                                sp -= 2;
+                                vals[sp - 2] -= vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lmul:
+                                sp -= 2;
+                                vals[sp - 2] *= vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_ldiv:
+                                sp -= 2;
+                                vals[sp - 2] /= vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lrem:
+                                sp -= 2;
+                                vals[sp - 2] %= vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lneg:
+                                vals[sp - 2] = -vals[sp - 2];
+                                pc++;
+                                break;
+                            case Opcode.op_lshl:
+                                sp--;
+                                vals[sp - 2] <<= (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lshr:
+                                sp--;
+                                vals[sp - 2] >>= (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lushr:
+                                sp--;
+                                vals[sp - 2] >>>= (int) vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_land:
+                                sp -= 2;
+                                vals[sp - 2] &= vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lor:
+                                sp -= 2;
+                                vals[sp - 2] |= vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_lxor:
+                                sp -= 2;
+                                vals[sp - 2] ^= vals[sp];
+                                pc++;
+                                break;
+                            case Opcode.op_fadd:
+                                sp--;
+                                vals[sp - 1] = fbits(f(vals[sp - 1]) + f(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_fsub:
+                                sp--;
+                                vals[sp - 1] = fbits(f(vals[sp - 1]) - f(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_fmul:
+                                sp--;
+                                vals[sp - 1] = fbits(f(vals[sp - 1]) * f(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_fdiv:
+                                sp--;
+                                vals[sp - 1] = fbits(f(vals[sp - 1]) / f(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_frem:
+                                sp--;
+                                vals[sp - 1] = fbits(f(vals[sp - 1]) % f(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_fneg:
+                                vals[sp - 1] = fbits(-f(vals[sp - 1]));
+                                pc++;
+                                break;
+                            case Opcode.op_dadd:
+                                sp -= 2;
+                                vals[sp - 2] = dbits(d(vals[sp - 2]) + d(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_dsub:
+                                sp -= 2;
+                                vals[sp - 2] = dbits(d(vals[sp - 2]) - d(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_dmul:
+                                sp -= 2;
+                                vals[sp - 2] = dbits(d(vals[sp - 2]) * d(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_ddiv:
+                                sp -= 2;
+                                vals[sp - 2] = dbits(d(vals[sp - 2]) / d(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_drem:
+                                sp -= 2;
+                                vals[sp - 2] = dbits(d(vals[sp - 2]) % d(vals[sp]));
+                                pc++;
+                                break;
+                            case Opcode.op_dneg:
+                                vals[sp - 2] = dbits(-d(vals[sp - 2]));
+                                pc++;
+                                break;
+                            case Opcode.op_iinc: {
+                                int idx = lb + code[pc + 1];
+                                vals[idx] = (int) vals[idx] + code[pc + 2];
+                                pc += 3;
+                                break;
+                            }
+                            case Opcode.op_i2b:
+                                vals[sp - 1] = (byte) vals[sp - 1];
+                                pc++;
+                                break;
+                            case Opcode.op_i2c:
+                                vals[sp - 1] = (char) vals[sp - 1];
+                                pc++;
+                                break;
+                            case Opcode.op_i2s:
+                                vals[sp - 1] = (short) vals[sp - 1];
+                                pc++;
+                                break;
+                            case Opcode.op_i2l:
+                                //int值本身即以符号扩展后的long保存，只需多占一个slot
+                                sp++;
+                                pc++;
+                                break;
+                            case Opcode.op_l2i:
+                                sp--;
+                                vals[sp - 1] = (int) vals[sp - 1];
+                                pc++;
+                                break;
+                            case Opcode.op_i2f:
+                                vals[sp - 1] = fbits((int) vals[sp - 1]);
+                                pc++;
+                                break;
+                            case Opcode.op_i2d:
+                                vals[sp - 1] = dbits((int) vals[sp - 1]);
+                                sp++;
+                                pc++;
+                                break;
+                            case Opcode.op_l2f:
+                                sp--;
+                                vals[sp - 1] = fbits(vals[sp - 1]);
+                                pc++;
+                                break;
+                            case Opcode.op_l2d:
+                                vals[sp - 2] = dbits(vals[sp - 2]);
+                                pc++;
+                                break;
+                            case Opcode.op_f2i:
+                                vals[sp - 1] = (int) f(vals[sp - 1]);
+                                pc++;
+                                break;
+                            case Opcode.op_f2l:
+                                vals[sp - 1] = (long) f(vals[sp - 1]);
+                                sp++;
+                                pc++;
+                                break;
+                            case Opcode.op_f2d:
+                                vals[sp - 1] = dbits(f(vals[sp - 1]));
+                                sp++;
+                                pc++;
+                                break;
+                            case Opcode.op_d2i:
+                                sp--;
+                                vals[sp - 1] = (int) d(vals[sp - 1]);
+                                pc++;
+                                break;
+                            case Opcode.op_d2l:
+                                vals[sp - 2] = (long) d(vals[sp - 2]);
+                                pc++;
+                                break;
+                            case Opcode.op_d2f:
+                                sp--;
+                                vals[sp - 1] = fbits((float) d(vals[sp - 1]));
+                                pc++;
+                                break;
+                            case Opcode.op_fcmpl:
+                            case Opcode.op_fcmpg:
+                                sp--;
+                                vals[sp - 1] = InstructionFactory.floatCompare(f(vals[sp - 1]), f(vals[sp]),
+                                        op == Opcode.op_fcmpl ? -1 : 1);
+                                pc++;
+                                break;
+                            case Opcode.op_dcmpl:
+                            case Opcode.op_dcmpg:
+                                sp -= 3;
+                                vals[sp - 1] = InstructionFactory.doubleCompare(d(vals[sp - 1]), d(vals[sp + 1]),
+                                        op == Opcode.op_dcmpl ? -1 : 1);
+                                pc++;
+                                break;
+                            case Opcode.op_lcmp:
+                                sp -= 3;
+                                vals[sp - 1] = Long.compare(vals[sp - 1], vals[sp + 1]);
+                                pc++;
+                                break;
+                            case Opcode.op_ifeq:
+                                target = (int) vals[--sp] == 0 ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_ifne:
+                                target = (int) vals[--sp] != 0 ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_iflt:
+                                target = (int) vals[--sp] < 0 ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_ifge:
+                                target = (int) vals[--sp] >= 0 ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_ifgt:
+                                target = (int) vals[--sp] > 0 ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_ifle:
+                                target = (int) vals[--sp] <= 0 ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_if_icmpeq:
+                                sp -= 2;
+                                target = (int) vals[sp] == (int) vals[sp + 1] ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_if_icmpne:
+                                sp -= 2;
+                                target = (int) vals[sp] != (int) vals[sp + 1] ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_if_icmplt:
+                                sp -= 2;
+                                target = (int) vals[sp] < (int) vals[sp + 1] ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_if_icmpge:
+                                sp -= 2;
+                                target = (int) vals[sp] >= (int) vals[sp + 1] ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_if_icmpgt:
+                                sp -= 2;
+                                target = (int) vals[sp] > (int) vals[sp + 1] ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_if_icmple:
+                                sp -= 2;
+                                target = (int) vals[sp] <= (int) vals[sp + 1] ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_if_acmpeq:
+                                sp -= 2;
+                                target = refs[sp] == refs[sp + 1] ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_if_acmpne:
+                                sp -= 2;
+                                target = refs[sp] != refs[sp + 1] ? code[pc + 1] : pc + 2;
+                                break branch;
+                            case Opcode.op_ifnull:
+                                target = refs[--sp] == null ? code[pc + 1] : pc + 2;
+                                refs[sp] = null;
+                                break branch;
+                            case Opcode.op_ifnonnull:
+                                target = refs[--sp] != null ? code[pc + 1] : pc + 2;
+                                refs[sp] = null;
+                                break branch;
+                            case Opcode.op_goto:
+                                target = code[pc + 1];
+                                break branch;
+                            case Opcode.op_tableswitch:
+                                pc = DecodedCode.tableSwitchTarget(code, pc, (int) vals[--sp]);
+                                break;
+                            case Opcode.op_lookupswitch:
+                                pc = DecodedCode.lookupSwitchTarget(code, pc, (int) vals[--sp]);
+                                break;
+                            case Opcode.op_ireturn:
+                            case Opcode.op_freturn:
+                            case Opcode.op_lreturn:
+                            case Opcode.op_dreturn:
+                            case Opcode.op_areturn:
+                            case Opcode.op_return: {
+                                thread.popFrame();
+                                Frame caller = thread.topFrame();
+                                if (caller != null) {
+                                    //浮点返回值按位模式原样传递
+                                    if (op == Opcode.op_ireturn || op == Opcode.op_freturn) {
+                                        caller.pushInt((int) vals[sp - 1]);
+                                    } else if (op == Opcode.op_lreturn || op == Opcode.op_dreturn) {
+                                        caller.pushLong(vals[sp - 2]);
+                                    } else if (op == Opcode.op_areturn) {
+                                        caller.pushRef(refs[sp - 1]);
+                                    }
+                                }
+                                if (thread.depth() < baseDepth) {
+                                    return;
+                                }
+                                frame = caller;
+                                break dispatch;
+                            }
+                            case Superinstructions.op_iload_iload_iop_istore:
+                                vals[lb + code[pc + 4]] = Superinstructions.intOp(code[pc + 3], (int) vals[lb + code[pc + 1]], (int) vals[lb + code[pc + 2]]);
+                                pc += 5;
+                                break;
+                            case Superinstructions.op_iload_iload_iop:
+                                vals[sp++] = Superinstructions.intOp(code[pc + 3], (int) vals[lb + code[pc + 1]], (int) vals[lb + code[pc + 2]]);
+                                pc += 4;
+                                break;
+                            case Superinstructions.op_iinc_goto: {
+                                int idx = lb + code[pc + 1];
+                                vals[idx] = (int) vals[idx] + code[pc + 2];
+                                target = code[pc + 3];
+                                break branch;
+                            }
+                            case Superinstructions.op_iload_iload_if_icmp:
+                                target = Superinstructions.intCompare(code[pc + 3], (int) vals[lb + code[pc + 1]], (int) vals[lb + code[pc + 2]])
+                                        ? code[pc + 4] : pc + 5;
+                                break branch;
+                            case Superinstructions.op_iload_iconst_if_icmp:
+                                target = Superinstructions.intCompare(code[pc + 3], (int) vals[lb + code[pc + 1]], code[pc + 2])
+                                        ? code[pc + 4] : pc + 5;
+                                break branch;
+                            case QuickOpcode.op_getfield_quick: {
+                                int operand = code[pc + 1];
+                                LObject obj = (LObject) refs[sp - 1];
+                                refs[sp - 1] = null;
+                                switch (operand & 3) {
+                                    case QuickOpcode.FIELD_INT:
+                                        vals[sp - 1] = (int) obj.getlValues()[operand >> 2];
+                                        break;
+                                    case QuickOpcode.FIELD_LONG:
+                                        vals[sp - 1] = obj.getlValues()[operand >> 2];
+                                        sp++;
+                                        break;
+                                    default:
+                                        refs[sp - 1] = obj.getlRefs()[operand >> 2];
+                                }
+                                pc += 2;
+                                break;
+                            }
+                            case Superinstructions.op_aload_0_getfield_quick: {
+                                int operand = code[pc + 1];
+                                LObject obj = (LObject) refs[lb];
+                                switch (operand & 3) {
+                                    case QuickOpcode.FIELD_INT:
+                                        vals[sp++] = (int) obj.getlValues()[operand >> 2];
+                                        break;
+                                    case QuickOpcode.FIELD_LONG:
+                                        vals[sp] = obj.getlValues()[operand >> 2];
+                                        sp += 2;
+                                        break;
+                                    default:
+                                        refs[sp++] = obj.getlRefs()[operand >> 2];
+                                }
+                                pc += 2;
+                                break;
+                            }
+                            case QuickOpcode.op_putfield_quick: {
+                                int operand = code[pc + 1];
+                                switch (operand & 3) {
+                                    case QuickOpcode.FIELD_INT:
+                                        sp -= 2;
+                                        ((LObject) refs[sp]).getlValues()[operand >> 2] = (int) vals[sp + 1];
+                                        break;
+                                    case QuickOpcode.FIELD_LONG:
+                                        sp -= 3;
+                                        ((LObject) refs[sp]).getlValues()[operand >> 2] = vals[sp + 1];
+                                        break;
+                                    default:
+                                        sp -= 2;
+                                        ((LObject) refs[sp]).getlRefs()[operand >> 2] = refs[sp + 1];
+                                        refs[sp + 1] = null;
+                                }
+                                pc += 2;
+                                break;
+                            }
+                            case QuickOpcode.op_getstatic_quick: {
+                                Field field = (Field) frame.getfCode().getResolved(code[pc + 1]);
+                                if (field.isReference()) {
+                                    refs[sp++] = field.getfClass().getStaticRefs()[field.getOffset()];
+                                } else {
+                                    vals[sp] = field.getfClass().getStaticValues()[field.getOffset()];
+                                    sp += field.getSlotSize();
+                                }
+                                pc += 2;
+                                break;
+                            }
+                            case QuickOpcode.op_putstatic_quick: {
+                                Field field = (Field) frame.getfCode().getResolved(code[pc + 1]);
+                                if (field.isReference()) {
+                                    field.getfClass().getStaticRefs()[field.getOffset()] = refs[--sp];
+                                    refs[sp] = null;
+                                } else if (field.getSlotSize() == 2) {
+                                    sp -= 2;
+                                    field.getfClass().getStaticValues()[field.getOffset()] = vals[sp];
+                                } else {
+                                    field.getfClass().getStaticValues()[field.getOffset()] = (int) vals[--sp];
+                                }
+                                pc += 2;
+                                break;
+                            }
+                            case QuickOpcode.op_checkcast_quick:
+                                ((TypeCheck) frame.getfCode().getResolved(code[pc + 1])).checkCast(refs[sp - 1], thread);
+                                pc += 2;
+                                break;
+                            case QuickOpcode.op_instanceof_quick: {
+                                Object obj = refs[sp - 1];
+                                vals[sp - 1] = obj != null && ((TypeCheck) frame.getfCode().getResolved(code[pc + 1])).isInstance(obj) ? 1 : 0;
+                                refs[sp - 1] = null;
+                                pc += 2;
+                                break;
+                            }
+                            case QuickOpcode.op_ldc_quick:
+                                refs[sp++] = frame.getfCode().getResolved(code[pc + 1]);
+                                pc += 2;
+                                break;
+                            default: {
+                                //复杂指令交由指令表处理，先同步pc与栈顶指针
+                                frame.setfStackPos(sp);
+                                frame.jumpTo(pc + DecodedCode.length(code, pc));
+                                InstructionFactory.getHandler(op).exec(code, pc, frame);
+                                if (thread.depth() < baseDepth) {
+                                    return;
+                                }
+                                frame = thread.topFrame();
+                                break dispatch;
+                            }
+                        }
+                        continue;
+                    }
+                    //跳转指令：回边（目标不在跳转指令之后）处累计循环执行次数，循环头已有栈上替换代码且操作数栈为空时转入编译代码执行，
+                    //编译代码执行至方法返回（或抛出异常）后，从线程栈顶栈帧继续解释执行
+                    if (target <= pc && jit != null) {
+                        //轨迹模式下由循环头执行或记录轨迹，离开轨迹后从线程栈顶栈帧继续解释执行
+                        if (jit.isTracing() && sp == frame.getfStackBase()) {
+                            frame.setfStackPos(sp);
+                            frame.jumpTo(target);
+                            boolean traced;
+                            try {
+                                traced = jit.onLoopHeader(frame, target);
+                            } catch (RuntimeException e) {
+                                //出错栈帧的pc已指向出错指令的下一个下标，由下方统一展开
+                                pc = frame.getfPC() - 1;
+                                throw e;
+                            }
+                            if (traced) {
+                                if (thread.depth() < baseDepth) {
+                                    return;
+                                }
+                                frame = thread.topFrame();
+                                break dispatch;
+                            }
+                        }
+                        CompiledMethod osr = jit.onBackedge(frame.getfMethod(), target);
+                        if (osr != null && sp == frame.getfStackBase() && jit.enter()) {
+                            frame.setfStackPos(sp);
+                            frame.jumpTo(target);
+                            try {
+                                osr.run(frame);
+                            } finally {
+                                jit.exit();
+                            }
+                            if (thread.depth() < baseDepth) {
+                                return;
+                            }
+                            frame = thread.topFrame();
+                            break dispatch;
+                        }
+                    }
+                    pc = target;
+                }
+            } catch (RuntimeException e) {
+                //在栈帧中查找异常处理器，未找到时逐层展开栈帧，继续从处理器所在栈帧执行
+                frame = thread.unwind(e, frame, pc, baseDepth);
+            }
+        }
+    }
+
+    private static float f(long bits) {
+        return Float.intBitsToFloat((int) bits);
+    }
+
+    private static long fbits(float f) {
+        return Float.floatToRawIntBits(f);
+    }
+
+    private static double d(long bits) {
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static long dbits(double d) {
+        return Double.doubleToRawLongBits(d);
+    }
+}
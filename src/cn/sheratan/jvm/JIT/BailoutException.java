@@ -0,0 +1,28 @@
+package cn.sheratan.jvm.JIT;
+
+/**
+ * @Description: 编译器放弃编译：方法含有不支持的指令或常量、生成代码超出宿主类文件的限制、栈上替换入口不可用等。
+ * 属于编译器的正常结果而非错误，由MethodCompiler记录后返回null（或交由栈上替换编译的调用者处理），方法继续解释执行；不填充异常栈
+ * @Author aries
+ * @Data 2026-10-18 13:45
+ */
+final class BailoutException extends Exception {
+
+    /**
+     * @Description: 是否只是栈上替换的入口不可用，此时以方法起始处或其他循环头为入口仍可能编译成功
+     */
+    private final boolean entryOnly;
+
+    BailoutException(String reason) {
+        this(reason, false);
+    }
+
+    BailoutException(String reason, boolean entryOnly) {
+        super(reason, null, false, false);
+        this.entryOnly = entryOnly;
+    }
+
+    boolean isEntryOnly() {
+        return entryOnly;
+    }
+}
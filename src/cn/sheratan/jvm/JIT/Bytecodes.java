@@ -0,0 +1,182 @@
+package cn.sheratan.jvm.JIT;
+
+import org.freeinternals.format.classfile.AttributeCode;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Description: 原始字节码的指令长度与控制流信息，供编译前的分析使用（指令下标均为字节码偏移值）
+ * @Author aries
+ * @Data 2026-10-18 09:27
+ */
+final class Bytecodes {
+
+    private static final int[] LENGTH = new int[256];
+
+    static {
+        for (int op = 0; op <= Opcode.op_jsr_w; op++) {
+            LENGTH[op] = 1;
+        }
+        int[] two = {Opcode.op_bipush, Opcode.op_ldc, Opcode.op_iload, Opcode.op_lload, Opcode.op_fload, Opcode.op_dload,
+                Opcode.op_aload, Opcode.op_istore, Opcode.op_lstore, Opcode.op_fstore, Opcode.op_dstore, Opcode.op_astore,
+                Opcode.op_ret, Opcode.op_newarray};
+        for (int op : two) {
+            LENGTH[op] = 2;
+        }
+        int[] three = {Opcode.op_sipush, Opcode.op_ldc_w, Opcode.op_ldc2_w, Opcode.op_iinc,
+                Opcode.op_getstatic, Opcode.op_putstatic, Opcode.op_getfield, Opcode.op_putfield,
+                Opcode.op_invokevirtual, Opcode.op_invokespecial, Opcode.op_invokestatic,
+                Opcode.op_new, Opcode.op_anewarray, Opcode.op_checkcast, Opcode.op_instanceof,
+                Opcode.op_ifnull, Opcode.op_ifnonnull};
+        for (int op : three) {
+            LENGTH[op] = 3;
+        }
+        for (int op = Opcode.op_ifeq; op <= Opcode.op_jsr; op++) {
+            LENGTH[op] = 3;
+        }
+        LENGTH[Opcode.op_multianewarray] = 4;
+        LENGTH[Opcode.op_invokeinterface] = 5;
+        LENGTH[Opcode.op_invokedynamic] = 5;
+        LENGTH[Opcode.op_goto_w] = 5;
+        LENGTH[Opcode.op_jsr_w] = 5;
+    }
+
+    private Bytecodes() {
+    }
+
+    /**
+     * @Description: 指令长度（字节数），含tableswitch、lookupswitch的对齐填充及wide前缀
+     */
+    static int length(byte[] code, int bci) {
+        int op = code[bci] & 0xFF;
+        switch (op) {
+            case Opcode.op_tableswitch: {
+                int p = (bci + 4) & ~3;
+                return p + 12 + (s4(code, p + 8) - s4(code, p + 4) + 1) * 4 - bci;
+            }
+            case Opcode.op_lookupswitch: {
+                int p = (bci + 4) & ~3;
+                return p + 8 + s4(code, p + 4) * 8 - bci;
+            }
+            case Opcode.op_wide:
+                return (code[bci + 1] & 0xFF) == Opcode.op_iinc ? 6 : 4;
+            default:
+                return LENGTH[op];
+        }
+    }
+
+    /**
+     * @Description: 跳转目标（字节码偏移值），非跳转指令返回空数组
+     */
+    static int[] branchTargets(byte[] code, int bci) {
+        int op = code[bci] & 0xFF;
+        if ((op >= Opcode.op_ifeq && op <= Opcode.op_jsr) || op == Opcode.op_ifnull || op == Opcode.op_ifnonnull) {
+            return new int[]{bci + (short) u2(code, bci + 1)};
+        }
+        switch (op) {
+            case Opcode.op_goto_w:
+            case Opcode.op_jsr_w:
+                return new int[]{bci + s4(code, bci + 1)};
+            case Opcode.op_tableswitch: {
+                int p = (bci + 4) & ~3;
+                int n = s4(code, p + 8) - s4(code, p + 4) + 1;
+                int[] targets = new int[n + 1];
+                targets[0] = bci + s4(code, p);
+                for (int i = 0; i < n; i++) {
+                    targets[i + 1] = bci + s4(code, p + 12 + i * 4);
+                }
+                return targets;
+            }
+            case Opcode.op_lookupswitch: {
+                int p = (bci + 4) & ~3;
+                int n = s4(code, p + 4);
+                int[] targets = new int[n + 1];
+                targets[0] = bci + s4(code, p);
+                for (int i = 0; i < n; i++) {
+                    targets[i + 1] = bci + s4(code, p + 12 + i * 8);
+                }
+                return targets;
+            }
+            default:
+                return new int[0];
+        }
+    }
+
+    /**
+     * @Description: 划分基本块：块起始于跳转目标、跳转及不再顺序执行的指令之后的位置，以及异常表项的端点与处理器
+     * @Param attr 方法的Code属性
+     * @Param blockOf 输出：字节码偏移值到块下标的映射，非块起始处为-1，长度为字节码长度
+     * @return: int[] 各块起始指令的下标
+     */
+    static int[] findBlocks(AttributeCode attr, int[] blockOf) {
+        byte[] code = attr.getCode();
+        boolean[] leader = new boolean[code.length];
+        leader[0] = true;
+        for (int bci = 0; bci < code.length; bci += length(code, bci)) {
+            int op = code[bci] & 0xFF;
+            int[] targets = branchTargets(code, bci);
+            for (int t : targets) {
+                leader[t] = true;
+            }
+            int next = bci + length(code, bci);
+            if ((targets.length > 0 || !fallsThrough(op)) && next < code.length) {
+                leader[next] = true;
+            }
+        }
+        for (int i = 0; i < attr.getExceptionTableLength(); i++) {
+            AttributeCode.ExceptionTable e = attr.getExceptionTable(i);
+            leader[e.getStartPc()] = true;
+            leader[e.getHandlerPc()] = true;
+            if (e.getEndPc() < code.length) {
+                leader[e.getEndPc()] = true;
+            }
+        }
+        Arrays.fill(blockOf, -1);
+        List<Integer> starts = new ArrayList<>();
+        for (int bci = 0; bci < code.length; bci += length(code, bci)) {
+            if (leader[bci]) {
+                blockOf[bci] = starts.size();
+                starts.add(bci);
+            }
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @Description: 指令执行后是否可能顺序执行下一条指令
+     */
+    static boolean fallsThrough(int op) {
+        switch (op) {
+            case Opcode.op_goto:
+            case Opcode.op_goto_w:
+            case Opcode.op_tableswitch:
+            case Opcode.op_lookupswitch:
+            case Opcode.op_ireturn:
+            case Opcode.op_lreturn:
+            case Opcode.op_freturn:
+            case Opcode.op_dreturn:
+            case Opcode.op_areturn:
+            case Opcode.op_return:
+            case Opcode.op_athrow:
+            case Opcode.op_ret:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    static int u2(byte[] code, int p) {
+        return (code[p] & 0xFF) << 8 | (code[p + 1] & 0xFF);
+    }
+
+    static int s2(byte[] code, int p) {
+        return (short) u2(code, p);
+    }
+
+    static int s4(byte[] code, int p) {
+        return code[p] << 24 | (code[p + 1] & 0xFF) << 16 | (code[p + 2] & 0xFF) << 8 | (code[p + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,111 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.LObject;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Thread;
+import cn.sheratan.jvm.Instruction.InlineCache;
+import cn.sheratan.jvm.Instruction.InstructionFactory;
+
+/**
+ * @Description: 闭包树中的虚方法调用（invokevirtual/invokeinterface）节点，依据实际出现的接收者类型改写自身的分派链：
+ * 初始为未初始化状态，每出现一个新的接收者类型，就在链首加入一个比较该类型并直接给出目标方法的缓存节点；
+ * 缓存节点超过InlineCache.MAX_RECEIVERS个后整条链替换为megamorphic节点，之后每次经vtable/itable分派。
+ * 新的接收者类型同时记录到调用点的内联缓存中，供第2层编译作为类型剖析信息。
+ * 接收者不是虚拟机对象（字符串、数组）或调用的是java/lang/Object的方法时，经由解释器的调用逻辑分派
+ * @Author aries
+ * @Data 2026-10-18 09:55
+ */
+final class CallNode {
+    private final Class.Symbol symbol;
+
+    /**
+     * @Description: 调用点的内联缓存，可为null
+     */
+    private final InlineCache profile;
+
+    private DispatchNode dispatch = new UninitializedDispatch();
+    private int cachedCount;
+
+    CallNode(Class.Symbol symbol, InlineCache profile) {
+        this.symbol = symbol;
+        this.profile = profile;
+    }
+
+    /**
+     * @Description: 调用方法，参数已位于frame的操作数栈顶，返回时返回值已压入frame的操作数栈
+     * @Param frame 调用者栈帧
+     * @Param receiver 接收者
+     * @return: void
+     */
+    void call(Frame frame, Object receiver) {
+        if (!(receiver instanceof LObject) || symbol.method == null) {
+            JitRuntime.invokevirtual(frame, symbol, profile);
+            return;
+        }
+        Method target = dispatch.select(((LObject) receiver).getlClazz(), receiver, frame.getfThread());
+        JitRuntime.invoke(frame, target, symbol.argCount);
+    }
+
+    /**
+     * @Description: 未初始化的分派节点遇到新的接收者类型时改写分派链
+     */
+    private Method specialize(Class receiverClass, Object receiver, Thread thread) {
+        Method target = InstructionFactory.selectMethod(symbol, receiver, thread);
+        if (profile != null && !profile.isMegamorphic() && !isRecorded(receiverClass)) {
+            profile.update(receiverClass, target);
+        }
+        if (cachedCount < InlineCache.MAX_RECEIVERS) {
+            dispatch = new CachedDispatch(receiverClass, target, dispatch);
+            cachedCount++;
+        } else {
+            dispatch = new MegamorphicDispatch();
+        }
+        return target;
+    }
+
+    private boolean isRecorded(Class receiverClass) {
+        for (int i = 0; i < profile.getSize(); i++) {
+            if (profile.getReceiver(i) == receiverClass) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private abstract static class DispatchNode {
+        abstract Method select(Class receiverClass, Object receiver, Thread thread);
+    }
+
+    private final class UninitializedDispatch extends DispatchNode {
+        @Override
+        Method select(Class receiverClass, Object receiver, Thread thread) {
+            return specialize(receiverClass, receiver, thread);
+        }
+    }
+
+    private static final class CachedDispatch extends DispatchNode {
+        private final Class receiverClass;
+        private final Method target;
+        private final DispatchNode next;
+
+        CachedDispatch(Class receiverClass, Method target, DispatchNode next) {
+            this.receiverClass = receiverClass;
+            this.target = target;
+            this.next = next;
+        }
+
+        @Override
+        Method select(Class receiverClass, Object receiver, Thread thread) {
+            return receiverClass == this.receiverClass ? target : next.select(receiverClass, receiver, thread);
+        }
+    }
+
+    private final class MegamorphicDispatch extends DispatchNode {
+        @Override
+        Method select(Class receiverClass, Object receiver, Thread thread) {
+            return InstructionFactory.selectMethod(symbol, receiver, thread);
+        }
+    }
+}
@@ -0,0 +1,1698 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.ConstantPoolCache;
+import cn.sheratan.jvm.Field;
+import cn.sheratan.jvm.LArray;
+import cn.sheratan.jvm.LObject;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Instruction.InstructionFactory;
+import cn.sheratan.jvm.Instruction.TypeCheck;
+import cn.sheratan.jvm.JIT.ClosureNodes.Block;
+import cn.sheratan.jvm.JIT.ClosureNodes.DoubleNode;
+import cn.sheratan.jvm.JIT.ClosureNodes.ExitNode;
+import cn.sheratan.jvm.JIT.ClosureNodes.FloatNode;
+import cn.sheratan.jvm.JIT.ClosureNodes.IntNode;
+import cn.sheratan.jvm.JIT.ClosureNodes.LongNode;
+import cn.sheratan.jvm.JIT.ClosureNodes.RefNode;
+import cn.sheratan.jvm.JIT.ClosureNodes.StmtNode;
+import org.freeinternals.format.classfile.AbstractCPInfo;
+import org.freeinternals.format.classfile.AttributeCode;
+import org.freeinternals.format.classfile.ConstantDoubleInfo;
+import org.freeinternals.format.classfile.ConstantFloatInfo;
+import org.freeinternals.format.classfile.ConstantIntegerInfo;
+import org.freeinternals.format.classfile.ConstantLongInfo;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * @Description: 第1层编译器，将方法编译为闭包树（见ClosureNodes），不生成宿主类。
+ * 方法先按跳转目标、跳转及返回指令之后的位置、异常表项的端点划分基本块，再从入口块及异常处理器开始逐块编译：
+ * 块内以符号化的操作数栈模拟执行，常量、局部变量读取、算术运算、字段及数组元素读取等没有副作用的指令不生成代码，
+ * 而是组合为表达式树留在符号栈中，由消耗它的语句（存储、调用等）或出口节点一并求值，中间结果不再写入操作数栈；
+ * 执行语句前，符号栈中其余尚未求值的表达式按入栈次序先行求值并写回各自在操作数栈中的slot，保证求值次序与解释执行一致；
+ * 块结束时符号栈全部写回操作数栈，后继块从操作数栈读取。
+ * 方法调用、类初始化等可能执行其他方法的操作执行前设置栈帧的栈顶指针，参数与解释执行时一样位于操作数栈顶，被调用方法的栈帧由此压入。
+ * jsr/ret、invokedynamic及加载类常量的ldc指令暂不支持编译，抛出BailoutException。
+ * 轨迹编译（见TraceCompiler）同样借助本类逐条编译轨迹经过的指令，此时不划分基本块，跳转指令的出口节点直接返回实际跳转到的指令下标
+ * @Author aries
+ * @Data 2026-10-18 09:55
+ */
+final class ClosureCompiler {
+
+    /**
+     * @Description: 值的种类，下标即种类在xload、xstore、xreturn指令族中的次序
+     */
+    private static final String KINDS = "IJFDA";
+
+    /**
+     * @Description: 操作数栈中long、double高位slot的占位种类
+     */
+    private static final char UPPER = 'T';
+
+    private static final RefNode NULL = c -> null;
+
+    private final Method method;
+    private final Class clazz;
+    private final ConstantPoolCache cpCache;
+    private final AttributeCode attr;
+    private final byte[] code;
+    private final int maxLocals;
+
+    /**
+     * @Description: 字节码偏移值到块下标的映射，非块起始处为-1
+     */
+    private final int[] blockOf;
+
+    /**
+     * @Description: 各块起始指令的下标
+     */
+    private int[] leaders;
+
+    /**
+     * @Description: 各块入口处操作数栈中各值的种类，块尚不可达时为null
+     */
+    private String[] entryStates;
+
+    private Block[] blocks;
+
+    private final Deque<Integer> work = new ArrayDeque<>();
+
+    /**
+     * @Description: 是否用于轨迹编译，此时出口节点返回目标指令的下标（字节码偏移值）而不是块下标
+     */
+    private boolean tracing;
+
+    /**
+     * @Description: 当前块的符号栈及已生成的语句
+     */
+    private final List<Value> stack = new ArrayList<>();
+    private final List<StmtNode> stmts = new ArrayList<>();
+
+    /**
+     * @Description: 符号栈所占的slot数量
+     */
+    private int depth;
+
+    /**
+     * @Description: 符号栈中的值
+     */
+    private static final class Value {
+        final char kind;
+        final Object node;
+
+        /**
+         * @Description: 值所读取的操作数栈slot下标（相对局部变量表起始处），不是slot读取时为-1
+         */
+        final int slot;
+
+        /**
+         * @Description: 是否为常量，常量在执行语句前无需写回操作数栈；整数常量的值记录在value中，供生成特化的节点
+         */
+        final boolean constant;
+        final Object value;
+
+        /**
+         * @Description: 是否可重复求值且没有副作用（常量、局部变量或slot读取），dup此类值时直接复制节点
+         */
+        final boolean trivial;
+
+        Value(char kind, Object node, int slot, boolean constant, Object value, boolean trivial) {
+            this.kind = kind;
+            this.node = node;
+            this.slot = slot;
+            this.constant = constant;
+            this.value = value;
+            this.trivial = trivial;
+        }
+    }
+
+    ClosureCompiler(Method method) throws BailoutException {
+        this.method = method;
+        this.clazz = method.getmClass();
+        this.cpCache = clazz.getConstantPoolCache();
+        this.attr = method.getCodeAttribute();
+        if (attr == null) {
+            throw new BailoutException("no code");
+        }
+        this.code = attr.getCode();
+        this.maxLocals = attr.getMaxLocals();
+        this.blockOf = new int[code.length];
+    }
+
+    /**
+     * @Description: 编译方法
+     * @return: cn.sheratan.jvm.JIT.ClosureMethod 以方法起始处为入口
+     */
+    ClosureMethod compile() throws BailoutException {
+        leaders = Bytecodes.findBlocks(attr, blockOf);
+        blocks = new Block[leaders.length];
+        entryStates = new String[leaders.length];
+        enter(0, "");
+        for (int i = 0; i < attr.getExceptionTableLength(); i++) {
+            enter(blockOf[attr.getExceptionTable(i).getHandlerPc()], "A");
+        }
+        while (!work.isEmpty()) {
+            compileBlock(work.pop());
+        }
+        return new ClosureMethod(blocks, blockOf, maxLocals, 0);
+    }
+
+    /**
+     * @Description: 开始轨迹编译，之后由TraceCompiler逐条调用translate编译轨迹经过的指令
+     */
+    void beginTrace() {
+        Bytecodes.findBlocks(attr, blockOf);
+        tracing = true;
+    }
+
+    /**
+     * @Description: 指令是否为块的起始处（跳转目标、异常表项的端点等），轨迹在此处分段，同一段中的指令被相同的异常表项覆盖
+     */
+    boolean isLeader(int bci) {
+        return blockOf[bci] >= 0;
+    }
+
+    /**
+     * @Description: 从已写回操作数栈的状态继续编译：符号栈按各slot的种类改为slot读取，已生成的语句清空
+     * @Param state 操作数栈中各值的种类
+     */
+    void resume(String state) {
+        stack.clear();
+        stmts.clear();
+        depth = 0;
+        for (char kind : state.toCharArray()) {
+            push(slotValue(kind, maxLocals + depth));
+        }
+    }
+
+    /**
+     * @Description: 将符号栈全部写回操作数栈
+     * @return: java.lang.String 操作数栈中各值的种类，供resume继续编译
+     */
+    String spillAll() {
+        spill(true);
+        StringBuilder state = new StringBuilder();
+        for (Value v : stack) {
+            state.append(v.kind);
+        }
+        return state.toString();
+    }
+
+    /**
+     * @Description: 取出已生成的语句
+     */
+    StmtNode[] takeStatements() {
+        StmtNode[] result = stmts.toArray(new StmtNode[0]);
+        stmts.clear();
+        return result;
+    }
+
+    /**
+     * @Description: 符号栈所占的slot数量（不含局部变量表）
+     */
+    int stackDepth() {
+        return depth;
+    }
+
+    int getMaxLocals() {
+        return maxLocals;
+    }
+
+    /**
+     * @Description: 记录块的入口状态，块首次可达时加入待编译队列
+     */
+    private void enter(int block, String state) {
+        if (entryStates[block] == null) {
+            entryStates[block] = state;
+            work.push(block);
+        } else if (!entryStates[block].equals(state)) {
+            throw new IllegalStateException("inconsistent stack at " + leaders[block]);
+        }
+    }
+
+    /**
+     * @Description: 跳转到目标指令：符号栈已全部写回操作数栈，记录目标块的入口状态
+     * @return: int 目标块的下标
+     */
+    private int successor(int bci) {
+        if (tracing) {
+            return bci;
+        }
+        int block = bci < code.length ? blockOf[bci] : -1;
+        if (block < 0) {
+            throw new IllegalStateException("bad branch target " + bci);
+        }
+        StringBuilder state = new StringBuilder();
+        for (Value v : stack) {
+            state.append(v.kind);
+        }
+        enter(block, state.toString());
+        return block;
+    }
+
+    private void compileBlock(int b) throws BailoutException {
+        stack.clear();
+        stmts.clear();
+        depth = 0;
+        for (char kind : entryStates[b].toCharArray()) {
+            push(slotValue(kind, maxLocals + depth));
+        }
+        int bci = leaders[b];
+        int end = b + 1 < leaders.length ? leaders[b + 1] : code.length;
+        ExitNode exit = null;
+        while (exit == null) {
+            if (bci >= end) {
+                exit = jump(end);
+                break;
+            }
+            int next = bci + Bytecodes.length(code, bci);
+            exit = translate(bci, next);
+            bci = next;
+        }
+        List<Class> catchClasses = new ArrayList<>();
+        List<Integer> handlers = new ArrayList<>();
+        for (int i = 0; i < attr.getExceptionTableLength(); i++) {
+            AttributeCode.ExceptionTable e = attr.getExceptionTable(i);
+            if (e.getStartPc() <= leaders[b] && leaders[b] < e.getEndPc()) {
+                Class catchClass = e.getCatchType() == 0 ? null : cpCache.resolveClass(e.getCatchType());
+                if (e.getCatchType() != 0 && catchClass == null) {
+                    continue;
+                }
+                catchClasses.add(catchClass);
+                handlers.add(blockOf[e.getHandlerPc()]);
+            }
+        }
+        blocks[b] = new Block(stmts.toArray(new StmtNode[0]), exit, catchClasses.toArray(new Class[0]),
+                handlers.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * @Description: 编译一条指令
+     * @Param bci 指令下标
+     * @Param next 下一条指令的下标
+     * @return: cn.sheratan.jvm.JIT.ClosureNodes.ExitNode 指令结束基本块（跳转、返回、athrow）时为块的出口节点，否则为null
+     */
+    ExitNode translate(int bci, int next) throws BailoutException {
+        int op = code[bci] & 0xFF;
+        if (op >= Opcode.op_iconst_m1 && op <= Opcode.op_iconst_5) {
+            pushInt(op - Opcode.op_iconst_0);
+            return null;
+        }
+        if (op >= Opcode.op_iload_0 && op <= Opcode.op_aload_3) {
+            pushLocal(KINDS.charAt((op - Opcode.op_iload_0) / 4), (op - Opcode.op_iload_0) % 4);
+            return null;
+        }
+        if (op >= Opcode.op_istore_0 && op <= Opcode.op_astore_3) {
+            store(KINDS.charAt((op - Opcode.op_istore_0) / 4), (op - Opcode.op_istore_0) % 4);
+            return null;
+        }
+        if (op >= Opcode.op_iadd && op <= Opcode.op_lxor) {
+            arithmetic(op);
+            return null;
+        }
+        if (op >= Opcode.op_i2l && op <= Opcode.op_dcmpg) {
+            conversion(op);
+            return null;
+        }
+        if ((op >= Opcode.op_ifeq && op <= Opcode.op_if_acmpne) || op == Opcode.op_ifnull || op == Opcode.op_ifnonnull) {
+            return branch(op, bci + Bytecodes.s2(code, bci + 1), next);
+        }
+        switch (op) {
+            case Opcode.op_nop:
+                return null;
+            case Opcode.op_aconst_null:
+                push(new Value('A', NULL, -1, true, null, true));
+                return null;
+            case Opcode.op_lconst_0:
+            case Opcode.op_lconst_1: {
+                long v = op - Opcode.op_lconst_0;
+                pushConstant('J', (LongNode) c -> v, v);
+                return null;
+            }
+            case Opcode.op_fconst_0:
+            case Opcode.op_fconst_1:
+            case Opcode.op_fconst_2: {
+                float v = op - Opcode.op_fconst_0;
+                pushConstant('F', (FloatNode) c -> v, v);
+                return null;
+            }
+            case Opcode.op_dconst_0:
+            case Opcode.op_dconst_1: {
+                double v = op - Opcode.op_dconst_0;
+                pushConstant('D', (DoubleNode) c -> v, v);
+                return null;
+            }
+            case Opcode.op_bipush:
+                pushInt(code[bci + 1]);
+                return null;
+            case Opcode.op_sipush:
+                pushInt(Bytecodes.s2(code, bci + 1));
+                return null;
+            case Opcode.op_ldc:
+                ldc(code[bci + 1] & 0xFF);
+                return null;
+            case Opcode.op_ldc_w:
+            case Opcode.op_ldc2_w:
+                ldc(Bytecodes.u2(code, bci + 1));
+                return null;
+            case Opcode.op_iload:
+            case Opcode.op_lload:
+            case Opcode.op_fload:
+            case Opcode.op_dload:
+            case Opcode.op_aload:
+                pushLocal(KINDS.charAt(op - Opcode.op_iload), code[bci + 1] & 0xFF);
+                return null;
+            case Opcode.op_istore:
+            case Opcode.op_lstore:
+            case Opcode.op_fstore:
+            case Opcode.op_dstore:
+            case Opcode.op_astore:
+                store(KINDS.charAt(op - Opcode.op_istore), code[bci + 1] & 0xFF);
+                return null;
+            case Opcode.op_iinc:
+                iinc(code[bci + 1] & 0xFF, code[bci + 2]);
+                return null;
+            case Opcode.op_wide:
+                wide(bci);
+                return null;
+            case Opcode.op_iaload:
+            case Opcode.op_laload:
+            case Opcode.op_faload:
+            case Opcode.op_daload:
+            case Opcode.op_aaload:
+            case Opcode.op_baload:
+            case Opcode.op_caload:
+            case Opcode.op_saload:
+                arrayLoad(op);
+                return null;
+            case Opcode.op_iastore:
+            case Opcode.op_lastore:
+            case Opcode.op_fastore:
+            case Opcode.op_dastore:
+            case Opcode.op_aastore:
+            case Opcode.op_bastore:
+            case Opcode.op_castore:
+            case Opcode.op_sastore:
+                arrayStore(op);
+                return null;
+            case Opcode.op_pop:
+                discard(1);
+                return null;
+            case Opcode.op_pop2:
+                discard(2);
+                return null;
+            case Opcode.op_dup:
+                dup();
+                return null;
+            case Opcode.op_dup_x1:
+                dupSlots(1, 1);
+                return null;
+            case Opcode.op_dup_x2:
+                dupSlots(1, 2);
+                return null;
+            case Opcode.op_dup2:
+                dupSlots(2, 0);
+                return null;
+            case Opcode.op_dup2_x1:
+                dupSlots(2, 1);
+                return null;
+            case Opcode.op_dup2_x2:
+                dupSlots(2, 2);
+                return null;
+            case Opcode.op_swap:
+                swap();
+                return null;
+            case Opcode.op_goto:
+                return jump(bci + Bytecodes.s2(code, bci + 1));
+            case Opcode.op_goto_w:
+                return jump(bci + Bytecodes.s4(code, bci + 1));
+            case Opcode.op_tableswitch:
+                return tableSwitch(bci);
+            case Opcode.op_lookupswitch:
+                return lookupSwitch(bci);
+            case Opcode.op_ireturn:
+            case Opcode.op_lreturn:
+            case Opcode.op_freturn:
+            case Opcode.op_dreturn:
+            case Opcode.op_areturn:
+                return returnValue(KINDS.charAt(op - Opcode.op_ireturn));
+            case Opcode.op_return:
+                spill(false);
+                return c -> {
+                    JitRuntime.returnVoid(c.frame);
+                    return ClosureNodes.RETURN;
+                };
+            case Opcode.op_athrow: {
+                RefNode v = popRef();
+                spill(false);
+                return c -> {
+                    throw JitRuntime.athrow(v.eval(c));
+                };
+            }
+            case Opcode.op_getstatic:
+                getStatic(cpCache.resolveField(Bytecodes.u2(code, bci + 1)));
+                return null;
+            case Opcode.op_putstatic:
+                putStatic(cpCache.resolveField(Bytecodes.u2(code, bci + 1)));
+                return null;
+            case Opcode.op_getfield:
+                getField(cpCache.resolveField(Bytecodes.u2(code, bci + 1)));
+                return null;
+            case Opcode.op_putfield:
+                putField(cpCache.resolveField(Bytecodes.u2(code, bci + 1)));
+                return null;
+            case Opcode.op_invokevirtual:
+            case Opcode.op_invokespecial:
+            case Opcode.op_invokestatic:
+            case Opcode.op_invokeinterface:
+                invoke(op, Bytecodes.u2(code, bci + 1), bci);
+                return null;
+            case Opcode.op_new:
+                newObject(Bytecodes.u2(code, bci + 1));
+                return null;
+            case Opcode.op_newarray: {
+                int atype = code[bci + 1] & 0xFF;
+                IntNode count = popInt();
+                push('A', (RefNode) c -> LArray.ofAtype(atype, count.eval(c)));
+                return null;
+            }
+            case Opcode.op_anewarray: {
+                String name = cpCache.getClassName(Bytecodes.u2(code, bci + 1));
+                String descriptor = "[" + (name.charAt(0) == '[' ? name : "L" + name + ";");
+                IntNode count = popInt();
+                push('A', (RefNode) c -> new LArray(descriptor, count.eval(c)));
+                return null;
+            }
+            case Opcode.op_multianewarray: {
+                String descriptor = cpCache.getClassName(Bytecodes.u2(code, bci + 1));
+                IntNode[] counts = new IntNode[code[bci + 3] & 0xFF];
+                for (int i = counts.length - 1; i >= 0; i--) {
+                    counts[i] = popInt();
+                }
+                push('A', (RefNode) c -> {
+                    int[] dims = new int[counts.length];
+                    for (int i = 0; i < dims.length; i++) {
+                        dims[i] = counts[i].eval(c);
+                    }
+                    return LArray.multi(descriptor, dims);
+                });
+                return null;
+            }
+            case Opcode.op_monitorenter:
+            case Opcode.op_monitorexit: {
+                RefNode obj = popRef();
+                statement(c -> JitRuntime.monitor(obj.eval(c)));
+                return null;
+            }
+            case Opcode.op_arraylength: {
+                RefNode array = popRef();
+                push('I', (IntNode) c -> ((LArray) array.eval(c)).getLength());
+                return null;
+            }
+            case Opcode.op_checkcast: {
+                TypeCheck check = TypeCheck.resolve(clazz, Bytecodes.u2(code, bci + 1));
+                RefNode obj = popRef();
+                push('A', (RefNode) c -> {
+                    Object o = obj.eval(c);
+                    check.checkCast(o, c.frame.getfThread());
+                    return o;
+                });
+                return null;
+            }
+            case Opcode.op_instanceof: {
+                TypeCheck check = TypeCheck.resolve(clazz, Bytecodes.u2(code, bci + 1));
+                RefNode obj = popRef();
+                push('I', (IntNode) c -> {
+                    Object o = obj.eval(c);
+                    return o != null && check.isInstance(o) ? 1 : 0;
+                });
+                return null;
+            }
+            default:
+                throw new BailoutException("opcode " + op);
+        }
+    }
+
+    private void wide(int bci) throws BailoutException {
+        int op = code[bci + 1] & 0xFF;
+        int idx = Bytecodes.u2(code, bci + 2);
+        if (op == Opcode.op_iinc) {
+            iinc(idx, Bytecodes.s2(code, bci + 4));
+        } else if (op >= Opcode.op_iload && op <= Opcode.op_aload) {
+            pushLocal(KINDS.charAt(op - Opcode.op_iload), idx);
+        } else if (op >= Opcode.op_istore && op <= Opcode.op_astore) {
+            store(KINDS.charAt(op - Opcode.op_istore), idx);
+        } else {
+            throw new BailoutException("wide opcode " + op);
+        }
+    }
+
+    private void ldc(int idx) throws BailoutException {
+        AbstractCPInfo info = clazz.getClassFile().getConstantPool()[idx];
+        switch (info.getTag()) {
+            case AbstractCPInfo.CONSTANT_Integer:
+                pushInt(((ConstantIntegerInfo) info).getValue());
+                return;
+            case AbstractCPInfo.CONSTANT_Float: {
+                float v = ((ConstantFloatInfo) info).getValue();
+                pushConstant('F', (FloatNode) c -> v, v);
+                return;
+            }
+            case AbstractCPInfo.CONSTANT_Long: {
+                long v = ((ConstantLongInfo) info).getValue();
+                pushConstant('J', (LongNode) c -> v, v);
+                return;
+            }
+            case AbstractCPInfo.CONSTANT_Double: {
+                double v = ((ConstantDoubleInfo) info).getValue();
+                pushConstant('D', (DoubleNode) c -> v, v);
+                return;
+            }
+            case AbstractCPInfo.CONSTANT_String: {
+                //字符串常量须为虚拟机字符串表中驻留的对象
+                Object v = cpCache.resolveString(idx);
+                pushConstant('A', (RefNode) c -> v, v);
+                return;
+            }
+            default:
+                throw new BailoutException("ldc tag " + info.getTag());
+        }
+    }
+
+    private void store(char kind, int idx) {
+        Value v = pop();
+        statement(write(kind, idx, v.node));
+    }
+
+    private void iinc(int idx, int k) {
+        statement(c -> c.vals[c.lb + idx] = (int) c.vals[c.lb + idx] + k);
+    }
+
+    /**
+     * @Description: 算术与位运算，右操作数为int常量时生成特化的节点
+     */
+    private void arithmetic(int op) {
+        if (op >= Opcode.op_ineg && op <= Opcode.op_dneg) {
+            negate(KINDS.charAt(op - Opcode.op_ineg));
+            return;
+        }
+        if (op > Opcode.op_dneg) {
+            //移位与按位运算：ishl、lshl、ishr、lshr、iushr、lushr、iand、land、ior、lor、ixor、lxor
+            bitwise(op);
+            return;
+        }
+        //加、减、乘、除、取余依次为0~4，每种运算按int、long、float、double排列
+        char kind = KINDS.charAt((op - Opcode.op_iadd) % 4);
+        int operation = (op - Opcode.op_iadd) / 4;
+        if (kind == 'I') {
+            Value b = pop();
+            IntNode a = popInt();
+            push('I', intBinary(operation, a, (IntNode) b.node, b.value instanceof Integer ? (Integer) b.value : null));
+        } else if (kind == 'J') {
+            LongNode b = popLong();
+            LongNode a = popLong();
+            push('J', longBinary(operation, a, b));
+        } else if (kind == 'F') {
+            FloatNode b = popFloat();
+            FloatNode a = popFloat();
+            push('F', floatBinary(operation, a, b));
+        } else {
+            DoubleNode b = popDouble();
+            DoubleNode a = popDouble();
+            push('D', doubleBinary(operation, a, b));
+        }
+    }
+
+    /**
+     * @Description: int的加、减、乘、除、取余，operation依次为0~4
+     */
+    private static IntNode intBinary(int operation, IntNode a, IntNode b, Integer constant) {
+        if (constant != null && (operation == 0 || operation == 1)) {
+            int k = operation == 0 ? constant : -constant;
+            return c -> a.eval(c) + k;
+        }
+        switch (operation) {
+            case 0:
+                return c -> a.eval(c) + b.eval(c);
+            case 1:
+                return c -> a.eval(c) - b.eval(c);
+            case 2:
+                return c -> a.eval(c) * b.eval(c);
+            case 3:
+                return c -> a.eval(c) / b.eval(c);
+            default:
+                return c -> a.eval(c) % b.eval(c);
+        }
+    }
+
+    private static LongNode longBinary(int operation, LongNode a, LongNode b) {
+        switch (operation) {
+            case 0:
+                return c -> a.eval(c) + b.eval(c);
+            case 1:
+                return c -> a.eval(c) - b.eval(c);
+            case 2:
+                return c -> a.eval(c) * b.eval(c);
+            case 3:
+                return c -> a.eval(c) / b.eval(c);
+            default:
+                return c -> a.eval(c) % b.eval(c);
+        }
+    }
+
+    private static FloatNode floatBinary(int operation, FloatNode a, FloatNode b) {
+        switch (operation) {
+            case 0:
+                return c -> a.eval(c) + b.eval(c);
+            case 1:
+                return c -> a.eval(c) - b.eval(c);
+            case 2:
+                return c -> a.eval(c) * b.eval(c);
+            case 3:
+                return c -> a.eval(c) / b.eval(c);
+            default:
+                return c -> a.eval(c) % b.eval(c);
+        }
+    }
+
+    private static DoubleNode doubleBinary(int operation, DoubleNode a, DoubleNode b) {
+        switch (operation) {
+            case 0:
+                return c -> a.eval(c) + b.eval(c);
+            case 1:
+                return c -> a.eval(c) - b.eval(c);
+            case 2:
+                return c -> a.eval(c) * b.eval(c);
+            case 3:
+                return c -> a.eval(c) / b.eval(c);
+            default:
+                return c -> a.eval(c) % b.eval(c);
+        }
+    }
+
+    private void negate(char kind) {
+        switch (kind) {
+            case 'I': {
+                IntNode a = popInt();
+                push('I', (IntNode) c -> -a.eval(c));
+                break;
+            }
+            case 'J': {
+                LongNode a = popLong();
+                push('J', (LongNode) c -> -a.eval(c));
+                break;
+            }
+            case 'F': {
+                FloatNode a = popFloat();
+                push('F', (FloatNode) c -> -a.eval(c));
+                break;
+            }
+            default: {
+                DoubleNode a = popDouble();
+                push('D', (DoubleNode) c -> -a.eval(c));
+            }
+        }
+    }
+
+    private void bitwise(int op) {
+        switch (op) {
+            case Opcode.op_ishl:
+            case Opcode.op_ishr:
+            case Opcode.op_iushr:
+            case Opcode.op_iand:
+            case Opcode.op_ior:
+            case Opcode.op_ixor: {
+                IntNode b = popInt();
+                IntNode a = popInt();
+                push('I', intBitwise(op, a, b));
+                return;
+            }
+            case Opcode.op_lshl:
+            case Opcode.op_lshr:
+            case Opcode.op_lushr: {
+                IntNode b = popInt();
+                LongNode a = popLong();
+                if (op == Opcode.op_lshl) {
+                    push('J', (LongNode) c -> a.eval(c) << b.eval(c));
+                } else if (op == Opcode.op_lshr) {
+                    push('J', (LongNode) c -> a.eval(c) >> b.eval(c));
+                } else {
+                    push('J', (LongNode) c -> a.eval(c) >>> b.eval(c));
+                }
+                return;
+            }
+            default: {
+                LongNode b = popLong();
+                LongNode a = popLong();
+                if (op == Opcode.op_land) {
+                    push('J', (LongNode) c -> a.eval(c) & b.eval(c));
+                } else if (op == Opcode.op_lor) {
+                    push('J', (LongNode) c -> a.eval(c) | b.eval(c));
+                } else {
+                    push('J', (LongNode) c -> a.eval(c) ^ b.eval(c));
+                }
+            }
+        }
+    }
+
+    private static IntNode intBitwise(int op, IntNode a, IntNode b) {
+        switch (op) {
+            case Opcode.op_ishl:
+                return c -> a.eval(c) << b.eval(c);
+            case Opcode.op_ishr:
+                return c -> a.eval(c) >> b.eval(c);
+            case Opcode.op_iushr:
+                return c -> a.eval(c) >>> b.eval(c);
+            case Opcode.op_iand:
+                return c -> a.eval(c) & b.eval(c);
+            case Opcode.op_ior:
+                return c -> a.eval(c) | b.eval(c);
+            default:
+                return c -> a.eval(c) ^ b.eval(c);
+        }
+    }
+
+    /**
+     * @Description: 类型转换与比较指令（i2l ~ dcmpg）
+     */
+    private void conversion(int op) {
+        switch (op) {
+            case Opcode.op_i2l: {
+                IntNode a = popInt();
+                push('J', (LongNode) c -> a.eval(c));
+                return;
+            }
+            case Opcode.op_i2f: {
+                IntNode a = popInt();
+                push('F', (FloatNode) c -> a.eval(c));
+                return;
+            }
+            case Opcode.op_i2d: {
+                IntNode a = popInt();
+                push('D', (DoubleNode) c -> a.eval(c));
+                return;
+            }
+            case Opcode.op_l2i: {
+                LongNode a = popLong();
+                push('I', (IntNode) c -> (int) a.eval(c));
+                return;
+            }
+            case Opcode.op_l2f: {
+                LongNode a = popLong();
+                push('F', (FloatNode) c -> a.eval(c));
+                return;
+            }
+            case Opcode.op_l2d: {
+                LongNode a = popLong();
+                push('D', (DoubleNode) c -> a.eval(c));
+                return;
+            }
+            case Opcode.op_f2i: {
+                FloatNode a = popFloat();
+                push('I', (IntNode) c -> (int) a.eval(c));
+                return;
+            }
+            case Opcode.op_f2l: {
+                FloatNode a = popFloat();
+                push('J', (LongNode) c -> (long) a.eval(c));
+                return;
+            }
+            case Opcode.op_f2d: {
+                FloatNode a = popFloat();
+                push('D', (DoubleNode) c -> a.eval(c));
+                return;
+            }
+            case Opcode.op_d2i: {
+                DoubleNode a = popDouble();
+                push('I', (IntNode) c -> (int) a.eval(c));
+                return;
+            }
+            case Opcode.op_d2l: {
+                DoubleNode a = popDouble();
+                push('J', (LongNode) c -> (long) a.eval(c));
+                return;
+            }
+            case Opcode.op_d2f: {
+                DoubleNode a = popDouble();
+                push('F', (FloatNode) c -> (float) a.eval(c));
+                return;
+            }
+            case Opcode.op_i2b: {
+                IntNode a = popInt();
+                push('I', (IntNode) c -> (byte) a.eval(c));
+                return;
+            }
+            case Opcode.op_i2c: {
+                IntNode a = popInt();
+                push('I', (IntNode) c -> (char) a.eval(c));
+                return;
+            }
+            case Opcode.op_i2s: {
+                IntNode a = popInt();
+                push('I', (IntNode) c -> (short) a.eval(c));
+                return;
+            }
+            case Opcode.op_lcmp: {
+                LongNode b = popLong();
+                LongNode a = popLong();
+                push('I', (IntNode) c -> Long.compare(a.eval(c), b.eval(c)));
+                return;
+            }
+            case Opcode.op_fcmpl:
+            case Opcode.op_fcmpg: {
+                int nan = op == Opcode.op_fcmpl ? -1 : 1;
+                FloatNode b = popFloat();
+                FloatNode a = popFloat();
+                push('I', (IntNode) c -> InstructionFactory.floatCompare(a.eval(c), b.eval(c), nan));
+                return;
+            }
+            default: {
+                int nan = op == Opcode.op_dcmpl ? -1 : 1;
+                DoubleNode b = popDouble();
+                DoubleNode a = popDouble();
+                push('I', (IntNode) c -> InstructionFactory.doubleCompare(a.eval(c), b.eval(c), nan));
+            }
+        }
+    }
+
+    /**
+     * @Description: 条件跳转，与常量比较时生成特化的节点
+     */
+    private ExitNode branch(int op, int target, int next) {
+        if (op >= Opcode.op_if_acmpeq || op == Opcode.op_ifnull || op == Opcode.op_ifnonnull) {
+            RefNode b = op >= Opcode.op_ifnull ? NULL : popRef();
+            RefNode a = popRef();
+            boolean equal = op == Opcode.op_if_acmpeq || op == Opcode.op_ifnull;
+            spill(true);
+            int t = successor(target);
+            int f = successor(next);
+            if (equal) {
+                return c -> a.eval(c) == b.eval(c) ? t : f;
+            }
+            return c -> a.eval(c) != b.eval(c) ? t : f;
+        }
+        int cond;
+        IntNode a;
+        IntNode b = null;
+        int k = 0;
+        if (op >= Opcode.op_if_icmpeq) {
+            cond = op - Opcode.op_if_icmpeq;
+            Value right = pop();
+            if (right.value instanceof Integer) {
+                k = (Integer) right.value;
+            } else {
+                b = (IntNode) right.node;
+            }
+            a = popInt();
+        } else {
+            cond = op - Opcode.op_ifeq;
+            a = popInt();
+        }
+        spill(true);
+        int t = successor(target);
+        int f = successor(next);
+        return b == null ? compare(cond, a, k, t, f) : compare(cond, a, b, t, f);
+    }
+
+    /**
+     * @Description: 按条件（依次为eq、ne、lt、ge、gt、le）比较两个int
+     */
+    private static ExitNode compare(int cond, IntNode a, IntNode b, int t, int f) {
+        switch (cond) {
+            case 0:
+                return c -> a.eval(c) == b.eval(c) ? t : f;
+            case 1:
+                return c -> a.eval(c) != b.eval(c) ? t : f;
+            case 2:
+                return c -> a.eval(c) < b.eval(c) ? t : f;
+            case 3:
+                return c -> a.eval(c) >= b.eval(c) ? t : f;
+            case 4:
+                return c -> a.eval(c) > b.eval(c) ? t : f;
+            default:
+                return c -> a.eval(c) <= b.eval(c) ? t : f;
+        }
+    }
+
+    private static ExitNode compare(int cond, IntNode a, int k, int t, int f) {
+        switch (cond) {
+            case 0:
+                return c -> a.eval(c) == k ? t : f;
+            case 1:
+                return c -> a.eval(c) != k ? t : f;
+            case 2:
+                return c -> a.eval(c) < k ? t : f;
+            case 3:
+                return c -> a.eval(c) >= k ? t : f;
+            case 4:
+                return c -> a.eval(c) > k ? t : f;
+            default:
+                return c -> a.eval(c) <= k ? t : f;
+        }
+    }
+
+    private ExitNode jump(int target) {
+        spill(true);
+        int t = successor(target);
+        return c -> t;
+    }
+
+    private ExitNode tableSwitch(int bci) {
+        int p = (bci + 4) & ~3;
+        int low = Bytecodes.s4(code, p + 4);
+        int high = Bytecodes.s4(code, p + 8);
+        IntNode key = popInt();
+        spill(true);
+        int dflt = successor(bci + Bytecodes.s4(code, p));
+        int[] targets = new int[high - low + 1];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = successor(bci + Bytecodes.s4(code, p + 12 + i * 4));
+        }
+        return c -> {
+            int k = key.eval(c);
+            return k >= low && k <= high ? targets[k - low] : dflt;
+        };
+    }
+
+    private ExitNode lookupSwitch(int bci) {
+        int p = (bci + 4) & ~3;
+        int npairs = Bytecodes.s4(code, p + 4);
+        IntNode key = popInt();
+        spill(true);
+        int dflt = successor(bci + Bytecodes.s4(code, p));
+        int[] keys = new int[npairs];
+        int[] targets = new int[npairs];
+        for (int i = 0; i < npairs; i++) {
+            keys[i] = Bytecodes.s4(code, p + 8 + i * 8);
+            targets[i] = successor(bci + Bytecodes.s4(code, p + 12 + i * 8));
+        }
+        return c -> {
+            //lookupswitch的键按升序排列
+            int i = Arrays.binarySearch(keys, key.eval(c));
+            return i >= 0 ? targets[i] : dflt;
+        };
+    }
+
+    private ExitNode returnValue(char kind) {
+        Value v = pop();
+        spill(false);
+        switch (kind) {
+            case 'I': {
+                IntNode n = (IntNode) v.node;
+                return c -> {
+                    JitRuntime.returnInt(n.eval(c), c.frame);
+                    return ClosureNodes.RETURN;
+                };
+            }
+            case 'J': {
+                LongNode n = (LongNode) v.node;
+                return c -> {
+                    JitRuntime.returnLong(n.eval(c), c.frame);
+                    return ClosureNodes.RETURN;
+                };
+            }
+            case 'F': {
+                FloatNode n = (FloatNode) v.node;
+                return c -> {
+                    JitRuntime.returnFloat(n.eval(c), c.frame);
+                    return ClosureNodes.RETURN;
+                };
+            }
+            case 'D': {
+                DoubleNode n = (DoubleNode) v.node;
+                return c -> {
+                    JitRuntime.returnDouble(n.eval(c), c.frame);
+                    return ClosureNodes.RETURN;
+                };
+            }
+            default: {
+                RefNode n = (RefNode) v.node;
+                return c -> {
+                    JitRuntime.returnRef(n.eval(c), c.frame);
+                    return ClosureNodes.RETURN;
+                };
+            }
+        }
+    }
+
+    private void arrayLoad(int op) {
+        IntNode index = popInt();
+        RefNode array = popRef();
+        switch (op) {
+            case Opcode.op_iaload:
+                push('I', (IntNode) c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    return ((LArray) a).getInts()[i];
+                });
+                break;
+            case Opcode.op_laload:
+                push('J', (LongNode) c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    return ((LArray) a).getLongs()[i];
+                });
+                break;
+            case Opcode.op_faload:
+                push('F', (FloatNode) c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    return ((LArray) a).getFloats()[i];
+                });
+                break;
+            case Opcode.op_daload:
+                push('D', (DoubleNode) c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    return ((LArray) a).getDoubles()[i];
+                });
+                break;
+            case Opcode.op_aaload:
+                push('A', (RefNode) c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    return ((LArray) a).getRefs()[i];
+                });
+                break;
+            case Opcode.op_baload:
+                push('I', (IntNode) c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    return ((LArray) a).getBytes()[i];
+                });
+                break;
+            case Opcode.op_caload:
+                push('I', (IntNode) c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    return ((LArray) a).getChars()[i];
+                });
+                break;
+            default:
+                push('I', (IntNode) c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    return ((LArray) a).getShorts()[i];
+                });
+        }
+    }
+
+    /**
+     * @Description: 数组存储，数组、下标与值依次求值后再访问数组（空引用、越界检查在值求值之后）
+     */
+    private void arrayStore(int op) {
+        Value value = pop();
+        IntNode index = popInt();
+        RefNode array = popRef();
+        switch (op) {
+            case Opcode.op_iastore:
+            case Opcode.op_bastore:
+            case Opcode.op_castore:
+            case Opcode.op_sastore: {
+                IntNode v = (IntNode) value.node;
+                if (op == Opcode.op_iastore) {
+                    statement(c -> {
+                        Object a = array.eval(c);
+                        int i = index.eval(c);
+                        int x = v.eval(c);
+                        ((LArray) a).getInts()[i] = x;
+                    });
+                } else if (op == Opcode.op_bastore) {
+                    statement(c -> {
+                        Object a = array.eval(c);
+                        int i = index.eval(c);
+                        int x = v.eval(c);
+                        ((LArray) a).getBytes()[i] = (byte) x;
+                    });
+                } else if (op == Opcode.op_castore) {
+                    statement(c -> {
+                        Object a = array.eval(c);
+                        int i = index.eval(c);
+                        int x = v.eval(c);
+                        ((LArray) a).getChars()[i] = (char) x;
+                    });
+                } else {
+                    statement(c -> {
+                        Object a = array.eval(c);
+                        int i = index.eval(c);
+                        int x = v.eval(c);
+                        ((LArray) a).getShorts()[i] = (short) x;
+                    });
+                }
+                return;
+            }
+            case Opcode.op_lastore: {
+                LongNode v = (LongNode) value.node;
+                statement(c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    long x = v.eval(c);
+                    ((LArray) a).getLongs()[i] = x;
+                });
+                return;
+            }
+            case Opcode.op_fastore: {
+                FloatNode v = (FloatNode) value.node;
+                statement(c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    float x = v.eval(c);
+                    ((LArray) a).getFloats()[i] = x;
+                });
+                return;
+            }
+            case Opcode.op_dastore: {
+                DoubleNode v = (DoubleNode) value.node;
+                statement(c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    double x = v.eval(c);
+                    ((LArray) a).getDoubles()[i] = x;
+                });
+                return;
+            }
+            default: {
+                RefNode v = (RefNode) value.node;
+                statement(c -> {
+                    Object a = array.eval(c);
+                    int i = index.eval(c);
+                    Object x = v.eval(c);
+                    JitRuntime.aastore(a, i, x, c.frame);
+                });
+            }
+        }
+    }
+
+    /**
+     * @Description: 读取实例字段：字段值位于对象的数值数组（float、double按位模式存放）或引用数组中
+     */
+    private void getField(Field field) {
+        int offset = field.getOffset();
+        RefNode obj = popRef();
+        switch (MethodTranslator.fieldKind(field.getDescriptor())) {
+            case 'I':
+                push('I', (IntNode) c -> (int) ((LObject) obj.eval(c)).getlValues()[offset]);
+                break;
+            case 'J':
+                push('J', (LongNode) c -> ((LObject) obj.eval(c)).getlValues()[offset]);
+                break;
+            case 'F':
+                push('F', (FloatNode) c -> Float.intBitsToFloat((int) ((LObject) obj.eval(c)).getlValues()[offset]));
+                break;
+            case 'D':
+                push('D', (DoubleNode) c -> Double.longBitsToDouble(((LObject) obj.eval(c)).getlValues()[offset]));
+                break;
+            default:
+                push('A', (RefNode) c -> ((LObject) obj.eval(c)).getlRefs()[offset]);
+        }
+    }
+
+    private void putField(Field field) {
+        int offset = field.getOffset();
+        char kind = MethodTranslator.fieldKind(field.getDescriptor());
+        Value value = pop();
+        RefNode obj = popRef();
+        if (kind == 'A') {
+            RefNode v = (RefNode) value.node;
+            statement(c -> {
+                Object o = obj.eval(c);
+                Object x = v.eval(c);
+                ((LObject) o).getlRefs()[offset] = x;
+            });
+            return;
+        }
+        LongNode bits = bits(kind, value.node);
+        statement(c -> {
+            Object o = obj.eval(c);
+            long x = bits.eval(c);
+            ((LObject) o).getlValues()[offset] = x;
+        });
+    }
+
+    /**
+     * @Description: 静态字段存取。所属类在编译时已初始化的直接访问其静态字段数组；否则经JitRuntime在首次访问时初始化，
+     * 可能执行类初始化方法，按调用处理
+     */
+    private void getStatic(Field field) {
+        Class owner = field.getfClass();
+        int offset = field.getOffset();
+        char kind = MethodTranslator.fieldKind(field.getDescriptor());
+        if (!owner.isStaticInited()) {
+            switch (kind) {
+                case 'I':
+                    callOut(kind, (IntNode) c -> JitRuntime.getstaticInt(field, c.frame));
+                    break;
+                case 'J':
+                    callOut(kind, (LongNode) c -> JitRuntime.getstaticLong(field, c.frame));
+                    break;
+                case 'F':
+                    callOut(kind, (FloatNode) c -> JitRuntime.getstaticFloat(field, c.frame));
+                    break;
+                case 'D':
+                    callOut(kind, (DoubleNode) c -> JitRuntime.getstaticDouble(field, c.frame));
+                    break;
+                default:
+                    callOut(kind, (RefNode) c -> JitRuntime.getstaticRef(field, c.frame));
+            }
+            return;
+        }
+        switch (kind) {
+            case 'I':
+                push('I', (IntNode) c -> (int) owner.getStaticValues()[offset]);
+                break;
+            case 'J':
+                push('J', (LongNode) c -> owner.getStaticValues()[offset]);
+                break;
+            case 'F':
+                push('F', (FloatNode) c -> Float.intBitsToFloat((int) owner.getStaticValues()[offset]));
+                break;
+            case 'D':
+                push('D', (DoubleNode) c -> Double.longBitsToDouble(owner.getStaticValues()[offset]));
+                break;
+            default:
+                push('A', (RefNode) c -> owner.getStaticRefs()[offset]);
+        }
+    }
+
+    private void putStatic(Field field) {
+        Class owner = field.getfClass();
+        int offset = field.getOffset();
+        char kind = MethodTranslator.fieldKind(field.getDescriptor());
+        Value value = pop();
+        if (!owner.isStaticInited()) {
+            int top = maxLocals + depth;
+            switch (kind) {
+                case 'I': {
+                    IntNode v = (IntNode) value.node;
+                    statement(c -> {
+                        int x = v.eval(c);
+                        c.setStackTop(top);
+                        JitRuntime.putstaticInt(x, field, c.frame);
+                    });
+                    break;
+                }
+                case 'J': {
+                    LongNode v = (LongNode) value.node;
+                    statement(c -> {
+                        long x = v.eval(c);
+                        c.setStackTop(top);
+                        JitRuntime.putstaticLong(x, field, c.frame);
+                    });
+                    break;
+                }
+                case 'F': {
+                    FloatNode v = (FloatNode) value.node;
+                    statement(c -> {
+                        float x = v.eval(c);
+                        c.setStackTop(top);
+                        JitRuntime.putstaticFloat(x, field, c.frame);
+                    });
+                    break;
+                }
+                case 'D': {
+                    DoubleNode v = (DoubleNode) value.node;
+                    statement(c -> {
+                        double x = v.eval(c);
+                        c.setStackTop(top);
+                        JitRuntime.putstaticDouble(x, field, c.frame);
+                    });
+                    break;
+                }
+                default: {
+                    RefNode v = (RefNode) value.node;
+                    statement(c -> {
+                        Object x = v.eval(c);
+                        c.setStackTop(top);
+                        JitRuntime.putstaticRef(x, field, c.frame);
+                    });
+                }
+            }
+            return;
+        }
+        if (kind == 'A') {
+            RefNode v = (RefNode) value.node;
+            statement(c -> owner.getStaticRefs()[offset] = v.eval(c));
+            return;
+        }
+        LongNode bits = bits(kind, value.node);
+        statement(c -> owner.getStaticValues()[offset] = bits.eval(c));
+    }
+
+    /**
+     * @Description: new：类在编译时已初始化的直接创建对象，否则经JitRuntime在首次实例化时初始化
+     */
+    private void newObject(int idx) throws BailoutException {
+        Class target = cpCache.resolveClass(idx);
+        if (target == null) {
+            throw new BailoutException("new java/lang/Object");
+        }
+        if (target.isStaticInited()) {
+            push('A', (RefNode) c -> new LObject(target));
+        } else {
+            callOut('A', (RefNode) c -> JitRuntime.newObject(target, c.frame));
+        }
+    }
+
+    /**
+     * @Description: 方法调用：参数写入操作数栈顶（与解释执行时位置相同），设置栈顶指针后调用，返回值由被调用方法压入操作数栈，
+     * 之后作为slot读取留在符号栈中。虚方法调用经由CallNode，依据接收者类型改写自身的分派链。
+     * java/lang/Object的构造方法没有实际操作，只弹出this
+     */
+    private void invoke(int op, int idx, int bci) {
+        Class.Symbol symbol = cpCache.resolveMethod(idx);
+        String descriptor = MethodTranslator.methodDescriptor(clazz, idx);
+        if (MethodTranslator.isObjectInit(op, symbol, descriptor)) {
+            discard(1);
+            return;
+        }
+        int argCount = symbol.argCount;
+        int argBase = spillArguments(argCount);
+        int top = maxLocals + argBase + argCount;
+        if (op == Opcode.op_invokestatic) {
+            stmts.add(c -> {
+                c.setStackTop(top);
+                JitRuntime.invokestatic(c.frame, symbol);
+            });
+        } else if (op == Opcode.op_invokespecial) {
+            stmts.add(c -> {
+                c.setStackTop(top);
+                JitRuntime.invokespecial(c.frame, symbol);
+            });
+        } else {
+            CallNode call = new CallNode(symbol, MethodProfile.receiverProfile(method, op, bci));
+            int receiver = maxLocals + argBase;
+            stmts.add(c -> {
+                c.setStackTop(top);
+                call.call(c.frame, c.refs[c.lb + receiver]);
+            });
+        }
+        pushResult(descriptor, argBase);
+    }
+
+    /**
+     * @Description: 调用前将参数写入操作数栈顶（与解释执行时位置相同）并从符号栈中弹出，其余值同时写回操作数栈
+     * @Param argCount 参数所占slot数量
+     * @return: int 参数起始处在操作数栈中的slot下标，即返回值所在的slot
+     */
+    int spillArguments(int argCount) {
+        spill(false);
+        int argBase = depth - argCount;
+        int pos = 0;
+        for (int i = 0; i < stack.size(); i++) {
+            Value v = stack.get(i);
+            if (pos >= argBase && v.slot != maxLocals + pos) {
+                stmts.add(write(v.kind, maxLocals + pos, v.node));
+            }
+            pos += size(v.kind);
+        }
+        while (depth > argBase) {
+            pop();
+        }
+        return argBase;
+    }
+
+    /**
+     * @Description: 调用返回后，返回值已由被调用方法压入操作数栈，作为slot读取留在符号栈中
+     * @Param descriptor 被调用方法的描述符
+     * @Param argBase 参数起始处在操作数栈中的slot下标
+     */
+    void pushResult(String descriptor, int argBase) {
+        char ret = descriptor.charAt(descriptor.indexOf(')') + 1);
+        if (ret != 'V') {
+            push(slotValue(MethodTranslator.fieldKind(String.valueOf(ret)), maxLocals + argBase));
+        }
+    }
+
+    /**
+     * @Description: 轨迹中被调用方法的返回（见TraceCompiler）：返回值写入局部变量表起始处，即调用者操作数栈中参数起始的slot，栈帧由轨迹代码弹出
+     * @Param op 返回指令
+     * @return: int 返回值所占的slot数量
+     */
+    int returnToCaller(int op) {
+        if (op == Opcode.op_return) {
+            spill(false);
+            return 0;
+        }
+        char kind = KINDS.charAt(op - Opcode.op_ireturn);
+        Value v = pop();
+        spill(false);
+        stmts.add(write(kind, 0, v.node));
+        return size(kind);
+    }
+
+    /**
+     * @Description: 可能执行其他方法（类初始化）的取值：先写回符号栈，设置栈顶指针后求值并写入其slot
+     */
+    private void callOut(char kind, Object node) {
+        spill(false);
+        int top = maxLocals + depth;
+        StmtNode write = write(kind, top, node);
+        stmts.add(c -> {
+            c.setStackTop(top);
+            write.exec(c);
+        });
+        push(slotValue(kind, top));
+    }
+
+    /**
+     * @Description: pop、pop2：丢弃栈顶的值，值为表达式时仍须求值（可能抛出异常）
+     */
+    private void discard(int slots) {
+        int n = 0;
+        int s = 0;
+        for (int i = stack.size() - 1; s < slots; i--) {
+            s += size(stack.get(i).kind);
+            n++;
+        }
+        boolean trivial = true;
+        for (int i = stack.size() - n; i < stack.size(); i++) {
+            trivial &= stack.get(i).trivial;
+        }
+        if (!trivial) {
+            spill(false);
+        }
+        for (int i = 0; i < n; i++) {
+            pop();
+        }
+    }
+
+    private void dup() {
+        if (!stack.get(stack.size() - 1).trivial) {
+            spill(false);
+        }
+        Value v = stack.get(stack.size() - 1);
+        push(new Value(v.kind, v.node, v.slot, v.constant, v.value, true));
+    }
+
+    /**
+     * @Description: dup_x1、dup_x2及dup2系列：符号栈全部写回后在操作数栈中复制slot（同Frame.dupSlots），
+     * 之后按slot重新划分符号栈中的值
+     * @Param copyAmount 复制的slot数量
+     * @Param under 插入位置距离被复制值的slot数量
+     */
+    private void dupSlots(int copyAmount, int under) {
+        spill(true);
+        List<Character> slots = slotKinds();
+        int t = slots.size();
+        int b = t - copyAmount - under;
+        slots.addAll(b, new ArrayList<>(slots.subList(t - copyAmount, t)));
+        int top = maxLocals + depth;
+        int base = top - copyAmount - under;
+        stmts.add(c -> {
+            System.arraycopy(c.vals, c.lb + base, c.vals, c.lb + base + copyAmount, copyAmount + under);
+            System.arraycopy(c.refs, c.lb + base, c.refs, c.lb + base + copyAmount, copyAmount + under);
+            System.arraycopy(c.vals, c.lb + top, c.vals, c.lb + base, copyAmount);
+            System.arraycopy(c.refs, c.lb + top, c.refs, c.lb + base, copyAmount);
+        });
+        rebuild(slots);
+    }
+
+    private void swap() {
+        spill(true);
+        List<Character> slots = slotKinds();
+        Collections.swap(slots, slots.size() - 1, slots.size() - 2);
+        int i = maxLocals + depth - 1;
+        stmts.add(c -> {
+            int p = c.lb + i;
+            long v = c.vals[p];
+            Object r = c.refs[p];
+            c.vals[p] = c.vals[p - 1];
+            c.refs[p] = c.refs[p - 1];
+            c.vals[p - 1] = v;
+            c.refs[p - 1] = r;
+        });
+        rebuild(slots);
+    }
+
+    /**
+     * @Description: 符号栈按slot展开的种类，long、double的高位slot为UPPER
+     */
+    private List<Character> slotKinds() {
+        List<Character> slots = new ArrayList<>();
+        for (Value v : stack) {
+            slots.add(v.kind);
+            if (size(v.kind) == 2) {
+                slots.add(UPPER);
+            }
+        }
+        return slots;
+    }
+
+    private void rebuild(List<Character> slots) {
+        stack.clear();
+        depth = 0;
+        for (char kind : slots) {
+            if (kind == UPPER) {
+                continue;
+            }
+            push(slotValue(kind, maxLocals + depth));
+        }
+        if (depth != slots.size()) {
+            throw new IllegalStateException("split long or double on the operand stack");
+        }
+    }
+
+    /**
+     * @Description: 语句：符号栈中其余尚未求值的表达式先按入栈次序写回操作数栈，再执行语句
+     */
+    private void statement(StmtNode stmt) {
+        spill(false);
+        stmts.add(stmt);
+    }
+
+    /**
+     * @Description: 将符号栈中的表达式按入栈次序求值并写入各自的slot，之后改为slot读取
+     * @Param constants 是否同时写回常量（块结束时）
+     */
+    private void spill(boolean constants) {
+        int pos = 0;
+        for (int i = 0; i < stack.size(); i++) {
+            Value v = stack.get(i);
+            int idx = maxLocals + pos;
+            if (v.slot != idx && (constants || !v.constant)) {
+                stmts.add(write(v.kind, idx, v.node));
+                stack.set(i, slotValue(v.kind, idx));
+            }
+            pos += size(v.kind);
+        }
+    }
+
+    private void push(char kind, Object node) {
+        push(new Value(kind, node, -1, false, null, false));
+    }
+
+    private void pushConstant(char kind, Object node, Object value) {
+        push(new Value(kind, node, -1, true, value, true));
+    }
+
+    private void pushInt(int v) {
+        pushConstant('I', (IntNode) c -> v, v);
+    }
+
+    private void pushLocal(char kind, int idx) {
+        push(new Value(kind, read(kind, idx), -1, false, null, true));
+    }
+
+    private void push(Value v) {
+        stack.add(v);
+        depth += size(v.kind);
+    }
+
+    private Value pop() {
+        Value v = stack.remove(stack.size() - 1);
+        depth -= size(v.kind);
+        return v;
+    }
+
+    private IntNode popInt() {
+        return (IntNode) pop('I');
+    }
+
+    private LongNode popLong() {
+        return (LongNode) pop('J');
+    }
+
+    private FloatNode popFloat() {
+        return (FloatNode) pop('F');
+    }
+
+    private DoubleNode popDouble() {
+        return (DoubleNode) pop('D');
+    }
+
+    private RefNode popRef() {
+        return (RefNode) pop('A');
+    }
+
+    private Object pop(char kind) {
+        Value v = pop();
+        if (v.kind != kind) {
+            throw new IllegalStateException("expected " + kind + " but was " + v.kind);
+        }
+        return v.node;
+    }
+
+    private static Value slotValue(char kind, int idx) {
+        return new Value(kind, read(kind, idx), idx, false, null, true);
+    }
+
+    /**
+     * @Description: 读取局部变量表或操作数栈的slot（下标相对局部变量表起始处），float、double按位模式存放
+     */
+    private static Object read(char kind, int idx) {
+        switch (kind) {
+            case 'I':
+                return (IntNode) c -> (int) c.vals[c.lb + idx];
+            case 'J':
+                return (LongNode) c -> c.vals[c.lb + idx];
+            case 'F':
+                return (FloatNode) c -> Float.intBitsToFloat((int) c.vals[c.lb + idx]);
+            case 'D':
+                return (DoubleNode) c -> Double.longBitsToDouble(c.vals[c.lb + idx]);
+            default:
+                return (RefNode) c -> c.refs[c.lb + idx];
+        }
+    }
+
+    private static StmtNode write(char kind, int idx, Object node) {
+        if (kind == 'A') {
+            RefNode v = (RefNode) node;
+            return c -> c.refs[c.lb + idx] = v.eval(c);
+        }
+        LongNode bits = bits(kind, node);
+        return c -> c.vals[c.lb + idx] = bits.eval(c);
+    }
+
+    /**
+     * @Description: 数值存入long数组时的表示：int符号扩展，float、double取其位模式
+     */
+    private static LongNode bits(char kind, Object node) {
+        switch (kind) {
+            case 'I': {
+                IntNode v = (IntNode) node;
+                return c -> v.eval(c);
+            }
+            case 'J':
+                return (LongNode) node;
+            case 'F': {
+                FloatNode v = (FloatNode) node;
+                return c -> Float.floatToRawIntBits(v.eval(c));
+            }
+            default: {
+                DoubleNode v = (DoubleNode) node;
+                return c -> Double.doubleToRawLongBits(v.eval(c));
+            }
+        }
+    }
+
+    private static int size(char kind) {
+        return kind == 'J' || kind == 'D' ? 2 : 1;
+    }
+}
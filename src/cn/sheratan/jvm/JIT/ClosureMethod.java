@@ -0,0 +1,84 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.GuestException;
+import cn.sheratan.jvm.LObject;
+import cn.sheratan.jvm.JIT.ClosureNodes.Block;
+import cn.sheratan.jvm.JIT.ClosureNodes.Context;
+
+/**
+ * @Description: 第1层编译得到的闭包树代码：方法的基本块依次执行，由各块的出口节点选择下一个块。
+ * 代码直接读写栈帧中的局部变量与操作数栈，栈帧的布局与解释执行时相同，因此可在任意块的起始处（操作数栈为空时）栈上替换进入，
+ * 无需生成宿主类
+ * @Author aries
+ * @Data 2026-10-18 09:55
+ */
+final class ClosureMethod implements CompiledMethod {
+    private final Block[] blocks;
+
+    /**
+     * @Description: 字节码偏移值到块下标的映射，非块起始处为-1
+     */
+    private final int[] blockOf;
+
+    /**
+     * @Description: 方法的局部变量表大小，即操作数栈起始处的下标
+     */
+    private final int maxLocals;
+
+    /**
+     * @Description: 入口块的下标
+     */
+    private final int entry;
+
+    ClosureMethod(Block[] blocks, int[] blockOf, int maxLocals, int entry) {
+        this.blocks = blocks;
+        this.blockOf = blockOf;
+        this.maxLocals = maxLocals;
+        this.entry = entry;
+    }
+
+    /**
+     * @Description: 以指定指令为入口的栈上替换代码，与本代码共用各基本块
+     * @Param bci 入口指令的下标（字节码偏移值）
+     * @return: cn.sheratan.jvm.JIT.ClosureMethod 该指令不是可进入的块起始处时返回null
+     */
+    ClosureMethod withEntry(int bci) {
+        int block = bci >= 0 && bci < blockOf.length ? blockOf[bci] : -1;
+        if (block < 0 || blocks[block] == null) {
+            return null;
+        }
+        return new ClosureMethod(blocks, blockOf, maxLocals, block);
+    }
+
+    /**
+     * @Description: 依次执行基本块直至方法返回。块内抛出异常时弹出被中断的被调用方法栈帧，在该块的异常表项中查找处理器，
+     * 找到时清空操作数栈、压入异常对象后从处理器所在块继续执行，否则弹出当前栈帧后继续抛出（同编译为宿主字节码的代码）
+     */
+    @Override
+    public void run(Frame frame) {
+        Context c = new Context(frame);
+        int b = entry;
+        while (true) {
+            try {
+                while (b != ClosureNodes.RETURN) {
+                    b = blocks[b].exec(c);
+                }
+                return;
+            } catch (RuntimeException e) {
+                LObject throwable;
+                try {
+                    throwable = (LObject) JitRuntime.catchException(frame, e);
+                } catch (RuntimeException internal) {
+                    throw JitRuntime.unwind(frame, internal);
+                }
+                int handler = blocks[b].findHandler(throwable.getlClazz());
+                if (handler < 0) {
+                    throw JitRuntime.unwind(frame, e instanceof GuestException ? e : new GuestException(throwable));
+                }
+                c.refs[c.lb + maxLocals] = throwable;
+                b = handler;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Frame;
+
+/**
+ * @Description: 闭包树的节点类型。第1层编译将方法的每个基本块转换为一组语句节点与一个出口节点，
+ * 表达式节点按值的种类区分，以宿主lambda实现，操作数（局部变量下标、常量、解析结果、子节点等）在编译时绑定到lambda中，
+ * 执行时不再取指、译码，也不再经过操作数栈传递中间结果
+ * @Author aries
+ * @Data 2026-10-18 09:55
+ */
+final class ClosureNodes {
+
+    /**
+     * @Description: 出口节点返回该值表示方法已返回
+     */
+    static final int RETURN = -1;
+
+    private ClosureNodes() {
+    }
+
+    interface IntNode {
+        int eval(Context c);
+    }
+
+    interface LongNode {
+        long eval(Context c);
+    }
+
+    interface FloatNode {
+        float eval(Context c);
+    }
+
+    interface DoubleNode {
+        double eval(Context c);
+    }
+
+    interface RefNode {
+        Object eval(Context c);
+    }
+
+    /**
+     * @Description: 语句节点，有副作用（存储局部变量、字段、数组元素，调用方法等）
+     */
+    interface StmtNode {
+        void exec(Context c);
+    }
+
+    /**
+     * @Description: 基本块的出口节点（跳转、switch、返回、athrow或顺序执行），返回下一个基本块的下标，方法返回时为RETURN
+     */
+    interface ExitNode {
+        int next(Context c);
+    }
+
+    /**
+     * @Description: 一次执行的上下文。局部变量与操作数栈仍位于线程栈中（与解释器相同），节点以相对局部变量表起始处的下标访问，
+     * 操作数栈的第i个slot即下标maxLocals + i
+     */
+    static final class Context {
+        final Frame frame;
+        final long[] vals;
+        final Object[] refs;
+        final int lb;
+
+        Context(Frame frame) {
+            this.frame = frame;
+            this.vals = frame.getfValues();
+            this.refs = frame.getfRefs();
+            this.lb = frame.getfLocalsBase();
+        }
+
+        /**
+         * @Description: 轨迹中尚未压入栈帧的被调用方法的上下文（见TraceCode），其局部变量表位于调用者操作数栈中参数起始处
+         * @Param caller 调用者的上下文
+         * @Param offset 参数起始处相对调用者局部变量表起始处的下标
+         */
+        Context(Context caller, int offset) {
+            this.frame = null;
+            this.vals = caller.vals;
+            this.refs = caller.refs;
+            this.lb = caller.lb + offset;
+        }
+
+        /**
+         * @Description: 设置栈帧的栈顶指针，调用方法或执行类初始化前使用，被调用方法的栈帧由此压入
+         * @Param top 栈顶下标（相对局部变量表起始处）
+         */
+        void setStackTop(int top) {
+            frame.setfStackPos(lb + top);
+        }
+    }
+
+    /**
+     * @Description: 基本块。块的边界包含异常表各项的端点，同一块中的指令被相同的异常表项覆盖
+     */
+    static final class Block {
+        private final StmtNode[] stmts;
+        private final ExitNode exit;
+
+        /**
+         * @Description: 覆盖该块的异常表项，按异常表中的次序排列：捕获类型（null表示捕获所有异常）及处理器所在块的下标
+         */
+        private final Class[] catchClasses;
+        private final int[] handlers;
+
+        Block(StmtNode[] stmts, ExitNode exit, Class[] catchClasses, int[] handlers) {
+            this.stmts = stmts;
+            this.exit = exit;
+            this.catchClasses = catchClasses;
+            this.handlers = handlers;
+        }
+
+        int exec(Context c) {
+            for (StmtNode stmt : stmts) {
+                stmt.exec(c);
+            }
+            return exit.next(c);
+        }
+
+        /**
+         * @Description: 查找能够处理异常的处理器
+         * @Param exceptionClass 异常对象所属类
+         * @return: int 处理器所在块的下标，未找到时返回-1
+         */
+        int findHandler(Class exceptionClass) {
+            for (int i = 0; i < handlers.length; i++) {
+                if (catchClasses[i] == null || exceptionClass.isSubtypeOf(catchClasses[i])) {
+                    return handlers[i];
+                }
+            }
+            return -1;
+        }
+    }
+}
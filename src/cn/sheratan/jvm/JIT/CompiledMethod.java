@@ -0,0 +1,19 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Frame;
+
+/**
+ * @Description: 即时编译得到的方法代码：第1层为闭包树（ClosureMethod），第2层为生成的宿主类
+ * @Author aries
+ * @Data 2026-10-18 08:38
+ */
+public interface CompiledMethod {
+
+    /**
+     * @Description: 执行方法直至返回。参数位于frame的局部变量表中，返回时弹出frame并将返回值压入调用者的操作数栈（同解释器的返回指令）；
+     * 抛出异常时frame保持在栈顶，由解释器展开
+     * @Param frame 为该方法压入的栈帧
+     * @return: void
+     */
+    void run(Frame frame);
+}
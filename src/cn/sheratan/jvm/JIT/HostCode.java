@@ -0,0 +1,371 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.ClassFileWriter;
+
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 生成类CompiledMethod.run方法的宿主代码缓冲区，以及生成代码共用的宿主指令序列（局部变量存取、常量、
+ * Frame存取、对象与数组访问等）。生成类以常量表（构造时传入的Object数组）存放解析结果，
+ * 宿主局部变量0为this（生成类的实例）、1为frame。第2层的两种代码生成器（MethodTranslator、SsaCodeGenerator）共用
+ * @Author aries
+ * @Data 2026-10-18 10:28
+ */
+final class HostCode {
+    static final String COMPILED_METHOD = "cn/sheratan/jvm/JIT/CompiledMethod";
+    static final String RUN_DESCRIPTOR = "(Lcn/sheratan/jvm/Frame;)V";
+    static final String FRAME = "cn/sheratan/jvm/Frame";
+    static final String RUNTIME = "cn/sheratan/jvm/JIT/JitRuntime";
+    static final String LOBJECT = "cn/sheratan/jvm/LObject";
+    static final String LARRAY = "cn/sheratan/jvm/LArray";
+    static final String OBJECT = "java/lang/Object";
+    static final String RUNTIME_EXCEPTION = "java/lang/RuntimeException";
+    private static final String CONSTANTS = "constants";
+    private static final String CONSTANTS_DESCRIPTOR = "[Ljava/lang/Object;";
+
+    /**
+     * @Description: 宿主局部变量中frame的位置
+     */
+    static final int FRAME_LOCAL = 1;
+
+    /**
+     * @Description: 值的种类，决定宿主load/store/return指令及Frame存取方法，下标即种类在xload、xstore指令族中的次序
+     */
+    static final String KINDS = "IJFDA";
+
+    final ClassFileWriter cw;
+    byte[] bytes = new byte[256];
+    int len;
+
+    /**
+     * @Description: 生成类的常量表，存放解析结果，构造生成类实例时传入
+     */
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new IdentityHashMap<>();
+
+    HostCode(ClassFileWriter cw) {
+        this.cw = cw;
+    }
+
+    Object[] constants() {
+        return constants.toArray();
+    }
+
+    /**
+     * @Description: 生成常量表字段、构造方法及run方法
+     * @Param maxStack run方法的最大操作数栈深度
+     * @Param maxLocals run方法的局部变量表大小
+     * @Param exceptionTable run方法的异常表：{起始偏移, 结束偏移, 处理器偏移, 捕获类型}
+     */
+    void finish(int maxStack, int maxLocals, int[][] exceptionTable) throws BailoutException {
+        if (len > 0xFFFF) {
+            throw new BailoutException("code too large");
+        }
+        if (maxLocals > 0xFFFF) {
+            throw new BailoutException("too many locals");
+        }
+        cw.addField(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_FINAL, CONSTANTS, CONSTANTS_DESCRIPTOR);
+        cw.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "(" + CONSTANTS_DESCRIPTOR + ")V", 2, 2, constructor(), new int[0][]);
+        cw.addMethod(ClassFileWriter.ACC_PUBLIC, "run", RUN_DESCRIPTOR, maxStack, maxLocals, Arrays.copyOf(bytes, len), exceptionTable);
+    }
+
+    private byte[] constructor() {
+        return new byte[]{
+                (byte) Opcode.op_aload_0,
+                (byte) Opcode.op_invokespecial, hi(cw.methodRef(OBJECT, "<init>", "()V")), lo(cw.methodRef(OBJECT, "<init>", "()V")),
+                (byte) Opcode.op_aload_0,
+                (byte) Opcode.op_aload_1,
+                (byte) Opcode.op_putfield, hi(cw.fieldRef(cw.thisName(), CONSTANTS, CONSTANTS_DESCRIPTOR)),
+                lo(cw.fieldRef(cw.thisName(), CONSTANTS, CONSTANTS_DESCRIPTOR)),
+                (byte) Opcode.op_return
+        };
+    }
+
+    /**
+     * @Description: 从常量表中取出解析结果压入宿主操作数栈，类型为Object
+     */
+    void emitConstant(Object value) {
+        Integer idx = constantIndex.get(value);
+        if (idx == null) {
+            idx = constants.size();
+            constants.add(value);
+            constantIndex.put(value, idx);
+        }
+        emitLoad('A', 0);
+        emit(Opcode.op_getfield);
+        emitU2(cw.fieldRef(cw.thisName(), CONSTANTS, CONSTANTS_DESCRIPTOR));
+        emitInt(idx);
+        emit(Opcode.op_aaload);
+    }
+
+    /**
+     * @Description: 读取实例字段，对象已在宿主操作数栈顶：字段值位于对象的数值数组（float、double按位模式存放）或引用数组中
+     */
+    void emitGetField(char kind, int offset) {
+        emitCheckcast(LOBJECT);
+        if (kind == 'A') {
+            emitInvokeVirtual(LOBJECT, "getlRefs", "()[Ljava/lang/Object;");
+            emitInt(offset);
+            emit(Opcode.op_aaload);
+            return;
+        }
+        emitInvokeVirtual(LOBJECT, "getlValues", "()[J");
+        emitInt(offset);
+        emit(Opcode.op_laload);
+        switch (kind) {
+            case 'I':
+                emit(Opcode.op_l2i);
+                break;
+            case 'F':
+                emit(Opcode.op_l2i);
+                emitInvokeStatic("java/lang/Float", "intBitsToFloat", "(I)F");
+                break;
+            case 'D':
+                emitInvokeStatic("java/lang/Double", "longBitsToDouble", "(J)D");
+                break;
+            default:
+        }
+    }
+
+    /**
+     * @Description: 将对象替换为存放其实例字段的宿主数组，之后压入字段的下标，供存储字段值
+     */
+    void emitFieldSlot(char kind, int offset) {
+        emitCheckcast(LOBJECT);
+        if (kind == 'A') {
+            emitInvokeVirtual(LOBJECT, "getlRefs", "()[Ljava/lang/Object;");
+        } else {
+            emitInvokeVirtual(LOBJECT, "getlValues", "()[J");
+        }
+        emitInt(offset);
+    }
+
+    /**
+     * @Description: 将宿主操作数栈顶的字段值转换为存储形式后存入字段数组，数组及下标已在其下（见emitFieldSlot）
+     */
+    void emitFieldStore(char kind) {
+        switch (kind) {
+            case 'A':
+                emit(Opcode.op_aastore);
+                return;
+            case 'I':
+                emit(Opcode.op_i2l);
+                break;
+            case 'F':
+                emitInvokeStatic("java/lang/Float", "floatToRawIntBits", "(F)I");
+                emit(Opcode.op_i2l);
+                break;
+            case 'D':
+                emitInvokeStatic("java/lang/Double", "doubleToRawLongBits", "(D)J");
+                break;
+            default:
+        }
+        emit(Opcode.op_lastore);
+    }
+
+    /**
+     * @Description: 将栈顶的数组对象替换为存放其元素的宿主数组
+     * @Param type 数组指令在xaload（或xastore）指令族中的次序：int、long、float、double、引用、byte（boolean）、char、short
+     */
+    void emitArrayData(int type) {
+        emitCheckcast(LARRAY);
+        switch (type) {
+            case 0:
+                emitInvokeVirtual(LARRAY, "getInts", "()[I");
+                break;
+            case 1:
+                emitInvokeVirtual(LARRAY, "getLongs", "()[J");
+                break;
+            case 2:
+                emitInvokeVirtual(LARRAY, "getFloats", "()[F");
+                break;
+            case 3:
+                emitInvokeVirtual(LARRAY, "getDoubles", "()[D");
+                break;
+            case 4:
+                emitInvokeVirtual(LARRAY, "getRefs", "()[Ljava/lang/Object;");
+                break;
+            case 5:
+                emitInvokeVirtual(LARRAY, "getBytes", "()[B");
+                break;
+            case 6:
+                emitInvokeVirtual(LARRAY, "getChars", "()[C");
+                break;
+            default:
+                emitInvokeVirtual(LARRAY, "getShorts", "()[S");
+        }
+    }
+
+    static char arrayValueKind(int type) {
+        return type < KINDS.length() ? KINDS.charAt(type) : 'I';
+    }
+
+    /**
+     * @Description: 调用Frame的存取方法，如pushInt、loadRef
+     */
+    void emitFrameCall(String prefix, char kind, String descriptor) {
+        emitInvokeVirtual(FRAME, prefix + kindName(kind), descriptor);
+    }
+
+    static int size(char kind) {
+        return kind == 'J' || kind == 'D' ? 2 : 1;
+    }
+
+    static String hostType(char kind) {
+        return kind == 'A' ? "Ljava/lang/Object;" : String.valueOf(kind);
+    }
+
+    static String kindName(char kind) {
+        switch (kind) {
+            case 'I':
+                return "Int";
+            case 'J':
+                return "Long";
+            case 'F':
+                return "Float";
+            case 'D':
+                return "Double";
+            default:
+                return "Ref";
+        }
+    }
+
+    void emitLoad(char kind, int idx) {
+        emitLocal(Opcode.op_iload, Opcode.op_iload_0, kind, idx);
+    }
+
+    void emitStore(char kind, int idx) {
+        emitLocal(Opcode.op_istore, Opcode.op_istore_0, kind, idx);
+    }
+
+    private void emitLocal(int base, int shortBase, char kind, int idx) {
+        int k = KINDS.indexOf(kind);
+        if (idx <= 3) {
+            emit(shortBase + k * 4 + idx);
+        } else if (idx <= 0xFF) {
+            emit(base + k, idx);
+        } else {
+            emit(Opcode.op_wide, base + k);
+            emitU2(idx);
+        }
+    }
+
+    void emitIinc(int idx, int c) {
+        if (idx <= 0xFF && c >= Byte.MIN_VALUE && c <= Byte.MAX_VALUE) {
+            emit(Opcode.op_iinc, idx, c);
+        } else {
+            emit(Opcode.op_wide, Opcode.op_iinc);
+            emitU2(idx);
+            emitU2(c);
+        }
+    }
+
+    void emitInt(int v) {
+        if (v >= -1 && v <= 5) {
+            emit(Opcode.op_iconst_0 + v);
+        } else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+            emit(Opcode.op_bipush, v);
+        } else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+            emit(Opcode.op_sipush);
+            emitU2(v);
+        } else {
+            int hostIdx = cw.intConstant(v);
+            emit(Opcode.op_ldc_w);
+            emitU2(hostIdx);
+        }
+    }
+
+    /**
+     * @Description: 回填向前跳转到当前位置的跳转指令
+     * @Param at 跳转指令的宿主偏移
+     */
+    void patchForward(int at) throws BailoutException {
+        patch(at, at + 1, len, 2);
+    }
+
+    /**
+     * @Description: 回填跳转偏移
+     * @Param at 跳转指令的宿主偏移
+     * @Param pos 回填位置
+     * @Param target 跳转目标的宿主偏移
+     * @Param width 偏移宽度（2或4字节）
+     */
+    void patch(int at, int pos, int target, int width) throws BailoutException {
+        int offset = target - at;
+        if (width == 2) {
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new BailoutException("branch offset overflow");
+            }
+            bytes[pos] = hi(offset);
+            bytes[pos + 1] = lo(offset);
+        } else {
+            bytes[pos] = (byte) (offset >> 24);
+            bytes[pos + 1] = (byte) (offset >> 16);
+            bytes[pos + 2] = hi(offset);
+            bytes[pos + 3] = lo(offset);
+        }
+    }
+
+    /**
+     * @Description: 写入switch操作码及对齐填充，返回操作码的宿主偏移
+     */
+    int emitSwitchHeader(int op) {
+        int start = len;
+        emit(op);
+        while ((len & 3) != 0) {
+            emit(0);
+        }
+        return start;
+    }
+
+    void emitCheckcast(String className) {
+        emit(Opcode.op_checkcast);
+        emitU2(cw.classRef(className));
+    }
+
+    void emitInvokeStatic(String owner, String name, String descriptor) {
+        emit(Opcode.op_invokestatic);
+        emitU2(cw.methodRef(owner, name, descriptor));
+    }
+
+    void emitInvokeVirtual(String owner, String name, String descriptor) {
+        emit(Opcode.op_invokevirtual);
+        emitU2(cw.methodRef(owner, name, descriptor));
+    }
+
+    void emitInvokeSpecial(String owner, String name, String descriptor) {
+        emit(Opcode.op_invokespecial);
+        emitU2(cw.methodRef(owner, name, descriptor));
+    }
+
+    void emit(int... values) {
+        if (len + values.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, len + values.length));
+        }
+        for (int b : values) {
+            bytes[len++] = (byte) b;
+        }
+    }
+
+    void emitU2(int v) {
+        emit(v >> 8, v);
+    }
+
+    void emitS4(int v) {
+        emit(v >> 24, v >> 16, v >> 8, v);
+    }
+
+    private static byte hi(int v) {
+        return (byte) (v >> 8);
+    }
+
+    private static byte lo(int v) {
+        return (byte) v;
+    }
+}
@@ -0,0 +1,281 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Field;
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.GuestException;
+import cn.sheratan.jvm.LArray;
+import cn.sheratan.jvm.LObject;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Thread;
+import cn.sheratan.jvm.Instruction.InlineCache;
+import cn.sheratan.jvm.Instruction.InstructionFactory;
+import cn.sheratan.jvm.Instruction.TypeCheck;
+
+/**
+ * @Description: 编译后代码调用的运行时辅助方法。生成的类由独立的类加载器定义，只能访问公有成员，
+ * 需要类初始化检查、方法分派或虚拟机异常的指令均在此实现；解析结果（Class.Symbol、Field、Class等）由生成类的常量表传入
+ * @Author aries
+ * @Data 2026-10-18 08:38
+ */
+public final class JitRuntime {
+
+    private JitRuntime() {
+    }
+
+    /**
+     * @Description: invokestatic：先初始化目标方法所属类
+     * @Param frame 调用者栈帧，参数已压入其操作数栈
+     * @Param symbol 解析得到的方法实体（Class.Symbol）
+     * @return: void
+     */
+    public static void invokestatic(Frame frame, Object symbol) {
+        Class.Symbol s = (Class.Symbol) symbol;
+        if (!s.clazz.isStaticInited()) {
+            InstructionFactory.initClass(frame.getfThread(), s.clazz);
+        }
+        invokespecial(frame, s);
+    }
+
+    public static void invokespecial(Frame frame, Object symbol) {
+        Thread thread = frame.getfThread();
+        int depth = thread.depth();
+        InstructionFactory.invoke((Class.Symbol) symbol, frame);
+        complete(thread, depth);
+    }
+
+    /**
+     * @Description: invokevirtual/invokeinterface：经调用点的内联缓存分派
+     * @Param cache 调用点的内联缓存（InlineCache），可为null
+     */
+    public static void invokevirtual(Frame frame, Object symbol, Object cache) {
+        Thread thread = frame.getfThread();
+        int depth = thread.depth();
+        InstructionFactory.invokeVirtual((Class.Symbol) symbol, (InlineCache) cache, frame);
+        complete(thread, depth);
+    }
+
+    /**
+     * @Description: 调用已完成分派的方法（见CallNode）
+     * @Param frame 调用者栈帧，参数已压入其操作数栈
+     * @Param method 目标方法
+     * @Param argCount 参数所占slot数量
+     */
+    static void invoke(Frame frame, Method method, int argCount) {
+        Thread thread = frame.getfThread();
+        int depth = thread.depth();
+        InstructionFactory.invokeMethod(method, frame, argCount);
+        complete(thread, depth);
+    }
+
+    /**
+     * @Description: 被调用方法为解释执行时由解释器执行至其返回，之后返回值位于frame的操作数栈顶
+     */
+    private static void complete(Thread thread, int depth) {
+        if (thread.depth() > depth) {
+            thread.execute(depth + 1);
+        }
+    }
+
+    /**
+     * @Description: 内联守卫使用的接收者类型，接收者不是虚拟机对象（null、字符串、数组）时为null
+     */
+    public static Object receiverClass(Object receiver) {
+        return receiver instanceof LObject ? ((LObject) receiver).getlClazz() : null;
+    }
+
+    /**
+     * @Description: 返回指令：弹出当前栈帧，返回值压入调用者的操作数栈，浮点数按位模式传递
+     */
+    public static void returnInt(int v, Frame frame) {
+        Frame caller = popFrame(frame);
+        if (caller != null) {
+            caller.pushInt(v);
+        }
+    }
+
+    public static void returnLong(long v, Frame frame) {
+        Frame caller = popFrame(frame);
+        if (caller != null) {
+            caller.pushLong(v);
+        }
+    }
+
+    public static void returnFloat(float v, Frame frame) {
+        Frame caller = popFrame(frame);
+        if (caller != null) {
+            caller.pushFloat(v);
+        }
+    }
+
+    public static void returnDouble(double v, Frame frame) {
+        Frame caller = popFrame(frame);
+        if (caller != null) {
+            caller.pushDouble(v);
+        }
+    }
+
+    public static void returnRef(Object v, Frame frame) {
+        Frame caller = popFrame(frame);
+        if (caller != null) {
+            caller.pushRef(v);
+        }
+    }
+
+    public static void returnVoid(Frame frame) {
+        popFrame(frame);
+    }
+
+    private static Frame popFrame(Frame frame) {
+        Thread thread = frame.getfThread();
+        thread.popFrame();
+        return thread.topFrame();
+    }
+
+    /**
+     * @Description: 静态字段存取，所属类在首次访问时初始化（同getstatic/putstatic）
+     * @Param field 解析得到的静态字段（Field）
+     * @Param frame 当前栈帧
+     */
+    public static int getstaticInt(Object field, Frame frame) {
+        Field f = (Field) field;
+        return (int) staticClass(f, frame).getStaticValues()[f.getOffset()];
+    }
+
+    public static long getstaticLong(Object field, Frame frame) {
+        Field f = (Field) field;
+        return staticClass(f, frame).getStaticValues()[f.getOffset()];
+    }
+
+    public static float getstaticFloat(Object field, Frame frame) {
+        return Float.intBitsToFloat(getstaticInt(field, frame));
+    }
+
+    public static double getstaticDouble(Object field, Frame frame) {
+        return Double.longBitsToDouble(getstaticLong(field, frame));
+    }
+
+    public static Object getstaticRef(Object field, Frame frame) {
+        Field f = (Field) field;
+        return staticClass(f, frame).getStaticRefs()[f.getOffset()];
+    }
+
+    public static void putstaticInt(int v, Object field, Frame frame) {
+        Field f = (Field) field;
+        staticClass(f, frame).getStaticValues()[f.getOffset()] = v;
+    }
+
+    public static void putstaticLong(long v, Object field, Frame frame) {
+        Field f = (Field) field;
+        staticClass(f, frame).getStaticValues()[f.getOffset()] = v;
+    }
+
+    public static void putstaticFloat(float v, Object field, Frame frame) {
+        putstaticInt(Float.floatToRawIntBits(v), field, frame);
+    }
+
+    public static void putstaticDouble(double v, Object field, Frame frame) {
+        putstaticLong(Double.doubleToRawLongBits(v), field, frame);
+    }
+
+    public static void putstaticRef(Object v, Object field, Frame frame) {
+        Field f = (Field) field;
+        staticClass(f, frame).getStaticRefs()[f.getOffset()] = v;
+    }
+
+    private static Class staticClass(Field field, Frame frame) {
+        Class clazz = field.getfClass();
+        if (!clazz.isStaticInited()) {
+            InstructionFactory.initClass(frame.getfThread(), clazz);
+        }
+        return clazz;
+    }
+
+    /**
+     * @Description: new：首次实例化时初始化类
+     * @Param clazz 解析得到的类（Class）
+     * @Param frame 当前栈帧
+     * @return: java.lang.Object
+     */
+    public static Object newObject(Object clazz, Frame frame) {
+        Class c = (Class) clazz;
+        if (!c.isStaticInited()) {
+            InstructionFactory.initClass(frame.getfThread(), c);
+        }
+        return new LObject(c);
+    }
+
+    /**
+     * @Description: aastore，带数组存储检查
+     */
+    public static void aastore(Object array, int index, Object value, Frame frame) {
+        LArray a = (LArray) array;
+        TypeCheck.checkArrayStore(a, value, frame.getfThread(), frame.getfClass().getClassLoader());
+        a.getRefs()[index] = value;
+    }
+
+    public static void checkcast(Object obj, Object check, Frame frame) {
+        ((TypeCheck) check).checkCast(obj, frame.getfThread());
+    }
+
+    public static int instanceOf(Object obj, Object check) {
+        return obj != null && ((TypeCheck) check).isInstance(obj) ? 1 : 0;
+    }
+
+    /**
+     * @Description: 编译代码捕获到异常时调用：弹出执行中被中断的被调用方法栈帧，清空frame的操作数栈，并将异常转换为虚拟机异常对象
+     * @Param frame 当前栈帧
+     * @Param e 捕获到的宿主异常，编译代码中出错指令未知，按异常类型转换（见Thread.toThrowable）
+     * @return: java.lang.Object 虚拟机异常对象
+     */
+    public static Object catchException(Frame frame, RuntimeException e) {
+        Thread thread = frame.getfThread();
+        while (thread.topFrame() != frame) {
+            thread.popFrame();
+        }
+        frame.clearStack();
+        return thread.toThrowable(e, -1);
+    }
+
+    /**
+     * @Description: 异常分派代码判断异常对象是否为捕获类型的实例
+     */
+    public static boolean isInstance(Object throwable, Object catchClass) {
+        return ((LObject) throwable).getlClazz().isSubtypeOf((Class) catchClass);
+    }
+
+    /**
+     * @Description: 异常未被编译代码捕获：宿主异常先转换为虚拟机异常（离开编译代码后无法再确定出错指令），
+     * 再弹出frame及其之上的栈帧，返回该异常由编译代码继续抛出
+     */
+    public static RuntimeException unwind(Frame frame, RuntimeException e) {
+        Thread thread = frame.getfThread();
+        if (!(e instanceof GuestException)) {
+            e = new GuestException(thread.toThrowable(e, -1));
+        }
+        while (thread.topFrame() != frame) {
+            thread.popFrame();
+        }
+        thread.popFrame();
+        return e;
+    }
+
+    /**
+     * @Description: monitorenter、monitorexit：虚拟机只有单个执行线程，监视器无需实际加锁，同解释器只检查对象是否为null
+     */
+    public static void monitor(Object obj) {
+        if (obj == null) {
+            throw new NullPointerException();
+        }
+    }
+
+    /**
+     * @Description: athrow：返回待抛出的宿主异常，由编译后的代码抛出；异常对象为null时为NullPointerException
+     */
+    public static RuntimeException athrow(Object throwable) {
+        if (throwable == null) {
+            return new NullPointerException();
+        }
+        return new GuestException((LObject) throwable);
+    }
+}
@@ -0,0 +1,138 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Method;
+import org.freeinternals.format.classfile.AttributeCode;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * @Description: 局部变量种类的数据流分析，求出指定指令处各局部变量所存放值的种类，供栈上替换时从解释器栈帧读取局部变量。
+ * 种类只由store指令决定（同一局部变量在不同路径上种类不同时即不可用），不需要模拟操作数栈。
+ * 种类为I、J、F、D、A，不可用（未赋值或种类冲突，以及long、double的高位slot）为T
+ * @Author aries
+ * @Data 2026-10-18 09:27
+ */
+final class LocalKinds {
+    static final char UNUSABLE = 'T';
+
+    private static final String KINDS = "IJFDA";
+
+    private LocalKinds() {
+    }
+
+    /**
+     * @Description: 分析方法，返回指令执行前各局部变量的种类
+     * @Param method 方法
+     * @Param target 指令下标（字节码偏移值）
+     * @return: char[] 指令不可达时返回null
+     */
+    static char[] at(Method method, int target) {
+        AttributeCode attr = method.getCodeAttribute();
+        byte[] code = attr.getCode();
+        int maxLocals = attr.getMaxLocals();
+        char[][] states = new char[code.length][];
+        char[] entry = new char[maxLocals];
+        Arrays.fill(entry, UNUSABLE);
+        int slot = 0;
+        if (!method.isStatic()) {
+            entry[slot++] = 'A';
+        }
+        String descriptor = method.getDescriptor();
+        for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+            char c = descriptor.charAt(i);
+            entry[slot] = kindOf(c);
+            slot += c == 'J' || c == 'D' ? 2 : 1;
+            while (c == '[') {
+                c = descriptor.charAt(++i);
+            }
+            if (c == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+        }
+        Deque<Integer> work = new ArrayDeque<>();
+        merge(states, 0, entry, work);
+        while (!work.isEmpty()) {
+            int bci = work.pop();
+            char[] in = states[bci];
+            char[] out = transfer(code, bci, in);
+            int op = code[bci] & 0xFF;
+            for (int t : Bytecodes.branchTargets(code, bci)) {
+                merge(states, t, out, work);
+            }
+            if (Bytecodes.fallsThrough(op) && bci + Bytecodes.length(code, bci) < code.length) {
+                merge(states, bci + Bytecodes.length(code, bci), out, work);
+            }
+            for (int i = 0; i < attr.getExceptionTableLength(); i++) {
+                AttributeCode.ExceptionTable e = attr.getExceptionTable(i);
+                if (e.getStartPc() <= bci && bci < e.getEndPc()) {
+                    merge(states, e.getHandlerPc(), in, work);
+                    merge(states, e.getHandlerPc(), out, work);
+                }
+            }
+        }
+        return states[target];
+    }
+
+    private static char[] transfer(byte[] code, int bci, char[] in) {
+        int op = code[bci] & 0xFF;
+        int idx;
+        char kind;
+        if (op >= Opcode.op_istore && op <= Opcode.op_astore) {
+            idx = code[bci + 1] & 0xFF;
+            kind = KINDS.charAt(op - Opcode.op_istore);
+        } else if (op >= Opcode.op_istore_0 && op <= Opcode.op_astore_3) {
+            idx = (op - Opcode.op_istore_0) % 4;
+            kind = KINDS.charAt((op - Opcode.op_istore_0) / 4);
+        } else if (op == Opcode.op_wide && (code[bci + 1] & 0xFF) >= Opcode.op_istore && (code[bci + 1] & 0xFF) <= Opcode.op_astore) {
+            idx = Bytecodes.u2(code, bci + 2);
+            kind = KINDS.charAt((code[bci + 1] & 0xFF) - Opcode.op_istore);
+        } else {
+            return in;
+        }
+        char[] out = in.clone();
+        out[idx] = kind;
+        if (kind == 'J' || kind == 'D') {
+            out[idx + 1] = UNUSABLE;
+        }
+        if (idx > 0 && (in[idx - 1] == 'J' || in[idx - 1] == 'D')) {
+            out[idx - 1] = UNUSABLE;
+        }
+        return out;
+    }
+
+    private static void merge(char[][] states, int bci, char[] state, Deque<Integer> work) {
+        char[] old = states[bci];
+        if (old == null) {
+            states[bci] = state.clone();
+            work.push(bci);
+            return;
+        }
+        boolean changed = false;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] != state[i] && old[i] != UNUSABLE) {
+                old[i] = UNUSABLE;
+                changed = true;
+            }
+        }
+        if (changed) {
+            work.push(bci);
+        }
+    }
+
+    private static char kindOf(char descriptor) {
+        switch (descriptor) {
+            case 'J':
+            case 'F':
+            case 'D':
+                return descriptor;
+            case 'L':
+            case '[':
+                return 'A';
+            default:
+                return 'I';
+        }
+    }
+}
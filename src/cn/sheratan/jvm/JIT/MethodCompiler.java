@@ -0,0 +1,160 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.ClassFileWriter;
+import cn.sheratan.jvm.Method;
+
+import java.util.logging.Logger;
+
+/**
+ * @Description: 方法编译器。第1层将方法编译为闭包树（见ClosureCompiler），不生成宿主类；
+ * 第2层将方法构建为SSA中间表示（见SsaBuilder），优化（见SsaOptimizer）后生成宿主字节码（见SsaCodeGenerator），
+ * 中间表示不支持的方法或关闭优化时逐条翻译为宿主字节码（见MethodTranslator），由一次性的类加载器定义为宿主类。
+ * 宿主类不被其他代码引用，方法实体释放后即可随其类加载器一同回收。轨迹模式下另将记录的循环路径编译为轨迹代码（见TraceCompiler）。
+ * 编译时机由TieredPolicy决定
+ * @Author aries
+ * @Data 2026-10-18 09:27
+ */
+final class MethodCompiler {
+    private static final Logger LOGGER = Logger.getLogger(MethodCompiler.class.getName());
+
+    private static final String CLASS_PREFIX = "cn/sheratan/jvm/JIT/Compiled$";
+
+    /**
+     * @Description: 已生成的宿主类数量，用于命名
+     */
+    private int compiledCount;
+
+    /**
+     * @Description: 第2层编译是否经过SSA优化（见VM.Config.jitOptimization）
+     */
+    private final boolean optimize;
+
+    MethodCompiler(boolean optimize) {
+        this.optimize = optimize;
+    }
+
+    /**
+     * @Description: 编译方法。编译器不支持该方法时抛出BailoutException；宿主类在创建实例时校验，生成代码有误时抛出VerifyError，同样视为编译失败
+     * @Param method 方法
+     * @Param tier 编译层级，1为闭包树，2为宿主字节码
+     * @Param osrBci 栈上替换入口的指令下标（字节码偏移值），普通编译为-1
+     * @return: cn.sheratan.jvm.JIT.CompiledMethod 编译失败时返回null
+     */
+    CompiledMethod compile(Method method, int tier, int osrBci) {
+        try {
+            return tryCompile(method, tier, osrBci);
+        } catch (BailoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @Description: 同compile，但编译失败时抛出BailoutException，调用者可据此区分只是栈上替换入口不可用还是方法本身不可编译。
+     * 生成代码有误等意外错误同样视为方法本身不可编译
+     */
+    CompiledMethod tryCompile(Method method, int tier, int osrBci) throws BailoutException {
+        String desc = method + " (tier " + tier + (osrBci >= 0 ? ", osr at " + osrBci : "") + ")";
+        try {
+            CompiledMethod compiled = tier == 1 ? compileClosure(method, osrBci) : compileClass(method, osrBci);
+            if (compiled == null) {
+                throw new BailoutException("no block at " + osrBci, true);
+            }
+            LOGGER.fine("compiled " + desc);
+            return compiled;
+        } catch (BailoutException e) {
+            LOGGER.fine("not compilable " + desc + ": " + e.getMessage());
+            throw e;
+        } catch (RuntimeException | LinkageError | ReflectiveOperationException e) {
+            LOGGER.fine("not compilable " + desc + ": " + e);
+            throw new BailoutException(e.toString());
+        }
+    }
+
+    /**
+     * @Description: 编译记录的轨迹
+     * @Param recorder 已结束的轨迹记录
+     * @return: cn.sheratan.jvm.JIT.TraceCode 记录未回到循环头或编译失败时返回null
+     */
+    TraceCode compileTrace(TraceRecorder recorder) {
+        String desc = "trace of " + recorder.getMethod() + " at " + recorder.getHeaderBci();
+        if (!recorder.isClosed()) {
+            String reason = recorder.getAbortReason();
+            LOGGER.fine("not recorded " + desc + ": " + (reason != null ? reason : "left the loop"));
+            return null;
+        }
+        try {
+            TraceCode trace = new TraceCompiler(recorder).compile();
+            LOGGER.fine("compiled " + desc + " (" + recorder.length + " steps)");
+            return trace;
+        } catch (BailoutException e) {
+            LOGGER.fine("not compilable " + desc + ": " + e.getMessage());
+            return null;
+        } catch (RuntimeException | LinkageError e) {
+            LOGGER.fine("not compilable " + desc + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * @Description: 编译为闭包树。栈上替换代码与普通编译得到的代码结构相同，只是入口块不同，方法已有第1层代码时直接共用其基本块
+     */
+    private static ClosureMethod compileClosure(Method method, int osrBci) throws BailoutException {
+        CompiledMethod current = method.getCompiledMethod();
+        ClosureMethod closure = current instanceof ClosureMethod ? (ClosureMethod) current : new ClosureCompiler(method).compile();
+        return osrBci >= 0 ? closure.withEntry(osrBci) : closure;
+    }
+
+    /**
+     * @Description: 编译为宿主类。优化编译失败（中间表示不支持的指令、生成代码未通过校验等）时改为逐条翻译
+     */
+    private CompiledMethod compileClass(Method method, int osrBci) throws ReflectiveOperationException, BailoutException {
+        if (optimize) {
+            try {
+                return compileOptimized(method, osrBci);
+            } catch (BailoutException | RuntimeException | LinkageError e) {
+                LOGGER.fine("not optimizable " + method + ": " + e);
+            }
+        }
+        ClassFileWriter cw = newClass(method, osrBci);
+        MethodTranslator translator = new MethodTranslator(method, cw, osrBci);
+        translator.translate();
+        return define(cw, translator.constants());
+    }
+
+    private CompiledMethod compileOptimized(Method method, int osrBci) throws ReflectiveOperationException, BailoutException {
+        SsaGraph graph = new SsaBuilder(method, osrBci).build();
+        new SsaOptimizer(graph).optimize();
+        ClassFileWriter cw = newClass(method, osrBci);
+        SsaCodeGenerator generator = new SsaCodeGenerator(graph, cw);
+        generator.generate();
+        return define(cw, generator.constants());
+    }
+
+    private ClassFileWriter newClass(Method method, int osrBci) {
+        String name = CLASS_PREFIX + (++compiledCount) + "$" + method.getName().replaceAll("[<>]", "_")
+                + (osrBci >= 0 ? "$osr" + osrBci : "");
+        //版本49.0：宿主JVM对该版本采用类型推导方式校验，方法无需StackMapTable属性
+        return new ClassFileWriter(49, ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER
+                | ClassFileWriter.ACC_SYNTHETIC, name, "java/lang/Object", HostCode.COMPILED_METHOD);
+    }
+
+    private static CompiledMethod define(ClassFileWriter cw, Object[] constants) throws ReflectiveOperationException {
+        String name = cw.thisName().replace('/', '.');
+        java.lang.Class<?> hostClass = new HostClassLoader().define(name, cw.toByteArray());
+        return (CompiledMethod) hostClass.getConstructor(Object[].class).newInstance((Object) constants);
+    }
+
+    /**
+     * @Description: 定义单个宿主类的类加载器，以虚拟机自身的类加载器为父加载器，生成的代码由此访问虚拟机的公有类
+     */
+    private static final class HostClassLoader extends java.lang.ClassLoader {
+
+        HostClassLoader() {
+            super(MethodCompiler.class.getClassLoader());
+        }
+
+        java.lang.Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
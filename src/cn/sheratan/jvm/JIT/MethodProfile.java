@@ -0,0 +1,108 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Instruction.DecodedCode;
+import cn.sheratan.jvm.Instruction.InlineCache;
+import org.freeinternals.format.classfile.Opcode;
+
+/**
+ * @Description: 方法的循环剖析信息：以预解码指令流下标索引的回边计数，以及在各循环头处进入的栈上替换代码。
+ * 回边即跳转目标不在跳转指令之后的跳转，其目标即为循环头。调用点的类型剖析信息即预解码指令流中各调用点的内联缓存。
+ * 轨迹模式下另有以循环头索引的轨迹计数及轨迹代码（见TraceRecorder）
+ * @Author aries
+ * @Data 2026-10-18 09:27
+ */
+public final class MethodProfile {
+
+    /**
+     * @Description: 以循环头为目标的回边执行次数，编译失败的循环头置为Integer.MIN_VALUE，不再触发编译
+     */
+    private final int[] backedgeCounts;
+
+    /**
+     * @Description: 在循环头处进入的栈上替换代码
+     */
+    private final CompiledMethod[] osrMethods;
+
+    /**
+     * @Description: 轨迹模式下以循环头为目标的回边次数，记录或编译轨迹失败后清零重新累计，放弃轨迹的循环头置为Integer.MIN_VALUE
+     */
+    private final int[] traceCounts;
+
+    /**
+     * @Description: 循环头处记录或编译轨迹失败的次数
+     */
+    private final int[] traceFailures;
+
+    /**
+     * @Description: 在循环头处进入的轨迹代码
+     */
+    private final TraceCode[] traces;
+
+    MethodProfile(Method method) {
+        int length = method.getDecodedCode().getInsts().length;
+        this.backedgeCounts = new int[length];
+        this.osrMethods = new CompiledMethod[length];
+        this.traceCounts = new int[length];
+        this.traceFailures = new int[length];
+        this.traces = new TraceCode[length];
+    }
+
+    int incrementBackedgeCount(int target) {
+        return ++backedgeCounts[target];
+    }
+
+    void disableOsr(int target) {
+        backedgeCounts[target] = Integer.MIN_VALUE;
+    }
+
+    CompiledMethod getOsrMethod(int target) {
+        return osrMethods[target];
+    }
+
+    void setOsrMethod(int target, CompiledMethod compiled) {
+        osrMethods[target] = compiled;
+    }
+
+    int incrementTraceCount(int target) {
+        return ++traceCounts[target];
+    }
+
+    /**
+     * @Description: 记录一次轨迹失败，回边次数清零后重新累计
+     * @return: int 该循环头累计失败的次数
+     */
+    int traceFailed(int target) {
+        traceCounts[target] = 0;
+        return ++traceFailures[target];
+    }
+
+    void disableTracing(int target) {
+        traceCounts[target] = Integer.MIN_VALUE;
+    }
+
+    TraceCode getTrace(int target) {
+        return traces[target];
+    }
+
+    void setTrace(int target, TraceCode trace) {
+        traces[target] = trace;
+    }
+
+    /**
+     * @Description: 获取方法中虚方法调用点的内联缓存，其中记录的接收者类型即该调用点的类型剖析信息
+     * @Param method 方法
+     * @Param op 调用指令的操作码
+     * @Param bci 调用指令的下标
+     * @return: cn.sheratan.jvm.Instruction.InlineCache 方法尚未解码或指令已被改写时返回null
+     */
+    static InlineCache receiverProfile(Method method, int op, int bci) {
+        DecodedCode decoded = method.getDecodedCode();
+        int idx = decoded.toIndex(bci);
+        int[] insts = decoded.getInsts();
+        if (idx < 0 || idx >= insts.length || insts[idx] != op) {
+            return null;
+        }
+        return decoded.getInlineCache(insts[idx + (op == Opcode.op_invokeinterface ? 3 : 2)]);
+    }
+}
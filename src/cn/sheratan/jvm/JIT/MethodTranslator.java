@@ -0,0 +1,890 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.ClassFileWriter;
+import cn.sheratan.jvm.Field;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Instruction.InlineCache;
+import cn.sheratan.jvm.Instruction.TypeCheck;
+import org.freeinternals.format.classfile.AbstractCPInfo;
+import org.freeinternals.format.classfile.AttributeCode;
+import org.freeinternals.format.classfile.ConstantDoubleInfo;
+import org.freeinternals.format.classfile.ConstantFloatInfo;
+import org.freeinternals.format.classfile.ConstantIntegerInfo;
+import org.freeinternals.format.classfile.ConstantInterfaceMethodrefInfo;
+import org.freeinternals.format.classfile.ConstantLongInfo;
+import org.freeinternals.format.classfile.ConstantMethodrefInfo;
+import org.freeinternals.format.classfile.ConstantNameAndTypeInfo;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * @Description: 第2层编译：将一个方法的字节码逐条翻译为宿主类CompiledMethod.run的字节码。
+ * 宿主局部变量0为this（生成类的实例）、1为frame，方法的局部变量n对应宿主局部变量n + 2，之后依次为内联方法的局部变量、
+ * 暂存调用参数等的临时变量，以及异常分派使用的两个变量；
+ * 方法的操作数栈直接对应宿主操作数栈，算术、比较、类型转换、栈操作及跳转指令原样复制（跳转偏移按宿主代码重新计算），
+ * 对象、数组的存取改为对LObject、LArray宿主数组的直接访问，其余指令调用JitRuntime。
+ * 虚方法调用经由调用点的内联缓存分派，内联缓存同时记录接收者类型；依据此前（解释执行及第1层代码）记录的内联缓存，将单态调用点及静态、私有方法调用中的
+ * 小方法直接展开，虚方法调用以接收者类型比较作为守卫，不符合时回到普通调用。
+ * 方法的异常表按区间端点切分后为每一段生成宿主异常表项，由分派代码依次匹配捕获类型并跳转到处理器；未被捕获的异常经外层表项弹出栈帧后继续抛出。
+ * 指定栈上替换入口时，生成的代码从frame读入该处仍有效的局部变量后直接跳转到入口指令。
+ * 第2层编译默认先尝试经SSA中间表示优化编译（见SsaBuilder），不支持的方法或关闭优化时由本类逐条翻译。
+ * jsr/ret、invokedynamic、multianewarray指令暂不支持编译，抛出BailoutException
+ * @Author aries
+ * @Data 2026-10-18 08:38
+ */
+final class MethodTranslator {
+    /**
+     * @Description: 宿主局部变量中方法局部变量的起始位置
+     */
+    private static final int LOCAL_BASE = 2;
+
+    /**
+     * @Description: 为各指令附加的宿主操作数栈深度余量（常量表取值、辅助方法的frame参数等）
+     */
+    private static final int EXTRA_STACK = 6;
+
+    /**
+     * @Description: 可内联方法的字节码长度及局部变量表大小上限
+     */
+    private static final int MAX_INLINE_BYTES = 35;
+    private static final int MAX_INLINE_LOCALS = 8;
+
+    /**
+     * @Description: 被编译的方法所对应的翻译器；翻译内联方法时，宿主代码、常量表及临时变量均由其统一管理
+     */
+    private final MethodTranslator root;
+    private final Method method;
+    private final Class clazz;
+    private final AttributeCode attr;
+    private final byte[] code;
+    private final int maxLocals;
+    private final int maxStack;
+    private final ClassFileWriter cw;
+
+    /**
+     * @Description: 栈上替换入口的指令下标，普通编译为-1
+     */
+    private final int osrBci;
+
+    /**
+     * @Description: 方法局部变量0所对应的宿主局部变量
+     */
+    private final int localBase;
+
+    /**
+     * @Description: 宿主代码及生成类的常量表，与内联方法的翻译器共用
+     */
+    private final HostCode out;
+
+    /**
+     * @Description: 指令下标到宿主代码偏移的映射，非指令起始处为-1；code.length处为方法代码之后的位置，内联方法的返回跳转至此
+     */
+    private final int[] hostPC;
+
+    /**
+     * @Description: 待回填的跳转偏移：{宿主跳转指令偏移, 回填位置, 目标指令下标, 偏移宽度}
+     */
+    private final List<int[]> fixups = new ArrayList<>();
+
+    /**
+     * @Description: 临时变量所需的slot数量，至少两个，供数组与字段存储暂存long、double值
+     */
+    private int tempSlots = 2;
+
+    /**
+     * @Description: 内联方法所需的最大操作数栈深度
+     */
+    private int inlineStack;
+
+    /**
+     * @Description: 创建方法的翻译器
+     * @Param method 方法
+     * @Param cw 生成类
+     * @Param osrBci 栈上替换入口的指令下标，普通编译为-1
+     */
+    MethodTranslator(Method method, ClassFileWriter cw, int osrBci) throws BailoutException {
+        this.root = this;
+        this.method = method;
+        this.clazz = method.getmClass();
+        this.attr = codeAttribute(method);
+        this.code = attr.getCode();
+        this.maxLocals = attr.getMaxLocals();
+        this.maxStack = attr.getMaxStack();
+        this.cw = cw;
+        this.osrBci = osrBci;
+        this.localBase = LOCAL_BASE;
+        this.out = new HostCode(cw);
+        this.hostPC = new int[code.length + 1];
+        Arrays.fill(hostPC, -1);
+    }
+
+    /**
+     * @Description: 创建内联方法的翻译器，其代码直接写入调用者的宿主代码中
+     * @Param root 被编译方法的翻译器
+     * @Param callee 内联方法
+     * @Param localBase 内联方法局部变量0所对应的宿主局部变量
+     */
+    private MethodTranslator(MethodTranslator root, Method callee, int localBase) throws BailoutException {
+        this.root = root;
+        this.method = callee;
+        this.clazz = callee.getmClass();
+        this.attr = codeAttribute(callee);
+        this.code = attr.getCode();
+        this.maxLocals = attr.getMaxLocals();
+        this.maxStack = attr.getMaxStack();
+        this.cw = root.cw;
+        this.osrBci = -1;
+        this.localBase = localBase;
+        this.out = root.out;
+        this.hostPC = new int[code.length + 1];
+        Arrays.fill(hostPC, -1);
+    }
+
+    private static AttributeCode codeAttribute(Method method) throws BailoutException {
+        AttributeCode attr = method.getCodeAttribute();
+        if (attr == null) {
+            throw new BailoutException("no code");
+        }
+        return attr;
+    }
+
+    /**
+     * @Description: 翻译方法，生成run方法及构造方法
+     */
+    void translate() throws BailoutException {
+        if (osrBci >= 0) {
+            emitOsrPrologue();
+        } else {
+            emitPrologue();
+        }
+        translateBody();
+        int[][] exceptionTable = emitExceptionHandlers();
+        patchBranches();
+        out.finish(maxStack + inlineStack + EXTRA_STACK, exceptionLocal() + 2, exceptionTable);
+    }
+
+    private void translateBody() throws BailoutException {
+        int bci = 0;
+        while (bci < code.length) {
+            hostPC[bci] = out.len;
+            bci = translate(bci);
+        }
+        hostPC[code.length] = out.len;
+    }
+
+    Object[] constants() {
+        return out.constants();
+    }
+
+    /**
+     * @Description: 将参数从frame的局部变量表读入宿主局部变量
+     */
+    private void emitPrologue() {
+        String descriptor = method.getDescriptor();
+        List<Character> kinds = new ArrayList<>();
+        if (!method.isStatic()) {
+            kinds.add('A');
+        }
+        parseArgs(descriptor, kinds);
+        int slot = 0;
+        for (char kind : kinds) {
+            out.emitLoad('A', HostCode.FRAME_LOCAL);
+            out.emitInt(slot);
+            out.emitFrameCall("load", kind, "(I)" + HostCode.hostType(kind));
+            out.emitStore(kind, localBase + slot);
+            slot += HostCode.size(kind);
+        }
+    }
+
+    /**
+     * @Description: 栈上替换入口：解释器在循环头处（操作数栈为空）进入编译代码，从frame读入该处存有值的局部变量后跳转到入口指令
+     */
+    private void emitOsrPrologue() throws BailoutException {
+        char[] kinds = LocalKinds.at(method, osrBci);
+        if (kinds == null) {
+            throw new BailoutException("unreachable osr entry " + osrBci, true);
+        }
+        for (int i = 0; i < kinds.length; i++) {
+            char kind = kinds[i];
+            if (kind == LocalKinds.UNUSABLE) {
+                continue;
+            }
+            out.emitLoad('A', HostCode.FRAME_LOCAL);
+            out.emitInt(i);
+            out.emitFrameCall("load", kind, "(I)" + HostCode.hostType(kind));
+            out.emitStore(kind, localBase + i);
+        }
+        emitBranch(Opcode.op_goto, osrBci);
+    }
+
+    /**
+     * @Description: 生成异常分派代码并返回宿主异常表。方法的异常表按区间端点切分为互不重叠的小段（同ExceptionHandlerTable），
+     * 每段对应一个捕获RuntimeException的宿主表项，覆盖该段的表项相同的小段共用分派代码；最后一项覆盖之前的全部代码，
+     * 处理未被捕获的异常：弹出当前栈帧后重新抛出
+     */
+    private int[][] emitExceptionHandlers() throws BailoutException {
+        List<int[]> table = new ArrayList<>();
+        int catchType = cw.classRef(HostCode.RUNTIME_EXCEPTION);
+        int n = attr.getExceptionTableLength();
+        if (n > 0) {
+            TreeSet<Integer> points = new TreeSet<>();
+            for (int i = 0; i < n; i++) {
+                points.add(attr.getExceptionTable(i).getStartPc());
+                points.add(attr.getExceptionTable(i).getEndPc());
+            }
+            Integer[] bounds = points.toArray(new Integer[0]);
+            Map<List<Integer>, Integer> dispatchers = new HashMap<>();
+            for (int s = 0; s + 1 < bounds.length; s++) {
+                List<Integer> covering = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    AttributeCode.ExceptionTable entry = attr.getExceptionTable(i);
+                    if (entry.getStartPc() <= bounds[s] && bounds[s] < entry.getEndPc()) {
+                        covering.add(i);
+                    }
+                }
+                int start = hostPC[bounds[s]];
+                int end = hostPC[bounds[s + 1]];
+                if (start < 0 || end < 0) {
+                    throw new IllegalStateException("bad exception range " + bounds[s] + ", " + bounds[s + 1]);
+                }
+                if (covering.isEmpty() || start == end) {
+                    continue;
+                }
+                Integer dispatcher = dispatchers.get(covering);
+                if (dispatcher == null) {
+                    dispatcher = emitExceptionDispatch(covering);
+                    dispatchers.put(covering, dispatcher);
+                }
+                table.add(new int[]{start, end, dispatcher, catchType});
+            }
+        }
+        int unwind = out.len;
+        out.emitStore('A', exceptionLocal());
+        out.emitLoad('A', HostCode.FRAME_LOCAL);
+        out.emitLoad('A', exceptionLocal());
+        out.emitInvokeStatic(HostCode.RUNTIME, "unwind", "(Lcn/sheratan/jvm/Frame;Ljava/lang/RuntimeException;)Ljava/lang/RuntimeException;");
+        out.emit(Opcode.op_athrow);
+        table.add(new int[]{0, unwind, unwind, catchType});
+        return table.toArray(new int[0][]);
+    }
+
+    /**
+     * @Description: 异常分派代码：转换为虚拟机异常对象，按异常表中的次序依次匹配捕获类型，匹配时压入异常对象并跳转到处理器，
+     * 均不匹配时继续抛出
+     * @Param entries 覆盖该段的异常表项
+     * @return: int 分派代码的宿主偏移
+     */
+    private int emitExceptionDispatch(List<Integer> entries) throws BailoutException {
+        int start = out.len;
+        int e = exceptionLocal();
+        int throwable = e + 1;
+        out.emitStore('A', e);
+        out.emitLoad('A', HostCode.FRAME_LOCAL);
+        out.emitLoad('A', e);
+        out.emitInvokeStatic(HostCode.RUNTIME, "catchException", "(Lcn/sheratan/jvm/Frame;Ljava/lang/RuntimeException;)Ljava/lang/Object;");
+        out.emitStore('A', throwable);
+        for (int i : entries) {
+            AttributeCode.ExceptionTable entry = attr.getExceptionTable(i);
+            if (entry.getCatchType() == 0) {
+                out.emitLoad('A', throwable);
+                emitBranch(Opcode.op_goto, entry.getHandlerPc());
+                return start;
+            }
+            Class catchClass = clazz.getConstantPoolCache().resolveClass(entry.getCatchType());
+            if (catchClass == null) {
+                continue;
+            }
+            out.emitLoad('A', throwable);
+            out.emitConstant(catchClass);
+            out.emitInvokeStatic(HostCode.RUNTIME, "isInstance", "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+            int skip = out.len;
+            out.emit(Opcode.op_ifeq);
+            out.emitU2(0);
+            out.emitLoad('A', throwable);
+            emitBranch(Opcode.op_goto, entry.getHandlerPc());
+            out.patchForward(skip);
+        }
+        out.emitLoad('A', throwable);
+        out.emitInvokeStatic(HostCode.RUNTIME, "athrow", "(Ljava/lang/Object;)Ljava/lang/RuntimeException;");
+        out.emit(Opcode.op_athrow);
+        return start;
+    }
+
+    /**
+     * @Description: 翻译一条指令
+     * @Param bci 指令下标
+     * @return: int 下一条指令的下标
+     */
+    private int translate(int bci) throws BailoutException {
+        int op = code[bci] & 0xFF;
+        if (op <= Opcode.op_dconst_1) {
+            out.emit(op);
+            return bci + 1;
+        }
+        if (op >= Opcode.op_iload_0 && op <= Opcode.op_aload_3) {
+            out.emitLoad(HostCode.KINDS.charAt((op - Opcode.op_iload_0) / 4), localBase + (op - Opcode.op_iload_0) % 4);
+            return bci + 1;
+        }
+        if (op >= Opcode.op_istore_0 && op <= Opcode.op_astore_3) {
+            out.emitStore(HostCode.KINDS.charAt((op - Opcode.op_istore_0) / 4), localBase + (op - Opcode.op_istore_0) % 4);
+            return bci + 1;
+        }
+        if ((op >= Opcode.op_pop && op <= Opcode.op_lxor) || (op >= Opcode.op_i2l && op <= Opcode.op_dcmpg)) {
+            out.emit(op);
+            return bci + 1;
+        }
+        if ((op >= Opcode.op_ifeq && op <= Opcode.op_goto) || op == Opcode.op_ifnull || op == Opcode.op_ifnonnull) {
+            emitBranch(op, bci + s2(bci + 1));
+            return bci + 3;
+        }
+        switch (op) {
+            case Opcode.op_bipush:
+                out.emit(op, code[bci + 1]);
+                return bci + 2;
+            case Opcode.op_sipush:
+                out.emit(op, code[bci + 1], code[bci + 2]);
+                return bci + 3;
+            case Opcode.op_ldc:
+                emitLdc(u1(bci + 1));
+                return bci + 2;
+            case Opcode.op_ldc_w:
+            case Opcode.op_ldc2_w:
+                emitLdc(u2(bci + 1));
+                return bci + 3;
+            case Opcode.op_iload:
+            case Opcode.op_lload:
+            case Opcode.op_fload:
+            case Opcode.op_dload:
+            case Opcode.op_aload:
+                out.emitLoad(HostCode.KINDS.charAt(op - Opcode.op_iload), localBase + u1(bci + 1));
+                return bci + 2;
+            case Opcode.op_istore:
+            case Opcode.op_lstore:
+            case Opcode.op_fstore:
+            case Opcode.op_dstore:
+            case Opcode.op_astore:
+                out.emitStore(HostCode.KINDS.charAt(op - Opcode.op_istore), localBase + u1(bci + 1));
+                return bci + 2;
+            case Opcode.op_iaload:
+            case Opcode.op_laload:
+            case Opcode.op_faload:
+            case Opcode.op_daload:
+            case Opcode.op_aaload:
+            case Opcode.op_baload:
+            case Opcode.op_caload:
+            case Opcode.op_saload:
+                //arrayref, index -> 宿主数组, index
+                out.emit(Opcode.op_swap);
+                out.emitArrayData(op - Opcode.op_iaload);
+                out.emit(Opcode.op_swap);
+                out.emit(op);
+                return bci + 1;
+            case Opcode.op_aastore:
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "aastore", "(Ljava/lang/Object;ILjava/lang/Object;Lcn/sheratan/jvm/Frame;)V");
+                return bci + 1;
+            case Opcode.op_iastore:
+            case Opcode.op_lastore:
+            case Opcode.op_fastore:
+            case Opcode.op_dastore:
+            case Opcode.op_bastore:
+            case Opcode.op_castore:
+            case Opcode.op_sastore: {
+                char kind = HostCode.arrayValueKind(op - Opcode.op_iastore);
+                int temp = temp(0);
+                out.emitStore(kind, temp);
+                out.emit(Opcode.op_swap);
+                out.emitArrayData(op - Opcode.op_iastore);
+                out.emit(Opcode.op_swap);
+                out.emitLoad(kind, temp);
+                out.emit(op);
+                return bci + 1;
+            }
+            case Opcode.op_iinc:
+                out.emitIinc(localBase + u1(bci + 1), code[bci + 2]);
+                return bci + 3;
+            case Opcode.op_goto_w:
+                emitBranch(Opcode.op_goto, bci + s4(bci + 1));
+                return bci + 5;
+            case Opcode.op_tableswitch:
+                return translateTableSwitch(bci);
+            case Opcode.op_lookupswitch:
+                return translateLookupSwitch(bci);
+            case Opcode.op_ireturn:
+            case Opcode.op_lreturn:
+            case Opcode.op_freturn:
+            case Opcode.op_dreturn:
+            case Opcode.op_areturn: {
+                if (root != this) {
+                    //内联方法返回时返回值留在宿主操作数栈顶，跳转到内联代码之后
+                    emitBranch(Opcode.op_goto, code.length);
+                    return bci + 1;
+                }
+                char kind = HostCode.KINDS.charAt(op - Opcode.op_ireturn);
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "return" + HostCode.kindName(kind), "(" + HostCode.hostType(kind) + "Lcn/sheratan/jvm/Frame;)V");
+                out.emit(Opcode.op_return);
+                return bci + 1;
+            }
+            case Opcode.op_return:
+                if (root != this) {
+                    emitBranch(Opcode.op_goto, code.length);
+                    return bci + 1;
+                }
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "returnVoid", HostCode.RUN_DESCRIPTOR);
+                out.emit(Opcode.op_return);
+                return bci + 1;
+            case Opcode.op_getstatic:
+            case Opcode.op_putstatic: {
+                Field field = clazz.getConstantPoolCache().resolveField(u2(bci + 1));
+                char kind = fieldKind(field.getDescriptor());
+                String name = (op == Opcode.op_getstatic ? "getstatic" : "putstatic") + HostCode.kindName(kind);
+                out.emitConstant(field);
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, name, op == Opcode.op_getstatic
+                        ? "(Ljava/lang/Object;Lcn/sheratan/jvm/Frame;)" + HostCode.hostType(kind)
+                        : "(" + HostCode.hostType(kind) + "Ljava/lang/Object;Lcn/sheratan/jvm/Frame;)V");
+                return bci + 3;
+            }
+            case Opcode.op_getfield: {
+                Field field = clazz.getConstantPoolCache().resolveField(u2(bci + 1));
+                out.emitGetField(fieldKind(field.getDescriptor()), field.getOffset());
+                return bci + 3;
+            }
+            case Opcode.op_putfield: {
+                Field field = clazz.getConstantPoolCache().resolveField(u2(bci + 1));
+                emitPutField(fieldKind(field.getDescriptor()), field.getOffset());
+                return bci + 3;
+            }
+            case Opcode.op_invokevirtual:
+            case Opcode.op_invokespecial:
+            case Opcode.op_invokestatic:
+                translateInvoke(op, u2(bci + 1), bci);
+                return bci + 3;
+            case Opcode.op_invokeinterface:
+                translateInvoke(op, u2(bci + 1), bci);
+                return bci + 5;
+            case Opcode.op_new: {
+                Class target = clazz.getConstantPoolCache().resolveClass(u2(bci + 1));
+                if (target == null) {
+                    throw new BailoutException("new java/lang/Object");
+                }
+                out.emitConstant(target);
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "newObject", "(Ljava/lang/Object;Lcn/sheratan/jvm/Frame;)Ljava/lang/Object;");
+                return bci + 3;
+            }
+            case Opcode.op_newarray:
+                out.emitInt(u1(bci + 1));
+                out.emit(Opcode.op_swap);
+                out.emitInvokeStatic(HostCode.LARRAY, "ofAtype", "(II)Lcn/sheratan/jvm/LArray;");
+                return bci + 2;
+            case Opcode.op_anewarray: {
+                String name = clazz.getConstantPoolCache().getClassName(u2(bci + 1));
+                String descriptor = "[" + (name.charAt(0) == '[' ? name : "L" + name + ";");
+                //count -> new LArray(descriptor, count)
+                out.emit(Opcode.op_new);
+                out.emitU2(cw.classRef(HostCode.LARRAY));
+                out.emit(Opcode.op_dup_x1);
+                out.emit(Opcode.op_swap);
+                out.emitConstant(descriptor);
+                out.emitCheckcast("java/lang/String");
+                out.emit(Opcode.op_swap);
+                out.emitInvokeSpecial(HostCode.LARRAY, "<init>", "(Ljava/lang/String;I)V");
+                return bci + 3;
+            }
+            case Opcode.op_monitorenter:
+            case Opcode.op_monitorexit:
+                out.emitInvokeStatic(HostCode.RUNTIME, "monitor", "(Ljava/lang/Object;)V");
+                return bci + 1;
+            case Opcode.op_arraylength:
+                out.emitCheckcast(HostCode.LARRAY);
+                out.emitInvokeVirtual(HostCode.LARRAY, "getLength", "()I");
+                return bci + 1;
+            case Opcode.op_athrow:
+                out.emitInvokeStatic(HostCode.RUNTIME, "athrow", "(Ljava/lang/Object;)Ljava/lang/RuntimeException;");
+                out.emit(Opcode.op_athrow);
+                return bci + 1;
+            case Opcode.op_checkcast:
+                out.emit(Opcode.op_dup);
+                out.emitConstant(TypeCheck.resolve(clazz, u2(bci + 1)));
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "checkcast", "(Ljava/lang/Object;Ljava/lang/Object;Lcn/sheratan/jvm/Frame;)V");
+                return bci + 3;
+            case Opcode.op_instanceof:
+                out.emitConstant(TypeCheck.resolve(clazz, u2(bci + 1)));
+                out.emitInvokeStatic(HostCode.RUNTIME, "instanceOf", "(Ljava/lang/Object;Ljava/lang/Object;)I");
+                return bci + 3;
+            case Opcode.op_wide:
+                return translateWide(bci);
+            default:
+                throw new BailoutException("opcode " + op);
+        }
+    }
+
+    private int translateWide(int bci) throws BailoutException {
+        int op = code[bci + 1] & 0xFF;
+        int idx = localBase + u2(bci + 2);
+        if (op == Opcode.op_iinc) {
+            out.emitIinc(idx, s2(bci + 4));
+            return bci + 6;
+        } else if (op >= Opcode.op_iload && op <= Opcode.op_aload) {
+            out.emitLoad(HostCode.KINDS.charAt(op - Opcode.op_iload), idx);
+        } else if (op >= Opcode.op_istore && op <= Opcode.op_astore) {
+            out.emitStore(HostCode.KINDS.charAt(op - Opcode.op_istore), idx);
+        } else {
+            throw new BailoutException("wide opcode " + op);
+        }
+        return bci + 4;
+    }
+
+    private int translateTableSwitch(int bci) {
+        int p = (bci + 4) & ~3;
+        int low = s4(p + 4);
+        int high = s4(p + 8);
+        int start = out.emitSwitchHeader(Opcode.op_tableswitch);
+        emitSwitchTarget(start, bci + s4(p));
+        out.emitS4(low);
+        out.emitS4(high);
+        for (int i = 0; i <= high - low; i++) {
+            emitSwitchTarget(start, bci + s4(p + 12 + i * 4));
+        }
+        return p + 12 + (high - low + 1) * 4;
+    }
+
+    private int translateLookupSwitch(int bci) {
+        int p = (bci + 4) & ~3;
+        int npairs = s4(p + 4);
+        int start = out.emitSwitchHeader(Opcode.op_lookupswitch);
+        emitSwitchTarget(start, bci + s4(p));
+        out.emitS4(npairs);
+        for (int i = 0; i < npairs; i++) {
+            out.emitS4(s4(p + 8 + i * 8));
+            emitSwitchTarget(start, bci + s4(p + 12 + i * 8));
+        }
+        return p + 8 + npairs * 8;
+    }
+
+    private void emitSwitchTarget(int start, int target) {
+        fixups.add(new int[]{start, out.len, target, 4});
+        out.emitS4(0);
+    }
+
+    /**
+     * @Description: 方法调用：参数先暂存到临时变量，被编译方法（非内联方法）中的调用尝试内联被调用方法，否则依次压入frame的操作数栈，
+     * 经JitRuntime调用后从frame取回返回值。java/lang/Object的构造方法没有实际操作，只弹出this
+     */
+    private void translateInvoke(int op, int idx, int bci) throws BailoutException {
+        Class.Symbol symbol = clazz.getConstantPoolCache().resolveMethod(idx);
+        String descriptor = methodDescriptor(clazz, idx);
+        if (isObjectInit(op, symbol, descriptor)) {
+            out.emit(Opcode.op_pop);
+            return;
+        }
+        List<Character> kinds = new ArrayList<>();
+        if (op != Opcode.op_invokestatic) {
+            kinds.add('A');
+        }
+        parseArgs(descriptor, kinds);
+        int[] offsets = new int[kinds.size()];
+        int slots = 0;
+        for (int i = 0; i < kinds.size(); i++) {
+            offsets[i] = slots;
+            slots += HostCode.size(kinds.get(i));
+        }
+        root.tempSlots = Math.max(root.tempSlots, slots);
+        for (int i = kinds.size() - 1; i >= 0; i--) {
+            out.emitStore(kinds.get(i), temp(offsets[i]));
+        }
+        if (root == this && inline(op, bci, symbol, descriptor, kinds, offsets)) {
+            return;
+        }
+        emitCall(op, bci, symbol, descriptor, kinds, offsets);
+    }
+
+    /**
+     * @Description: 将暂存在临时变量中的参数压入frame的操作数栈，调用方法并取回返回值
+     */
+    private void emitCall(int op, int bci, Class.Symbol symbol, String descriptor, List<Character> kinds, int[] offsets) {
+        for (int i = 0; i < kinds.size(); i++) {
+            char kind = kinds.get(i);
+            out.emitLoad('A', HostCode.FRAME_LOCAL);
+            out.emitLoad(kind, temp(offsets[i]));
+            out.emitFrameCall("push", kind, "(" + HostCode.hostType(kind) + ")V");
+        }
+        out.emitLoad('A', HostCode.FRAME_LOCAL);
+        out.emitConstant(symbol);
+        if (op == Opcode.op_invokestatic || op == Opcode.op_invokespecial) {
+            out.emitInvokeStatic(HostCode.RUNTIME, op == Opcode.op_invokestatic ? "invokestatic" : "invokespecial",
+                    "(Lcn/sheratan/jvm/Frame;Ljava/lang/Object;)V");
+        } else {
+            InlineCache cache = MethodProfile.receiverProfile(method, op, bci);
+            if (cache == null) {
+                out.emit(Opcode.op_aconst_null);
+            } else {
+                out.emitConstant(cache);
+            }
+            out.emitInvokeStatic(HostCode.RUNTIME, "invokevirtual", "(Lcn/sheratan/jvm/Frame;Ljava/lang/Object;Ljava/lang/Object;)V");
+        }
+        char ret = descriptor.charAt(descriptor.indexOf(')') + 1);
+        if (ret != 'V') {
+            char kind = fieldKind(String.valueOf(ret));
+            out.emitLoad('A', HostCode.FRAME_LOCAL);
+            out.emitFrameCall("pop", kind, "()" + HostCode.hostType(kind));
+        }
+    }
+
+    /**
+     * @Description: 内联被调用方法：参数从临时变量复制到内联方法的局部变量后翻译其代码。静态方法（所属类已初始化）与invokespecial直接内联，
+     * 虚方法只在调用点的内联缓存为单态时内联其记录的目标方法，并以接收者类型比较作为守卫，不符合时执行普通调用。
+     * 被调用方法不满足内联条件或翻译失败时撤销已生成的代码
+     * @return: boolean 是否已内联
+     */
+    private boolean inline(int op, int bci, Class.Symbol symbol, String descriptor, List<Character> kinds, int[] offsets) throws BailoutException {
+        Method target;
+        Class guard = null;
+        if (op == Opcode.op_invokestatic) {
+            target = symbol.clazz.isStaticInited() ? symbol.method : null;
+        } else if (op == Opcode.op_invokespecial) {
+            target = symbol.method;
+        } else {
+            InlineCache cache = MethodProfile.receiverProfile(method, op, bci);
+            if (cache == null || cache.isMegamorphic() || cache.getSize() != 1) {
+                return false;
+            }
+            guard = cache.getReceiver(0);
+            target = cache.getTarget(0);
+        }
+        if (!isInlineable(method, target)) {
+            return false;
+        }
+        int start = out.len;
+        int fixupCount = fixups.size();
+        try {
+            int slowPath = -1;
+            if (guard != null) {
+                out.emitLoad('A', temp(offsets[0]));
+                out.emitInvokeStatic(HostCode.RUNTIME, "receiverClass", "(Ljava/lang/Object;)Ljava/lang/Object;");
+                out.emitConstant(guard);
+                slowPath = out.len;
+                out.emit(Opcode.op_if_acmpne);
+                out.emitU2(0);
+            }
+            int calleeBase = LOCAL_BASE + maxLocals;
+            for (int i = 0; i < kinds.size(); i++) {
+                out.emitLoad(kinds.get(i), temp(offsets[i]));
+                out.emitStore(kinds.get(i), calleeBase + offsets[i]);
+            }
+            MethodTranslator callee = new MethodTranslator(this, target, calleeBase);
+            callee.translateBody();
+            callee.patchBranches();
+            inlineStack = Math.max(inlineStack, callee.maxStack);
+            if (guard != null) {
+                int join = out.len;
+                out.emit(Opcode.op_goto);
+                out.emitU2(0);
+                out.patchForward(slowPath);
+                emitCall(op, bci, symbol, descriptor, kinds, offsets);
+                out.patchForward(join);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            out.len = start;
+            fixups.subList(fixupCount, fixups.size()).clear();
+            return false;
+        }
+    }
+
+    /**
+     * @Description: 判断方法能否内联：字节码较短、没有异常表，且除java/lang/Object的构造方法外不调用其他方法
+     * @Param caller 被编译的方法
+     * @Param target 被调用方法
+     */
+    static boolean isInlineable(Method caller, Method target) {
+        if (target == null || target == caller || target.isNative() || target.isAbstract()) {
+            return false;
+        }
+        AttributeCode callee = target.getCodeAttribute();
+        if (callee == null) {
+            return false;
+        }
+        byte[] c = callee.getCode();
+        if (c.length > MAX_INLINE_BYTES || callee.getMaxLocals() > MAX_INLINE_LOCALS || callee.getExceptionTableLength() > 0) {
+            return false;
+        }
+        for (int bci = 0; bci < c.length; bci += Bytecodes.length(c, bci)) {
+            int op = c[bci] & 0xFF;
+            switch (op) {
+                case Opcode.op_invokespecial: {
+                    Class owner = target.getmClass();
+                    int idx = Bytecodes.u2(c, bci + 1);
+                    if (!isObjectInit(op, owner.getConstantPoolCache().resolveMethod(idx), methodDescriptor(owner, idx))) {
+                        return false;
+                    }
+                    break;
+                }
+                case Opcode.op_invokevirtual:
+                case Opcode.op_invokestatic:
+                case Opcode.op_invokeinterface:
+                case Opcode.op_invokedynamic:
+                case Opcode.op_jsr:
+                case Opcode.op_jsr_w:
+                case Opcode.op_ret:
+                case Opcode.op_monitorenter:
+                case Opcode.op_monitorexit:
+                case Opcode.op_multianewarray:
+                    return false;
+                default:
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @Description: java/lang/Object的构造方法
+     */
+    static boolean isObjectInit(int op, Class.Symbol symbol, String descriptor) {
+        return op == Opcode.op_invokespecial && symbol.method == null && symbol.objectVtableIndex < 0 && "()V".equals(descriptor);
+    }
+
+    private void emitPutField(char kind, int offset) {
+        int temp = temp(0);
+        out.emitStore(kind, temp);
+        out.emitFieldSlot(kind, offset);
+        out.emitLoad(kind, temp);
+        out.emitFieldStore(kind);
+    }
+
+    private void emitLdc(int idx) throws BailoutException {
+        AbstractCPInfo info = clazz.getClassFile().getConstantPool()[idx];
+        int hostIdx;
+        switch (info.getTag()) {
+            case AbstractCPInfo.CONSTANT_Integer:
+                hostIdx = cw.intConstant(((ConstantIntegerInfo) info).getValue());
+                break;
+            case AbstractCPInfo.CONSTANT_Float:
+                hostIdx = cw.floatConstant(((ConstantFloatInfo) info).getValue());
+                break;
+            case AbstractCPInfo.CONSTANT_Long:
+                out.emit(Opcode.op_ldc2_w);
+                out.emitU2(cw.longConstant(((ConstantLongInfo) info).getValue()));
+                return;
+            case AbstractCPInfo.CONSTANT_Double:
+                out.emit(Opcode.op_ldc2_w);
+                out.emitU2(cw.doubleConstant(((ConstantDoubleInfo) info).getValue()));
+                return;
+            case AbstractCPInfo.CONSTANT_String:
+                //字符串常量须为虚拟机字符串表中驻留的对象
+                out.emitConstant(clazz.getConstantPoolCache().resolveString(idx));
+                return;
+            default:
+                throw new BailoutException("ldc tag " + info.getTag());
+        }
+        if (hostIdx < 256) {
+            out.emit(Opcode.op_ldc, hostIdx);
+        } else {
+            out.emit(Opcode.op_ldc_w);
+            out.emitU2(hostIdx);
+        }
+    }
+
+    static String methodDescriptor(Class clazz, int idx) {
+        AbstractCPInfo info = clazz.getClassFile().getConstantPool()[idx];
+        int nameAndType = info.getTag() == AbstractCPInfo.CONSTANT_Methodref
+                ? ((ConstantMethodrefInfo) info).getNameAndTypeIndex()
+                : ((ConstantInterfaceMethodrefInfo) info).getNameAndTypeIndex();
+        ConstantNameAndTypeInfo nt = (ConstantNameAndTypeInfo) clazz.getClassFile().getConstantPool()[nameAndType];
+        return clazz.getStringFromConstantPool(nt.getDescriptorIndex());
+    }
+
+    /**
+     * @Description: 解析方法描述符中各参数的种类
+     */
+    static void parseArgs(String descriptor, List<Character> kinds) {
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            kinds.add(fieldKind(String.valueOf(c)));
+            while (c == '[') {
+                c = descriptor.charAt(++i);
+            }
+            if (c == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            i++;
+        }
+    }
+
+    /**
+     * @Description: 字段描述符对应的值种类，boolean、byte、char、short均按int处理
+     */
+    static char fieldKind(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'J':
+                return 'J';
+            case 'F':
+                return 'F';
+            case 'D':
+                return 'D';
+            case 'L':
+            case '[':
+                return 'A';
+            default:
+                return 'I';
+        }
+    }
+
+    /**
+     * @Description: 临时变量，位于被编译方法的局部变量及内联方法的局部变量之后
+     */
+    private int temp(int offset) {
+        return LOCAL_BASE + root.maxLocals + MAX_INLINE_LOCALS + offset;
+    }
+
+    /**
+     * @Description: 异常分派使用的宿主局部变量：宿主异常及转换得到的虚拟机异常对象，位于临时变量之后
+     */
+    private int exceptionLocal() {
+        return temp(root.tempSlots);
+    }
+
+    private void emitBranch(int op, int target) {
+        fixups.add(new int[]{out.len, out.len + 1, target, 2});
+        out.emit(op);
+        out.emitU2(0);
+    }
+
+    private void patchBranches() throws BailoutException {
+        for (int[] f : fixups) {
+            int target = f[2] >= 0 && f[2] < hostPC.length ? hostPC[f[2]] : -1;
+            if (target < 0) {
+                throw new IllegalStateException("bad branch target " + f[2]);
+            }
+            out.patch(f[0], f[1], target, f[3]);
+        }
+    }
+
+    private int u1(int p) {
+        return code[p] & 0xFF;
+    }
+
+    private int u2(int p) {
+        return (code[p] & 0xFF) << 8 | (code[p + 1] & 0xFF);
+    }
+
+    private int s2(int p) {
+        return (short) u2(p);
+    }
+
+    private int s4(int p) {
+        return code[p] << 24 | (code[p + 1] & 0xFF) << 16 | (code[p + 2] & 0xFF) << 8 | (code[p + 3] & 0xFF);
+    }
+}
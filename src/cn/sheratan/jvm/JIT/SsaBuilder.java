@@ -0,0 +1,843 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.ConstantPoolCache;
+import cn.sheratan.jvm.Field;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Instruction.InlineCache;
+import cn.sheratan.jvm.Instruction.TypeCheck;
+import cn.sheratan.jvm.JIT.SsaGraph.Block;
+import cn.sheratan.jvm.JIT.SsaGraph.Node;
+import org.freeinternals.format.classfile.AbstractCPInfo;
+import org.freeinternals.format.classfile.AttributeCode;
+import org.freeinternals.format.classfile.ConstantDoubleInfo;
+import org.freeinternals.format.classfile.ConstantFloatInfo;
+import org.freeinternals.format.classfile.ConstantIntegerInfo;
+import org.freeinternals.format.classfile.ConstantLongInfo;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * @Description: 将方法的字节码构建为SSA中间表示（见SsaGraph）。方法先划分基本块，再从入口及异常处理器开始逐块构建：
+ * 块内以节点模拟操作数栈，load、store、dup、swap、pop等栈操作只改变模拟栈中的节点引用，不生成节点；
+ * 局部变量的读写生成变量读写节点，块结束时模拟栈中剩余的值写入栈变量，后继块从栈变量读取，均由局部变量提升转换为SSA值。
+ * 与第2层的逐条翻译相同，静态方法、invokespecial及内联缓存为单态的虚方法调用中的小方法直接构建到图中：
+ * 参数写入内联方法的局部变量，内联方法的返回跳转到调用之后的块，返回值经变量合并；虚方法以接收者类型守卫，不符合时执行普通调用。
+ * jsr/ret、invokedynamic及加载类常量的ldc指令不支持，抛出BailoutException
+ * @Author aries
+ * @Data 2026-10-18 10:28
+ */
+final class SsaBuilder {
+    private static final String KINDS = HostCode.KINDS;
+
+    /**
+     * @Description: xaload指令族各指令结果的种类
+     */
+    private static final String ARRAY_KINDS = "IJFDAIII";
+
+    /**
+     * @Description: 类型转换指令（i2l ~ i2s）操作数及结果的种类
+     */
+    private static final String CONVERSION_SOURCES = "IIIJJJFFFDDDIII";
+    private static final String CONVERSION_RESULTS = "JFDIFDIJDIJFIII";
+
+    private final Method method;
+
+    /**
+     * @Description: 栈上替换入口的指令下标，普通编译为-1
+     */
+    private final int osrBci;
+
+    private final SsaGraph graph;
+
+    /**
+     * @Description: 正在构建的方法（被编译方法或内联方法）、当前块（块已结束时为null）及模拟操作数栈
+     */
+    private Scope scope;
+    private Block cur;
+    private List<Node> stack = new ArrayList<>();
+
+    SsaBuilder(Method method, int osrBci) throws BailoutException {
+        AttributeCode attr = method.getCodeAttribute();
+        if (attr == null) {
+            throw new BailoutException("no code");
+        }
+        this.method = method;
+        this.osrBci = osrBci;
+        this.graph = new SsaGraph(method, attr.getMaxLocals(), attr.getExceptionTableLength() > 0);
+    }
+
+    /**
+     * @Description: 构建方法的中间表示
+     */
+    SsaGraph build() throws BailoutException {
+        Scope root = new Scope(method, null, -1, Collections.emptyList());
+        scope = root;
+        graph.entry = graph.newBlock(-1, Collections.emptyList());
+        cur = graph.entry;
+        if (osrBci < 0) {
+            loadArguments();
+        } else {
+            loadOsrLocals();
+        }
+        int start = Math.max(osrBci, 0);
+        int b = start < root.code.length ? root.blockOf[start] : -1;
+        if (b < 0) {
+            throw new BailoutException("no block at " + start, true);
+        }
+        cur.add(graph.newNode(Opcode.op_goto, 'V'));
+        SsaGraph.addEdge(cur, root.enter(b, ""));
+        for (int i = 0; i < root.attr.getExceptionTableLength(); i++) {
+            int handlerPc = root.attr.getExceptionTable(i).getHandlerPc();
+            Block handler = root.enter(root.blockOf[handlerPc], "A");
+            handler.handler = true;
+            graph.handlers.put(handlerPc, handler);
+        }
+        parse();
+        return graph;
+    }
+
+    private void loadArguments() {
+        List<Character> kinds = new ArrayList<>();
+        if (!method.isStatic()) {
+            kinds.add('A');
+        }
+        MethodTranslator.parseArgs(method.getDescriptor(), kinds);
+        int slot = 0;
+        for (char kind : kinds) {
+            loadFromFrame(kind, slot);
+            slot += HostCode.size(kind);
+        }
+    }
+
+    /**
+     * @Description: 栈上替换入口：读入循环头处存有值的局部变量
+     */
+    private void loadOsrLocals() throws BailoutException {
+        char[] kinds = LocalKinds.at(method, osrBci);
+        if (kinds == null) {
+            throw new BailoutException("unreachable osr entry " + osrBci, true);
+        }
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] != LocalKinds.UNUSABLE) {
+                loadFromFrame(kinds[i], i);
+            }
+        }
+    }
+
+    private void loadFromFrame(char kind, int slot) {
+        Node param = add(SsaGraph.PARAM, kind);
+        param.aux = slot;
+        store(slot, param);
+    }
+
+    /**
+     * @Description: 构建当前方法中所有可达的块
+     */
+    private void parse() throws BailoutException {
+        while (!scope.work.isEmpty()) {
+            parseBlock(scope.work.pop());
+        }
+    }
+
+    private void parseBlock(int b) throws BailoutException {
+        Scope s = scope;
+        cur = s.blocks[b];
+        stack.clear();
+        if (cur.handler) {
+            push(add(SsaGraph.CAUGHT, 'A'));
+        } else {
+            String state = s.entryStates[b];
+            for (int i = 0; i < state.length(); i++) {
+                push(load(state.charAt(i), s.stackVar(i)));
+            }
+        }
+        int bci = s.leaders[b];
+        int end = b + 1 < s.leaders.length ? s.leaders[b + 1] : s.code.length;
+        while (cur != null) {
+            if (bci >= end) {
+                jump(end);
+                break;
+            }
+            int next = bci + Bytecodes.length(s.code, bci);
+            translate(bci, next);
+            bci = next;
+        }
+    }
+
+    /**
+     * @Description: 构建一条指令，指令结束基本块时将cur置为null
+     * @Param bci 指令下标
+     * @Param next 下一条指令的下标
+     */
+    private void translate(int bci, int next) throws BailoutException {
+        byte[] code = scope.code;
+        int op = code[bci] & 0xFF;
+        if (op >= Opcode.op_iconst_m1 && op <= Opcode.op_iconst_5) {
+            push(graph.constant('I', op - Opcode.op_iconst_0));
+            return;
+        }
+        if (op >= Opcode.op_iload_0 && op <= Opcode.op_aload_3) {
+            push(load(KINDS.charAt((op - Opcode.op_iload_0) / 4), scope.local((op - Opcode.op_iload_0) % 4)));
+            return;
+        }
+        if (op >= Opcode.op_istore_0 && op <= Opcode.op_astore_3) {
+            store(scope.local((op - Opcode.op_istore_0) % 4), pop(KINDS.charAt((op - Opcode.op_istore_0) / 4)));
+            return;
+        }
+        if (op >= Opcode.op_iaload && op <= Opcode.op_saload) {
+            Node index = pop('I');
+            Node array = pop('A');
+            push(add(op, ARRAY_KINDS.charAt(op - Opcode.op_iaload), array, index));
+            return;
+        }
+        if (op >= Opcode.op_iastore && op <= Opcode.op_sastore) {
+            Node value = pop(ARRAY_KINDS.charAt(op - Opcode.op_iastore));
+            Node index = pop('I');
+            Node array = pop('A');
+            add(op, 'V', array, index, value);
+            return;
+        }
+        if (op >= Opcode.op_pop && op <= Opcode.op_swap) {
+            shuffle(op);
+            return;
+        }
+        if (op >= Opcode.op_iadd && op <= Opcode.op_lxor) {
+            arithmetic(op);
+            return;
+        }
+        if (op >= Opcode.op_i2l && op <= Opcode.op_i2s) {
+            Node a = pop(CONVERSION_SOURCES.charAt(op - Opcode.op_i2l));
+            push(add(op, CONVERSION_RESULTS.charAt(op - Opcode.op_i2l), a));
+            return;
+        }
+        if (op >= Opcode.op_lcmp && op <= Opcode.op_dcmpg) {
+            char kind = op == Opcode.op_lcmp ? 'J' : op <= Opcode.op_fcmpg ? 'F' : 'D';
+            Node b = pop(kind);
+            Node a = pop(kind);
+            push(add(op, 'I', a, b));
+            return;
+        }
+        if ((op >= Opcode.op_ifeq && op <= Opcode.op_if_acmpne) || op == Opcode.op_ifnull || op == Opcode.op_ifnonnull) {
+            branch(op, bci + Bytecodes.s2(code, bci + 1), next);
+            return;
+        }
+        switch (op) {
+            case Opcode.op_nop:
+                return;
+            case Opcode.op_aconst_null:
+                push(graph.constant('A', null));
+                return;
+            case Opcode.op_lconst_0:
+            case Opcode.op_lconst_1:
+                push(graph.constant('J', (long) (op - Opcode.op_lconst_0)));
+                return;
+            case Opcode.op_fconst_0:
+            case Opcode.op_fconst_1:
+            case Opcode.op_fconst_2:
+                push(graph.constant('F', (float) (op - Opcode.op_fconst_0)));
+                return;
+            case Opcode.op_dconst_0:
+            case Opcode.op_dconst_1:
+                push(graph.constant('D', (double) (op - Opcode.op_dconst_0)));
+                return;
+            case Opcode.op_bipush:
+                push(graph.constant('I', (int) code[bci + 1]));
+                return;
+            case Opcode.op_sipush:
+                push(graph.constant('I', Bytecodes.s2(code, bci + 1)));
+                return;
+            case Opcode.op_ldc:
+                ldc(code[bci + 1] & 0xFF);
+                return;
+            case Opcode.op_ldc_w:
+            case Opcode.op_ldc2_w:
+                ldc(Bytecodes.u2(code, bci + 1));
+                return;
+            case Opcode.op_iload:
+            case Opcode.op_lload:
+            case Opcode.op_fload:
+            case Opcode.op_dload:
+            case Opcode.op_aload:
+                push(load(KINDS.charAt(op - Opcode.op_iload), scope.local(code[bci + 1] & 0xFF)));
+                return;
+            case Opcode.op_istore:
+            case Opcode.op_lstore:
+            case Opcode.op_fstore:
+            case Opcode.op_dstore:
+            case Opcode.op_astore:
+                store(scope.local(code[bci + 1] & 0xFF), pop(KINDS.charAt(op - Opcode.op_istore)));
+                return;
+            case Opcode.op_iinc:
+                iinc(code[bci + 1] & 0xFF, code[bci + 2]);
+                return;
+            case Opcode.op_wide:
+                wide(bci);
+                return;
+            case Opcode.op_goto:
+                jump(bci + Bytecodes.s2(code, bci + 1));
+                return;
+            case Opcode.op_goto_w:
+                jump(bci + Bytecodes.s4(code, bci + 1));
+                return;
+            case Opcode.op_tableswitch:
+                tableSwitch(bci);
+                return;
+            case Opcode.op_lookupswitch:
+                lookupSwitch(bci);
+                return;
+            case Opcode.op_ireturn:
+            case Opcode.op_lreturn:
+            case Opcode.op_freturn:
+            case Opcode.op_dreturn:
+            case Opcode.op_areturn:
+                returnValue(op, KINDS.charAt(op - Opcode.op_ireturn));
+                return;
+            case Opcode.op_return:
+                returnValue(op, 'V');
+                return;
+            case Opcode.op_athrow:
+                add(op, 'V', pop('A'));
+                cur = null;
+                return;
+            case Opcode.op_getstatic: {
+                Field field = scope.cpCache.resolveField(Bytecodes.u2(code, bci + 1));
+                push(add(op, MethodTranslator.fieldKind(field.getDescriptor()), field));
+                return;
+            }
+            case Opcode.op_putstatic: {
+                Field field = scope.cpCache.resolveField(Bytecodes.u2(code, bci + 1));
+                add(op, 'V', field, pop(MethodTranslator.fieldKind(field.getDescriptor())));
+                return;
+            }
+            case Opcode.op_getfield: {
+                Field field = scope.cpCache.resolveField(Bytecodes.u2(code, bci + 1));
+                push(add(op, MethodTranslator.fieldKind(field.getDescriptor()), field, pop('A')));
+                return;
+            }
+            case Opcode.op_putfield: {
+                Field field = scope.cpCache.resolveField(Bytecodes.u2(code, bci + 1));
+                Node value = pop(MethodTranslator.fieldKind(field.getDescriptor()));
+                add(op, 'V', field, pop('A'), value);
+                return;
+            }
+            case Opcode.op_invokevirtual:
+            case Opcode.op_invokespecial:
+            case Opcode.op_invokestatic:
+            case Opcode.op_invokeinterface:
+                invoke(op, Bytecodes.u2(code, bci + 1), bci);
+                return;
+            case Opcode.op_new: {
+                Class target = scope.cpCache.resolveClass(Bytecodes.u2(code, bci + 1));
+                if (target == null) {
+                    throw new BailoutException("new java/lang/Object");
+                }
+                push(add(op, 'A', target));
+                return;
+            }
+            case Opcode.op_newarray: {
+                Node n = add(op, 'A', pop('I'));
+                n.aux = code[bci + 1] & 0xFF;
+                push(n);
+                return;
+            }
+            case Opcode.op_anewarray: {
+                String name = scope.cpCache.getClassName(Bytecodes.u2(code, bci + 1));
+                String descriptor = "[" + (name.charAt(0) == '[' ? name : "L" + name + ";");
+                push(add(op, 'A', descriptor, pop('I')));
+                return;
+            }
+            case Opcode.op_multianewarray: {
+                String descriptor = scope.cpCache.getClassName(Bytecodes.u2(code, bci + 1));
+                Node[] counts = new Node[code[bci + 3] & 0xFF];
+                for (int i = counts.length - 1; i >= 0; i--) {
+                    counts[i] = pop('I');
+                }
+                push(add(op, 'A', descriptor, counts));
+                return;
+            }
+            case Opcode.op_monitorenter:
+            case Opcode.op_monitorexit:
+                add(op, 'V', pop('A'));
+                return;
+            case Opcode.op_arraylength:
+                push(add(op, 'I', pop('A')));
+                return;
+            case Opcode.op_checkcast:
+                push(add(op, 'A', TypeCheck.resolve(scope.clazz, Bytecodes.u2(code, bci + 1)), pop('A')));
+                return;
+            case Opcode.op_instanceof:
+                push(add(op, 'I', TypeCheck.resolve(scope.clazz, Bytecodes.u2(code, bci + 1)), pop('A')));
+                return;
+            default:
+                throw new BailoutException("opcode " + op);
+        }
+    }
+
+    private void wide(int bci) throws BailoutException {
+        byte[] code = scope.code;
+        int op = code[bci + 1] & 0xFF;
+        int idx = Bytecodes.u2(code, bci + 2);
+        if (op == Opcode.op_iinc) {
+            iinc(idx, Bytecodes.s2(code, bci + 4));
+        } else if (op >= Opcode.op_iload && op <= Opcode.op_aload) {
+            push(load(KINDS.charAt(op - Opcode.op_iload), scope.local(idx)));
+        } else if (op >= Opcode.op_istore && op <= Opcode.op_astore) {
+            store(scope.local(idx), pop(KINDS.charAt(op - Opcode.op_istore)));
+        } else {
+            throw new BailoutException("wide opcode " + op);
+        }
+    }
+
+    private void iinc(int idx, int k) {
+        int var = scope.local(idx);
+        store(var, add(Opcode.op_iadd, 'I', load('I', var), graph.constant('I', k)));
+    }
+
+    private void ldc(int idx) throws BailoutException {
+        AbstractCPInfo info = scope.clazz.getClassFile().getConstantPool()[idx];
+        switch (info.getTag()) {
+            case AbstractCPInfo.CONSTANT_Integer:
+                push(graph.constant('I', ((ConstantIntegerInfo) info).getValue()));
+                return;
+            case AbstractCPInfo.CONSTANT_Float:
+                push(graph.constant('F', ((ConstantFloatInfo) info).getValue()));
+                return;
+            case AbstractCPInfo.CONSTANT_Long:
+                push(graph.constant('J', ((ConstantLongInfo) info).getValue()));
+                return;
+            case AbstractCPInfo.CONSTANT_Double:
+                push(graph.constant('D', ((ConstantDoubleInfo) info).getValue()));
+                return;
+            case AbstractCPInfo.CONSTANT_String:
+                //字符串常量须为虚拟机字符串表中驻留的对象
+                push(graph.constant('A', scope.cpCache.resolveString(idx)));
+                return;
+            default:
+                throw new BailoutException("ldc tag " + info.getTag());
+        }
+    }
+
+    /**
+     * @Description: 算术与位运算：加、减、乘、除、取余及取负按int、long、float、double排列，移位的右操作数为int
+     */
+    private void arithmetic(int op) {
+        if (op >= Opcode.op_ineg && op <= Opcode.op_dneg) {
+            char kind = KINDS.charAt(op - Opcode.op_ineg);
+            push(add(op, kind, pop(kind)));
+            return;
+        }
+        char kind;
+        char right;
+        if (op < Opcode.op_ineg) {
+            kind = KINDS.charAt((op - Opcode.op_iadd) % 4);
+            right = kind;
+        } else if (op <= Opcode.op_lushr) {
+            kind = (op - Opcode.op_ishl) % 2 == 0 ? 'I' : 'J';
+            right = 'I';
+        } else {
+            kind = (op - Opcode.op_iand) % 2 == 0 ? 'I' : 'J';
+            right = kind;
+        }
+        Node b = pop(right);
+        Node a = pop(kind);
+        push(add(op, kind, a, b));
+    }
+
+    /**
+     * @Description: 栈操作：按slot展开模拟栈（long、double的高位slot为null）后移动节点引用，不生成节点
+     */
+    private void shuffle(int op) {
+        List<Node> slots = new ArrayList<>();
+        for (Node n : stack) {
+            slots.add(n);
+            if (HostCode.size(n.kind) == 2) {
+                slots.add(null);
+            }
+        }
+        int t = slots.size();
+        switch (op) {
+            case Opcode.op_pop:
+                slots.remove(t - 1);
+                break;
+            case Opcode.op_pop2:
+                slots.subList(t - 2, t).clear();
+                break;
+            case Opcode.op_dup:
+                dupSlots(slots, 1, 0);
+                break;
+            case Opcode.op_dup_x1:
+                dupSlots(slots, 1, 1);
+                break;
+            case Opcode.op_dup_x2:
+                dupSlots(slots, 1, 2);
+                break;
+            case Opcode.op_dup2:
+                dupSlots(slots, 2, 0);
+                break;
+            case Opcode.op_dup2_x1:
+                dupSlots(slots, 2, 1);
+                break;
+            case Opcode.op_dup2_x2:
+                dupSlots(slots, 2, 2);
+                break;
+            default:
+                Collections.swap(slots, t - 1, t - 2);
+        }
+        stack.clear();
+        for (int i = 0; i < slots.size(); i++) {
+            Node n = slots.get(i);
+            boolean wide = n != null && HostCode.size(n.kind) == 2;
+            if (n == null || (wide && (i + 1 == slots.size() || slots.get(i + 1) != null))) {
+                throw new IllegalStateException("split long or double on the operand stack");
+            }
+            stack.add(n);
+            if (wide) {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * @Description: 复制栈顶的copyAmount个slot，插入到其下方under个slot之下（同Frame.dupSlots）
+     */
+    private static void dupSlots(List<Node> slots, int copyAmount, int under) {
+        int t = slots.size();
+        slots.addAll(t - copyAmount - under, new ArrayList<>(slots.subList(t - copyAmount, t)));
+    }
+
+    private void branch(int op, int target, int next) throws BailoutException {
+        Node n;
+        if (op >= Opcode.op_if_icmpeq && op <= Opcode.op_if_acmpne) {
+            char kind = op >= Opcode.op_if_acmpeq ? 'A' : 'I';
+            Node b = pop(kind);
+            Node a = pop(kind);
+            n = graph.newNode(op, 'V', a, b);
+        } else {
+            n = graph.newNode(op, 'V', pop(op >= Opcode.op_ifnull ? 'A' : 'I'));
+        }
+        exit(n, target, next);
+    }
+
+    private void jump(int target) throws BailoutException {
+        exit(graph.newNode(Opcode.op_goto, 'V'), target);
+    }
+
+    private void tableSwitch(int bci) throws BailoutException {
+        byte[] code = scope.code;
+        int p = (bci + 4) & ~3;
+        int low = Bytecodes.s4(code, p + 4);
+        int high = Bytecodes.s4(code, p + 8);
+        int[] keys = new int[high - low + 1];
+        int[] targets = new int[keys.length + 1];
+        targets[0] = bci + Bytecodes.s4(code, p);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = low + i;
+            targets[i + 1] = bci + Bytecodes.s4(code, p + 12 + i * 4);
+        }
+        switchOn(keys, targets);
+    }
+
+    private void lookupSwitch(int bci) throws BailoutException {
+        byte[] code = scope.code;
+        int p = (bci + 4) & ~3;
+        int npairs = Bytecodes.s4(code, p + 4);
+        int[] keys = new int[npairs];
+        int[] targets = new int[npairs + 1];
+        targets[0] = bci + Bytecodes.s4(code, p);
+        for (int i = 0; i < npairs; i++) {
+            keys[i] = Bytecodes.s4(code, p + 8 + i * 8);
+            targets[i + 1] = bci + Bytecodes.s4(code, p + 12 + i * 8);
+        }
+        switchOn(keys, targets);
+    }
+
+    private void switchOn(int[] keys, int[] targets) throws BailoutException {
+        Node n = graph.newNode(SsaGraph.SWITCH, 'V', pop('I'));
+        n.constant = keys;
+        exit(n, targets);
+    }
+
+    /**
+     * @Description: 返回：被编译方法直接返回；内联方法将返回值写入调用点的结果变量后跳转到调用之后的块
+     */
+    private void returnValue(int op, char kind) {
+        Node v = kind == 'V' ? null : pop(kind);
+        if (scope.exit == null) {
+            add(op, 'V', v == null ? new Node[0] : new Node[]{v});
+        } else {
+            if (v != null) {
+                store(scope.resultVar, v);
+            }
+            Block from = cur;
+            add(Opcode.op_goto, 'V');
+            SsaGraph.addEdge(from, scope.exit);
+        }
+        cur = null;
+    }
+
+    /**
+     * @Description: 结束当前块：模拟栈中的值依次写入栈变量，之后为块出口
+     * @Param terminator 块出口
+     * @Param targets 各后继的指令下标
+     */
+    private void exit(Node terminator, int... targets) throws BailoutException {
+        StringBuilder state = new StringBuilder();
+        for (int i = 0; i < stack.size(); i++) {
+            Node v = stack.get(i);
+            store(scope.stackVar(i), v);
+            state.append(v.kind);
+        }
+        Block from = cur;
+        from.add(terminator);
+        for (int target : targets) {
+            SsaGraph.addEdge(from, successor(target, state.toString()));
+        }
+        cur = null;
+    }
+
+    private Block successor(int bci, String state) throws BailoutException {
+        int b = bci >= 0 && bci < scope.code.length ? scope.blockOf[bci] : -1;
+        if (b < 0) {
+            throw new IllegalStateException("bad branch target " + bci);
+        }
+        Block block = scope.enter(b, state);
+        if (block.handler) {
+            throw new BailoutException("branch to exception handler " + bci);
+        }
+        return block;
+    }
+
+    /**
+     * @Description: 方法调用。java/lang/Object的构造方法没有实际操作，只弹出this；被编译方法中的调用尝试内联被调用方法
+     */
+    private void invoke(int op, int idx, int bci) throws BailoutException {
+        Class.Symbol symbol = scope.cpCache.resolveMethod(idx);
+        String descriptor = MethodTranslator.methodDescriptor(scope.clazz, idx);
+        if (MethodTranslator.isObjectInit(op, symbol, descriptor)) {
+            pop('A');
+            return;
+        }
+        List<Character> kinds = new ArrayList<>();
+        if (op != Opcode.op_invokestatic) {
+            kinds.add('A');
+        }
+        MethodTranslator.parseArgs(descriptor, kinds);
+        Node[] args = new Node[kinds.size()];
+        for (int i = args.length - 1; i >= 0; i--) {
+            args[i] = pop(kinds.get(i));
+        }
+        char ret = descriptor.charAt(descriptor.indexOf(')') + 1);
+        char kind = ret == 'V' ? 'V' : MethodTranslator.fieldKind(String.valueOf(ret));
+        if (scope.exit == null && inline(op, bci, symbol, args, kind)) {
+            return;
+        }
+        Node call = call(op, bci, symbol, args, kind);
+        if (kind != 'V') {
+            push(call);
+        }
+    }
+
+    private Node call(int op, int bci, Class.Symbol symbol, Node[] args, char kind) {
+        Node call = add(op, kind, symbol, args);
+        call.aux = bci;
+        if (op == Opcode.op_invokevirtual || op == Opcode.op_invokeinterface) {
+            call.cache = MethodProfile.receiverProfile(scope.method, op, bci);
+        }
+        return call;
+    }
+
+    /**
+     * @Description: 内联被调用方法，选择目标方法的条件同MethodTranslator：静态方法（所属类已初始化）与invokespecial直接内联，
+     * 虚方法只在调用点的内联缓存为单态时内联其记录的目标方法，以接收者类型为守卫
+     * @return: boolean 是否已内联
+     */
+    private boolean inline(int op, int bci, Class.Symbol symbol, Node[] args, char kind) throws BailoutException {
+        Method target;
+        Class guard = null;
+        if (op == Opcode.op_invokestatic) {
+            target = symbol.clazz.isStaticInited() ? symbol.method : null;
+        } else if (op == Opcode.op_invokespecial) {
+            target = symbol.method;
+        } else {
+            InlineCache cache = MethodProfile.receiverProfile(method, op, bci);
+            if (cache == null || cache.isMegamorphic() || cache.getSize() != 1) {
+                return false;
+            }
+            guard = cache.getReceiver(0);
+            target = cache.getTarget(0);
+        }
+        if (!MethodTranslator.isInlineable(method, target)) {
+            return false;
+        }
+        List<Integer> covering = cur.covering;
+        Block cont = graph.newBlock(-1, covering);
+        int resultVar = kind == 'V' ? -1 : graph.varCount++;
+        if (guard != null) {
+            Block inlined = graph.newBlock(-1, covering);
+            Block slow = graph.newBlock(-1, covering);
+            Block from = cur;
+            add(SsaGraph.GUARD, 'V', guard, args[0]);
+            SsaGraph.addEdge(from, inlined);
+            SsaGraph.addEdge(from, slow);
+            cur = slow;
+            Node call = call(op, bci, symbol, args, kind);
+            if (kind != 'V') {
+                store(resultVar, call);
+            }
+            add(Opcode.op_goto, 'V');
+            SsaGraph.addEdge(slow, cont);
+            cur = inlined;
+        }
+        Scope callee = new Scope(target, cont, resultVar, covering);
+        int slot = 0;
+        for (Node arg : args) {
+            store(callee.local(slot), arg);
+            slot += HostCode.size(arg.kind);
+        }
+        Block from = cur;
+        add(Opcode.op_goto, 'V');
+        SsaGraph.addEdge(from, callee.enter(0, ""));
+        Scope caller = scope;
+        List<Node> callerStack = stack;
+        scope = callee;
+        stack = new ArrayList<>();
+        parse();
+        scope = caller;
+        stack = callerStack;
+        cur = cont;
+        if (kind != 'V') {
+            push(load(kind, resultVar));
+        }
+        return true;
+    }
+
+    private Node add(int op, char kind, Node... in) {
+        return cur.add(graph.newNode(op, kind, in));
+    }
+
+    private Node add(int op, char kind, Object constant, Node... in) {
+        Node n = add(op, kind, in);
+        n.constant = constant;
+        return n;
+    }
+
+    private Node load(char kind, int var) {
+        Node n = add(SsaGraph.LOAD_VAR, kind);
+        n.aux = var;
+        return n;
+    }
+
+    private void store(int var, Node value) {
+        Node n = add(SsaGraph.STORE_VAR, 'V', value);
+        n.aux = var;
+    }
+
+    private void push(Node n) {
+        stack.add(n);
+    }
+
+    private Node pop(char kind) {
+        Node n = stack.remove(stack.size() - 1);
+        if (n.kind != kind) {
+            throw new IllegalStateException("expected " + kind + " but was " + n.kind);
+        }
+        return n;
+    }
+
+    /**
+     * @Description: 正在构建的方法：被编译方法或内联方法。各方法的局部变量及栈变量占用图中连续的变量编号
+     */
+    private final class Scope {
+        final Method method;
+        final Class clazz;
+        final ConstantPoolCache cpCache;
+        final AttributeCode attr;
+        final byte[] code;
+        final int maxLocals;
+
+        /**
+         * @Description: 局部变量0的变量编号，局部变量之后为栈变量
+         */
+        final int varBase;
+
+        final int[] blockOf;
+        final int[] leaders;
+        final Block[] blocks;
+
+        /**
+         * @Description: 各块入口处操作数栈中各值的种类，块尚不可达时为null
+         */
+        final String[] entryStates;
+
+        final Deque<Integer> work = new ArrayDeque<>();
+
+        /**
+         * @Description: 内联方法返回后继续执行的块及返回值所写入的变量，被编译方法为null、-1
+         */
+        final Block exit;
+        final int resultVar;
+
+        /**
+         * @Description: 内联方法的块所继承的异常表项，即调用点所在块的异常表项
+         */
+        final List<Integer> covering;
+
+        Scope(Method method, Block exit, int resultVar, List<Integer> covering) {
+            this.method = method;
+            this.clazz = method.getmClass();
+            this.cpCache = clazz.getConstantPoolCache();
+            this.attr = method.getCodeAttribute();
+            this.code = attr.getCode();
+            this.maxLocals = attr.getMaxLocals();
+            this.varBase = graph.varCount;
+            graph.varCount += maxLocals + attr.getMaxStack();
+            this.blockOf = new int[code.length];
+            this.leaders = Bytecodes.findBlocks(attr, blockOf);
+            this.blocks = new Block[leaders.length];
+            this.entryStates = new String[leaders.length];
+            this.exit = exit;
+            this.resultVar = resultVar;
+            this.covering = covering;
+        }
+
+        int local(int idx) {
+            return varBase + idx;
+        }
+
+        int stackVar(int i) {
+            return varBase + maxLocals + i;
+        }
+
+        /**
+         * @Description: 记录块的入口状态，块首次可达时创建并加入待构建队列
+         */
+        Block enter(int b, String state) {
+            if (entryStates[b] == null) {
+                entryStates[b] = state;
+                boolean root = exit == null;
+                blocks[b] = graph.newBlock(root ? leaders[b] : -1, root ? coveringAt(leaders[b]) : covering);
+                work.push(b);
+            } else if (!entryStates[b].equals(state)) {
+                throw new IllegalStateException("inconsistent stack at " + leaders[b]);
+            }
+            return blocks[b];
+        }
+
+        private List<Integer> coveringAt(int bci) {
+            List<Integer> entries = new ArrayList<>();
+            for (int i = 0; i < attr.getExceptionTableLength(); i++) {
+                AttributeCode.ExceptionTable e = attr.getExceptionTable(i);
+                if (e.getStartPc() <= bci && bci < e.getEndPc()) {
+                    entries.add(i);
+                }
+            }
+            return entries.isEmpty() ? Collections.emptyList() : entries;
+        }
+    }
+}
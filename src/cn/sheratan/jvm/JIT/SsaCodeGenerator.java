@@ -0,0 +1,613 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.ClassFileWriter;
+import cn.sheratan.jvm.Field;
+import cn.sheratan.jvm.JIT.SsaGraph.Block;
+import cn.sheratan.jvm.JIT.SsaGraph.Node;
+import org.freeinternals.format.classfile.AttributeCode;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 由优化后的SSA中间表示生成CompiledMethod.run的宿主代码（与MethodTranslator生成的代码结构相同，见HostCode）。
+ * 块按逆后序排列；只在同一块中被使用一次的纯节点在使用处直接计算，不占用宿主局部变量，常量在每个使用处重新加载，
+ * 其余有结果的节点及phi各占用一个宿主局部变量。phi的值在前驱块末尾以并行复制（先压入全部输入再依次存储）写入，
+ * 有多个后继的块到含phi的块的边已拆分，复制代码不会影响其他出边。未提升的变量（被编译方法的局部变量n）对应宿主局部变量n + 2。
+ * 覆盖各块的异常表项决定其宿主异常表项，由分派代码匹配捕获类型后跳转到处理器块，处理器块从宿主局部变量取得异常对象
+ * @Author aries
+ * @Data 2026-10-18 10:28
+ */
+final class SsaCodeGenerator {
+    /**
+     * @Description: 宿主局部变量中被编译方法局部变量的起始位置
+     */
+    private static final int LOCAL_BASE = 2;
+
+    /**
+     * @Description: 为各节点附加的宿主操作数栈深度余量（常量表取值、辅助方法的frame参数等）
+     */
+    private static final int EXTRA_STACK = 6;
+
+    private final SsaGraph graph;
+    private final HostCode out;
+
+    /**
+     * @Description: 各节点的结果所在的宿主局部变量，以节点编号索引，没有时为-1
+     */
+    private int[] local;
+
+    /**
+     * @Description: 在使用处直接计算的节点，以节点编号索引
+     */
+    private boolean[] deferred;
+
+    /**
+     * @Description: 各块宿主代码的起止偏移，以块编号索引
+     */
+    private int[] blockStart;
+    private int[] blockEnd;
+
+    /**
+     * @Description: 待回填的跳转偏移：{宿主跳转指令偏移, 回填位置, 目标块编号, 偏移宽度}
+     */
+    private final List<int[]> fixups = new ArrayList<>();
+
+    /**
+     * @Description: 异常分派使用的宿主局部变量：宿主异常及转换得到的虚拟机异常对象，位于各节点的局部变量之后
+     */
+    private int exceptionLocal;
+
+    private int maxStack;
+
+    SsaCodeGenerator(SsaGraph graph, ClassFileWriter cw) {
+        this.graph = graph;
+        this.out = new HostCode(cw);
+    }
+
+    /**
+     * @Description: 生成run方法及构造方法
+     */
+    void generate() throws BailoutException {
+        graph.splitCriticalEdges();
+        List<Block> layout = graph.computeDominators();
+        assignLocals(layout);
+        blockStart = new int[graph.blocks.size()];
+        blockEnd = new int[graph.blocks.size()];
+        for (int i = 0; i < layout.size(); i++) {
+            Block b = layout.get(i);
+            blockStart[b.id] = out.len;
+            emitBlock(b, i + 1 < layout.size() ? layout.get(i + 1) : null);
+            blockEnd[b.id] = out.len;
+        }
+        int[][] exceptionTable = emitExceptionHandlers(layout);
+        for (int[] f : fixups) {
+            out.patch(f[0], f[1], blockStart[f[2]], f[3]);
+        }
+        out.finish(maxStack + EXTRA_STACK, exceptionLocal + 2, exceptionTable);
+    }
+
+    Object[] constants() {
+        return out.constants();
+    }
+
+    /**
+     * @Description: 统计各节点的使用，决定其在使用处计算还是存入宿主局部变量
+     */
+    private void assignLocals(List<Block> layout) {
+        int count = graph.nodeCount();
+        int[] uses = new int[count];
+        Node[] user = new Node[count];
+        for (Block b : layout) {
+            for (Node n : b.nodes) {
+                for (Node in : n.in) {
+                    uses[in.id]++;
+                    user[in.id] = n;
+                }
+            }
+        }
+        local = new int[count];
+        Arrays.fill(local, -1);
+        deferred = new boolean[count];
+        int next = LOCAL_BASE + graph.maxLocals;
+        for (Block b : layout) {
+            for (Node n : b.nodes) {
+                if (n.kind == 'V' || uses[n.id] == 0) {
+                    continue;
+                }
+                if (n.op != SsaGraph.PHI && SsaOptimizer.isPure(n) && uses[n.id] == 1
+                        && user[n.id].block == b && user[n.id].op != SsaGraph.PHI) {
+                    deferred[n.id] = true;
+                    continue;
+                }
+                local[n.id] = next;
+                next += HostCode.size(n.kind);
+            }
+        }
+        exceptionLocal = next;
+    }
+
+    private void emitBlock(Block b, Block next) {
+        List<Node> nodes = b.nodes;
+        for (int i = 0; i < nodes.size() - 1; i++) {
+            Node n = nodes.get(i);
+            if (n.op == SsaGraph.PHI || deferred[n.id]) {
+                continue;
+            }
+            maxStack = Math.max(maxStack, evaluationDepth(n));
+            emitNode(n);
+            if (n.kind == 'V') {
+                continue;
+            }
+            if (local[n.id] >= 0) {
+                out.emitStore(n.kind, local[n.id]);
+            } else {
+                out.emit(HostCode.size(n.kind) == 2 ? Opcode.op_pop2 : Opcode.op_pop);
+            }
+        }
+        Node t = b.terminator();
+        maxStack = Math.max(maxStack, evaluationDepth(t));
+        emitTerminator(b, t, next);
+    }
+
+    /**
+     * @Description: 压入节点的值：常量直接加载，在使用处计算的节点生成其代码，其余从宿主局部变量读取
+     */
+    private void emitValue(Node n) {
+        if (n.isConstant()) {
+            emitConstantValue(n);
+        } else if (deferred[n.id]) {
+            emitNode(n);
+        } else if (local[n.id] >= 0) {
+            out.emitLoad(n.kind, local[n.id]);
+        } else {
+            throw new IllegalStateException("no value for " + n);
+        }
+    }
+
+    private void emitConstantValue(Node n) {
+        Object v = n.constant;
+        switch (n.kind) {
+            case 'I':
+                out.emitInt((Integer) v);
+                return;
+            case 'J': {
+                long l = (Long) v;
+                if (l == 0 || l == 1) {
+                    out.emit(Opcode.op_lconst_0 + (int) l);
+                } else {
+                    out.emit(Opcode.op_ldc2_w);
+                    out.emitU2(out.cw.longConstant(l));
+                }
+                return;
+            }
+            case 'F': {
+                float f = (Float) v;
+                if (Float.floatToRawIntBits(f) == Float.floatToRawIntBits((float) (int) f) && f >= 0 && f <= 2) {
+                    out.emit(Opcode.op_fconst_0 + (int) f);
+                    return;
+                }
+                int idx = out.cw.floatConstant(f);
+                if (idx < 256) {
+                    out.emit(Opcode.op_ldc, idx);
+                } else {
+                    out.emit(Opcode.op_ldc_w);
+                    out.emitU2(idx);
+                }
+                return;
+            }
+            case 'D': {
+                double d = (Double) v;
+                if (Double.doubleToRawLongBits(d) == Double.doubleToRawLongBits((double) (int) d) && d >= 0 && d <= 1) {
+                    out.emit(Opcode.op_dconst_0 + (int) d);
+                } else {
+                    out.emit(Opcode.op_ldc2_w);
+                    out.emitU2(out.cw.doubleConstant(d));
+                }
+                return;
+            }
+            default:
+                if (v == null) {
+                    out.emit(Opcode.op_aconst_null);
+                } else {
+                    out.emitConstant(v);
+                }
+        }
+    }
+
+    /**
+     * @Description: 生成节点的代码，有结果的节点将结果留在宿主操作数栈顶
+     */
+    private void emitNode(Node n) {
+        int op = n.op;
+        if ((op >= Opcode.op_iadd && op <= Opcode.op_lxor) || (op >= Opcode.op_i2l && op <= Opcode.op_dcmpg)) {
+            for (Node in : n.in) {
+                emitValue(in);
+            }
+            out.emit(op);
+            return;
+        }
+        if (op >= Opcode.op_iaload && op <= Opcode.op_saload) {
+            emitValue(n.in[0]);
+            out.emitArrayData(op - Opcode.op_iaload);
+            emitValue(n.in[1]);
+            out.emit(op);
+            return;
+        }
+        if (op == Opcode.op_aastore) {
+            for (Node in : n.in) {
+                emitValue(in);
+            }
+            out.emitLoad('A', HostCode.FRAME_LOCAL);
+            out.emitInvokeStatic(HostCode.RUNTIME, "aastore", "(Ljava/lang/Object;ILjava/lang/Object;Lcn/sheratan/jvm/Frame;)V");
+            return;
+        }
+        if (op >= Opcode.op_iastore && op <= Opcode.op_sastore) {
+            emitValue(n.in[0]);
+            out.emitArrayData(op - Opcode.op_iastore);
+            emitValue(n.in[1]);
+            emitValue(n.in[2]);
+            out.emit(op);
+            return;
+        }
+        switch (op) {
+            case SsaGraph.LOAD_VAR:
+                out.emitLoad(n.kind, LOCAL_BASE + n.aux);
+                return;
+            case SsaGraph.STORE_VAR:
+                emitValue(n.in[0]);
+                out.emitStore(n.in[0].kind, LOCAL_BASE + n.aux);
+                return;
+            case SsaGraph.PARAM:
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInt(n.aux);
+                out.emitFrameCall("load", n.kind, "(I)" + HostCode.hostType(n.kind));
+                return;
+            case SsaGraph.CAUGHT:
+                out.emitLoad('A', exceptionLocal + 1);
+                return;
+            case Opcode.op_getstatic:
+            case Opcode.op_putstatic: {
+                char kind = MethodTranslator.fieldKind(((Field) n.constant).getDescriptor());
+                String name = (op == Opcode.op_getstatic ? "getstatic" : "putstatic") + HostCode.kindName(kind);
+                if (op == Opcode.op_putstatic) {
+                    emitValue(n.in[0]);
+                }
+                out.emitConstant(n.constant);
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, name, op == Opcode.op_getstatic
+                        ? "(Ljava/lang/Object;Lcn/sheratan/jvm/Frame;)" + HostCode.hostType(kind)
+                        : "(" + HostCode.hostType(kind) + "Ljava/lang/Object;Lcn/sheratan/jvm/Frame;)V");
+                return;
+            }
+            case Opcode.op_getfield: {
+                Field field = (Field) n.constant;
+                emitValue(n.in[0]);
+                out.emitGetField(n.kind, field.getOffset());
+                return;
+            }
+            case Opcode.op_putfield: {
+                Field field = (Field) n.constant;
+                char kind = n.in[1].kind;
+                emitValue(n.in[0]);
+                out.emitFieldSlot(kind, field.getOffset());
+                emitValue(n.in[1]);
+                out.emitFieldStore(kind);
+                return;
+            }
+            case Opcode.op_invokevirtual:
+            case Opcode.op_invokespecial:
+            case Opcode.op_invokestatic:
+            case Opcode.op_invokeinterface:
+                emitCall(n);
+                return;
+            case Opcode.op_new:
+                out.emitConstant(n.constant);
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "newObject", "(Ljava/lang/Object;Lcn/sheratan/jvm/Frame;)Ljava/lang/Object;");
+                return;
+            case Opcode.op_newarray:
+                out.emitInt(n.aux);
+                emitValue(n.in[0]);
+                out.emitInvokeStatic(HostCode.LARRAY, "ofAtype", "(II)Lcn/sheratan/jvm/LArray;");
+                return;
+            case Opcode.op_anewarray:
+                out.emit(Opcode.op_new);
+                out.emitU2(out.cw.classRef(HostCode.LARRAY));
+                out.emit(Opcode.op_dup);
+                out.emitConstant(n.constant);
+                out.emitCheckcast("java/lang/String");
+                emitValue(n.in[0]);
+                out.emitInvokeSpecial(HostCode.LARRAY, "<init>", "(Ljava/lang/String;I)V");
+                return;
+            case Opcode.op_multianewarray:
+                out.emitConstant(n.constant);
+                out.emitCheckcast("java/lang/String");
+                out.emitInt(n.in.length);
+                out.emit(Opcode.op_newarray, 10);
+                for (int i = 0; i < n.in.length; i++) {
+                    out.emit(Opcode.op_dup);
+                    out.emitInt(i);
+                    emitValue(n.in[i]);
+                    out.emit(Opcode.op_iastore);
+                }
+                out.emitInvokeStatic(HostCode.LARRAY, "multi", "(Ljava/lang/String;[I)Lcn/sheratan/jvm/LArray;");
+                return;
+            case Opcode.op_monitorenter:
+            case Opcode.op_monitorexit:
+                emitValue(n.in[0]);
+                out.emitInvokeStatic(HostCode.RUNTIME, "monitor", "(Ljava/lang/Object;)V");
+                return;
+            case Opcode.op_arraylength:
+                emitValue(n.in[0]);
+                out.emitCheckcast(HostCode.LARRAY);
+                out.emitInvokeVirtual(HostCode.LARRAY, "getLength", "()I");
+                return;
+            case Opcode.op_checkcast:
+                emitValue(n.in[0]);
+                out.emit(Opcode.op_dup);
+                out.emitConstant(n.constant);
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "checkcast", "(Ljava/lang/Object;Ljava/lang/Object;Lcn/sheratan/jvm/Frame;)V");
+                return;
+            case Opcode.op_instanceof:
+                emitValue(n.in[0]);
+                out.emitConstant(n.constant);
+                out.emitInvokeStatic(HostCode.RUNTIME, "instanceOf", "(Ljava/lang/Object;Ljava/lang/Object;)I");
+                return;
+            default:
+                throw new IllegalStateException("unexpected node " + n);
+        }
+    }
+
+    /**
+     * @Description: 方法调用：参数依次压入frame的操作数栈，经JitRuntime调用后从frame取回返回值
+     */
+    private void emitCall(Node n) {
+        for (Node arg : n.in) {
+            out.emitLoad('A', HostCode.FRAME_LOCAL);
+            emitValue(arg);
+            out.emitFrameCall("push", arg.kind, "(" + HostCode.hostType(arg.kind) + ")V");
+        }
+        out.emitLoad('A', HostCode.FRAME_LOCAL);
+        out.emitConstant(n.constant);
+        if (n.op == Opcode.op_invokestatic || n.op == Opcode.op_invokespecial) {
+            out.emitInvokeStatic(HostCode.RUNTIME, n.op == Opcode.op_invokestatic ? "invokestatic" : "invokespecial",
+                    "(Lcn/sheratan/jvm/Frame;Ljava/lang/Object;)V");
+        } else {
+            if (n.cache == null) {
+                out.emit(Opcode.op_aconst_null);
+            } else {
+                out.emitConstant(n.cache);
+            }
+            out.emitInvokeStatic(HostCode.RUNTIME, "invokevirtual", "(Lcn/sheratan/jvm/Frame;Ljava/lang/Object;Ljava/lang/Object;)V");
+        }
+        if (n.kind != 'V') {
+            out.emitLoad('A', HostCode.FRAME_LOCAL);
+            out.emitFrameCall("pop", n.kind, "()" + HostCode.hostType(n.kind));
+        }
+    }
+
+    private void emitTerminator(Block b, Node t, Block next) {
+        int op = t.op;
+        switch (op) {
+            case Opcode.op_goto: {
+                emitPhiCopies(b);
+                Block target = b.succs.get(0);
+                if (target != next) {
+                    emitJump(Opcode.op_goto, target);
+                }
+                return;
+            }
+            case SsaGraph.SWITCH:
+                emitValue(t.in[0]);
+                emitSwitch(b, (int[]) t.constant);
+                return;
+            case SsaGraph.GUARD:
+                emitValue(t.in[0]);
+                out.emitInvokeStatic(HostCode.RUNTIME, "receiverClass", "(Ljava/lang/Object;)Ljava/lang/Object;");
+                out.emitConstant(t.constant);
+                emitJump(Opcode.op_if_acmpne, b.succs.get(1));
+                if (b.succs.get(0) != next) {
+                    emitJump(Opcode.op_goto, b.succs.get(0));
+                }
+                return;
+            case Opcode.op_ireturn:
+            case Opcode.op_lreturn:
+            case Opcode.op_freturn:
+            case Opcode.op_dreturn:
+            case Opcode.op_areturn: {
+                char kind = HostCode.KINDS.charAt(op - Opcode.op_ireturn);
+                emitValue(t.in[0]);
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "return" + HostCode.kindName(kind), "(" + HostCode.hostType(kind) + "Lcn/sheratan/jvm/Frame;)V");
+                out.emit(Opcode.op_return);
+                return;
+            }
+            case Opcode.op_return:
+                out.emitLoad('A', HostCode.FRAME_LOCAL);
+                out.emitInvokeStatic(HostCode.RUNTIME, "returnVoid", HostCode.RUN_DESCRIPTOR);
+                out.emit(Opcode.op_return);
+                return;
+            case Opcode.op_athrow:
+                emitValue(t.in[0]);
+                out.emitInvokeStatic(HostCode.RUNTIME, "athrow", "(Ljava/lang/Object;)Ljava/lang/RuntimeException;");
+                out.emit(Opcode.op_athrow);
+                return;
+            default:
+                //条件跳转：后继依次为条件成立、不成立时的目标
+                for (Node in : t.in) {
+                    emitValue(in);
+                }
+                emitJump(op, b.succs.get(0));
+                if (b.succs.get(1) != next) {
+                    emitJump(Opcode.op_goto, b.succs.get(1));
+                }
+        }
+    }
+
+    /**
+     * @Description: 在唯一后继的phi中写入经由该块到达时的值：先压入全部输入再逆序存储，phi之间互相引用时也取得原值
+     */
+    private void emitPhiCopies(Block b) {
+        Block s = b.succs.get(0);
+        int j = s.preds.indexOf(b);
+        List<Node> phis = new ArrayList<>();
+        for (Node n : s.nodes) {
+            if (n.op != SsaGraph.PHI) {
+                break;
+            }
+            if (local[n.id] >= 0) {
+                phis.add(n);
+            }
+        }
+        int depth = 0;
+        for (Node phi : phis) {
+            maxStack = Math.max(maxStack, depth + stackNeed(phi.in[j]));
+            depth += HostCode.size(phi.kind);
+            emitValue(phi.in[j]);
+        }
+        maxStack = Math.max(maxStack, depth);
+        for (int i = phis.size() - 1; i >= 0; i--) {
+            Node phi = phis.get(i);
+            out.emitStore(phi.kind, local[phi.id]);
+        }
+    }
+
+    /**
+     * @Description: 键连续时生成tableswitch，否则生成lookupswitch
+     */
+    private void emitSwitch(Block b, int[] keys) {
+        boolean dense = keys.length > 0 && (long) keys[keys.length - 1] - keys[0] + 1 == keys.length;
+        int start = out.emitSwitchHeader(dense ? Opcode.op_tableswitch : Opcode.op_lookupswitch);
+        emitSwitchTarget(start, b.succs.get(0));
+        if (dense) {
+            out.emitS4(keys[0]);
+            out.emitS4(keys[keys.length - 1]);
+            for (int i = 0; i < keys.length; i++) {
+                emitSwitchTarget(start, b.succs.get(i + 1));
+            }
+            return;
+        }
+        out.emitS4(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            out.emitS4(keys[i]);
+            emitSwitchTarget(start, b.succs.get(i + 1));
+        }
+    }
+
+    private void emitSwitchTarget(int start, Block target) {
+        fixups.add(new int[]{start, out.len, target.id, 4});
+        out.emitS4(0);
+    }
+
+    private void emitJump(int op, Block target) {
+        fixups.add(new int[]{out.len, out.len + 1, target.id, 2});
+        out.emit(op);
+        out.emitU2(0);
+    }
+
+    /**
+     * @Description: 生成异常分派代码并返回宿主异常表：覆盖各块的异常表项决定其宿主表项，相邻且分派代码相同的块合并为一项，
+     * 覆盖的异常表项相同的块共用分派代码；最后一项覆盖之前的全部代码，处理未被捕获的异常：弹出当前栈帧后重新抛出
+     */
+    private int[][] emitExceptionHandlers(List<Block> layout) {
+        List<int[]> table = new ArrayList<>();
+        int catchType = out.cw.classRef(HostCode.RUNTIME_EXCEPTION);
+        Map<List<Integer>, Integer> dispatchers = new HashMap<>();
+        for (Block b : layout) {
+            int start = blockStart[b.id];
+            int end = blockEnd[b.id];
+            if (b.covering.isEmpty() || start == end) {
+                continue;
+            }
+            Integer dispatcher = dispatchers.get(b.covering);
+            if (dispatcher == null) {
+                dispatcher = emitExceptionDispatch(b.covering);
+                dispatchers.put(b.covering, dispatcher);
+            }
+            int[] last = table.isEmpty() ? null : table.get(table.size() - 1);
+            if (last != null && last[1] == start && last[2] == dispatcher) {
+                last[1] = end;
+            } else {
+                table.add(new int[]{start, end, dispatcher, catchType});
+            }
+        }
+        int unwind = out.len;
+        out.emitStore('A', exceptionLocal);
+        out.emitLoad('A', HostCode.FRAME_LOCAL);
+        out.emitLoad('A', exceptionLocal);
+        out.emitInvokeStatic(HostCode.RUNTIME, "unwind", "(Lcn/sheratan/jvm/Frame;Ljava/lang/RuntimeException;)Ljava/lang/RuntimeException;");
+        out.emit(Opcode.op_athrow);
+        table.add(new int[]{0, unwind, unwind, catchType});
+        maxStack = Math.max(maxStack, 3);
+        return table.toArray(new int[0][]);
+    }
+
+    /**
+     * @Description: 异常分派代码：转换为虚拟机异常对象并存入宿主局部变量，按异常表中的次序依次匹配捕获类型，匹配时跳转到处理器块，
+     * 均不匹配时继续抛出
+     * @Param entries 覆盖的异常表项
+     * @return: int 分派代码的宿主偏移
+     */
+    private int emitExceptionDispatch(List<Integer> entries) {
+        AttributeCode attr = graph.method.getCodeAttribute();
+        Class clazz = graph.method.getmClass();
+        int start = out.len;
+        int e = exceptionLocal;
+        int throwable = e + 1;
+        out.emitStore('A', e);
+        out.emitLoad('A', HostCode.FRAME_LOCAL);
+        out.emitLoad('A', e);
+        out.emitInvokeStatic(HostCode.RUNTIME, "catchException", "(Lcn/sheratan/jvm/Frame;Ljava/lang/RuntimeException;)Ljava/lang/Object;");
+        out.emitStore('A', throwable);
+        for (int i : entries) {
+            AttributeCode.ExceptionTable entry = attr.getExceptionTable(i);
+            Block handler = graph.handlers.get(entry.getHandlerPc());
+            if (entry.getCatchType() == 0) {
+                emitJump(Opcode.op_goto, handler);
+                return start;
+            }
+            Class catchClass = clazz.getConstantPoolCache().resolveClass(entry.getCatchType());
+            if (catchClass == null) {
+                continue;
+            }
+            out.emitLoad('A', throwable);
+            out.emitConstant(catchClass);
+            out.emitInvokeStatic(HostCode.RUNTIME, "isInstance", "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+            emitJump(Opcode.op_ifne, handler);
+        }
+        out.emitLoad('A', throwable);
+        out.emitInvokeStatic(HostCode.RUNTIME, "athrow", "(Ljava/lang/Object;)Ljava/lang/RuntimeException;");
+        out.emit(Opcode.op_athrow);
+        return start;
+    }
+
+    /**
+     * @Description: 压入节点的值所需的宿主操作数栈深度
+     */
+    private int stackNeed(Node n) {
+        if (n.isConstant()) {
+            return n.kind == 'A' && n.constant != null ? 2 : HostCode.size(n.kind);
+        }
+        return deferred[n.id] ? evaluationDepth(n) : HostCode.size(n.kind);
+    }
+
+    /**
+     * @Description: 生成节点代码所需的宿主操作数栈深度（不含辅助方法参数等余量，见EXTRA_STACK）
+     */
+    private int evaluationDepth(Node n) {
+        int depth = 0;
+        int max = 0;
+        for (Node in : n.in) {
+            max = Math.max(max, depth + stackNeed(in));
+            depth += HostCode.size(in.kind);
+        }
+        return Math.max(max, Math.max(depth, n.kind == 'V' ? 0 : HostCode.size(n.kind)));
+    }
+}
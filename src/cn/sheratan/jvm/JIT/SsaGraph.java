@@ -0,0 +1,478 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Instruction.InlineCache;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 优化编译使用的SSA形式中间表示：方法由基本块组成，块中的节点既是指令也是其结果值，节点直接引用作为输入的节点，
+ * 不再经过操作数栈传递。节点的种类为I、J、F、D、A（没有结果的节点为V）；操作码小于256的节点与同名字节码指令语义相同，
+ * 其余为中间表示特有的节点（常量、phi、变量读写等）。
+ * 局部变量及跨基本块的操作数栈项在构建时表示为变量的读写（LOAD_VAR、STORE_VAR），由局部变量提升转换为SSA值与phi；
+ * 不能提升的变量（有异常处理器的方法中的局部变量，处理器可能读取其在被中断处的值）保留读写，由代码生成器映射为宿主局部变量。
+ * 常量节点不属于任何块，同一常量在图中只有一个节点
+ * @Author aries
+ * @Data 2026-10-18 10:28
+ */
+final class SsaGraph {
+
+    /**
+     * @Description: 常量，值为constant（Integer、Long、Float、Double，引用常量为虚拟机字符串或null）
+     */
+    static final int CONST = 256;
+
+    /**
+     * @Description: phi，输入与所在块的前驱一一对应，aux为其所合并的变量
+     */
+    static final int PHI = 257;
+
+    /**
+     * @Description: 复制输入的值，由优化过程产生，复制传播后不再存在
+     */
+    static final int COPY = 258;
+
+    /**
+     * @Description: 读取、写入变量aux。变量0 ~ maxLocals - 1为被编译方法的局部变量，之后依次为跨块的操作数栈项、内联方法的局部变量等
+     */
+    static final int LOAD_VAR = 259;
+    static final int STORE_VAR = 260;
+
+    /**
+     * @Description: 从栈帧中读取局部变量aux，位于入口块，即方法参数或栈上替换时解释器中局部变量的值
+     */
+    static final int PARAM = 261;
+
+    /**
+     * @Description: 异常处理器捕获的异常对象，位于处理器块的起始处
+     */
+    static final int CAUGHT = 262;
+
+    /**
+     * @Description: 块出口：按int键跳转，constant为升序排列的键（int[]），后继依次为默认目标及各键的目标
+     */
+    static final int SWITCH = 263;
+
+    /**
+     * @Description: 块出口：接收者所属类为constant时跳转到第一个后继，否则跳转到第二个后继（内联虚方法的守卫）
+     */
+    static final int GUARD = 264;
+
+    private static final Object NULL_KEY = new Object();
+
+    final Method method;
+
+    /**
+     * @Description: 被编译方法的局部变量表大小
+     */
+    final int maxLocals;
+
+    /**
+     * @Description: 被编译方法是否有异常处理器，有时其局部变量不提升
+     */
+    final boolean hasHandlers;
+
+    final List<Block> blocks = new ArrayList<>();
+
+    /**
+     * @Description: 入口块，从栈帧读入参数（或栈上替换时的局部变量）后跳转到起始指令所在块
+     */
+    Block entry;
+
+    /**
+     * @Description: 异常处理器块，以处理器的指令下标索引。处理器块没有普通前驱，由代码生成器的异常分派代码进入
+     */
+    final Map<Integer, Block> handlers = new HashMap<>();
+
+    /**
+     * @Description: 已分配的变量数量
+     */
+    int varCount;
+
+    private int nodeCount;
+    private final Map<Object, Node> constants = new HashMap<>();
+    private final Map<Object, Node> refConstants = new IdentityHashMap<>();
+
+    SsaGraph(Method method, int maxLocals, boolean hasHandlers) {
+        this.method = method;
+        this.maxLocals = maxLocals;
+        this.hasHandlers = hasHandlers;
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @Description: 变量能否提升为SSA值
+     */
+    boolean isPromotable(int var) {
+        return !hasHandlers || var >= maxLocals;
+    }
+
+    Block newBlock(int bci, List<Integer> covering) {
+        Block b = new Block(blocks.size(), bci, covering);
+        blocks.add(b);
+        return b;
+    }
+
+    Node newNode(int op, char kind, Node... in) {
+        return new Node(nodeCount++, op, kind, in);
+    }
+
+    /**
+     * @Description: 获取常量节点
+     * @Param kind 种类
+     * @Param value 常量值，引用常量为虚拟机字符串或null
+     */
+    Node constant(char kind, Object value) {
+        Map<Object, Node> map = kind == 'A' ? refConstants : constants;
+        Object key = value == null ? NULL_KEY : value;
+        Node n = map.get(key);
+        if (n == null) {
+            n = newNode(CONST, kind);
+            n.constant = value;
+            map.put(key, n);
+        }
+        return n;
+    }
+
+    /**
+     * @Description: 未赋值变量的值，取该种类的零值（字节码校验保证其不会被实际使用）
+     */
+    Node undefined(char kind) {
+        switch (kind) {
+            case 'I':
+                return constant(kind, 0);
+            case 'J':
+                return constant(kind, 0L);
+            case 'F':
+                return constant(kind, 0F);
+            case 'D':
+                return constant(kind, 0D);
+            default:
+                return constant(kind, null);
+        }
+    }
+
+    static void addEdge(Block from, Block to) {
+        from.succs.add(to);
+        to.preds.add(from);
+    }
+
+    /**
+     * @Description: 删除from的第i个出边，同时删除目标块中phi的对应输入
+     */
+    static void removeEdge(Block from, int i) {
+        Block to = from.succs.remove(i);
+        removePred(to, to.preds.indexOf(from));
+    }
+
+    private static void removePred(Block b, int j) {
+        b.preds.remove(j);
+        for (Node n : b.nodes) {
+            if (n.op != PHI) {
+                break;
+            }
+            Node[] in = new Node[n.in.length - 1];
+            System.arraycopy(n.in, 0, in, 0, j);
+            System.arraycopy(n.in, j + 1, in, j, in.length - j);
+            n.in = in;
+        }
+    }
+
+    /**
+     * @Description: 删除从入口块及异常处理器块均不可达的块
+     * @return: boolean 是否删除了块
+     */
+    boolean removeUnreachable() {
+        boolean[] reachable = new boolean[blocks.size()];
+        List<Block> work = new ArrayList<>(roots());
+        for (Block b : work) {
+            reachable[b.id] = true;
+        }
+        while (!work.isEmpty()) {
+            Block b = work.remove(work.size() - 1);
+            for (Block s : b.succs) {
+                if (!reachable[s.id]) {
+                    reachable[s.id] = true;
+                    work.add(s);
+                }
+            }
+        }
+        List<Block> live = new ArrayList<>();
+        for (Block b : blocks) {
+            if (reachable[b.id]) {
+                live.add(b);
+                continue;
+            }
+            for (Block s : b.succs) {
+                if (reachable[s.id]) {
+                    int j;
+                    while ((j = s.preds.indexOf(b)) >= 0) {
+                        removePred(s, j);
+                    }
+                }
+            }
+        }
+        if (live.size() == blocks.size()) {
+            return false;
+        }
+        blocks.clear();
+        blocks.addAll(live);
+        renumber();
+        return true;
+    }
+
+    private void renumber() {
+        for (int i = 0; i < blocks.size(); i++) {
+            blocks.get(i).id = i;
+        }
+    }
+
+    /**
+     * @Description: 支配分析的起点：入口块及各异常处理器块。处理器块只能经由入口块可达的代码抛出异常进入，视为入口块的后继
+     */
+    private List<Block> roots() {
+        List<Block> roots = new ArrayList<>();
+        roots.add(entry);
+        List<Block> handlerBlocks = new ArrayList<>(handlers.values());
+        handlerBlocks.sort((a, b) -> a.id - b.id);
+        roots.addAll(handlerBlocks);
+        return roots;
+    }
+
+    /**
+     * @Description: 按逆后序排列各块，并求出直接支配者及支配树（Cooper、Harvey、Kennedy的迭代算法）
+     * @return: java.util.List<cn.sheratan.jvm.JIT.SsaGraph.Block> 逆后序排列的块
+     */
+    List<Block> computeDominators() {
+        List<Block> post = new ArrayList<>();
+        boolean[] visited = new boolean[blocks.size()];
+        //最后遍历入口块，逆后序中入口块在最前，相当于从入口块出发、先经由到各处理器块的虚拟边遍历
+        List<Block> roots = roots();
+        for (int i = roots.size() - 1; i >= 0; i--) {
+            postorder(roots.get(i), visited, post);
+        }
+        Collections.reverse(post);
+        for (int i = 0; i < post.size(); i++) {
+            Block b = post.get(i);
+            b.rpo = i;
+            b.idom = null;
+            b.children.clear();
+        }
+        entry.idom = entry;
+        for (Block h : handlers.values()) {
+            h.idom = entry;
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Block b : post) {
+                if (b == entry || b.handler) {
+                    continue;
+                }
+                Block idom = null;
+                for (Block p : b.preds) {
+                    if (p.idom == null) {
+                        continue;
+                    }
+                    idom = idom == null ? p : intersect(p, idom);
+                }
+                if (idom != b.idom) {
+                    b.idom = idom;
+                    changed = true;
+                }
+            }
+        }
+        for (Block b : post) {
+            if (b != entry) {
+                b.idom.children.add(b);
+            }
+        }
+        return post;
+    }
+
+    /**
+     * @Description: 深度优先遍历，以显式栈代替递归，避免较大的方法耗尽宿主栈
+     */
+    private static void postorder(Block root, boolean[] visited, List<Block> post) {
+        if (visited[root.id]) {
+            return;
+        }
+        List<Block> stack = new ArrayList<>();
+        List<Integer> next = new ArrayList<>();
+        visited[root.id] = true;
+        stack.add(root);
+        next.add(0);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            Block b = stack.get(top);
+            int i = next.get(top);
+            if (i < b.succs.size()) {
+                next.set(top, i + 1);
+                Block s = b.succs.get(i);
+                if (!visited[s.id]) {
+                    visited[s.id] = true;
+                    stack.add(s);
+                    next.add(0);
+                }
+            } else {
+                post.add(b);
+                stack.remove(top);
+                next.remove(top);
+            }
+        }
+    }
+
+    private static Block intersect(Block a, Block b) {
+        while (a != b) {
+            while (a.rpo > b.rpo) {
+                a = a.idom;
+            }
+            while (b.rpo > a.rpo) {
+                b = b.idom;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * @Description: 判断a是否支配b
+     */
+    static boolean dominates(Block a, Block b) {
+        while (b != a) {
+            if (b.idom == b) {
+                return false;
+            }
+            b = b.idom;
+        }
+        return true;
+    }
+
+    /**
+     * @Description: 拆分关键边：有多个后继的块到含有phi的块的边上插入只含跳转的块，phi的复制代码放在该块中，
+     * 不影响经由其他出边的路径
+     */
+    void splitCriticalEdges() {
+        int n = blocks.size();
+        for (int k = 0; k < n; k++) {
+            Block b = blocks.get(k);
+            if (b.succs.size() < 2) {
+                continue;
+            }
+            for (int i = 0; i < b.succs.size(); i++) {
+                Block s = b.succs.get(i);
+                if (s.nodes.isEmpty() || s.nodes.get(0).op != PHI) {
+                    continue;
+                }
+                Block mid = newBlock(-1, Collections.emptyList());
+                mid.nodes.add(newNode(Opcode.op_goto, 'V'));
+                mid.nodes.get(0).block = mid;
+                b.succs.set(i, mid);
+                mid.preds.add(b);
+                s.preds.set(s.preds.indexOf(b), mid);
+                mid.succs.add(s);
+            }
+        }
+    }
+
+    /**
+     * @Description: 节点，既是指令也是其结果值
+     */
+    static final class Node {
+        final int id;
+        int op;
+        char kind;
+        Node[] in;
+
+        /**
+         * @Description: 整数操作数：变量编号、局部变量下标、newarray的元素类型、调用指令的下标等
+         */
+        int aux;
+
+        /**
+         * @Description: 常量值，或编译时解析的操作数：字段、方法符号、类、类型检查、数组描述符、switch的键、守卫的类等
+         */
+        Object constant;
+
+        /**
+         * @Description: 虚方法调用点的内联缓存，可为null
+         */
+        InlineCache cache;
+
+        Block block;
+
+        Node(int id, int op, char kind, Node[] in) {
+            this.id = id;
+            this.op = op;
+            this.kind = kind;
+            this.in = in;
+        }
+
+        boolean isConstant() {
+            return op == CONST;
+        }
+
+        @Override
+        public String toString() {
+            return "v" + id + "(" + op + ")";
+        }
+    }
+
+    /**
+     * @Description: 基本块，节点按执行次序排列，phi在最前，最后一个节点为块出口（跳转、条件跳转、switch、守卫、返回或athrow）。
+     * 条件跳转的后继依次为条件成立、不成立时的目标
+     */
+    static final class Block {
+        int id;
+
+        /**
+         * @Description: 块起始指令在被编译方法中的下标，内联方法及编译时增加的块为-1
+         */
+        final int bci;
+
+        /**
+         * @Description: 覆盖该块的异常表项在被编译方法异常表中的下标，按异常表中的次序排列
+         */
+        final List<Integer> covering;
+
+        final List<Node> nodes = new ArrayList<>();
+        final List<Block> preds = new ArrayList<>();
+        final List<Block> succs = new ArrayList<>();
+
+        /**
+         * @Description: 是否为异常处理器块
+         */
+        boolean handler;
+
+        /**
+         * @Description: 支配分析的结果：逆后序编号、直接支配者及支配树中的子节点
+         */
+        int rpo;
+        Block idom;
+        final List<Block> children = new ArrayList<>();
+
+        Block(int id, int bci, List<Integer> covering) {
+            this.id = id;
+            this.bci = bci;
+            this.covering = covering;
+        }
+
+        Node add(Node n) {
+            n.block = this;
+            nodes.add(n);
+            return n;
+        }
+
+        Node terminator() {
+            return nodes.get(nodes.size() - 1);
+        }
+    }
+}
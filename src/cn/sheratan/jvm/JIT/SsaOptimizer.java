@@ -0,0 +1,782 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.JIT.SsaGraph.Block;
+import cn.sheratan.jvm.JIT.SsaGraph.Node;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Description: SSA中间表示上的标量优化。先将可提升的变量转换为SSA值（Cytron等人的算法：在支配边界迭代插入phi，沿支配树重命名），
+ * 之后反复执行复制传播、常量折叠（含常量条件跳转的消除）与代数化简、基于支配树的公共子表达式消除，直至不再变化，最后删除无用节点。
+ * 只有纯节点（不抛出异常、不读写堆及变量、没有副作用）参与公共子表达式消除，也只有纯节点及变量读取等可删除的节点被当作无用代码删除
+ * @Author aries
+ * @Data 2026-10-18 10:28
+ */
+final class SsaOptimizer {
+    private static final String KINDS = HostCode.KINDS;
+
+    private final SsaGraph graph;
+
+    /**
+     * @Description: 逆后序排列的块，控制流改变后重新计算
+     */
+    private List<Block> order;
+
+    SsaOptimizer(SsaGraph graph) {
+        this.graph = graph;
+    }
+
+    void optimize() {
+        graph.removeUnreachable();
+        order = graph.computeDominators();
+        promoteLocals();
+        boolean changed = true;
+        while (changed) {
+            changed = propagateCopies();
+            if (foldConstants()) {
+                changed = true;
+                if (graph.removeUnreachable()) {
+                    propagateCopies();
+                }
+                order = graph.computeDominators();
+            }
+            changed |= eliminateCommonSubexpressions();
+        }
+        eliminateDeadCode();
+    }
+
+    /**
+     * @Description: 节点是否为纯节点：结果只取决于输入，不抛出异常且没有副作用
+     */
+    static boolean isPure(Node n) {
+        int op = n.op;
+        switch (op) {
+            case SsaGraph.CONST:
+            case SsaGraph.PHI:
+            case SsaGraph.COPY:
+            case Opcode.op_instanceof:
+                return true;
+            case Opcode.op_idiv:
+            case Opcode.op_irem:
+            case Opcode.op_ldiv:
+            case Opcode.op_lrem: {
+                Node divisor = n.in[1];
+                return divisor.isConstant() && ((Number) divisor.constant).longValue() != 0;
+            }
+            default:
+                return (op >= Opcode.op_iadd && op <= Opcode.op_lxor) || (op >= Opcode.op_i2l && op <= Opcode.op_dcmpg);
+        }
+    }
+
+    /**
+     * @Description: 节点在结果未被使用时能否删除
+     */
+    static boolean isRemovable(Node n) {
+        return isPure(n) || n.op == SsaGraph.LOAD_VAR || n.op == SsaGraph.PARAM || n.op == SsaGraph.CAUGHT;
+    }
+
+    private static int kindIndex(char kind) {
+        return KINDS.indexOf(kind);
+    }
+
+    /**
+     * @Description: 变量提升。同一变量以不同种类的值写入时（如局部变量槽被复用），各种类分别视为不同的变量
+     */
+    private void promoteLocals() {
+        Map<Integer, Set<Block>> defsites = new HashMap<>();
+        for (Block b : order) {
+            for (Node n : b.nodes) {
+                if (n.op == SsaGraph.STORE_VAR && graph.isPromotable(n.aux)) {
+                    defsites.computeIfAbsent(key(n.aux, n.in[0].kind), k -> new HashSet<>()).add(b);
+                }
+            }
+        }
+        List<List<Block>> frontiers = dominanceFrontiers();
+        for (Map.Entry<Integer, Set<Block>> e : defsites.entrySet()) {
+            int key = e.getKey();
+            boolean[] hasPhi = new boolean[graph.blocks.size()];
+            List<Block> work = new ArrayList<>(e.getValue());
+            Set<Block> queued = new HashSet<>(work);
+            while (!work.isEmpty()) {
+                Block b = work.remove(work.size() - 1);
+                for (Block d : frontiers.get(b.id)) {
+                    if (hasPhi[d.id]) {
+                        continue;
+                    }
+                    hasPhi[d.id] = true;
+                    Node phi = graph.newNode(SsaGraph.PHI, KINDS.charAt(key % 5), new Node[d.preds.size()]);
+                    phi.aux = key / 5;
+                    phi.block = d;
+                    d.nodes.add(0, phi);
+                    if (queued.add(d)) {
+                        work.add(d);
+                    }
+                }
+            }
+        }
+        rename();
+    }
+
+    private static int key(int var, char kind) {
+        return var * 5 + kindIndex(kind);
+    }
+
+    /**
+     * @Description: 支配边界，以块编号索引
+     */
+    private List<List<Block>> dominanceFrontiers() {
+        List<List<Block>> frontiers = new ArrayList<>();
+        for (int i = 0; i < graph.blocks.size(); i++) {
+            frontiers.add(new ArrayList<>());
+        }
+        for (Block b : order) {
+            if (b.preds.size() < 2) {
+                continue;
+            }
+            for (Block p : b.preds) {
+                Block runner = p;
+                while (runner != b.idom) {
+                    List<Block> df = frontiers.get(runner.id);
+                    if (!df.contains(b)) {
+                        df.add(b);
+                    }
+                    runner = runner.idom;
+                }
+            }
+        }
+        return frontiers;
+    }
+
+    /**
+     * @Description: 沿支配树重命名：变量读取改为复制当前值，变量写入记录新值后删除，并填写后继块中phi的对应输入。
+     * 以显式栈遍历支配树，离开块时撤销其记录的值
+     */
+    private void rename() {
+        Map<Integer, List<Node>> values = new HashMap<>();
+        List<Block> stack = new ArrayList<>();
+        List<List<Integer>> pushed = new ArrayList<>();
+        stack.add(graph.entry);
+        pushed.add(null);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            Block b = stack.get(top);
+            if (pushed.get(top) != null) {
+                for (int key : pushed.get(top)) {
+                    List<Node> v = values.get(key);
+                    v.remove(v.size() - 1);
+                }
+                stack.remove(top);
+                pushed.remove(top);
+                continue;
+            }
+            List<Integer> defined = new ArrayList<>();
+            pushed.set(top, defined);
+            List<Node> kept = new ArrayList<>();
+            for (Node n : b.nodes) {
+                if (n.op == SsaGraph.PHI) {
+                    define(values, defined, key(n.aux, n.kind), n);
+                } else if (n.op == SsaGraph.LOAD_VAR && graph.isPromotable(n.aux)) {
+                    n.op = SsaGraph.COPY;
+                    n.in = new Node[]{current(values, key(n.aux, n.kind), n.kind)};
+                } else if (n.op == SsaGraph.STORE_VAR && graph.isPromotable(n.aux)) {
+                    define(values, defined, key(n.aux, n.in[0].kind), n.in[0]);
+                    continue;
+                }
+                kept.add(n);
+            }
+            b.nodes.clear();
+            b.nodes.addAll(kept);
+            for (Block s : b.succs) {
+                for (int j = 0; j < s.preds.size(); j++) {
+                    if (s.preds.get(j) != b) {
+                        continue;
+                    }
+                    for (Node phi : s.nodes) {
+                        if (phi.op != SsaGraph.PHI) {
+                            break;
+                        }
+                        phi.in[j] = current(values, key(phi.aux, phi.kind), phi.kind);
+                    }
+                }
+            }
+            for (Block c : b.children) {
+                stack.add(c);
+                pushed.add(null);
+            }
+        }
+    }
+
+    private static void define(Map<Integer, List<Node>> values, List<Integer> defined, int key, Node value) {
+        values.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        defined.add(key);
+    }
+
+    private Node current(Map<Integer, List<Node>> values, int key, char kind) {
+        List<Node> v = values.get(key);
+        return v == null || v.isEmpty() ? graph.undefined(kind) : v.get(v.size() - 1);
+    }
+
+    /**
+     * @Description: 复制传播：输入改为复制链末端的值，输入全部相同（不计自身）的phi改为复制，之后删除全部复制节点
+     * @return: boolean 是否有节点被改变
+     */
+    private boolean propagateCopies() {
+        boolean changed = false;
+        boolean again = true;
+        while (again) {
+            again = false;
+            for (Block b : graph.blocks) {
+                for (Node n : b.nodes) {
+                    for (int i = 0; i < n.in.length; i++) {
+                        Node r = resolve(n.in[i]);
+                        if (r != n.in[i]) {
+                            n.in[i] = r;
+                            changed = true;
+                        }
+                    }
+                    if (n.op == SsaGraph.PHI) {
+                        Node same = uniqueInput(n);
+                        if (same != null) {
+                            n.op = SsaGraph.COPY;
+                            n.in = new Node[]{same == n ? graph.undefined(n.kind) : same};
+                            again = true;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        for (Block b : graph.blocks) {
+            changed |= b.nodes.removeIf(n -> n.op == SsaGraph.COPY);
+        }
+        return changed;
+    }
+
+    private static Node resolve(Node n) {
+        while (n.op == SsaGraph.COPY) {
+            n = n.in[0];
+        }
+        return n;
+    }
+
+    /**
+     * @Description: phi除自身外的唯一输入；只有自身作为输入时返回自身，有多个不同输入时返回null
+     */
+    private static Node uniqueInput(Node phi) {
+        Node same = null;
+        for (Node in : phi.in) {
+            if (in == phi || in == same) {
+                continue;
+            }
+            if (same != null) {
+                return null;
+            }
+            same = in;
+        }
+        return same == null ? phi : same;
+    }
+
+    /**
+     * @Description: 常量折叠与代数化简，条件为常量的条件跳转及switch改为跳转
+     * @return: boolean 控制流或节点是否被改变
+     */
+    private boolean foldConstants() {
+        boolean changed = false;
+        for (Block b : order) {
+            for (Node n : b.nodes) {
+                if (n.op == SsaGraph.COPY || n.op == SsaGraph.PHI || n.op == SsaGraph.CONST || !isPure(n)) {
+                    continue;
+                }
+                Node r = fold(n);
+                if (r != null) {
+                    n.op = SsaGraph.COPY;
+                    n.in = new Node[]{r};
+                    n.constant = null;
+                    changed = true;
+                }
+            }
+            changed |= foldBranch(b);
+        }
+        return changed;
+    }
+
+    /**
+     * @Description: 折叠纯节点
+     * @return: cn.sheratan.jvm.JIT.SsaGraph.Node 节点的等价值，不能折叠时返回null
+     */
+    private Node fold(Node n) {
+        int op = n.op;
+        boolean constant = true;
+        for (Node in : n.in) {
+            constant &= in.isConstant();
+        }
+        if (constant && op != Opcode.op_instanceof) {
+            Object v = evaluate(op, n.in[0].constant, n.in.length > 1 ? n.in[1].constant : null);
+            return v == null ? null : graph.constant(n.kind, v);
+        }
+        if (n.in.length != 2 || (n.kind != 'I' && n.kind != 'J')) {
+            return null;
+        }
+        Node a = n.in[0];
+        Node b = n.in[1];
+        if (a == b && (op == Opcode.op_isub || op == Opcode.op_lsub || op == Opcode.op_ixor || op == Opcode.op_lxor)) {
+            return zero(n.kind);
+        }
+        if (a == b && (op == Opcode.op_iand || op == Opcode.op_land || op == Opcode.op_ior || op == Opcode.op_lor)) {
+            return a;
+        }
+        if (a.isConstant() && isCommutative(op)) {
+            Node t = a;
+            a = b;
+            b = t;
+        }
+        if (!b.isConstant()) {
+            return null;
+        }
+        long k = ((Number) b.constant).longValue();
+        switch (op) {
+            case Opcode.op_iadd:
+            case Opcode.op_ladd:
+            case Opcode.op_isub:
+            case Opcode.op_lsub:
+            case Opcode.op_ior:
+            case Opcode.op_lor:
+            case Opcode.op_ixor:
+            case Opcode.op_lxor:
+                return k == 0 ? a : null;
+            case Opcode.op_imul:
+            case Opcode.op_lmul:
+                return k == 1 ? a : k == 0 ? b : null;
+            case Opcode.op_idiv:
+            case Opcode.op_ldiv:
+                return k == 1 ? a : null;
+            case Opcode.op_iand:
+            case Opcode.op_land:
+                return k == -1 ? a : k == 0 ? b : null;
+            case Opcode.op_ishl:
+            case Opcode.op_ishr:
+            case Opcode.op_iushr:
+                return (k & 0x1F) == 0 ? a : null;
+            case Opcode.op_lshl:
+            case Opcode.op_lshr:
+            case Opcode.op_lushr:
+                return (k & 0x3F) == 0 ? a : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @Description: 计算常量运算的结果，语义同对应的字节码指令
+     * @Param op 算术、类型转换或比较指令
+     * @Param a 第一个操作数
+     * @Param b 第二个操作数，单操作数的指令为null
+     * @return: java.lang.Object 结果，不能计算时返回null
+     */
+    private static Object evaluate(int op, Object a, Object b) {
+        if (op >= Opcode.op_i2l && op <= Opcode.op_i2s) {
+            return convert(op, (Number) a);
+        }
+        if (a instanceof Integer) {
+            return evaluateInt(op, (Integer) a, b == null ? 0 : (Integer) b);
+        }
+        if (a instanceof Long) {
+            if (op == Opcode.op_lcmp) {
+                return Long.compare((Long) a, (Long) b);
+            }
+            long y = b == null ? 0 : ((Number) b).longValue();
+            return evaluateLong(op, (Long) a, y);
+        }
+        if (a instanceof Float) {
+            float x = (Float) a;
+            float y = b == null ? 0 : (Float) b;
+            switch (op) {
+                case Opcode.op_fcmpl:
+                case Opcode.op_fcmpg:
+                    return Float.isNaN(x) || Float.isNaN(y) ? (op == Opcode.op_fcmpg ? 1 : -1) : x == y ? 0 : x < y ? -1 : 1;
+                case Opcode.op_fadd:
+                    return x + y;
+                case Opcode.op_fsub:
+                    return x - y;
+                case Opcode.op_fmul:
+                    return x * y;
+                case Opcode.op_fdiv:
+                    return x / y;
+                case Opcode.op_frem:
+                    return x % y;
+                case Opcode.op_fneg:
+                    return -x;
+                default:
+                    return null;
+            }
+        }
+        if (a instanceof Double) {
+            double x = (Double) a;
+            double y = b == null ? 0 : (Double) b;
+            switch (op) {
+                case Opcode.op_dcmpl:
+                case Opcode.op_dcmpg:
+                    return Double.isNaN(x) || Double.isNaN(y) ? (op == Opcode.op_dcmpg ? 1 : -1) : x == y ? 0 : x < y ? -1 : 1;
+                case Opcode.op_dadd:
+                    return x + y;
+                case Opcode.op_dsub:
+                    return x - y;
+                case Opcode.op_dmul:
+                    return x * y;
+                case Opcode.op_ddiv:
+                    return x / y;
+                case Opcode.op_drem:
+                    return x % y;
+                case Opcode.op_dneg:
+                    return -x;
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    private static Object evaluateInt(int op, int x, int y) {
+        switch (op) {
+            case Opcode.op_iadd:
+                return x + y;
+            case Opcode.op_isub:
+                return x - y;
+            case Opcode.op_imul:
+                return x * y;
+            case Opcode.op_idiv:
+                return y == 0 ? null : x / y;
+            case Opcode.op_irem:
+                return y == 0 ? null : x % y;
+            case Opcode.op_ineg:
+                return -x;
+            case Opcode.op_ishl:
+                return x << y;
+            case Opcode.op_ishr:
+                return x >> y;
+            case Opcode.op_iushr:
+                return x >>> y;
+            case Opcode.op_iand:
+                return x & y;
+            case Opcode.op_ior:
+                return x | y;
+            case Opcode.op_ixor:
+                return x ^ y;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @Description: long运算，移位指令的第二个操作数为int，已转换为long
+     */
+    private static Object evaluateLong(int op, long x, long y) {
+        switch (op) {
+            case Opcode.op_ladd:
+                return x + y;
+            case Opcode.op_lsub:
+                return x - y;
+            case Opcode.op_lmul:
+                return x * y;
+            case Opcode.op_ldiv:
+                return y == 0 ? null : x / y;
+            case Opcode.op_lrem:
+                return y == 0 ? null : x % y;
+            case Opcode.op_lneg:
+                return -x;
+            case Opcode.op_lshl:
+                return x << y;
+            case Opcode.op_lshr:
+                return x >> y;
+            case Opcode.op_lushr:
+                return x >>> y;
+            case Opcode.op_land:
+                return x & y;
+            case Opcode.op_lor:
+                return x | y;
+            case Opcode.op_lxor:
+                return x ^ y;
+            default:
+                return null;
+        }
+    }
+
+    private static Object convert(int op, Number a) {
+        switch (op) {
+            case Opcode.op_i2l:
+            case Opcode.op_f2l:
+            case Opcode.op_d2l:
+                return a instanceof Float ? (long) a.floatValue() : a instanceof Double ? (long) a.doubleValue() : a.longValue();
+            case Opcode.op_i2f:
+            case Opcode.op_l2f:
+            case Opcode.op_d2f:
+                return a.floatValue();
+            case Opcode.op_i2d:
+            case Opcode.op_l2d:
+            case Opcode.op_f2d:
+                return a.doubleValue();
+            case Opcode.op_l2i:
+            case Opcode.op_f2i:
+            case Opcode.op_d2i:
+                return a instanceof Float ? (int) a.floatValue() : a instanceof Double ? (int) a.doubleValue() : a.intValue();
+            case Opcode.op_i2b:
+                return (int) (byte) a.intValue();
+            case Opcode.op_i2c:
+                return (int) (char) a.intValue();
+            default:
+                return (int) (short) a.intValue();
+        }
+    }
+
+    /**
+     * @Description: 条件跳转的条件能否在编译时确定
+     * @return: int 条件成立为1，不成立为0，不能确定为-1
+     */
+    private static int condition(int op, Node a, Node b) {
+        switch (op) {
+            case Opcode.op_ifnull:
+            case Opcode.op_ifnonnull: {
+                int isNull = a.isConstant() ? (a.constant == null ? 1 : 0) : isAllocation(a) ? 0 : -1;
+                return isNull < 0 ? -1 : op == Opcode.op_ifnull ? isNull : 1 - isNull;
+            }
+            case Opcode.op_if_acmpeq:
+            case Opcode.op_if_acmpne: {
+                int same = a == b ? 1 : a.isConstant() && b.isConstant() ? 0 : -1;
+                return same < 0 ? -1 : op == Opcode.op_if_acmpeq ? same : 1 - same;
+            }
+            default:
+        }
+        int cmp;
+        if (op <= Opcode.op_ifle) {
+            if (!a.isConstant()) {
+                return -1;
+            }
+            cmp = Integer.compare((Integer) a.constant, 0);
+            op += Opcode.op_if_icmpeq - Opcode.op_ifeq;
+        } else if (a == b) {
+            cmp = 0;
+        } else if (a.isConstant() && b.isConstant()) {
+            cmp = Integer.compare((Integer) a.constant, (Integer) b.constant);
+        } else {
+            return -1;
+        }
+        boolean result;
+        switch (op) {
+            case Opcode.op_if_icmpeq:
+                result = cmp == 0;
+                break;
+            case Opcode.op_if_icmpne:
+                result = cmp != 0;
+                break;
+            case Opcode.op_if_icmplt:
+                result = cmp < 0;
+                break;
+            case Opcode.op_if_icmpge:
+                result = cmp >= 0;
+                break;
+            case Opcode.op_if_icmpgt:
+                result = cmp > 0;
+                break;
+            default:
+                result = cmp <= 0;
+        }
+        return result ? 1 : 0;
+    }
+
+    /**
+     * @Description: 新创建的对象或数组，必不为null
+     */
+    private static boolean isAllocation(Node n) {
+        return n.op == Opcode.op_new || n.op == Opcode.op_newarray || n.op == Opcode.op_anewarray || n.op == Opcode.op_multianewarray;
+    }
+
+    private Node zero(char kind) {
+        return kind == 'J' ? graph.constant('J', 0L) : graph.constant('I', 0);
+    }
+
+    private static boolean isCommutative(int op) {
+        switch (op) {
+            case Opcode.op_iadd:
+            case Opcode.op_ladd:
+            case Opcode.op_imul:
+            case Opcode.op_lmul:
+            case Opcode.op_iand:
+            case Opcode.op_land:
+            case Opcode.op_ior:
+            case Opcode.op_lor:
+            case Opcode.op_ixor:
+            case Opcode.op_lxor:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @Description: 块出口的条件可在编译时确定时改为跳转，删除不再经过的出边
+     */
+    private boolean foldBranch(Block b) {
+        Node t = b.terminator();
+        int taken = -1;
+        if (t.op == SsaGraph.SWITCH) {
+            if (t.in[0].isConstant()) {
+                int i = Arrays.binarySearch((int[]) t.constant, (Integer) t.in[0].constant);
+                taken = i < 0 ? 0 : i + 1;
+            }
+        } else if (t.op >= Opcode.op_ifeq && t.op <= Opcode.op_if_acmpne || t.op == Opcode.op_ifnull || t.op == Opcode.op_ifnonnull) {
+            int result = condition(t.op, t.in[0], t.in.length > 1 ? t.in[1] : null);
+            if (result >= 0) {
+                taken = result == 1 ? 0 : 1;
+            }
+        }
+        if (taken < 0) {
+            return false;
+        }
+        for (int i = b.succs.size() - 1; i >= 0; i--) {
+            if (i != taken) {
+                SsaGraph.removeEdge(b, i);
+            }
+        }
+        t.op = Opcode.op_goto;
+        t.in = new Node[0];
+        t.constant = null;
+        return true;
+    }
+
+    /**
+     * @Description: 公共子表达式消除：沿支配树遍历，纯节点与支配它的等价节点（操作、操作数及输入均相同）合并
+     * @return: boolean 是否合并了节点
+     */
+    private boolean eliminateCommonSubexpressions() {
+        boolean changed = false;
+        Map<Key, Node> available = new HashMap<>();
+        List<Block> stack = new ArrayList<>();
+        List<List<Key>> added = new ArrayList<>();
+        stack.add(graph.entry);
+        added.add(null);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            Block b = stack.get(top);
+            if (added.get(top) != null) {
+                for (Key k : added.get(top)) {
+                    available.remove(k);
+                }
+                stack.remove(top);
+                added.remove(top);
+                continue;
+            }
+            List<Key> keys = new ArrayList<>();
+            added.set(top, keys);
+            for (Node n : b.nodes) {
+                if (n.op == SsaGraph.PHI || n.op == SsaGraph.COPY || !isPure(n)) {
+                    continue;
+                }
+                Key k = new Key(n);
+                Node existing = available.get(k);
+                if (existing != null) {
+                    n.op = SsaGraph.COPY;
+                    n.in = new Node[]{existing};
+                    n.constant = null;
+                    changed = true;
+                } else {
+                    available.put(k, n);
+                    keys.add(k);
+                }
+            }
+            for (Block c : b.children) {
+                stack.add(c);
+                added.add(null);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @Description: 删除无用节点：从不可删除的节点出发标记其直接、间接使用的节点，其余可删除的节点被删除
+     */
+    private void eliminateDeadCode() {
+        boolean[] live = new boolean[graph.nodeCount()];
+        List<Node> work = new ArrayList<>();
+        for (Block b : graph.blocks) {
+            for (Node n : b.nodes) {
+                if (!isRemovable(n)) {
+                    live[n.id] = true;
+                    work.add(n);
+                }
+            }
+        }
+        while (!work.isEmpty()) {
+            Node n = work.remove(work.size() - 1);
+            for (Node in : n.in) {
+                if (!live[in.id]) {
+                    live[in.id] = true;
+                    work.add(in);
+                }
+            }
+        }
+        for (Block b : graph.blocks) {
+            b.nodes.removeIf(n -> !live[n.id]);
+        }
+    }
+
+    /**
+     * @Description: 公共子表达式消除中节点的等价键：操作、种类、整数操作数、编译时操作数（按引用比较）及输入（按引用比较，可交换运算的输入按编号排序）
+     */
+    private static final class Key {
+        private final int op;
+        private final char kind;
+        private final int aux;
+        private final Object constant;
+        private final Node[] in;
+        private final int hash;
+
+        Key(Node n) {
+            this.op = n.op;
+            this.kind = n.kind;
+            this.aux = n.aux;
+            this.constant = n.constant;
+            this.in = n.in.clone();
+            if (isCommutative(op) && in[0].id > in[1].id) {
+                Node t = in[0];
+                in[0] = in[1];
+                in[1] = t;
+            }
+            int h = op * 31 + kind;
+            h = h * 31 + aux;
+            h = h * 31 + System.identityHashCode(constant);
+            for (Node i : in) {
+                h = h * 31 + i.id;
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            if (op != k.op || kind != k.kind || aux != k.aux || constant != k.constant || in.length != k.in.length) {
+                return false;
+            }
+            for (int i = 0; i < in.length; i++) {
+                if (in[i] != k.in[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
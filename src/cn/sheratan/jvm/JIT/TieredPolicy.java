@@ -0,0 +1,207 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Thread;
+import cn.sheratan.jvm.VM;
+
+/**
+ * @Description: 分层编译策略。方法先由解释器执行（第0层），解释器与编译代码在调用时累计方法的调用次数，解释器在回边处累计各循环的执行次数：
+ * 调用次数达到第1层阈值时编译为闭包树，不生成宿主类，其虚方法调用节点依据接收者类型改写自身，并将接收者类型记录到调用点的内联缓存中作为剖析信息；
+ * 达到第2层阈值时依据剖析信息重新编译为宿主字节码（内联小方法，并在SSA中间表示上优化，见SsaOptimizer）；单个循环的回边次数达到栈上替换阈值时，
+ * 以该循环头为入口编译方法，解释器在下一次回边时直接转入编译代码继续执行，长时间运行的循环（如main中的循环）无需等待方法再次被调用。
+ * 禁止在运行时定义类（见VM.Config.jitClassGeneration）时不编译第2层，方法停留在第1层，栈上替换同样使用闭包树。
+ * 轨迹模式下循环头另行累计回边次数，达到轨迹阈值时先记录一次迭代实际执行的路径（包括经过的被调用方法）并编译为轨迹代码（见TraceCode），
+ * 之后在该循环头处执行轨迹直至侧出口；多次记录或编译失败、或轨迹总是在第一次迭代中离开的循环头放弃轨迹，仍由栈上替换处理
+ * @Author aries
+ * @Data 2026-10-18 09:27
+ */
+public final class TieredPolicy {
+
+    /**
+     * @Description: 宿主栈上同时执行的编译代码的最大嵌套层数。编译代码之间的调用占用宿主栈，
+     * 超出该层数的调用改为解释执行（解释器的栈帧不占用宿主栈），深度递归时不会耗尽宿主栈
+     */
+    private static final int MAX_NESTING = 256;
+
+    /**
+     * @Description: 单个循环头最多尝试记录轨迹的次数
+     */
+    private static final int MAX_TRACE_ATTEMPTS = 3;
+
+    private final int tier1Threshold;
+    private final int tier2Threshold;
+    private final int osrThreshold;
+    private final boolean classGeneration;
+    private final boolean tracing;
+    private final int traceThreshold;
+
+    private final MethodCompiler compiler;
+
+    /**
+     * @Description: 当前线程宿主栈上正在执行的编译代码层数
+     */
+    private int nesting;
+
+    /**
+     * @Description: 是否正在记录轨迹，此时被调用方法一律解释执行，以便记录其中的路径
+     */
+    private boolean recording;
+
+    public TieredPolicy(VM.Config config) {
+        this.tier1Threshold = config.getJitThreshold();
+        this.tier2Threshold = config.getJitTier2Threshold();
+        this.osrThreshold = config.getJitOsrThreshold();
+        this.classGeneration = config.isJitClassGeneration();
+        this.tracing = config.isJitTracing();
+        this.traceThreshold = config.getJitTraceThreshold();
+        this.compiler = new MethodCompiler(config.isJitOptimization());
+    }
+
+    /**
+     * @Description: 记录一次方法调用，调用次数达到阈值时编译（或重新编译）该方法
+     * @Param method 被调用的非本地方法
+     * @return: cn.sheratan.jvm.JIT.CompiledMethod 方法当前的编译代码，未编译时为null
+     */
+    public CompiledMethod onInvoke(Method method) {
+        if (recording) {
+            return null;
+        }
+        int count = method.incrementInvocationCount();
+        int tier = method.getCompiledTier();
+        if (tier < 2 && !method.isNotCompilable()) {
+            if (classGeneration && count >= tier2Threshold) {
+                compile(method, 2);
+            } else if (tier == 0 && count >= tier1Threshold) {
+                compile(method, 1);
+            }
+        }
+        return method.getCompiledMethod();
+    }
+
+    /**
+     * @Description: 第2层编译失败时保留已有的第1层代码（尚未编译时改为编译第1层），之后不再尝试编译
+     */
+    private void compile(Method method, int tier) {
+        CompiledMethod compiled = compiler.compile(method, tier, -1);
+        if (compiled == null && tier == 2 && method.getCompiledTier() == 0) {
+            tier = 1;
+            compiled = compiler.compile(method, tier, -1);
+        }
+        if (compiled == null) {
+            method.setNotCompilable();
+            return;
+        }
+        method.setCompiledMethod(compiled);
+        method.setCompiledTier(tier);
+    }
+
+    /**
+     * @Description: 记录一次回边，回边次数达到阈值时以循环头为入口编译方法。只是该入口不可用时放弃该循环头，
+     * 方法本身不可编译（如含不支持的指令）时标记整个方法，不再在其他循环头或调用时重复尝试
+     * @Param method 循环所在方法
+     * @Param target 回边的目标，即循环头的指令流下标
+     * @return: cn.sheratan.jvm.JIT.CompiledMethod 以该循环头为入口的编译代码，未编译时为null
+     */
+    public CompiledMethod onBackedge(Method method, int target) {
+        MethodProfile profile = profileOf(method);
+        CompiledMethod osr = profile.getOsrMethod(target);
+        if (osr != null || profile.incrementBackedgeCount(target) < osrThreshold) {
+            return osr;
+        }
+        if (!method.isNotCompilable()) {
+            int bci = method.getDecodedCode().toBci(target);
+            osr = classGeneration ? compiler.compile(method, 2, bci) : null;
+            if (osr == null) {
+                try {
+                    osr = compiler.tryCompile(method, 1, bci);
+                } catch (BailoutException e) {
+                    if (!e.isEntryOnly()) {
+                        method.setNotCompilable();
+                    }
+                }
+            }
+        }
+        if (osr == null) {
+            profile.disableOsr(target);
+        } else {
+            profile.setOsrMethod(target, osr);
+        }
+        return osr;
+    }
+
+    public boolean isTracing() {
+        return tracing;
+    }
+
+    /**
+     * @Description: 轨迹模式下记录一次回边：循环头已有轨迹时执行轨迹直至侧出口；回边次数达到轨迹阈值时逐条执行并记录一次循环迭代，
+     * 回到循环头时编译记录的轨迹。执行或记录时抛出异常，栈顶栈帧的pc指向出错指令的下一个下标（同指令表方式）
+     * @Param frame 循环所在方法的栈帧，pc已指向循环头且操作数栈为空
+     * @Param target 循环头的指令流下标
+     * @return: boolean 是否已执行轨迹或记录，此时线程栈已改变，解释器应从栈顶栈帧继续执行
+     */
+    public boolean onLoopHeader(Frame frame, int target) {
+        Method method = frame.getfMethod();
+        MethodProfile profile = profileOf(method);
+        TraceCode trace = profile.getTrace(target);
+        if (trace != null) {
+            if (!enter()) {
+                return false;
+            }
+            int iterations;
+            try {
+                iterations = trace.run(frame);
+            } finally {
+                exit();
+            }
+            if (trace.isUnstable(iterations)) {
+                profile.setTrace(target, null);
+                profile.disableTracing(target);
+            }
+            return true;
+        }
+        if (recording || profile.incrementTraceCount(target) < traceThreshold) {
+            return false;
+        }
+        Thread thread = frame.getfThread();
+        TraceRecorder recorder = new TraceRecorder(method, target, thread.depth());
+        recording = true;
+        try {
+            thread.record(recorder, thread.depth());
+            trace = compiler.compileTrace(recorder);
+        } finally {
+            recording = false;
+            if (trace != null) {
+                profile.setTrace(target, trace);
+            } else if (profile.traceFailed(target) == MAX_TRACE_ATTEMPTS) {
+                profile.disableTracing(target);
+            }
+        }
+        return true;
+    }
+
+    private static MethodProfile profileOf(Method method) {
+        MethodProfile profile = method.getProfile();
+        if (profile == null) {
+            profile = new MethodProfile(method);
+            method.setProfile(profile);
+        }
+        return profile;
+    }
+
+    /**
+     * @Description: 进入编译代码，嵌套层数已达上限时返回false，调用者应改为解释执行；返回true时须在编译代码返回后调用exit
+     */
+    public boolean enter() {
+        if (nesting == MAX_NESTING) {
+            return false;
+        }
+        nesting++;
+        return true;
+    }
+
+    public void exit() {
+        nesting--;
+    }
+}
@@ -0,0 +1,334 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.GuestException;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Thread;
+import cn.sheratan.jvm.JIT.ClosureNodes.Context;
+import cn.sheratan.jvm.JIT.ClosureNodes.ExitNode;
+import cn.sheratan.jvm.JIT.ClosureNodes.StmtNode;
+
+/**
+ * @Description: 轨迹代码：循环的一次迭代沿记录的路径编译为线性的节点序列（见TraceCompiler），从循环头开始反复执行，直到某个守卫失败。
+ * 与闭包树相同，代码直接读写线程栈中的局部变量与操作数栈。轨迹经过的被调用方法不生成独立的编译代码，也不立即压入栈帧：
+ * 其局部变量表即调用者操作数栈中参数起始处（与解释执行时位置相同），以相对调用者的固定偏移访问，返回值写回同一位置。
+ * 只有在需要栈帧时（调用其他方法、类初始化等，以及离开轨迹或抛出异常时）才由外向内依次压入各层的栈帧并设置调用者的pc，
+ * 此后栈帧的状态与解释执行时一致。
+ * 条件跳转与switch的实际目标不同于记录时即从侧出口离开轨迹：压入尚未压入的栈帧后，将当前栈帧的pc指向实际要执行的指令并设置栈顶指针，
+ * 由解释器从线程栈顶栈帧继续执行；虚方法调用的接收者类型不同于记录时改为普通调用，之后回到轨迹（见Call）
+ * @Author aries
+ * @Data 2026-10-18 11:44
+ */
+final class TraceCode {
+
+    /**
+     * @Description: 连续多少次执行均未完成一次迭代即离开轨迹时，视为轨迹不再符合实际路径
+     */
+    private static final int MAX_EARLY_EXITS = 64;
+
+    private final Node[] nodes;
+
+    /**
+     * @Description: 轨迹经过的调用层数（含循环所在方法）
+     */
+    private final int levels;
+
+    /**
+     * @Description: 连续未完成一次迭代即离开轨迹的次数
+     */
+    private int earlyExits;
+
+    TraceCode(Node[] nodes, int levels) {
+        this.nodes = nodes;
+        this.levels = levels;
+    }
+
+    /**
+     * @Description: 从循环头开始执行轨迹直到侧出口。抛出异常时先压入尚未压入的栈帧，再将出错节点所在栈帧的pc指向出错指令所在块的下一个下标
+     * （同指令表方式），宿主异常转换为虚拟机异常后由解释器查找处理器
+     * @Param frame 循环所在方法的栈帧，pc指向循环头，操作数栈为空
+     * @return: int 完成的迭代次数
+     */
+    int run(Frame frame) {
+        Run r = new Run(frame, levels);
+        int iterations = 0;
+        try {
+            while (true) {
+                for (r.pc = 0; r.pc < nodes.length; r.pc++) {
+                    if (!nodes[r.pc].exec(r)) {
+                        return iterations;
+                    }
+                }
+                iterations++;
+            }
+        } catch (RuntimeException e) {
+            Node node = nodes[r.pc];
+            Frame f = r.materialize(node.level);
+            f.jumpTo(f.getfCode().toIndex(node.bci) + 1);
+            throw e instanceof GuestException ? e : new GuestException(r.thread.toThrowable(e, -1));
+        }
+    }
+
+    /**
+     * @Description: 记录一次执行完成的迭代次数
+     * @return: boolean 轨迹是否已连续多次在第一次迭代中离开，此时应放弃该轨迹
+     */
+    boolean isUnstable(int iterations) {
+        earlyExits = iterations == 0 ? earlyExits + 1 : 0;
+        return earlyExits == MAX_EARLY_EXITS;
+    }
+
+    /**
+     * @Description: 一次执行的状态：各调用层次的上下文、进入各层的调用节点，以及已压入栈帧的层次（总是从第0层开始连续的若干层）
+     */
+    static final class Run {
+        final Context[] contexts;
+        final Call[] calls;
+        final Thread thread;
+
+        /**
+         * @Description: 已压入栈帧的最深层次
+         */
+        int materialized;
+
+        /**
+         * @Description: 正在执行的节点下标
+         */
+        int pc;
+
+        Run(Frame frame, int levels) {
+            this.contexts = new Context[levels];
+            this.calls = new Call[levels];
+            this.thread = frame.getfThread();
+            contexts[0] = new Context(frame);
+        }
+
+        /**
+         * @Description: 压入直到指定层次的栈帧：调用者的栈顶指针指向参数之后、pc指向调用指令的下一条指令，
+         * 新栈帧的局部变量表即参数所在位置，其中已有的值保持不变
+         * @return: cn.sheratan.jvm.Frame 该层次的栈帧
+         */
+        Frame materialize(int level) {
+            while (materialized < level) {
+                Call call = calls[materialized + 1];
+                Context caller = contexts[materialized];
+                caller.setStackTop(call.top);
+                caller.frame.jumpTo(call.returnIndex);
+                contexts[++materialized] = new Context(thread.pushFrame(call.method, call.argCount));
+            }
+            return contexts[level].frame;
+        }
+    }
+
+    /**
+     * @Description: 轨迹节点
+     */
+    abstract static class Node {
+
+        /**
+         * @Description: 节点所在的调用层次，即执行时使用的上下文
+         */
+        final int level;
+
+        /**
+         * @Description: 节点中的指令所在块的某条指令（字节码偏移值），抛出异常时依此查找处理器
+         */
+        final int bci;
+
+        Node(int level, int bci) {
+            this.level = level;
+            this.bci = bci;
+        }
+
+        /**
+         * @return: boolean 继续执行下一节点时为true，从侧出口离开轨迹时为false
+         */
+        abstract boolean exec(Run r);
+    }
+
+    /**
+     * @Description: 顺序执行的语句
+     */
+    static final class Statements extends Node {
+        private final StmtNode[] stmts;
+
+        Statements(int level, int bci, StmtNode[] stmts) {
+            super(level, bci);
+            this.stmts = stmts;
+        }
+
+        @Override
+        boolean exec(Run r) {
+            Context c = r.contexts[level];
+            for (StmtNode stmt : stmts) {
+                stmt.exec(c);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @Description: 之后的语句需要栈帧（调用其他方法、可能初始化类的指令等），压入直到该层次的栈帧
+     */
+    static final class Materialize extends Node {
+
+        Materialize(int level, int bci) {
+            super(level, bci);
+        }
+
+        @Override
+        boolean exec(Run r) {
+            r.materialize(level);
+            return true;
+        }
+    }
+
+    /**
+     * @Description: 守卫：条件跳转或switch的出口节点求得实际目标，与记录的目标不同时从该目标离开轨迹
+     */
+    static final class Guard extends Node {
+        private final ExitNode exit;
+        private final int expected;
+
+        /**
+         * @Description: 跳转后的栈顶（相对局部变量表起始处）
+         */
+        private final int top;
+
+        Guard(int level, int bci, ExitNode exit, int expected, int top) {
+            super(level, bci);
+            this.exit = exit;
+            this.expected = expected;
+            this.top = top;
+        }
+
+        @Override
+        boolean exec(Run r) {
+            int target = exit.next(r.contexts[level]);
+            if (target == expected) {
+                return true;
+            }
+            Frame f = r.materialize(level);
+            f.jumpTo(f.getfCode().toIndex(target));
+            r.contexts[level].setStackTop(top);
+            return false;
+        }
+    }
+
+    /**
+     * @Description: 进入轨迹经过的被调用方法：参数已写入操作数栈顶，静态方法先检查其类已初始化，另需线程栈有足够空间，
+     * 不满足时从调用指令离开轨迹，由解释器重新执行调用；之后以参数起始处为局部变量表继续执行。
+     * 虚方法调用先检查接收者类型，不同于记录时不离开轨迹，而是压入栈帧后经CallNode调用实际的目标方法，
+     * 返回值由其压入操作数栈，之后跳过被调用方法中的路径，从对应的返回节点之后继续
+     */
+    static final class Call extends Node {
+        final Method method;
+        final int argCount;
+
+        /**
+         * @Description: 参数之后的栈顶（相对局部变量表起始处）
+         */
+        final int top;
+
+        /**
+         * @Description: 参数起始处（相对局部变量表起始处），即被调用方法的局部变量表
+         */
+        private final int argBase;
+
+        /**
+         * @Description: 被调用方法的局部变量表与操作数栈所占的slot数量
+         */
+        private final int frameSize;
+
+        /**
+         * @Description: 记录时的接收者类型，不需要检查时为null
+         */
+        private final Class receiverClass;
+
+        /**
+         * @Description: invokestatic的目标类，其余为null
+         */
+        private final Class staticClass;
+
+        /**
+         * @Description: 调用指令及其下一条指令的指令流下标
+         */
+        private final int invokeIndex;
+        final int returnIndex;
+
+        /**
+         * @Description: 接收者类型不同于记录时的调用节点，其余为null
+         */
+        private final CallNode dispatch;
+
+        /**
+         * @Description: 对应的返回节点之后的节点下标
+         */
+        int skip;
+
+        Call(int level, int bci, Method method, int argCount, int argBase, Class receiverClass, CallNode dispatch,
+             Class staticClass, int invokeIndex, int returnIndex) {
+            super(level, bci);
+            this.method = method;
+            this.argCount = argCount;
+            this.argBase = argBase;
+            this.top = argBase + argCount;
+            this.frameSize = method.getCodeAttribute().getMaxLocals() + method.getCodeAttribute().getMaxStack();
+            this.receiverClass = receiverClass;
+            this.dispatch = dispatch;
+            this.staticClass = staticClass;
+            this.invokeIndex = invokeIndex;
+            this.returnIndex = returnIndex;
+        }
+
+        @Override
+        boolean exec(Run r) {
+            Context c = r.contexts[level];
+            Object receiver = receiverClass != null ? c.refs[c.lb + argBase] : null;
+            if (receiverClass != null && JitRuntime.receiverClass(receiver) != receiverClass) {
+                Frame f = r.materialize(level);
+                r.contexts[level].setStackTop(top);
+                dispatch.call(f, receiver);
+                r.pc = skip - 1;
+                return true;
+            }
+            if ((staticClass != null && !staticClass.isStaticInited()) || c.lb + argBase + frameSize > c.vals.length) {
+                Frame f = r.materialize(level);
+                f.jumpTo(invokeIndex);
+                r.contexts[level].setStackTop(top);
+                return false;
+            }
+            r.calls[level + 1] = this;
+            r.contexts[level + 1] = new Context(c, argBase);
+            return true;
+        }
+    }
+
+    /**
+     * @Description: 从轨迹经过的被调用方法返回：返回值已写入调用者的操作数栈，已压入栈帧时弹出，调用者的栈顶指针指向返回值之后
+     */
+    static final class Return extends Node {
+
+        /**
+         * @Description: 返回值所占的slot数量
+         */
+        private final int size;
+
+        Return(int level, int bci, int size) {
+            super(level, bci);
+            this.size = size;
+        }
+
+        @Override
+        boolean exec(Run r) {
+            if (r.materialized == level) {
+                r.thread.popFrame();
+                r.materialized--;
+                Context caller = r.contexts[level - 1];
+                caller.frame.setfStackPos(r.contexts[level].lb + size);
+            }
+            return true;
+        }
+    }
+}
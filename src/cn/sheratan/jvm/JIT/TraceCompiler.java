@@ -0,0 +1,283 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Instruction.DecodedCode;
+import cn.sheratan.jvm.JIT.ClosureNodes.ExitNode;
+import cn.sheratan.jvm.JIT.ClosureNodes.StmtNode;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 轨迹编译器。从循环头开始沿记录的路径（见TraceRecorder）逐条编译指令，各指令借助所在方法的ClosureCompiler编译为闭包节点：
+ * 条件跳转与switch编译为守卫，其余目标作为侧出口；goto只按记录继续；记录中进入了被调用方法的调用指令编译为进入该方法的节点，
+ * 之后继续编译被调用方法中的路径，返回指令将返回值写入调用者的操作数栈后回到调用者；其余调用仍为普通调用，
+ * 在被调用方法中使用栈帧的指令之前插入压入栈帧的节点（见TraceCode）。
+ * 轨迹最后一步回到循环头，编译结果首尾相接。语句按块分段（见ClosureCompiler.isLeader），段末符号栈全部写回操作数栈，
+ * 因此每个守卫处栈帧的状态都与解释执行时一致
+ * @Author aries
+ * @Data 2026-10-18 11:44
+ */
+final class TraceCompiler {
+
+    private final TraceRecorder recorder;
+
+    /**
+     * @Description: 轨迹经过的各方法的编译器，同一方法在不同调用层次共用，每段开始时由已写回的状态继续
+     */
+    private final Map<Method, ClosureCompiler> compilers = new HashMap<>();
+
+    private final Level[] levels = new Level[TraceRecorder.MAX_LEVEL + 1];
+    private int levelCount;
+
+    private final List<TraceCode.Node> nodes = new ArrayList<>();
+
+    /**
+     * @Description: 编译到当前位置时已压入栈帧的最深层次（离开轨迹的路径除外）
+     */
+    private int materialized;
+
+    /**
+     * @Description: 调用层次的编译状态
+     */
+    private static final class Level {
+        final Method method;
+        final byte[] code;
+        final ClosureCompiler compiler;
+
+        /**
+         * @Description: 调用被轨迹经过的方法时，调用者弹出参数后操作数栈的状态、参数起始slot、被调用方法的描述符、调用指令的下一条指令及进入该方法的节点
+         */
+        String state;
+        int argBase;
+        String descriptor;
+        int returnBci;
+        TraceCode.Call call;
+
+        Level(Method method, ClosureCompiler compiler) {
+            this.method = method;
+            this.code = method.getCodeAttribute().getCode();
+            this.compiler = compiler;
+        }
+    }
+
+    TraceCompiler(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    TraceCode compile() throws BailoutException {
+        int header = recorder.getHeaderBci();
+        int level = 0;
+        Level current = enter(0, recorder.getMethod());
+        int k = step(0, 0, header);
+        int bci = header;
+        int segment = bci;
+        while (true) {
+            ClosureCompiler compiler = current.compiler;
+            if (bci >= recorder.nextBcis[k]) {
+                if (k + 1 == recorder.length && level == 0 && bci == header) {
+                    //顺序执行回到循环头
+                    close(compiler, segment);
+                    break;
+                }
+                k = step(k + 1, level, bci);
+            }
+            if (bci != segment && compiler.isLeader(bci)) {
+                compiler.spillAll();
+                flush(level, segment);
+                segment = bci;
+            }
+            int op = current.code[bci] & 0xFF;
+            int next = bci + Bytecodes.length(current.code, bci);
+            if (op >= Opcode.op_invokevirtual && op <= Opcode.op_invokeinterface
+                    && k + 1 < recorder.length && recorder.levels[k + 1] == level + 1) {
+                call(current, level, op, bci, next, segment, k + 1);
+                current = levels[++level];
+                k = step(k + 1, level, 0);
+                bci = 0;
+                segment = 0;
+                continue;
+            }
+            if (op >= Opcode.op_ireturn && op <= Opcode.op_return) {
+                if (level == 0) {
+                    throw new IllegalStateException("trace returns from the loop");
+                }
+                int size = compiler.returnToCaller(op);
+                flush(level, segment);
+                nodes.add(new TraceCode.Return(level, segment, size));
+                materialized = Math.min(materialized, level - 1);
+                current = levels[--level];
+                current.call.skip = nodes.size();
+                current.compiler.resume(current.state);
+                current.compiler.pushResult(current.descriptor, current.argBase);
+                bci = current.returnBci;
+                k = step(k + 1, level, bci);
+                segment = bci;
+                continue;
+            }
+            if (op == Opcode.op_athrow) {
+                throw new BailoutException("athrow in trace");
+            }
+            if (level > materialized && needsFrame(current, op, bci)) {
+                flush(level, segment);
+                nodes.add(new TraceCode.Materialize(level, segment));
+                materialized = level;
+            }
+            ExitNode exit = compiler.translate(bci, next);
+            if (exit == null) {
+                bci = next;
+                continue;
+            }
+            //轨迹最后一步跳转回循环头
+            int target = k + 1 < recorder.length ? recorder.bcis[k + 1] : header;
+            flush(level, segment);
+            if (op == Opcode.op_goto || op == Opcode.op_goto_w) {
+                if (exit.next(null) != target) {
+                    throw new IllegalStateException("trace diverges at " + bci);
+                }
+            } else {
+                checkExit(current, op, bci);
+                nodes.add(new TraceCode.Guard(level, segment, exit, target, compiler.getMaxLocals() + compiler.stackDepth()));
+            }
+            if (k + 1 == recorder.length) {
+                if (level != 0 || target != header || compiler.stackDepth() != 0) {
+                    throw new IllegalStateException("trace does not end at the loop header");
+                }
+                break;
+            }
+            k = step(k + 1, level, target);
+            bci = target;
+            segment = bci;
+        }
+        return new TraceCode(nodes.toArray(new TraceCode.Node[0]), levelCount);
+    }
+
+    /**
+     * @Description: 轨迹中的下一步，须位于指定的调用层次及指令处
+     * @return: int 该步的下标
+     */
+    private int step(int k, int level, int bci) {
+        if (k >= recorder.length || recorder.levels[k] != level || recorder.bcis[k] != bci) {
+            throw new IllegalStateException("trace diverges at " + bci);
+        }
+        return k;
+    }
+
+    private Level enter(int level, Method method) throws BailoutException {
+        ClosureCompiler compiler = compilers.get(method);
+        if (compiler == null) {
+            compiler = new ClosureCompiler(method);
+            compiler.beginTrace();
+            compilers.put(method, compiler);
+        }
+        compiler.resume("");
+        levels[level] = new Level(method, compiler);
+        levelCount = Math.max(levelCount, level + 1);
+        return levels[level];
+    }
+
+    /**
+     * @Description: 进入轨迹经过的被调用方法：参数写入操作数栈顶，记录调用者的状态，生成进入该方法的节点
+     */
+    private void call(Level caller, int level, int op, int bci, int next, int segment, int k) throws BailoutException {
+        Class clazz = caller.method.getmClass();
+        int idx = Bytecodes.u2(caller.code, bci + 1);
+        Class.Symbol symbol = clazz.getConstantPoolCache().resolveMethod(idx);
+        Method callee = recorder.methods[k];
+        Class receiverClass = null;
+        CallNode dispatch = null;
+        if (op == Opcode.op_invokevirtual || op == Opcode.op_invokeinterface) {
+            receiverClass = recorder.receivers[k];
+            if (receiverClass == null) {
+                throw new BailoutException("receiver of " + callee + " is not an object");
+            }
+            dispatch = new CallNode(symbol, MethodProfile.receiverProfile(caller.method, op, bci));
+        } else if (symbol.method != callee) {
+            throw new IllegalStateException("trace diverges at " + bci);
+        }
+        ClosureCompiler compiler = caller.compiler;
+        int argBase = compiler.spillArguments(symbol.argCount);
+        caller.state = compiler.spillAll();
+        caller.argBase = argBase;
+        caller.descriptor = MethodTranslator.methodDescriptor(clazz, idx);
+        caller.returnBci = next;
+        flush(level, segment);
+        DecodedCode code = caller.method.getDecodedCode();
+        caller.call = new TraceCode.Call(level, bci, callee, symbol.argCount, compiler.getMaxLocals() + argBase, receiverClass,
+                dispatch, op == Opcode.op_invokestatic ? symbol.clazz : null, index(code, bci), index(code, next));
+        nodes.add(caller.call);
+        enter(level + 1, callee);
+    }
+
+    /**
+     * @Description: 指令编译后的节点是否使用栈帧：调用未被轨迹经过的方法、可能初始化类的静态字段存取与new、需要线程的类型检查与引用数组存储
+     */
+    private static boolean needsFrame(Level level, int op, int bci) {
+        Class clazz = level.method.getmClass();
+        switch (op) {
+            case Opcode.op_aastore:
+            case Opcode.op_checkcast:
+                return true;
+            case Opcode.op_getstatic:
+            case Opcode.op_putstatic:
+                return !clazz.getConstantPoolCache().resolveField(Bytecodes.u2(level.code, bci + 1)).getfClass().isStaticInited();
+            case Opcode.op_new: {
+                Class target = clazz.getConstantPoolCache().resolveClass(Bytecodes.u2(level.code, bci + 1));
+                return target == null || !target.isStaticInited();
+            }
+            case Opcode.op_invokevirtual:
+            case Opcode.op_invokespecial:
+            case Opcode.op_invokestatic:
+            case Opcode.op_invokeinterface: {
+                int idx = Bytecodes.u2(level.code, bci + 1);
+                Class.Symbol symbol = clazz.getConstantPoolCache().resolveMethod(idx);
+                return !MethodTranslator.isObjectInit(op, symbol, MethodTranslator.methodDescriptor(clazz, idx));
+            }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @Description: 检查条件跳转与switch的各个目标都是预解码指令流中的指令起始处，侧出口才能由此继续解释执行
+     */
+    private static void checkExit(Level level, int op, int bci) throws BailoutException {
+        DecodedCode code = level.method.getDecodedCode();
+        for (int target : Bytecodes.branchTargets(level.code, bci)) {
+            index(code, target);
+        }
+        if (op != Opcode.op_tableswitch && op != Opcode.op_lookupswitch) {
+            index(code, bci + Bytecodes.length(level.code, bci));
+        }
+    }
+
+    private static int index(DecodedCode code, int bci) throws BailoutException {
+        int index = code.toIndex(bci);
+        if (index < 0) {
+            throw new BailoutException("no instruction at " + bci);
+        }
+        return index;
+    }
+
+    private void close(ClosureCompiler compiler, int segment) {
+        if (!compiler.spillAll().isEmpty()) {
+            throw new IllegalStateException("trace does not end at the loop header");
+        }
+        flush(0, segment);
+    }
+
+    /**
+     * @Description: 将该层次已生成的语句作为一段加入轨迹
+     * @Param segment 段起始的指令，抛出异常时依此查找处理器
+     */
+    private void flush(int level, int segment) {
+        StmtNode[] stmts = levels[level].compiler.takeStatements();
+        if (stmts.length > 0) {
+            nodes.add(new TraceCode.Statements(level, segment, stmts));
+        }
+    }
+}
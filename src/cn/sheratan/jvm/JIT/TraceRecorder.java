@@ -0,0 +1,136 @@
+package cn.sheratan.jvm.JIT;
+
+import cn.sheratan.jvm.Class;
+import cn.sheratan.jvm.Frame;
+import cn.sheratan.jvm.Method;
+import cn.sheratan.jvm.Instruction.DecodedCode;
+
+/**
+ * @Description: 轨迹记录器。循环头的回边次数达到阈值后，线程逐条执行指令（见Thread.record），记录器在每条指令执行前记录其所在的调用层次、
+ * 方法及指令范围，经过的被调用方法同样逐条执行并记录，从而得到一次循环迭代实际执行的路径；
+ * 执行在循环所在栈帧中回到循环头时记录结束，由TraceCompiler编译为轨迹代码。
+ * 路径过长、调用层次过深、经过其他循环（同一栈帧中向回跳转）或离开循环所在栈帧时放弃记录；指令抛出异常时记录随之中断
+ * @Author aries
+ * @Data 2026-10-18 11:44
+ */
+public final class TraceRecorder {
+
+    /**
+     * @Description: 轨迹最多包含的执行步数，超出时放弃记录
+     */
+    static final int MAX_LENGTH = 2000;
+
+    /**
+     * @Description: 轨迹最多经过的调用层数（循环所在方法为第0层）
+     */
+    static final int MAX_LEVEL = 8;
+
+    private final Method method;
+
+    /**
+     * @Description: 循环头的指令流下标
+     */
+    private final int header;
+
+    /**
+     * @Description: 循环所在栈帧的深度
+     */
+    private final int rootDepth;
+
+    /**
+     * @Description: 各步所在的调用层次、方法、起始指令的下标，以及顺序执行时下一条指令的下标（均为字节码偏移值）。
+     * 超级指令作为一步执行，其中包含多条指令
+     */
+    final int[] levels = new int[MAX_LENGTH];
+    final Method[] methods = new Method[MAX_LENGTH];
+    final int[] bcis = new int[MAX_LENGTH];
+    final int[] nextBcis = new int[MAX_LENGTH];
+
+    /**
+     * @Description: 进入被调用方法的第一步记录接收者所属类，作为虚方法调用内联时的守卫，其余步为null
+     */
+    final Class[] receivers = new Class[MAX_LENGTH];
+
+    int length;
+
+    /**
+     * @Description: 各调用层次上一步的指令流下标，用于发现向回跳转
+     */
+    private final int[] lastPcs = new int[MAX_LEVEL + 1];
+
+    private boolean closed;
+    private String abortReason;
+
+    TraceRecorder(Method method, int header, int rootDepth) {
+        this.method = method;
+        this.header = header;
+        this.rootDepth = rootDepth;
+    }
+
+    /**
+     * @Description: 记录即将执行的一条指令
+     * @Param frame 指令所在栈帧
+     * @Param pc 指令的指令流下标
+     * @Param depth 栈帧深度
+     * @return: boolean 是否继续记录，回到循环头或放弃记录时返回false
+     */
+    public boolean record(Frame frame, int pc, int depth) {
+        int level = depth - rootDepth;
+        if (level == 0 && pc == header && length > 0) {
+            closed = true;
+            return false;
+        }
+        if (length == MAX_LENGTH) {
+            return abort("longer than " + MAX_LENGTH + " steps");
+        }
+        if (level > MAX_LEVEL) {
+            return abort("deeper than " + MAX_LEVEL + " calls");
+        }
+        boolean entered = length > 0 && level > levels[length - 1];
+        if (!entered && length > 0 && pc <= lastPcs[level]) {
+            return abort("inner loop in " + frame.getfMethod());
+        }
+        lastPcs[level] = pc;
+
+        Method m = frame.getfMethod();
+        DecodedCode code = frame.getfCode();
+        int next = pc + DecodedCode.length(code.getInsts(), pc);
+        levels[length] = level;
+        methods[length] = m;
+        bcis[length] = code.toBci(pc);
+        nextBcis[length] = next < code.getInsts().length ? code.toBci(next) : m.getCodeAttribute().getCode().length;
+        receivers[length] = entered && !m.isStatic() ? (Class) JitRuntime.receiverClass(frame.loadRef(0)) : null;
+        length++;
+        return true;
+    }
+
+    private boolean abort(String reason) {
+        abortReason = reason;
+        return false;
+    }
+
+    /**
+     * @Description: 是否已回到循环头，得到完整的一次循环迭代
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @Description: 未完成记录的原因，执行离开循环所在栈帧（方法返回或异常）时为null
+     */
+    String getAbortReason() {
+        return abortReason;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @Description: 循环头的下标（字节码偏移值）
+     */
+    int getHeaderBci() {
+        return method.getDecodedCode().toBci(header);
+    }
+}
@@ -0,0 +1,233 @@
+package cn.sheratan.jvm;
+
+/**
+ * @Description: 数组对象。以数组类型描述符（如[I、[Ljava/lang/String;）作为类型头，元素直接存放在对应的宿主基本类型数组中，
+ * 不装箱为Slot：boolean与byte数组均以byte[]存放（同baload/bastore），引用类型数组以Object[]存放。
+ * 数组长度单独保存，越界检查由宿主数组完成，抛出的异常会被转换为虚拟机的ArrayIndexOutOfBoundsException
+ * @Author aries
+ * @Data 2026-10-18 07:59
+ */
+public final class LArray {
+
+    /**
+     * @Description: newarray指令的atype操作数取值，下标为atype
+     */
+    private static final char[] ATYPE_ELEMENTS = {0, 0, 0, 0, 'Z', 'C', 'F', 'D', 'B', 'S', 'I', 'J'};
+
+    /**
+     * @Description: 数组类型描述符
+     */
+    private final String lDescriptor;
+
+    /**
+     * @Description: 元素类型，即描述符的第二个字符，引用类型元素为'L'或'['
+     */
+    private final char lElementType;
+
+    /**
+     * @Description: 存放元素的宿主数组
+     */
+    private final Object lData;
+
+    private final int lLength;
+
+    /**
+     * @Description: 对象元素的元素类，首次进行数组存储检查时解析（见TypeCheck.checkArrayStore）
+     */
+    private Class lComponentClass;
+
+    /**
+     * @Description: 对象元素的类型名称，类为其全称，数组为其类型描述符，首次进行数组存储检查时计算
+     */
+    private String lComponentName;
+
+    /**
+     * @Description: 创建数组，元素为零值
+     * @Param descriptor 数组类型描述符
+     * @Param length 数组长度，为负数时宿主抛出NegativeArraySizeException
+     */
+    public LArray(String descriptor, int length) {
+        this.lDescriptor = descriptor;
+        this.lElementType = descriptor.charAt(1);
+        this.lLength = length;
+        switch (lElementType) {
+            case 'Z':
+            case 'B':
+                lData = new byte[length];
+                break;
+            case 'C':
+                lData = new char[length];
+                break;
+            case 'S':
+                lData = new short[length];
+                break;
+            case 'I':
+                lData = new int[length];
+                break;
+            case 'J':
+                lData = new long[length];
+                break;
+            case 'F':
+                lData = new float[length];
+                break;
+            case 'D':
+                lData = new double[length];
+                break;
+            default:
+                lData = new Object[length];
+        }
+    }
+
+    private LArray(LArray origin, Object data) {
+        this.lDescriptor = origin.lDescriptor;
+        this.lElementType = origin.lElementType;
+        this.lLength = origin.lLength;
+        this.lData = data;
+        this.lComponentClass = origin.lComponentClass;
+        this.lComponentName = origin.lComponentName;
+    }
+
+    /**
+     * @Description: 数组的clone：复制存放元素的宿主数组，引用类型元素为浅复制
+     */
+    public LArray copy() {
+        Object data;
+        switch (lElementType) {
+            case 'Z':
+            case 'B':
+                data = getBytes().clone();
+                break;
+            case 'C':
+                data = getChars().clone();
+                break;
+            case 'S':
+                data = getShorts().clone();
+                break;
+            case 'I':
+                data = getInts().clone();
+                break;
+            case 'J':
+                data = getLongs().clone();
+                break;
+            case 'F':
+                data = getFloats().clone();
+                break;
+            case 'D':
+                data = getDoubles().clone();
+                break;
+            default:
+                data = getRefs().clone();
+        }
+        return new LArray(this, data);
+    }
+
+    /**
+     * @Description: 按newarray指令的atype操作数创建基本类型数组
+     */
+    public static LArray ofAtype(int atype, int length) {
+        if (atype < 4 || atype >= ATYPE_ELEMENTS.length) {
+            throw new RuntimeException("illegal newarray type: " + atype);
+        }
+        return new LArray("[" + ATYPE_ELEMENTS[atype], length);
+    }
+
+    /**
+     * @Description: 创建多维数组，用于multianewarray。各维长度先全部检查，再逐层分配矩形数组；
+     * 维数少于数组类型的维数时，最内层的元素为null
+     * @Param descriptor 数组类型描述符
+     * @Param dims 各维长度
+     * @return: cn.sheratan.jvm.LArray
+     */
+    public static LArray multi(String descriptor, int[] dims) {
+        for (int dim : dims) {
+            if (dim < 0) {
+                throw new NegativeArraySizeException(String.valueOf(dim));
+            }
+        }
+        return multi(descriptor, dims, 0);
+    }
+
+    private static LArray multi(String descriptor, int[] dims, int d) {
+        LArray array = new LArray(descriptor, dims[d]);
+        if (d + 1 < dims.length) {
+            String component = descriptor.substring(1);
+            Object[] elements = array.getRefs();
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = multi(component, dims, d + 1);
+            }
+        }
+        return array;
+    }
+
+    public String getlDescriptor() {
+        return lDescriptor;
+    }
+
+    public char getElementType() {
+        return lElementType;
+    }
+
+    public int getLength() {
+        return lLength;
+    }
+
+    public Class getComponentClass() {
+        return lComponentClass;
+    }
+
+    public void setComponentClass(Class componentClass) {
+        this.lComponentClass = componentClass;
+    }
+
+    /**
+     * @Description: 对象元素的类型名称，元素类型为java/lang/Object时返回同一个字符串常量
+     */
+    public String getComponentName() {
+        if (lComponentName == null) {
+            if (lElementType == '[') {
+                lComponentName = lDescriptor.substring(1);
+            } else if ("[Ljava/lang/Object;".equals(lDescriptor)) {
+                lComponentName = "java/lang/Object";
+            } else {
+                lComponentName = lDescriptor.substring(2, lDescriptor.length() - 1);
+            }
+        }
+        return lComponentName;
+    }
+
+    public Object getData() {
+        return lData;
+    }
+
+    public byte[] getBytes() {
+        return (byte[]) lData;
+    }
+
+    public char[] getChars() {
+        return (char[]) lData;
+    }
+
+    public short[] getShorts() {
+        return (short[]) lData;
+    }
+
+    public int[] getInts() {
+        return (int[]) lData;
+    }
+
+    public long[] getLongs() {
+        return (long[]) lData;
+    }
+
+    public float[] getFloats() {
+        return (float[]) lData;
+    }
+
+    public double[] getDoubles() {
+        return (double[]) lData;
+    }
+
+    public Object[] getRefs() {
+        return (Object[]) lData;
+    }
+}
@@ -1,58 +1,88 @@
 package cn.sheratan.jvm;
 
-import org.freeinternals.format.classfile.FieldInfo;
-
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * @Description the representation of the Object
  * @Author aries
  * @Data 2019-04-29 16:10
  */
 public final class LObject {
+    private static final long[] NO_VALUES = new long[0];
+    private static final Object[] NO_REFS = new Object[0];
+
     /**
      * @Description: 指向对象所属class
      */
     private final Class lClazz;
 
     /**
-     * @Description: 实例字段
+     * @Description: 实例字段的数值部分，按字段偏移（Field.getOffset）存取。int、short、byte、char、boolean以符号扩展后的值存储，
+     * float与double保存其IEEE 754位模式
      */
-    private final Map<String, Object> insFields;
+    private final long[] lValues;
 
-    LObject(Class clazz) {
-        lClazz = clazz;
-        insFields = new HashMap<>();
-        initialize();
-    }
+    /**
+     * @Description: 实例字段的引用部分，按字段偏移存取
+     */
+    private final Object[] lRefs;
 
-    private void initialize() {
-        for (FieldInfo fieldInfo : lClazz.getClassFile().getFields()) {
-            //存入非static修饰的成员变量
-            if ((fieldInfo.getAccessFlags() & FieldInfo.ACC_STATIC) == 0) {
-                insFields.put(lClazz.getStringFromConstantPool(fieldInfo.getNameIndex()), null);
-            }
-        }
+    public LObject(Class clazz) {
+        lClazz = clazz;
+        //字段布局在链接阶段已计算完成（包括父类中声明的字段），此处只需按数量分配
+        int valueCount = clazz.getInstanceValueCount();
+        int refCount = clazz.getInstanceRefCount();
+        lValues = valueCount == 0 ? NO_VALUES : new long[valueCount];
+        lRefs = refCount == 0 ? NO_REFS : new Object[refCount];
     }
 
+    /**
+     * @Description: 按名称设置字段值（需按名称查找字段，仅供本地方法等非热点路径使用），long、double以Long传入，
+     * 其余基本类型以Integer传入（float为其位模式）
+     */
     public void setFieldValue(String key, java.lang.Object val) {
-        if (insFields.containsKey(key)) {
-            insFields.put(key, val);
+        Field field = getField(key);
+        if (field.isReference()) {
+            lRefs[field.getOffset()] = val;
+        } else if (field.getSlotSize() == 2) {
+            lValues[field.getOffset()] = val == null ? 0L : (Long) val;
         } else {
-            throw new RuntimeException("not exist the field name :" + key);
+            lValues[field.getOffset()] = val == null ? 0 : (Integer) val;
         }
     }
 
+    public boolean hasField(String key) {
+        return lClazz.findInstanceField(key) != null;
+    }
+
+    /**
+     * @Description: 按名称获取字段值，基本类型的装箱方式同setFieldValue
+     */
     public Object getFieldValue(String key) {
-        if (insFields.containsKey(key)) {
-            return insFields.get(key);
-        } else {
+        Field field = getField(key);
+        if (field.isReference()) {
+            return lRefs[field.getOffset()];
+        } else if (field.getSlotSize() == 2) {
+            return lValues[field.getOffset()];
+        }
+        return (int) lValues[field.getOffset()];
+    }
+
+    private Field getField(String key) {
+        Field field = lClazz.findInstanceField(key);
+        if (field == null) {
             throw new RuntimeException("not exist the field name :" + key);
         }
+        return field;
     }
 
     public Class getlClazz() {
         return lClazz;
     }
+
+    public long[] getlValues() {
+        return lValues;
+    }
+
+    public Object[] getlRefs() {
+        return lRefs;
+    }
 }
@@ -1,7 +1,11 @@
 package cn.sheratan.jvm;
 
+import cn.sheratan.jvm.Instruction.Superinstructions;
 import org.apache.commons.cli.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.function.Function;
 
 /**
@@ -12,6 +16,20 @@ import java.util.function.Function;
 public class Main {
     private static String classpath = "classpath";
     private static String help = "help";
+    private static String table = "table";
+    private static String superinstructions = "super";
+    private static String superinstructionCount = "super-count";
+    private static String profile = "profile";
+    private static String stackDepth = "stack-depth";
+    private static String stackSize = "stack-size";
+    private static String jit = "jit";
+    private static String jitThreshold = "jit-threshold";
+    private static String jitTier2Threshold = "jit-tier2-threshold";
+    private static String jitOsrThreshold = "jit-osr-threshold";
+    private static String jitNoClassGeneration = "jit-no-class-generation";
+    private static String jitNoOptimization = "jit-no-optimization";
+    private static String jitTracing = "jit-tracing";
+    private static String jitTraceThreshold = "jit-trace-threshold";
 
     /**
      * @Description: leafVm主入口
@@ -25,6 +43,21 @@ public class Main {
         Options options = new Options();
         options.addOption("cp", classpath, true, "specify the classpath");
         options.addOption("h", help, false, "show the help message");
+        options.addOption("t", table, false, "interpret by the instruction table (reference mode)");
+        options.addOption("s", superinstructions, true, "comma separated superinstructions to fuse, 'none', or @file to fuse the most profitable ones "
+                + "measured in an opcode profile written by -p (default: all of " + String.join(",", Superinstructions.names()) + ")");
+        options.addOption("sn", superinstructionCount, true, "superinstructions enabled from the profile given by -s @file (default: 3)");
+        options.addOption("p", profile, true, "record opcode n-gram frequencies and accumulate them into the given file");
+        options.addOption("sd", stackDepth, true, "max frame depth of the thread stack (default: 8192)");
+        options.addOption("ss", stackSize, true, "size of the thread stack in slots (default: 524288)");
+        options.addOption("j", jit, false, "compile hot methods to closure trees, then to host bytecode");
+        options.addOption("jt", jitThreshold, true, "invocations before a method is compiled (default: 1000)");
+        options.addOption("jt2", jitTier2Threshold, true, "invocations before a method is recompiled with profile-guided inlining (default: 10000)");
+        options.addOption("jo", jitOsrThreshold, true, "loop back-edges before a running method is switched to compiled code (default: 10000)");
+        options.addOption("jnc", jitNoClassGeneration, false, "never define host classes at runtime; hot methods stay closure trees");
+        options.addOption("jno", jitNoOptimization, false, "translate tier-2 methods instruction by instruction, skipping the SSA optimizer");
+        options.addOption("jtr", jitTracing, false, "record the executed path of hot loops, including calls, and compile it as a guarded trace");
+        options.addOption("jtt", jitTraceThreshold, true, "loop back-edges before a trace is recorded (default: 1000)");
 
         //定义命令行帮助信息展示
         Function<Void, Integer> leafHelp = (v) -> {
@@ -47,9 +80,47 @@ public class Main {
                 cp = line.getOptionValue(classpath);
             }
 
+            //配置解释执行方式
+            VM.Config config = new VM.Config();
+            config.setInterpretByTable(line.hasOption(table));
+            if (line.hasOption(superinstructions)) {
+                String names = line.getOptionValue(superinstructions);
+                if (names.startsWith("@")) {
+                    config.setSuperinstructionProfile(names.substring(1));
+                } else {
+                    config.setSuperinstructions("none".equals(names) ? Collections.emptySet() : new HashSet<>(Arrays.asList(names.split(","))));
+                }
+            }
+            if (line.hasOption(superinstructionCount)) {
+                config.setSuperinstructionCount(Integer.parseInt(line.getOptionValue(superinstructionCount)));
+            }
+            config.setProfileFile(line.getOptionValue(profile));
+            if (line.hasOption(stackDepth)) {
+                config.setMaxStackDepth(Integer.parseInt(line.getOptionValue(stackDepth)));
+            }
+            if (line.hasOption(stackSize)) {
+                config.setStackSize(Integer.parseInt(line.getOptionValue(stackSize)));
+            }
+            config.setProcessByJIT(line.hasOption(jit));
+            if (line.hasOption(jitThreshold)) {
+                config.setJitThreshold(Integer.parseInt(line.getOptionValue(jitThreshold)));
+            }
+            if (line.hasOption(jitTier2Threshold)) {
+                config.setJitTier2Threshold(Integer.parseInt(line.getOptionValue(jitTier2Threshold)));
+            }
+            if (line.hasOption(jitOsrThreshold)) {
+                config.setJitOsrThreshold(Integer.parseInt(line.getOptionValue(jitOsrThreshold)));
+            }
+            config.setJitClassGeneration(!line.hasOption(jitNoClassGeneration));
+            config.setJitOptimization(!line.hasOption(jitNoOptimization));
+            config.setJitTracing(line.hasOption(jitTracing));
+            if (line.hasOption(jitTraceThreshold)) {
+                config.setJitTraceThreshold(Integer.parseInt(line.getOptionValue(jitTraceThreshold)));
+            }
+
             //获取java源文件
             String mainClass = line.getArgList().get(0);
-            run(cp, mainClass);
+            run(cp, mainClass, config);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -59,10 +130,11 @@ public class Main {
      * @Description: vm执行入口,
      * @Param cp 类路径
      * @Param mainClass java源文件主名称
+     * @Param config vm配置
      * @return: void
      */
-    private static void run(String cp, String mainClass) {
-        VM vm = new VM(cp.split(";"), new VM.Config());
+    private static void run(String cp, String mainClass, VM.Config config) {
+        VM vm = new VM(cp.split(";"), config);
         vm.run(mainClass.replace('.','/'));
     }
 }
@@ -0,0 +1,287 @@
+package cn.sheratan.jvm;
+
+import cn.sheratan.jvm.Instruction.DecodedCode;
+import cn.sheratan.jvm.JIT.CompiledMethod;
+import cn.sheratan.jvm.JIT.MethodProfile;
+import cn.sheratan.jvm.Instruction.NativeMethod;
+import org.freeinternals.format.classfile.AttributeCode;
+import org.freeinternals.format.classfile.AttributeInfo;
+import org.freeinternals.format.classfile.MethodInfo;
+
+/**
+ * @Description: 方法运行时实体，封装解析得到的MethodInfo，并缓存方法执行期间需要复用的数据（如预解码的指令流）
+ * @Author aries
+ * @Data 2026-10-18 06:41
+ */
+public class Method {
+    private final Class mClass;
+    private final MethodInfo mInfo;
+    private final String mName;
+    private final String mDescriptor;
+
+    /**
+     * @Description: Code属性，本地方法与抽象方法无该属性
+     */
+    private final AttributeCode mCodeAttr;
+
+    /**
+     * @Description: 参数所占slot数量（包括非静态方法隐含的this），由描述符预先计算
+     */
+    private final int mArgSlots;
+
+    /**
+     * @Description: 预解码的指令流，首次创建该方法栈帧时解码，之后所有栈帧共享
+     */
+    private volatile DecodedCode mDecodedCode;
+
+    /**
+     * @Description: 异常表区间索引，与预解码指令流一同按需构建
+     */
+    private volatile ExceptionHandlerTable mHandlerTable;
+
+    /**
+     * @Description: 方法在所属类vtable中的下标（接口方法则为其在接口vtable中的下标，即itable下标），
+     * 静态方法、私有方法及构造方法不参与动态分派，为-1
+     */
+    private int mTableIndex = -1;
+
+    /**
+     * @Description: 本地方法的宿主实现，链接阶段绑定，未找到实现或非本地方法时为null
+     */
+    private NativeMethod mNativeMethod;
+
+    /**
+     * @Description: 调用计数，开启JIT时由TieredPolicy累计，达到各层阈值后编译该方法
+     */
+    private int mInvocationCount;
+
+    /**
+     * @Description: 即时编译得到的宿主代码，未编译时为null
+     */
+    private volatile CompiledMethod mCompiledMethod;
+
+    /**
+     * @Description: mCompiledMethod的编译层级，0为未编译（解释执行），1为基线代码，2为优化代码
+     */
+    private int mCompiledTier;
+
+    /**
+     * @Description: 循环回边计数及栈上替换代码，方法首次执行回边时创建
+     */
+    private MethodProfile mProfile;
+
+    /**
+     * @Description: 方法含有编译器不支持的指令或编译失败，之后不再尝试编译，始终解释执行
+     */
+    private boolean mNotCompilable;
+
+    Method(Class clazz, MethodInfo info) {
+        this.mClass = clazz;
+        this.mInfo = info;
+        this.mName = clazz.getStringFromConstantPool(info.getNameIndex());
+        this.mDescriptor = clazz.getStringFromConstantPool(info.getDescriptorIndex());
+        this.mCodeAttr = (AttributeCode) getAttributeInfo(AttributeInfo.TypeCode);
+        this.mArgSlots = countArgSlots(mDescriptor) + (isStatic() ? 0 : 1);
+    }
+
+    /**
+     * @Description: 计算方法描述符中参数所占slot数量（不含this），long与double类型参数占用两个slot
+     * @Param descriptor 方法描述符
+     * @return: int
+     */
+    public static int countArgSlots(String descriptor) {
+        int argCount = 0;
+        int left = descriptor.indexOf("(") + 1;
+        int right = descriptor.indexOf(")");
+        for (int i = left; i < right; i++, argCount++) {
+            char c = descriptor.charAt(i);
+            if (c == 'J' || c == 'D') {
+                argCount++;
+                continue;
+            }
+            //数组类型无论维数与元素类型，均只占用一个slot
+            while (c == '[') {
+                c = descriptor.charAt(++i);
+            }
+            if (c == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+        }
+        return argCount;
+    }
+
+    /**
+     * @Description: 获取预解码指令流，解码过程是幂等的，故并发情况下重复解码也不影响正确性
+     * @return: cn.sheratan.jvm.Instruction.DecodedCode
+     */
+    public DecodedCode getDecodedCode() {
+        DecodedCode code = mDecodedCode;
+        if (code == null) {
+            if (mCodeAttr == null) {
+                throw new RuntimeException("could not found the code attribute");
+            }
+            code = DecodedCode.decode(mCodeAttr.getCode(), exceptionTableBoundaries(), mClass.getClassLoader().getSuperinstructions());
+            mDecodedCode = code;
+        }
+        return code;
+    }
+
+    /**
+     * @Description: 获取已有的预解码指令流，不触发解码
+     * @return: cn.sheratan.jvm.Instruction.DecodedCode 方法尚未解码时返回null
+     */
+    public DecodedCode peekDecodedCode() {
+        return mDecodedCode;
+    }
+
+    /**
+     * @Description: 获取异常表区间索引
+     * @return: cn.sheratan.jvm.ExceptionHandlerTable
+     */
+    public ExceptionHandlerTable getExceptionHandlerTable() {
+        ExceptionHandlerTable table = mHandlerTable;
+        if (table == null) {
+            table = ExceptionHandlerTable.build(mClass, mCodeAttr, getDecodedCode());
+            mHandlerTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * @Description: 异常表中的start_pc、end_pc与handler_pc在解码后都必须仍是指令边界
+     */
+    private int[] exceptionTableBoundaries() {
+        int n = mCodeAttr.getExceptionTableLength();
+        int[] boundaries = new int[n * 3];
+        for (int i = 0; i < n; i++) {
+            AttributeCode.ExceptionTable entry = mCodeAttr.getExceptionTable(i);
+            boundaries[3 * i] = entry.getStartPc();
+            boundaries[3 * i + 1] = entry.getEndPc();
+            boundaries[3 * i + 2] = entry.getHandlerPc();
+        }
+        return boundaries;
+    }
+
+    /**
+     * @Description: 获取属性信息
+     * @Param name 属性名称
+     * @return: org.freeinternals.format.classfile.AttributeInfo
+     */
+    public AttributeInfo getAttributeInfo(String name) {
+        for (int i = 0; i < mInfo.getAttributesCount(); i++) {
+            AttributeInfo attr = mInfo.getAttribute(i);
+            if (name.equals(attr.getName())) {
+                return attr;
+            }
+        }
+        return null;
+    }
+
+    public boolean isStatic() {
+        return (mInfo.getAccessFlags() & MethodInfo.ACC_STATIC) != 0;
+    }
+
+    public boolean isNative() {
+        return (mInfo.getAccessFlags() & MethodInfo.ACC_NATIVE) != 0;
+    }
+
+    public NativeMethod getNativeMethod() {
+        return mNativeMethod;
+    }
+
+    void setNativeMethod(NativeMethod nativeMethod) {
+        this.mNativeMethod = nativeMethod;
+    }
+
+    public boolean isPrivate() {
+        return (mInfo.getAccessFlags() & MethodInfo.ACC_PRIVATE) != 0;
+    }
+
+    public boolean isAbstract() {
+        return (mInfo.getAccessFlags() & MethodInfo.ACC_ABSTRACT) != 0;
+    }
+
+    /**
+     * @Description: 是否参与动态分派，即是否会进入vtable
+     */
+    public boolean isVirtual() {
+        return !isStatic() && !isPrivate() && mName.charAt(0) != '<';
+    }
+
+    public int getTableIndex() {
+        return mTableIndex;
+    }
+
+    void setTableIndex(int index) {
+        this.mTableIndex = index;
+    }
+
+    public int incrementInvocationCount() {
+        return ++mInvocationCount;
+    }
+
+    public CompiledMethod getCompiledMethod() {
+        return mCompiledMethod;
+    }
+
+    public void setCompiledMethod(CompiledMethod compiledMethod) {
+        this.mCompiledMethod = compiledMethod;
+    }
+
+    public int getCompiledTier() {
+        return mCompiledTier;
+    }
+
+    public void setCompiledTier(int compiledTier) {
+        this.mCompiledTier = compiledTier;
+    }
+
+    public MethodProfile getProfile() {
+        return mProfile;
+    }
+
+    public void setProfile(MethodProfile profile) {
+        this.mProfile = profile;
+    }
+
+    public boolean isNotCompilable() {
+        return mNotCompilable;
+    }
+
+    public void setNotCompilable() {
+        this.mNotCompilable = true;
+    }
+
+    public int getArgSlots() {
+        return mArgSlots;
+    }
+
+    public int getAccessFlags() {
+        return mInfo.getAccessFlags();
+    }
+
+    public AttributeCode getCodeAttribute() {
+        return mCodeAttr;
+    }
+
+    public Class getmClass() {
+        return mClass;
+    }
+
+    public MethodInfo getMethodInfo() {
+        return mInfo;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public String getDescriptor() {
+        return mDescriptor;
+    }
+
+    @Override
+    public String toString() {
+        return mClass.getClassName() + "." + mName + mDescriptor;
+    }
+}
@@ -0,0 +1,207 @@
+package cn.sheratan.jvm;
+
+import cn.sheratan.jvm.Instruction.DecodedCode;
+import cn.sheratan.jvm.Instruction.QuickOpcode;
+import cn.sheratan.jvm.Instruction.Superinstructions;
+import org.freeinternals.format.classfile.Opcode;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description: 操作码n-gram频率统计工具，用于挑选值得融合为超级指令的指令序列。
+ * 统计基于实际执行的指令流：只在同一栈帧内顺序执行的指令之间计数，发生跳转、调用或返回时重新开始计数，
+ * 与超级指令只在基本块内融合的约束一致。统计结果可累加保存到文件，从而在多个基准程序上汇总，
+ * 之后的运行可读取该文件（-s @文件），按实测频率只启用收益最高的若干超级指令
+ * @Author aries
+ * @Data 2026-10-18 07:10
+ */
+public final class OpcodeProfiler {
+
+    /**
+     * @Description: 统计的最长序列长度
+     */
+    public static final int MAX_N = 4;
+
+    /**
+     * @Description: 操作码名称，下标为操作码
+     */
+    private static final String[] NAMES = new String[256];
+    private static final Map<String, Integer> OPCODES = new HashMap<>();
+
+    static {
+        for (java.lang.Class<?> c : new java.lang.Class<?>[]{Opcode.class, QuickOpcode.class, Superinstructions.class}) {
+            for (java.lang.reflect.Field f : c.getFields()) {
+                if (f.getName().startsWith("op_") && f.getType() == int.class && Modifier.isStatic(f.getModifiers())) {
+                    try {
+                        int op = f.getInt(null);
+                        NAMES[op] = f.getName().substring(3);
+                        OPCODES.put(NAMES[op], op);
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @Description: 以打包后的操作码序列（每个操作码8位，高位存放序列长度）为键的计数
+     */
+    private final Map<Long, long[]> counts = new HashMap<>();
+
+    /**
+     * @Description: 最近顺序执行的操作码
+     */
+    private final int[] window = new int[MAX_N];
+    private int windowSize;
+    private Frame lastFrame;
+    private int expectedPC;
+
+    /**
+     * @Description: 记录即将执行的指令
+     * @Param frame 当前栈帧
+     * @Param pc 指令所在下标
+     * @return: void
+     */
+    public void record(Frame frame, int pc) {
+        int[] insts = frame.getfCode().getInsts();
+        if (frame != lastFrame || pc != expectedPC) {
+            windowSize = 0;
+        }
+        if (windowSize == MAX_N) {
+            System.arraycopy(window, 1, window, 0, MAX_N - 1);
+            windowSize--;
+        }
+        window[windowSize++] = QuickOpcode.original(insts[pc]);
+        long key = 0;
+        for (int n = 1; n <= windowSize; n++) {
+            key |= (long) window[windowSize - n] << (8 * (n - 1));
+            if (n >= 2) {
+                counts.computeIfAbsent(((long) n << 32) | key, k -> new long[1])[0]++;
+            }
+        }
+        lastFrame = frame;
+        expectedPC = pc + DecodedCode.length(insts, pc);
+    }
+
+    /**
+     * @Description: 读取已有的统计文件，累加到当前统计结果中，文件不存在时忽略
+     * @Param file 统计文件，每行格式为：次数\t操作码名称（空格分隔）
+     * @return: void
+     */
+    public void load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String[] names = line.substring(tab + 1).trim().split(" ");
+            long key = 0;
+            for (int i = 0; i < names.length; i++) {
+                Integer op = OPCODES.get(names[i]);
+                if (op == null) {
+                    throw new IOException("unknown opcode: " + names[i]);
+                }
+                key |= (long) op << (8 * (names.length - 1 - i));
+            }
+            counts.computeIfAbsent(((long) names.length << 32) | key, k -> new long[1])[0] += Long.parseLong(line.substring(0, tab));
+        }
+    }
+
+    /**
+     * @Description: 按次数降序保存全部统计结果
+     */
+    public void save(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<Long, long[]> e : sorted(0)) {
+            lines.add(e.getValue()[0] + "\t" + format(e.getKey()));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @Description: 按序列长度分别输出出现次数最多的若干序列
+     * @Param out 输出流
+     * @Param top 每种长度输出的序列数量
+     * @return: void
+     */
+    public void report(PrintStream out, int top) {
+        for (int n = 2; n <= MAX_N; n++) {
+            out.println("top " + n + "-grams:");
+            int i = 0;
+            for (Map.Entry<Long, long[]> e : sorted(n)) {
+                if (i++ == top) {
+                    break;
+                }
+                out.printf("%12d  %s%n", e.getValue()[0], format(e.getKey()));
+            }
+        }
+    }
+
+    /**
+     * @Description: 依据统计结果挑选超级指令。各超级指令的收益为其融合的序列的出现次数乘以每次省去的分派次数（序列长度减1），
+     * 返回收益最高的至多top个超级指令的名称，统计中未出现的不会入选
+     * @Param top 挑选的数量
+     * @return: java.util.List<java.lang.String>
+     */
+    public List<String> topSuperinstructions(int top) {
+        Map<String, long[]> saved = new HashMap<>();
+        for (Map.Entry<Long, long[]> e : counts.entrySet()) {
+            int n = (int) (e.getKey() >>> 32);
+            int[] ops = new int[n];
+            for (int i = 0; i < n; i++) {
+                ops[i] = (int) (e.getKey() >>> (8 * (n - 1 - i))) & 0xff;
+            }
+            String name = Superinstructions.candidate(ops);
+            if (name != null) {
+                saved.computeIfAbsent(name, k -> new long[1])[0] += e.getValue()[0] * (n - 1);
+            }
+        }
+        List<Map.Entry<String, long[]>> ranked = new ArrayList<>(saved.entrySet());
+        ranked.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && i < top; i++) {
+            names.add(ranked.get(i).getKey());
+        }
+        return names;
+    }
+
+    /**
+     * @Description: 获取指定长度序列的统计结果，n为0时返回全部
+     */
+    private List<Map.Entry<Long, long[]>> sorted(int n) {
+        List<Map.Entry<Long, long[]>> entries = new ArrayList<>();
+        for (Map.Entry<Long, long[]> e : counts.entrySet()) {
+            if (n == 0 || (e.getKey() >>> 32) == n) {
+                entries.add(e);
+            }
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        return entries;
+    }
+
+    private static String format(long key) {
+        int n = (int) (key >>> 32);
+        StringBuilder sb = new StringBuilder();
+        for (int i = n - 1; i >= 0; i--) {
+            int op = (int) (key >>> (8 * i)) & 0xff;
+            sb.append(NAMES[op] != null ? NAMES[op] : String.valueOf(op));
+            if (i > 0) {
+                sb.append(' ');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,44 +1,101 @@
 package cn.sheratan.jvm;
 
 /**
- * @Description: 局部变量存储单位
+ * @Description: 局部变量存储单位。栈帧内部以并行的long[]（数值）与Object[]（引用）数组保存局部变量和操作数栈，
+ * Slot仅作为单个值的视图，供需要以统一形式读写栈值的本地方法使用。
+ * 栈帧中存放基本类型的slot可能残留之前的引用，无法由存储本身判断值的类型，故读取时须由调用者指定类型（见Frame.popSlot）
  * @Author aries
  * @Data 2019-03-12 11:16
  */
 public class Slot {
 
     /**
-     * @Description: 定义Slot存储类型，目前只支持引用类型和int类型（包括short，byte）
+     * @Description: 定义Slot存储类型：引用类型，int（含boolean、byte、char、short）、long、float与double。long与double占两个slot
      */
-    public enum Type{ERF, NUM}
+    public enum Type{ERF, INT, LONG, FLOAT, DOUBLE}
 
     /**
-     * @Description: 存储对象
+     * @Description: 数值，float与double为其IEEE 754位模式
      */
-    private Object obj;
+    private final long num;
 
-    private Type type;
+    /**
+     * @Description: 引用
+     */
+    private final Object ref;
+
+    private final Type type;
 
     public Slot(int n){
-        this.obj = n;
-        this.type = Type.NUM;
+        this(n, null, Type.INT);
+    }
+
+    public Slot(long n){
+        this(n, null, Type.LONG);
+    }
+
+    public Slot(float f){
+        this(Float.floatToRawIntBits(f), null, Type.FLOAT);
+    }
+
+    public Slot(double d){
+        this(Double.doubleToRawLongBits(d), null, Type.DOUBLE);
     }
 
     public Slot(Object obj){
-        this.obj = obj;
-        this.type = Type.ERF;
+        this(0, obj, Type.ERF);
     }
 
+    private Slot(long num, Object ref, Type type) {
+        this.num = num;
+        this.ref = ref;
+        this.type = type;
+    }
+
+    /**
+     * @Description: 值的装箱形式，引用类型返回引用本身
+     */
     public Object getObj() {
-        return obj;
+        switch (type) {
+            case INT:
+                return getInt();
+            case LONG:
+                return getLong();
+            case FLOAT:
+                return getFloat();
+            case DOUBLE:
+                return getDouble();
+            default:
+                return ref;
+        }
+    }
+
+    public int getInt() {
+        return (int) num;
+    }
+
+    public long getLong() {
+        return num;
+    }
+
+    public float getFloat() {
+        return Float.intBitsToFloat((int) num);
+    }
+
+    public double getDouble() {
+        return Double.longBitsToDouble(num);
+    }
+
+    public Object getRef() {
+        return ref;
     }
 
-    public void setObj(Object obj) {
-        this.obj = obj;
+    public Type getType() {
+        return type;
     }
 
     @Override
     public String toString() {
-        return type == Type.NUM ? String.valueOf(obj) : obj.toString();
+        return String.valueOf(getObj());
     }
 }
@@ -0,0 +1,27 @@
+package cn.sheratan.jvm;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Description: 虚拟机全局字符串常量池。虚拟机内的字符串直接以宿主String表示，常量池中的CONSTANT_String在首次解析时
+ * 经此驻留，内容相同的字符串常量（包括不同类中的）解析为同一对象，String.intern()同样由该表实现
+ * @Author aries
+ * @Data 2026-10-18 08:02
+ */
+public final class StringTable {
+
+    private static final ConcurrentHashMap<String, String> TABLE = new ConcurrentHashMap<>();
+
+    private StringTable() {
+    }
+
+    /**
+     * @Description: 驻留字符串
+     * @Param s 字符串
+     * @return: java.lang.String 表中与s内容相同的字符串，不存在时放入s并返回s
+     */
+    public static String intern(String s) {
+        String existing = TABLE.putIfAbsent(s, s);
+        return existing == null ? s : existing;
+    }
+}
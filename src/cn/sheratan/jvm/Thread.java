@@ -1,9 +1,11 @@
 package cn.sheratan.jvm;
 
-import org.freeinternals.format.classfile.MethodInfo;
+import cn.sheratan.jvm.Instruction.InstructionFactory;
+import cn.sheratan.jvm.JIT.TieredPolicy;
+import cn.sheratan.jvm.JIT.TraceRecorder;
+import org.freeinternals.format.classfile.AttributeCode;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -15,40 +17,251 @@ public class Thread {
     private static final Logger LOGGER = Logger.getLogger(Thread.class.getName());
 
     /**
-     * @Description: 维护一个栈帧队列
+     * @Description: 线程栈，所有栈帧的局部变量表与操作数栈依次排布在同一段连续空间中（数值与引用两部分下标一一对应）
      */
-    private List<Frame> frameList;
+    private final long[] stackValues;
+    private final Object[] stackRefs;
 
-    public Thread() {
-        this.frameList = new LinkedList<>();
+    /**
+     * @Description: 按深度复用的栈帧，frames[i]为深度i + 1的栈帧，首次到达该深度时创建
+     */
+    private final Frame[] frames;
+
+    /**
+     * @Description: 当前栈帧深度
+     */
+    private int depth;
+
+    /**
+     * @Description: vm配置，决定采用的解释执行方式
+     */
+    private final VM.Config config;
+
+    /**
+     * @Description: 操作码n-gram统计，未开启统计时为null
+     */
+    private final OpcodeProfiler profiler;
+
+    /**
+     * @Description: 分层编译策略，未开启JIT时为null
+     */
+    private final TieredPolicy jit;
+
+    public Thread(VM.Config config) {
+        this.config = config;
+        this.stackValues = new long[config.getStackSize()];
+        this.stackRefs = new Object[config.getStackSize()];
+        this.frames = new Frame[config.getMaxStackDepth()];
+        this.profiler = config.getProfileFile() != null ? new OpcodeProfiler() : null;
+        this.jit = config.isProcessByJIT() ? new TieredPolicy(config) : null;
+    }
+
+    public void run(Class clazz, Method method) {
+        //main方法的参数为空字符串数组
+        pushFrame(method, 0).storeRef(0, new LArray("[Ljava/lang/String;", 0));
+        try {
+            execute(1);
+        } catch (GuestException e) {
+            //未被捕获的异常，终止线程
+            LObject throwable = e.getThrowable();
+            Object message = throwable.hasField("detailMessage") ? throwable.getFieldValue("detailMessage") : null;
+            System.err.println("Exception in thread \"main\" " + throwable.getlClazz().getClassName().replace('/', '.')
+                    + (message != null ? ": " + message : ""));
+        }
+    }
+
+    /**
+     * @Description: 执行方法直至其返回，用于类初始化等需要同步完成的调用
+     * @Param method 被调用方法，参数已压入栈顶栈帧的操作数栈
+     * @Param argCount 参数所占slot数量
+     * @return: void
+     */
+    public void runToEnd(Method method, int argCount) {
+        pushFrame(method, argCount);
+        execute(depth);
+    }
+
+    /**
+     * @Description: 从栈顶栈帧开始执行，直到深度为baseDepth的栈帧返回，未被处理的异常以GuestException抛出。
+     * 编译后的代码调用解释执行的方法时，压入其栈帧后由此执行至返回
+     */
+    public void execute(int baseDepth) {
+        if (profiler != null) {
+            profile(baseDepth);
+        } else if (config.isInterpretByTable()) {
+            interpretByTable(baseDepth);
+        } else {
+            Interpreter.execute(this, baseDepth);
+        }
+    }
+
+    /**
+     * @Description: 通过指令表逐条执行指令，直到深度为baseDepth的栈帧返回
+     */
+    private void interpretByTable(int baseDepth) {
+        while (depth >= baseDepth) {
+            Frame f = topFrame();
+            try {
+                f.run();
+            } catch (RuntimeException e) {
+                //执行前pc已指向下一条指令
+                unwind(e, f, f.getfPC() - 1, baseDepth);
+            }
+        }
+    }
+
+    /**
+     * @Description: 统计模式下逐条执行指令（同指令表方式），执行前记录操作码，直到深度为baseDepth的栈帧返回
+     */
+    private void profile(int baseDepth) {
+        while (depth >= baseDepth) {
+            Frame f = topFrame();
+            profiler.record(f, f.getfPC());
+            try {
+                f.run();
+            } catch (RuntimeException e) {
+                unwind(e, f, f.getfPC() - 1, baseDepth);
+            }
+        }
     }
 
-    public void run(Class clazz, MethodInfo method) {
-        Frame frame = new Frame(this, clazz, method);
-        pushFrame(frame);
-        while (!frameList.isEmpty()) {
-            topFrame().run();
+    /**
+     * @Description: 记录轨迹时逐条执行指令（同指令表方式），执行前交由记录器记录，记录器结束记录或栈深度小于baseDepth时返回。
+     * 指令抛出的异常不在此处理，由调用者展开，此时出错栈帧的pc已指向出错指令的下一条指令
+     */
+    public void record(TraceRecorder recorder, int baseDepth) {
+        while (depth >= baseDepth) {
+            Frame f = topFrame();
+            if (!recorder.record(f, f.getfPC(), depth)) {
+                return;
+            }
+            f.run();
+        }
+    }
+
+    /**
+     * @Description: 处理指令执行中抛出的异常：从栈顶栈帧开始查找异常处理器，找到时清空该栈帧操作数栈、压入异常对象并跳转到处理器；
+     * 否则弹出栈帧，在调用者的调用指令处继续查找。栈深度小于baseDepth时仍未找到，则以GuestException继续向外抛出。
+     * 栈上替换进入的编译代码抛出异常时已弹出其栈帧，此时栈深度可能已小于baseDepth
+     * @Param e 指令执行中抛出的异常，GuestException或可转换为虚拟机异常的宿主异常，其余异常视为虚拟机内部错误（见toThrowable）
+     * @Param frame 执行出错指令的栈帧
+     * @Param pc 出错指令所在下标
+     * @Param baseDepth 当前执行的起始深度
+     * @return: cn.sheratan.jvm.Frame 找到处理器的栈帧
+     */
+    Frame unwind(RuntimeException e, Frame frame, int pc, int baseDepth) {
+        if (depth < baseDepth) {
+            throw e instanceof GuestException ? (GuestException) e : new GuestException(toThrowable(e, -1));
+        }
+        Frame f = topFrame();
+        //调用者栈帧的pc已指向调用指令的下一条指令
+        int throwPC = f == frame ? pc : f.getfPC() - 1;
+        LObject throwable = toThrowable(e, f.getfCode().opAt(throwPC));
+        while (true) {
+            int handler = f.getfMethod().getExceptionHandlerTable().findHandler(throwPC, throwable.getlClazz());
+            if (handler >= 0) {
+                f.clearStack();
+                f.pushRef(throwable);
+                f.jumpTo(handler);
+                return f;
+            }
+            popFrame();
+            if (depth < baseDepth) {
+                throw e instanceof GuestException ? (GuestException) e : new GuestException(throwable);
+            }
+            f = topFrame();
+            throwPC = f.getfPC() - 1;
+        }
+    }
+
+    /**
+     * @Description: 将指令执行中抛出的异常转换为虚拟机异常对象。数组访问、除法及对null访问字段、调用方法等检查不在指令中显式进行，
+     * 而是由宿主在执行时抛出对应异常后转换（见InstructionFactory.hostCheckException），只有出错指令为这类指令时才转换；
+     * 其余宿主异常为虚拟机内部错误，以InternalError抛出，原异常作为其cause保留宿主调用栈
+     * @Param e 指令执行中抛出的异常
+     * @Param op 出错指令的操作码，编译代码中出错指令未知时为-1
+     * @return: cn.sheratan.jvm.LObject
+     */
+    public LObject toThrowable(RuntimeException e, int op) {
+        if (e instanceof GuestException) {
+            return ((GuestException) e).getThrowable();
+        }
+        String className = InstructionFactory.hostCheckException(op, e);
+        if (className == null) {
+            throw new InternalError("unexpected host exception in the virtual machine", e);
         }
+        return newThrowable(className, e instanceof NullPointerException ? null : e.getMessage());
     }
 
-    public void runToEnd(Frame frame){
-        pushFrame(frame);
-        while(frameList.lastIndexOf(frame) >= 0){
-            frame.run();
+    /**
+     * @Description: 创建虚拟机异常对象，异常类由栈顶栈帧所属类的类加载器加载（需位于类路径中，见coreLibrary）
+     * @Param className 异常类全称
+     * @Param message 异常信息，可为null
+     * @return: cn.sheratan.jvm.LObject
+     */
+    public LObject newThrowable(String className, String message) {
+        Class clazz = topFrame().getfClass().getClassLoader().loadClass(className);
+        InstructionFactory.initClass(this, clazz);
+        LObject throwable = new LObject(clazz);
+        if (message != null) {
+            throwable.setFieldValue("detailMessage", message);
         }
+        return throwable;
     }
 
-    public void pushFrame(Frame f) {
-        LOGGER.info("push the " + f.toString());
-        frameList.add(f);
+    public TieredPolicy getJit() {
+        return jit;
+    }
+
+    public OpcodeProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * @Description: 当前栈帧深度
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * @Description: 为被调用方法压入栈帧。被调用方法的局部变量表从调用者操作数栈顶的参数处开始，参数直接成为其局部变量，
+     * 调用者的栈顶指针相应回退。栈深度或栈空间不足时抛出StackOverflowError，此时调用者栈帧保持不变
+     * @Param method 被调用方法
+     * @Param argCount 参数所占slot数量
+     * @return: cn.sheratan.jvm.Frame 被调用方法的栈帧
+     */
+    public Frame pushFrame(Method method, int argCount) {
+        Frame caller = topFrame();
+        int base = caller == null ? 0 : caller.getfStackPos() - argCount;
+        AttributeCode attr = method.getCodeAttribute();
+        if (depth == frames.length
+                || (attr != null && base + attr.getMaxLocals() + attr.getMaxStack() > stackValues.length)) {
+            throw new GuestException(newThrowable("java/lang/StackOverflowError", null));
+        }
+        Frame f = frames[depth];
+        if (f == null) {
+            f = frames[depth] = new Frame(this, stackValues, stackRefs);
+        }
+        f.init(method.getmClass(), method, base);
+        if (caller != null) {
+            caller.setfStackPos(base);
+        }
+        depth++;
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("push the " + method.getmClass().getClassName() + "." + method.getName() + method.getDescriptor());
+        }
+        return f;
     }
 
     public void popFrame() {
-        Frame f = frameList.remove(frameList.size() - 1);
-        LOGGER.info("pop the " + f.toString());
+        Frame f = frames[--depth];
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("pop the " + f.getfClass().getClassName() + "." + f.getfMethod().getName() + f.getfMethod().getDescriptor());
+        }
     }
 
     public Frame topFrame() {
-        return frameList == null || frameList.isEmpty() ? null : frameList.get(frameList.size() - 1);
+        return depth == 0 ? null : frames[depth - 1];
     }
 }
@@ -1,9 +1,15 @@
 package cn.sheratan.jvm;
 
+import cn.sheratan.jvm.Instruction.DecodedCode;
+import cn.sheratan.jvm.Instruction.Superinstructions;
 import org.freeinternals.format.classfile.MethodInfo;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.logging.Logger;
 
 /**
  * @Description: VM body
@@ -11,6 +17,8 @@ import java.util.function.Function;
  * @Data 2019-03-08 11:24
  */
 public class VM {
+    private static final Logger LOGGER = Logger.getLogger(VM.class.getName());
+
     /**
      * @Description: VM 配置类
      */
@@ -20,9 +28,195 @@ public class VM {
          */
         private boolean isProcessByJIT = false;
 
+        /**
+         * @Description: 方法调用次数达到该阈值时编译为第1层代码（闭包树）
+         */
+        private int jitThreshold = 1000;
+
+        /**
+         * @Description: 方法调用次数达到该阈值时依据剖析信息编译为第2层代码（宿主字节码）
+         */
+        private int jitTier2Threshold = 10000;
+
+        /**
+         * @Description: 单个循环回边的执行次数达到该阈值时编译该循环所在方法，并在循环头处栈上替换（OSR）进入编译代码
+         */
+        private int jitOsrThreshold = 10000;
+
+        /**
+         * @Description: 是否允许在运行时生成宿主类（第2层编译）。部署环境禁止定义类时关闭，热点方法只编译为第1层的闭包树
+         */
+        private boolean jitClassGeneration = true;
+
+        /**
+         * @Description: 第2层编译是否先构建SSA中间表示并优化（常量传播、公共子表达式消除等），关闭时逐条翻译字节码
+         */
+        private boolean jitOptimization = true;
+
+        /**
+         * @Description: 是否开启轨迹模式：热点循环记录一次迭代实际执行的路径（包括经过的被调用方法），编译为带守卫与侧出口的轨迹代码
+         */
+        private boolean jitTracing = false;
+
+        /**
+         * @Description: 轨迹模式下单个循环回边的执行次数达到该阈值时记录轨迹
+         */
+        private int jitTraceThreshold = 1000;
+
+        /**
+         * @Description: 是否通过指令表（HashMap<Integer, Instruction>）逐条解释执行，作为参照实现；默认采用switch分派的解释器
+         */
+        private boolean isInterpretByTable = false;
+
+        /**
+         * @Description: 参与融合的超级指令名称，为null时全部启用
+         */
+        private Set<String> superinstructions = null;
+
+        /**
+         * @Description: 操作码n-gram统计文件（由profileFile生成），非null时按其中的实测频率只启用收益最高的superinstructionCount个超级指令
+         */
+        private String superinstructionProfile = null;
+
+        /**
+         * @Description: 依据统计文件启用的超级指令数量
+         */
+        private int superinstructionCount = 3;
+
+        /**
+         * @Description: 操作码n-gram统计文件，非null时开启统计：执行期间不融合超级指令，结束后将统计结果累加保存到该文件
+         */
+        private String profileFile = null;
+
+        /**
+         * @Description: 线程栈的最大栈帧深度，超出时抛出StackOverflowError
+         */
+        private int maxStackDepth = 8192;
+
+        /**
+         * @Description: 线程栈的大小（slot数量），所有栈帧的局部变量表与操作数栈均在其中分配，不足时抛出StackOverflowError
+         */
+        private int stackSize = 512 * 1024;
+
+        public boolean isProcessByJIT() {
+            return isProcessByJIT;
+        }
+
         public void setProcessByJIT(boolean processByJIT) {
             isProcessByJIT = processByJIT;
         }
+
+        public int getJitThreshold() {
+            return jitThreshold;
+        }
+
+        public void setJitThreshold(int jitThreshold) {
+            this.jitThreshold = jitThreshold;
+        }
+
+        public int getJitTier2Threshold() {
+            return jitTier2Threshold;
+        }
+
+        public void setJitTier2Threshold(int jitTier2Threshold) {
+            this.jitTier2Threshold = jitTier2Threshold;
+        }
+
+        public int getJitOsrThreshold() {
+            return jitOsrThreshold;
+        }
+
+        public void setJitOsrThreshold(int jitOsrThreshold) {
+            this.jitOsrThreshold = jitOsrThreshold;
+        }
+
+        public boolean isJitClassGeneration() {
+            return jitClassGeneration;
+        }
+
+        public void setJitClassGeneration(boolean jitClassGeneration) {
+            this.jitClassGeneration = jitClassGeneration;
+        }
+
+        public boolean isJitOptimization() {
+            return jitOptimization;
+        }
+
+        public void setJitOptimization(boolean jitOptimization) {
+            this.jitOptimization = jitOptimization;
+        }
+
+        public boolean isJitTracing() {
+            return jitTracing;
+        }
+
+        public void setJitTracing(boolean jitTracing) {
+            this.jitTracing = jitTracing;
+        }
+
+        public int getJitTraceThreshold() {
+            return jitTraceThreshold;
+        }
+
+        public void setJitTraceThreshold(int jitTraceThreshold) {
+            this.jitTraceThreshold = jitTraceThreshold;
+        }
+
+        public boolean isInterpretByTable() {
+            return isInterpretByTable;
+        }
+
+        public void setInterpretByTable(boolean interpretByTable) {
+            isInterpretByTable = interpretByTable;
+        }
+
+        public Set<String> getSuperinstructions() {
+            return superinstructions;
+        }
+
+        public void setSuperinstructions(Set<String> superinstructions) {
+            this.superinstructions = superinstructions;
+        }
+
+        public String getSuperinstructionProfile() {
+            return superinstructionProfile;
+        }
+
+        public void setSuperinstructionProfile(String superinstructionProfile) {
+            this.superinstructionProfile = superinstructionProfile;
+        }
+
+        public int getSuperinstructionCount() {
+            return superinstructionCount;
+        }
+
+        public void setSuperinstructionCount(int superinstructionCount) {
+            this.superinstructionCount = superinstructionCount;
+        }
+
+        public int getMaxStackDepth() {
+            return maxStackDepth;
+        }
+
+        public void setMaxStackDepth(int maxStackDepth) {
+            this.maxStackDepth = maxStackDepth;
+        }
+
+        public int getStackSize() {
+            return stackSize;
+        }
+
+        public void setStackSize(int stackSize) {
+            this.stackSize = stackSize;
+        }
+
+        public String getProfileFile() {
+            return profileFile;
+        }
+
+        public void setProfileFile(String profileFile) {
+            this.profileFile = profileFile;
+        }
     }
 
     /**
@@ -42,7 +236,7 @@ public class VM {
 
     public VM(String[] classPathLst, Config config) {
         classPath = new ClassPath(classPathLst);
-        classLoader = new ClassLoader(classPath);
+        classLoader = new ClassLoader(classPath, selectSuperinstructions(config));
         this.config = config;
     }
 
@@ -55,7 +249,7 @@ public class VM {
         //加载主类
         Class clazz = classLoader.loadClass(mainClass);
         //获取并执行主类main方法
-        MethodInfo methodInfo = clazz.findMethod("main", "([Ljava/lang/String;)V");
+        Method methodInfo = clazz.findMethod("main", "([Ljava/lang/String;)V");
         //验证访问标志
         Function<Integer, Boolean> flagCheck = (f) -> {
             return (f & methodInfo.getAccessFlags()) != 0;
@@ -66,7 +260,59 @@ public class VM {
             throw new RuntimeException("main method is not static&public");
         }
         //启动主线程
-        Thread thread = new Thread();
+        Thread thread = new Thread(config);
         thread.run(clazz, methodInfo);
+        if (thread.getProfiler() != null) {
+            saveProfile(thread.getProfiler());
+        }
+    }
+
+    /**
+     * @Description: 依据配置确定参与融合的超级指令，由本虚拟机的类加载器在解码方法时使用
+     */
+    private static Superinstructions selectSuperinstructions(Config config) {
+        if (config.getProfileFile() != null) {
+            //统计操作码序列时须保持原始指令流
+            return Superinstructions.none();
+        }
+        if (config.getSuperinstructionProfile() != null) {
+            Path file = Paths.get(config.getSuperinstructionProfile());
+            OpcodeProfiler profile = new OpcodeProfiler();
+            try {
+                profile.load(file);
+            } catch (IOException e) {
+                throw new RuntimeException("could not load the opcode profile: " + file, e);
+            }
+            Superinstructions selected = Superinstructions.of(profile.topSuperinstructions(config.getSuperinstructionCount()));
+            LOGGER.info("superinstructions selected from " + file + ": " + selected.enabledNames());
+            return selected;
+        }
+        if (config.getSuperinstructions() != null) {
+            return Superinstructions.of(config.getSuperinstructions());
+        }
+        return Superinstructions.all();
+    }
+
+    /**
+     * @Description: 将本次统计结果与统计文件中已有结果累加后保存，并输出各长度出现次数最多的序列及多态调用点的内联缓存计数
+     */
+    private void saveProfile(OpcodeProfiler profiler) {
+        Path file = Paths.get(config.getProfileFile());
+        try {
+            profiler.load(file);
+            profiler.save(file);
+        } catch (IOException e) {
+            throw new RuntimeException("could not save the opcode profile: " + file, e);
+        }
+        profiler.report(System.err, 10);
+        System.err.println("polymorphic call sites:");
+        for (Class clazz : classLoader.getLoadedClasses()) {
+            for (Method method : clazz.getMethods()) {
+                DecodedCode code = method.peekDecodedCode();
+                if (code != null) {
+                    code.reportInlineCaches(method.toString(), System.err);
+                }
+            }
+        }
     }
 }
@@ -115,6 +115,38 @@ public abstract class AbstractCPInfo extends ClassComponent {
      * </a>
      */
     public static final short CONSTANT_NameAndType = 12;
+    /**
+     * The value for constant type {@code CONSTANT_MethodHandle}.
+     *
+     * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.4.8">
+     * VM Spec: The CONSTANT_MethodHandle_info Structure
+     * </a>
+     */
+    public static final short CONSTANT_MethodHandle = 15;
+    /**
+     * The value for constant type {@code CONSTANT_MethodType}.
+     *
+     * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.4.9">
+     * VM Spec: The CONSTANT_MethodType_info Structure
+     * </a>
+     */
+    public static final short CONSTANT_MethodType = 16;
+    /**
+     * The value for constant type {@code CONSTANT_Dynamic}.
+     *
+     * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.4.10">
+     * VM Spec: The CONSTANT_Dynamic_info and CONSTANT_InvokeDynamic_info Structures
+     * </a>
+     */
+    public static final short CONSTANT_Dynamic = 17;
+    /**
+     * The value for constant type {@code CONSTANT_InvokeDynamic}.
+     *
+     * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.4.10">
+     * VM Spec: The CONSTANT_Dynamic_info and CONSTANT_InvokeDynamic_info Structures
+     * </a>
+     */
+    public static final short CONSTANT_InvokeDynamic = 18;
     transient u1 tag;
 
     AbstractCPInfo() {
@@ -0,0 +1,117 @@
+/*
+ * AttributeBootstrapMethods.java    10:50 PM, October 18, 2026
+ */
+package org.freeinternals.format.classfile;
+
+import java.io.IOException;
+import org.freeinternals.format.FileFormatException;
+
+/**
+ * The class for the {@code BootstrapMethods} attribute.
+ * The {@code BootstrapMethods} attribute has the following format:
+ *
+ * <pre>
+ *    BootstrapMethods_attribute {
+ *        u2 attribute_name_index;
+ *        u4 attribute_length;
+ *        u2 num_bootstrap_methods;
+ *        {   u2 bootstrap_method_ref;
+ *            u2 num_bootstrap_arguments;
+ *            u2 bootstrap_arguments[num_bootstrap_arguments];
+ *        } bootstrap_methods[num_bootstrap_methods];
+ *    }
+ * </pre>
+ *
+ * @author aries
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.7.23">
+ * VM Spec: The BootstrapMethods Attribute
+ * </a>
+ */
+public class AttributeBootstrapMethods extends AttributeInfo {
+
+    private transient final u2 num_bootstrap_methods;
+    private transient final BootstrapMethod[] bootstrap_methods;
+
+    AttributeBootstrapMethods(final u2 nameIndex, final String type, final PosDataInputStream posDataInputStream)
+            throws IOException, FileFormatException {
+        super(nameIndex, type, posDataInputStream);
+
+        this.num_bootstrap_methods = new u2();
+        this.num_bootstrap_methods.value = posDataInputStream.readUnsignedShort();
+        this.bootstrap_methods = new BootstrapMethod[this.num_bootstrap_methods.value];
+        for (int i = 0; i < this.bootstrap_methods.length; i++) {
+            this.bootstrap_methods[i] = new BootstrapMethod(posDataInputStream);
+        }
+
+        super.checkSize(posDataInputStream.getPos());
+    }
+
+    /**
+     * Get the value of {@code num_bootstrap_methods}.
+     *
+     * @return The value of {@code num_bootstrap_methods}
+     */
+    public int getNumBootstrapMethods() {
+        return this.num_bootstrap_methods.value;
+    }
+
+    /**
+     * Get the value of {@code bootstrap_methods}[{@code index}].
+     *
+     * @param index Index of the bootstrap method
+     * @return The value of {@code bootstrap_methods}[{@code index}]
+     */
+    public BootstrapMethod getBootstrapMethod(final int index) {
+        return this.bootstrap_methods[index];
+    }
+
+    /**
+     * One entry of the {@code bootstrap_methods} table.
+     */
+    public static final class BootstrapMethod {
+
+        private transient final u2 bootstrap_method_ref;
+        private transient final u2[] bootstrap_arguments;
+
+        private BootstrapMethod(final PosDataInputStream posDataInputStream)
+                throws IOException {
+            this.bootstrap_method_ref = new u2();
+            this.bootstrap_method_ref.value = posDataInputStream.readUnsignedShort();
+            final int argCount = posDataInputStream.readUnsignedShort();
+            this.bootstrap_arguments = new u2[argCount];
+            for (int i = 0; i < argCount; i++) {
+                this.bootstrap_arguments[i] = new u2();
+                this.bootstrap_arguments[i].value = posDataInputStream.readUnsignedShort();
+            }
+        }
+
+        /**
+         * Get the value of {@code bootstrap_method_ref}, a
+         * {@code CONSTANT_MethodHandle_info} index.
+         *
+         * @return The value of {@code bootstrap_method_ref}
+         */
+        public int getBootstrapMethodRef() {
+            return this.bootstrap_method_ref.value;
+        }
+
+        /**
+         * Get the value of {@code num_bootstrap_arguments}.
+         *
+         * @return The value of {@code num_bootstrap_arguments}
+         */
+        public int getNumBootstrapArguments() {
+            return this.bootstrap_arguments.length;
+        }
+
+        /**
+         * Get the value of {@code bootstrap_arguments}[{@code index}].
+         *
+         * @param index Index of the bootstrap argument
+         * @return The value of {@code bootstrap_arguments}[{@code index}]
+         */
+        public int getBootstrapArgument(final int index) {
+            return this.bootstrap_arguments[index].value;
+        }
+    }
+}
@@ -102,6 +102,14 @@ public class AttributeInfo extends ClassComponent {
      * </a>
      */
     public static final String TypeDeprecated = "Deprecated";
+    /**
+     * The name for {@code BootstrapMethods} attribute type.
+     *
+     * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.7.23">
+     * VM Spec: The BootstrapMethods Attribute
+     * </a>
+     */
+    public static final String TypeBootstrapMethods = "BootstrapMethods";
     /**
      * Non-standard attributes.
      * All of the attributes which are not defined in the VM Spec.
@@ -154,6 +162,8 @@ public class AttributeInfo extends ClassComponent {
                 attr = new AttributeLocalVariableTable(attrNameIndex, type, posDataInputStream);
             } else if (TypeDeprecated.equals(type)) {
                 attr = new AttributeDeprecated(attrNameIndex, type, posDataInputStream);
+            } else if (TypeBootstrapMethods.equals(type)) {
+                attr = new AttributeBootstrapMethods(attrNameIndex, type, posDataInputStream);
             } else {
                 attr = new AttributeExtended(attrNameIndex, Extended + type, posDataInputStream);
             }
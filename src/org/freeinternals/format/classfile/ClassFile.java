@@ -459,6 +459,22 @@ public class ClassFile {
                         ClassFile.this.constant_pool[i] = new ConstantNameAndTypeInfo(ClassFile.this.posDataInputStream);
                         break;
 
+                    case AbstractCPInfo.CONSTANT_MethodHandle:
+                        ClassFile.this.constant_pool[i] = new ConstantMethodHandleInfo(ClassFile.this.posDataInputStream);
+                        break;
+
+                    case AbstractCPInfo.CONSTANT_MethodType:
+                        ClassFile.this.constant_pool[i] = new ConstantMethodTypeInfo(ClassFile.this.posDataInputStream);
+                        break;
+
+                    case AbstractCPInfo.CONSTANT_Dynamic:
+                        ClassFile.this.constant_pool[i] = new ConstantDynamicInfo(ClassFile.this.posDataInputStream);
+                        break;
+
+                    case AbstractCPInfo.CONSTANT_InvokeDynamic:
+                        ClassFile.this.constant_pool[i] = new ConstantInvokeDynamicInfo(ClassFile.this.posDataInputStream);
+                        break;
+
                     default:
                         throw new FileFormatException(
                                 String.format("Unreconizable constant pool type found. Constant pool tag: [%d]; class file offset: [%d].", tag, ClassFile.this.posDataInputStream.getPos() - 1));
@@ -599,6 +615,27 @@ public class ClassFile {
                             (ConstantNameAndTypeInfo) ClassFile.this.constant_pool[index],
                             ClassFile.Descr_NameAndType.RAW));
                     break;
+                case AbstractCPInfo.CONSTANT_MethodHandle:
+                    sb.append("MethodHandle: ");
+                    sb.append(this.getDescr_MethodHandle((ConstantMethodHandleInfo) ClassFile.this.constant_pool[index]));
+                    break;
+                case AbstractCPInfo.CONSTANT_MethodType:
+                    sb.append("MethodType: ");
+                    sb.append(this.getDescr_Utf8(
+                            (ConstantUtf8Info) ClassFile.this.constant_pool[((ConstantMethodTypeInfo) ClassFile.this.constant_pool[index]).getDescriptorIndex()]));
+                    break;
+                case AbstractCPInfo.CONSTANT_Dynamic:
+                    sb.append("Dynamic: ");
+                    sb.append(this.getDescr_Dynamic(
+                            ((ConstantDynamicInfo) ClassFile.this.constant_pool[index]).getBootstrapMethodAttrIndex(),
+                            ((ConstantDynamicInfo) ClassFile.this.constant_pool[index]).getNameAndTypeIndex()));
+                    break;
+                case AbstractCPInfo.CONSTANT_InvokeDynamic:
+                    sb.append("InvokeDynamic: ");
+                    sb.append(this.getDescr_Dynamic(
+                            ((ConstantInvokeDynamicInfo) ClassFile.this.constant_pool[index]).getBootstrapMethodAttrIndex(),
+                            ((ConstantInvokeDynamicInfo) ClassFile.this.constant_pool[index]).getNameAndTypeIndex()));
+                    break;
                 default:
                     sb.append("!!! Un-supported CP type.");
                     break;
@@ -664,6 +701,15 @@ public class ClassFile {
                     ClassFile.Descr_NameAndType.METHOD);
         }
 
+        private String getDescr_MethodHandle(final ConstantMethodHandleInfo info) {
+            return "kind=" + info.getReferenceKind() + " " + new CPDescr().getCPDescr(info.getReferenceIndex());
+        }
+
+        private String getDescr_Dynamic(final int bootstrapIndex, final int natindex) {
+            return "#" + bootstrapIndex + ":" + this.getDescr_NameAndType(
+                    (ConstantNameAndTypeInfo) ClassFile.this.constant_pool[natindex], ClassFile.Descr_NameAndType.RAW);
+        }
+
         private String getDescr_ref(final int classindex, final int natindex, final ClassFile.Descr_NameAndType type) {
             final StringBuilder sb = new StringBuilder();
             sb.append(this.getDescr_Class((ConstantClassInfo) ClassFile.this.constant_pool[classindex]));
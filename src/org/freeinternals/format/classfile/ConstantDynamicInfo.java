@@ -0,0 +1,72 @@
+/*
+ * ConstantDynamicInfo.java    10:40 PM, October 18, 2026
+ */
+package org.freeinternals.format.classfile;
+
+import java.io.IOException;
+
+/**
+ * The class for the {@code CONSTANT_Dynamic_info} structure in constant pool.
+ * The {@code CONSTANT_Dynamic_info} structure has the following format:
+ *
+ * <pre>
+ *    CONSTANT_Dynamic_info {
+ *        u1 tag;
+ *        u2 bootstrap_method_attr_index;
+ *        u2 name_and_type_index;
+ *    }
+ * </pre>
+ *
+ * @author aries
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.4.10">
+ * VM Spec: The CONSTANT_Dynamic_info and CONSTANT_InvokeDynamic_info Structures
+ * </a>
+ */
+public class ConstantDynamicInfo extends AbstractCPInfo {
+
+    private final u2 bootstrap_method_attr_index;
+    private final u2 name_and_type_index;
+
+    ConstantDynamicInfo(final PosDataInputStream posDataInputStream)
+            throws IOException {
+        super();
+        this.tag.value = AbstractCPInfo.CONSTANT_Dynamic;
+
+        this.startPos = posDataInputStream.getPos() - 1;
+        this.length = 5;
+
+        this.bootstrap_method_attr_index = new u2();
+        this.bootstrap_method_attr_index.value = posDataInputStream.readUnsignedShort();
+        this.name_and_type_index = new u2();
+        this.name_and_type_index.value = posDataInputStream.readUnsignedShort();
+    }
+
+    @Override
+    public String getName() {
+        return "Dynamic";
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("ConstantDynamicInfo: Start Position: [%d], length: [%d], value: bootstrap_method_attr_index=[%d], name_and_type_index=[%d].", this.startPos, this.length, this.bootstrap_method_attr_index.value, this.name_and_type_index.value);
+    }
+
+    /**
+     * Get the value of {@code bootstrap_method_attr_index}, an index into the
+     * {@code bootstrap_methods} array of the {@code BootstrapMethods} attribute.
+     *
+     * @return The value of {@code bootstrap_method_attr_index}
+     */
+    public int getBootstrapMethodAttrIndex() {
+        return this.bootstrap_method_attr_index.value;
+    }
+
+    /**
+     * Get the value of {@code name_and_type_index}.
+     *
+     * @return The value of {@code name_and_type_index}
+     */
+    public int getNameAndTypeIndex() {
+        return this.name_and_type_index.value;
+    }
+}
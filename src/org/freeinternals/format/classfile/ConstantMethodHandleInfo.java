@@ -0,0 +1,81 @@
+/*
+ * ConstantMethodHandleInfo.java    10:40 PM, October 18, 2026
+ */
+package org.freeinternals.format.classfile;
+
+import java.io.IOException;
+
+/**
+ * The class for the {@code CONSTANT_MethodHandle_info} structure in constant pool.
+ * The {@code CONSTANT_MethodHandle_info} structure has the following format:
+ *
+ * <pre>
+ *    CONSTANT_MethodHandle_info {
+ *        u1 tag;
+ *        u1 reference_kind;
+ *        u2 reference_index;
+ *    }
+ * </pre>
+ *
+ * @author aries
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.4.8">
+ * VM Spec: The CONSTANT_MethodHandle_info Structure
+ * </a>
+ */
+public class ConstantMethodHandleInfo extends AbstractCPInfo {
+
+    public static final int REF_getField = 1;
+    public static final int REF_getStatic = 2;
+    public static final int REF_putField = 3;
+    public static final int REF_putStatic = 4;
+    public static final int REF_invokeVirtual = 5;
+    public static final int REF_invokeStatic = 6;
+    public static final int REF_invokeSpecial = 7;
+    public static final int REF_newInvokeSpecial = 8;
+    public static final int REF_invokeInterface = 9;
+
+    private final u1 reference_kind;
+    private final u2 reference_index;
+
+    ConstantMethodHandleInfo(final PosDataInputStream posDataInputStream)
+            throws IOException {
+        super();
+        this.tag.value = AbstractCPInfo.CONSTANT_MethodHandle;
+
+        this.startPos = posDataInputStream.getPos() - 1;
+        this.length = 4;
+
+        this.reference_kind = new u1();
+        this.reference_kind.value = (short) posDataInputStream.readUnsignedByte();
+        this.reference_index = new u2();
+        this.reference_index.value = posDataInputStream.readUnsignedShort();
+    }
+
+    @Override
+    public String getName() {
+        return "MethodHandle";
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("ConstantMethodHandleInfo: Start Position: [%d], length: [%d], value: reference_kind=[%d], reference_index=[%d].", this.startPos, this.length, this.reference_kind.value, this.reference_index.value);
+    }
+
+    /**
+     * Get the value of {@code reference_kind}.
+     *
+     * @return The value of {@code reference_kind}
+     */
+    public int getReferenceKind() {
+        return this.reference_kind.value;
+    }
+
+    /**
+     * Get the value of {@code reference_index}.
+     *
+     * @return The value of {@code reference_index}
+     */
+    public int getReferenceIndex() {
+        return this.reference_index.value;
+    }
+}
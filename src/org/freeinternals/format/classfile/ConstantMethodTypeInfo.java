@@ -0,0 +1,58 @@
+/*
+ * ConstantMethodTypeInfo.java    10:40 PM, October 18, 2026
+ */
+package org.freeinternals.format.classfile;
+
+import java.io.IOException;
+
+/**
+ * The class for the {@code CONSTANT_MethodType_info} structure in constant pool.
+ * The {@code CONSTANT_MethodType_info} structure has the following format:
+ *
+ * <pre>
+ *    CONSTANT_MethodType_info {
+ *        u1 tag;
+ *        u2 descriptor_index;
+ *    }
+ * </pre>
+ *
+ * @author aries
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html#jvms-4.4.9">
+ * VM Spec: The CONSTANT_MethodType_info Structure
+ * </a>
+ */
+public class ConstantMethodTypeInfo extends AbstractCPInfo {
+
+    private final u2 descriptor_index;
+
+    ConstantMethodTypeInfo(final PosDataInputStream posDataInputStream)
+            throws IOException {
+        super();
+        this.tag.value = AbstractCPInfo.CONSTANT_MethodType;
+
+        this.startPos = posDataInputStream.getPos() - 1;
+        this.length = 3;
+
+        this.descriptor_index = new u2();
+        this.descriptor_index.value = posDataInputStream.readUnsignedShort();
+    }
+
+    @Override
+    public String getName() {
+        return "MethodType";
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("ConstantMethodTypeInfo: Start Position: [%d], length: [%d], value: descriptor_index=[%d].", this.startPos, this.length, this.descriptor_index.value);
+    }
+
+    /**
+     * Get the value of {@code descriptor_index}.
+     *
+     * @return The value of {@code descriptor_index}
+     */
+    public int getDescriptorIndex() {
+        return this.descriptor_index.value;
+    }
+}
@@ -31,6 +31,7 @@ public class ConstantUtf8Info extends AbstractCPInfo {
 
     private final u2 length_utf8;
     private final byte[] bytes;
+    private String value;
 
     ConstantUtf8Info(final PosDataInputStream posDataInputStream)
             throws IOException, FileFormatException {
@@ -70,11 +71,45 @@ public class ConstantUtf8Info extends AbstractCPInfo {
     }
 
     /**
-     * Get a string for the content of the Utf8 info.
+     * Get a string for the content of the Utf8 info. The bytes are decoded
+     * as modified UTF-8 (JVM Spec 4.4.7) once and the result is cached.
      *
      * @return String for the content
      */
     public String getValue() {
-        return new String(this.bytes);
+        if (this.value == null) {
+            this.value = decodeModifiedUtf8(this.bytes);
+        }
+        return this.value;
+    }
+
+    /**
+     * Decode modified UTF-8: {@code U+0000} is encoded in two bytes, and
+     * supplementary characters are encoded as a surrogate pair of two
+     * three-byte sequences, so every sequence maps to exactly one char.
+     *
+     * @param bytes Modified UTF-8 bytes
+     * @return The decoded string
+     */
+    static String decodeModifiedUtf8(final byte[] bytes) {
+        final char[] chars = new char[bytes.length];
+        int count = 0;
+        int i = 0;
+        while (i < bytes.length) {
+            final int b = bytes[i] & 0xff;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+                i++;
+            } else if ((b & 0xe0) == 0xc0 && i + 1 < bytes.length) {
+                chars[count++] = (char) (((b & 0x1f) << 6) | (bytes[i + 1] & 0x3f));
+                i += 2;
+            } else if ((b & 0xf0) == 0xe0 && i + 2 < bytes.length) {
+                chars[count++] = (char) (((b & 0x0f) << 12) | ((bytes[i + 1] & 0x3f) << 6) | (bytes[i + 2] & 0x3f));
+                i += 3;
+            } else {
+                throw new IllegalArgumentException(String.format("Malformed modified UTF-8 byte 0x%02x at %d.", b, i));
+            }
+        }
+        return new String(chars, 0, count);
     }
 }
@@ -212,7 +212,7 @@ public final class Opcode {
     public static final int op_invokespecial = 183;
     public static final int op_invokestatic = 184;
     public static final int op_invokeinterface = 185;
-    // 186: For historical reasons, opcode value 186 is not used.
+    public static final int op_invokedynamic = 186;
     public static final int op_new = 187;
     public static final int op_newarray = 188;
     public static final int op_anewarray = 189;
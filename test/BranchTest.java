@@ -0,0 +1,90 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：ifnull/ifnonnull、if_acmp、监视器指令（含对null加锁时的NullPointerException），以及操作数相减会溢出的int比较（if_icmp与if系列）
+ * @Author aries
+ * @Data 2026-10-18 12:47
+ */
+public class BranchTest {
+
+    static String pick(int i) {
+        return i % 3 == 0 ? null : "lock";
+    }
+
+    static int compare(int a, int b) {
+        int r = 0;
+        if (a < b) {
+            r += 1;
+        }
+        if (a <= b) {
+            r += 2;
+        }
+        if (a > b) {
+            r += 4;
+        }
+        if (a >= b) {
+            r += 8;
+        }
+        if (a == b) {
+            r += 16;
+        }
+        if (a != b) {
+            r += 32;
+        }
+        return r;
+    }
+
+    static int locked(Object lock, int v) {
+        synchronized (lock) {
+            return v & 15;
+        }
+    }
+
+    public static void main(String[] args) {
+        int nulls = 0;
+        String lock = "lock";
+        for (int i = 0; i < 2000; i++) {
+            String o = pick(i);
+            if (o == null) {
+                nulls++;
+            }
+            if (o != null) {
+                nulls += 100;
+            }
+            if (o == lock) {
+                nulls += 3;
+            }
+            synchronized (lock) {
+                nulls--;
+            }
+        }
+        System.println(String.valueOf(nulls));
+
+        System.println(String.valueOf(compare(-2147483648, 1)));
+        System.println(String.valueOf(compare(1, -2147483648)));
+        System.println(String.valueOf(compare(2147483647, -1)));
+        System.println(String.valueOf(compare(-1, 2147483647)));
+        System.println(String.valueOf(compare(-2147483648, 2147483647)));
+        System.println(String.valueOf(compare(7, 7)));
+
+        int below = 0;
+        for (int i = -2147483648; i < -2147483648 + 500; i++) {
+            if (i < 2147483647 - i) {
+                below++;
+            }
+        }
+        System.println(String.valueOf(below));
+
+        int guarded = 0;
+        for (int i = 0; i < 2000; i++) {
+            try {
+                guarded += locked(pick(i), i);
+            } catch (NullPointerException e) {
+                guarded -= 7;
+            }
+        }
+        System.println(String.valueOf(guarded));
+    }
+}
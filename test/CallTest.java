@@ -0,0 +1,119 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：虚方法与接口方法分派（单态、多态及中途切换）、父类方法调用（invokespecial）与递归
+ * @Author aries
+ * @Data 2026-10-18 12:07
+ */
+public class CallTest {
+
+    interface Op {
+        int apply(int x);
+    }
+
+    static abstract class Shape {
+        abstract int area(int k);
+
+        int scale() {
+            return 3;
+        }
+
+        int describe(int k) {
+            return area(k) * scale();
+        }
+    }
+
+    static class Square extends Shape {
+        int area(int k) {
+            return k * k;
+        }
+    }
+
+    static class Rect extends Shape {
+        int area(int k) {
+            return k * 3;
+        }
+
+        int scale() {
+            return super.scale() - 2;
+        }
+    }
+
+    static class Cube extends Square {
+        int area(int k) {
+            return super.area(k) * k;
+        }
+    }
+
+    static class Add implements Op {
+        public int apply(int x) {
+            return x + 1;
+        }
+    }
+
+    static class Twice implements Op {
+        public int apply(int x) {
+            return x * 2;
+        }
+    }
+
+    static class Neg extends Twice {
+        public int apply(int x) {
+            return -super.apply(x);
+        }
+    }
+
+    static Shape shape(int i) {
+        if (i < 1200 || i % 9 == 0) {
+            return new Square();
+        }
+        return i % 2 == 0 ? new Rect() : new Cube();
+    }
+
+    static Op op(int i) {
+        if (i < 1500) {
+            return new Add();
+        }
+        switch (i % 3) {
+            case 0:
+                return new Add();
+            case 1:
+                return new Twice();
+            default:
+                return new Neg();
+        }
+    }
+
+    static int helper(int x) {
+        return mix(x) & 1023;
+    }
+
+    static int mix(int x) {
+        return (x << 1) + (x >> 3);
+    }
+
+    static int fib(int n) {
+        return n < 2 ? n : fib(n - 1) + fib(n - 2);
+    }
+
+    public static void main(String[] args) {
+        int total = 0;
+        int scaled = 0;
+        for (int i = 0; i < 2000; i++) {
+            Shape s = shape(i);
+            total += s.area(i % 100);
+            scaled += s.describe(i % 7);
+        }
+        System.println(String.valueOf(total));
+        System.println(String.valueOf(scaled));
+
+        int acc = 0;
+        for (int i = 0; i < 3000; i++) {
+            acc += op(i).apply(i) + helper(i);
+        }
+        System.println(String.valueOf(acc));
+        System.println(String.valueOf(fib(20)));
+    }
+}
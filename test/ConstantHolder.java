@@ -0,0 +1,30 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: ConstantTest读取的常量所在类，须在ConstantTest之后单独编译（见ConstantTest）。
+ * static final常量字段带有ConstantValue属性，由虚拟机在准备阶段直接赋值，<clinit>中只有非常量字段的赋值
+ * @Author aries
+ * @Data 2026-10-18 14:20
+ */
+public class ConstantHolder {
+
+    static final String NAME = "leaf";
+
+    static final int LIMIT = 1200;
+
+    static final long MASK = 0xFFFFFFFFFL;
+
+    static final float BIAS = 1.5f;
+
+    static final double SCALE = 0.75;
+
+    static final char MARK = 'q';
+
+    static final boolean ENABLED = true;
+
+    static final String GREETING = "leaf" + "Vm";
+
+    static int initialized = LIMIT / 100;
+}
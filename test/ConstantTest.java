@@ -0,0 +1,40 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：另一个类中带有ConstantValue属性的static final字段（int、long、float、double、char、boolean
+ * 与字符串常量）经getstatic的读取，包括热点循环中的读取，以及常量字符串与字面量的同一性（均为驻留的字符串）。
+ * 编译器会内联常量字段的读取，故本类须以桩类代替ConstantHolder编译，再单独编译真正的ConstantHolder
+ * （在项目根目录下，两个命令的顺序不能交换）：
+ * javac -encoding UTF-8 --patch-module java.base=coreLibrary -d . test/stub/ConstantHolder.java test/ConstantTest.java；
+ * javac -encoding UTF-8 --patch-module java.base=coreLibrary -d . test/ConstantHolder.java
+ * @Author aries
+ * @Data 2026-10-18 14:20
+ */
+public class ConstantTest {
+
+    public static void main(String[] args) {
+        System.println(ConstantHolder.NAME);
+        System.println(String.valueOf(ConstantHolder.NAME == "leaf" ? 1 : 0));
+        System.println(String.valueOf(ConstantHolder.GREETING == "leafVm" ? 1 : 0));
+        System.println(String.valueOf(ConstantHolder.initialized));
+
+        long acc = 0;
+        double d = 0;
+        float f = 0;
+        int hits = 0;
+        for (int i = 0; i < ConstantHolder.LIMIT; i++) {
+            acc += (i * 1234567891L) & ConstantHolder.MASK;
+            d += i * ConstantHolder.SCALE;
+            f += ConstantHolder.BIAS;
+            if (ConstantHolder.ENABLED && ConstantHolder.NAME == "leaf") {
+                hits += ConstantHolder.MARK;
+            }
+        }
+        System.println(String.valueOf((int) (acc >> 20)));
+        System.println(String.valueOf((int) d));
+        System.println(String.valueOf((int) f));
+        System.println(String.valueOf(hits));
+    }
+}
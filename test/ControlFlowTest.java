@@ -0,0 +1,124 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：条件跳转、tableswitch/lookupswitch、嵌套循环、null比较、监视器、long/float/double运算及异常处理
+ * @Author aries
+ * @Data 2026-10-18 12:07
+ */
+public class ControlFlowTest {
+    static Object lock = new ControlFlowTest();
+    static Object[] slots = new Object[8];
+
+    static int classify(int i) {
+        switch (i % 6) {
+            case 0:
+                return 1;
+            case 1:
+                return 3;
+            case 2:
+            case 3:
+                return 7;
+            default:
+                return -2;
+        }
+    }
+
+    static int sparse(int i) {
+        switch (i) {
+            case -1000:
+                return 5;
+            case 7:
+                return 11;
+            case 90000:
+                return 13;
+            default:
+                return 0;
+        }
+    }
+
+    static int divide(int a, int b) {
+        try {
+            return a / b;
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    static int index(int[] a, int i) {
+        try {
+            return a[i];
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return -100;
+        } finally {
+            counter++;
+        }
+    }
+
+    static int counter;
+
+    public static void main(String[] args) {
+        int s = 0;
+        for (int i = 0; i < 3000; i++) {
+            s += classify(i) + sparse(i % 9 == 0 ? 7 : i) + sparse(-1000);
+            if ((i & 3) == 0) {
+                s ^= i;
+            } else if (i % 3 == 0) {
+                s -= i >> 2;
+            }
+        }
+        System.println(String.valueOf(s));
+
+        int nulls = 0;
+        for (int i = 0; i < 2000; i++) {
+            slots[i & 7] = (i % 3) == 0 ? null : lock;
+            Object o = slots[(i * 5) & 7];
+            if (o == null) {
+                nulls++;
+            }
+            if (o != null) {
+                nulls += 100;
+            }
+            synchronized (lock) {
+                nulls--;
+            }
+        }
+        System.println(String.valueOf(nulls));
+
+        int nested = 0;
+        for (int i = 0; i < 60; i++) {
+            for (int j = i; j < 60; j++) {
+                if (j % 7 == 3) {
+                    continue;
+                }
+                if (j > 50 && i > 40) {
+                    break;
+                }
+                nested += i * j;
+            }
+        }
+        System.println(String.valueOf(nested));
+
+        long l = 1;
+        double d = 1.0;
+        float f = 0.5f;
+        for (int i = 0; i < 1500; i++) {
+            l = l * 31 + i;
+            d = d * 1.0001 + (i & 1);
+            f += i % 2 == 0 ? 0.25f : -0.125f;
+        }
+        System.println(String.valueOf((int) (l ^ (l >>> 32))));
+        System.println(String.valueOf((int) d));
+        System.println(String.valueOf((int) (f * 8)));
+        System.println(String.valueOf(l < 0 ? 1 : 0) + (d > 1000.5 ? "big" : "small"));
+
+        int caught = 0;
+        int[] small = {4, 5, 6};
+        for (int i = 0; i < 1200; i++) {
+            caught += divide(i, i % 10) + index(small, i % 5);
+        }
+        System.println(String.valueOf(caught));
+        System.println(String.valueOf(counter));
+    }
+}
@@ -0,0 +1,55 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：接口默认方法的选择。子接口覆盖的默认方法优先于父接口中的，与接口的声明顺序无关；
+ * 类及父类中的方法优先于默认方法
+ * @Author aries
+ * @Data 2026-10-18 12:47
+ */
+public class DefaultMethodTest {
+
+    interface Named {
+        default String greet() {
+            return "hi z";
+        }
+
+        default String name() {
+            return "named";
+        }
+    }
+
+    interface Loud extends Named {
+        default String greet() {
+            return "HI z";
+        }
+    }
+
+    static class Z implements Named, Loud {
+    }
+
+    static class Y implements Loud, Named {
+    }
+
+    static class X extends Z {
+        public String name() {
+            return "x";
+        }
+    }
+
+    static String greetNamed(Named n) {
+        return n.greet();
+    }
+
+    public static void main(String[] args) {
+        System.println(new Z().greet());
+        System.println(new Y().greet());
+        System.println(greetNamed(new Z()));
+        System.println(greetNamed(new X()));
+        System.println(new Z().name());
+        System.println(new X().name());
+        Named n = new X();
+        System.println(n.name());
+    }
+}
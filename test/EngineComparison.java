@@ -0,0 +1,107 @@
+package test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Description: 执行引擎的行为测试（宿主程序）。在各执行方式下分别启动虚拟机运行同一组测试程序，比较其输出：
+ * 指令表方式（-t）作为参照，其输出须与expected目录中由宿主JVM得到的结果一致，其余方式（switch解释器、不融合超级指令、
+ * 闭包树与宿主字节码JIT、第2层编译与栈上替换、轨迹编译）的输出须与参照一致。
+ * 编译阈值取得很低，测试程序中的循环与调用会经过各个编译层次。
+ * 测试程序的编译（在项目根目录下，测试程序的字符串拼接依赖invokedynamic，需以9及以上的目标版本编译）：
+ * javac -encoding UTF-8 --patch-module java.base=coreLibrary -d . test/*Test.java，
+ * 其后ConstantTest须以桩类重新编译（命令见ConstantTest），否则其对常量字段的读取会被编译器内联；
+ * 运行：java -cp 虚拟机类路径:本类所在路径 test.EngineComparison [项目根目录]，虚拟机以本进程的类路径启动
+ * @Author aries
+ * @Data 2026-10-18 12:07
+ */
+public class EngineComparison {
+
+    private static final String[] PROGRAMS = {"ControlFlowTest", "BranchTest", "SwitchTest", "LongTest", "FloatTest", "StringTest", "CallTest",
+            "DefaultMethodTest", "RecursionTest", "FieldTest", "ObjectTest", "ExceptionTest", "NativeTest", "IndyTest", "ConstantTest"};
+
+    private static final String REFERENCE = "-t";
+
+    private static final String[] MODES = {
+            "",
+            "-s none",
+            "-j -jt 3",
+            "-j -jt 3 -jnc",
+            "-j -jt 3 -jt2 6 -jo 50",
+            "-j -jt 3 -jt2 6 -jo 50 -jno",
+            "-j -jtr -jtt 2",
+            "-j -jnc -jtr -jtt 2 -jo 50"
+    };
+
+    public static void main(String[] args) throws Exception {
+        File root = new File(args.length > 0 ? args[0] : ".");
+        int failures = 0;
+        for (String program : PROGRAMS) {
+            String expected = new String(Files.readAllBytes(new File(root, "test/expected/" + program + ".txt").toPath()),
+                    StandardCharsets.UTF_8);
+            String reference = run(root, program, REFERENCE);
+            failures += check(program, REFERENCE, expected, reference);
+            for (String mode : MODES) {
+                failures += check(program, mode, reference, run(root, program, mode));
+            }
+        }
+        System.out.println(failures == 0 ? "all passed" : failures + " failed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int check(String program, String mode, String expected, String actual) {
+        if (expected.equals(actual)) {
+            System.out.println("ok   " + program + " [" + mode + "]");
+            return 0;
+        }
+        System.out.println("FAIL " + program + " [" + mode + "]");
+        System.out.println("  expected: " + expected.replace("\n", "\\n"));
+        System.out.println("  actual:   " + actual.replace("\n", "\\n"));
+        return 1;
+    }
+
+    /**
+     * @Description: 以指定执行方式运行测试程序，返回其标准输出；日志等输出到标准错误，不参与比较
+     */
+    private static String run(File root, String program, String mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("cn.sheratan.jvm.Main");
+        if (!mode.isEmpty()) {
+            command.addAll(Arrays.asList(mode.split(" ")));
+        }
+        command.add("-cp");
+        command.add(root.getPath() + ";" + new File(root, "coreLibrary").getPath());
+        command.add("test." + program);
+        File log = File.createTempFile("engine-test", ".log");
+        try {
+            Process process = new ProcessBuilder(command).redirectError(log).start();
+            String output = read(process.getInputStream());
+            process.waitFor();
+            return output;
+        } finally {
+            log.delete();
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+    }
+}
@@ -0,0 +1,145 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：athrow与异常处理器的查找（按类型、嵌套、finally），跨栈帧展开，
+ * 以及由除零、对null访问字段或调用方法产生的虚拟机异常
+ * @Author aries
+ * @Data 2026-10-18 12:48
+ */
+public class ExceptionTest {
+
+    static class Failure extends RuntimeException {
+        int code;
+
+        Failure(String message, int code) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    static class Holder {
+        int value;
+
+        int get() {
+            return value;
+        }
+    }
+
+    static int check(int i) {
+        if (i % 500 == 499) {
+            throw new IllegalStateException("boom");
+        }
+        return i % 5;
+    }
+
+    static int deep(int n) {
+        if (n == 0) {
+            throw new Failure("deep", 7);
+        }
+        return deep(n - 1) + 1;
+    }
+
+    static int divide(int a, int b) {
+        try {
+            return a / b;
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    static int guarded(int i, Holder counter) {
+        try {
+            if (i % 4 == 0) {
+                throw new Failure("f", i);
+            }
+            return i;
+        } finally {
+            counter.value++;
+        }
+    }
+
+    static int field(Holder h) {
+        return h.value;
+    }
+
+    public static void main(String[] args) {
+        int thrown = 0;
+        int sum = 0;
+        for (int i = 0; i < 2000; i++) {
+            try {
+                sum += check(i);
+            } catch (IllegalStateException e) {
+                thrown++;
+            }
+        }
+        System.println(String.valueOf(sum));
+        System.println(String.valueOf(thrown));
+
+        try {
+            deep(50);
+        } catch (Failure e) {
+            System.println(e.getMessage());
+            System.println(String.valueOf(e.code));
+        }
+
+        Holder counter = new Holder();
+        int caught = 0;
+        for (int i = 0; i < 1200; i++) {
+            caught += divide(i, i % 10);
+            try {
+                caught += guarded(i, counter);
+            } catch (RuntimeException e) {
+                caught -= 3;
+            }
+        }
+        System.println(String.valueOf(caught));
+        System.println(String.valueOf(counter.get()));
+
+        long big = 1L << 40;
+        try {
+            System.println(String.valueOf((int) (big / (big >> 41))));
+        } catch (ArithmeticException e) {
+            System.println("ldiv");
+        }
+        try {
+            System.println(String.valueOf(7 % (counter.value - 1200)));
+        } catch (ArithmeticException e) {
+            System.println("irem");
+        }
+
+        Holder none = null;
+        int npes = 0;
+        for (int i = 0; i < 300; i++) {
+            Holder h = i % 3 == 0 ? none : new Holder();
+            try {
+                npes += field(h);
+                npes += h.get();
+                h.value = i;
+            } catch (NullPointerException e) {
+                npes += 10;
+            }
+        }
+        System.println(String.valueOf(npes));
+
+        try {
+            try {
+                throw new Failure("inner", 1);
+            } catch (IllegalStateException e) {
+                System.println("wrong");
+            } finally {
+                System.println("finally");
+            }
+        } catch (Failure e) {
+            System.println(e.getMessage());
+        }
+
+        try {
+            RuntimeException e = null;
+            throw e;
+        } catch (NullPointerException e) {
+            System.println("athrow null");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：实例字段（int、long、double与引用字段）的读写、继承与隐藏，
+ * 以及实例方法中aload_0 getfield序列对字段的读取
+ * @Author aries
+ * @Data 2026-10-18 12:47
+ */
+public class FieldTest {
+
+    static class Node {
+        int value;
+        long weight = 1L << 36;
+        double ratio = 0.25;
+        Node next;
+
+        Node(int value, Node next) {
+            this.value = value;
+            this.next = next;
+        }
+
+        int sum() {
+            return value + (int) (weight >> 34) + (int) (ratio * 8) + (next == null ? 0 : next.value);
+        }
+    }
+
+    static class Special extends Node {
+        int value = -1;
+        final int extra = 7;
+
+        Special(int value) {
+            super(value, null);
+        }
+
+        int sum() {
+            return super.sum() + value + extra;
+        }
+    }
+
+    static class Counter {
+        int count;
+        long total;
+
+        void add(int v) {
+            count++;
+            total += v;
+        }
+
+        int mean() {
+            return count == 0 ? 0 : (int) (total / count);
+        }
+    }
+
+    public static void main(String[] args) {
+        Node head = null;
+        Counter created = new Counter();
+        for (int i = 0; i < 100; i++) {
+            head = i % 10 == 0 ? new Special(i) : new Node(i, head);
+            created.add(i);
+        }
+        int s = 0;
+        Counter visited = new Counter();
+        for (int round = 0; round < 30; round++) {
+            for (Node n = head; n != null; n = n.next) {
+                s += n.sum();
+                n.weight += round;
+                n.ratio *= 1.5;
+                visited.add(n.value);
+            }
+        }
+        System.println(String.valueOf(s));
+        System.println(String.valueOf(created.count));
+        System.println(String.valueOf(created.mean()));
+        System.println(String.valueOf(visited.count));
+        System.println(String.valueOf((int) visited.total));
+        System.println(String.valueOf((int) (head.weight >> 20)));
+
+        Special sp = new Special(5);
+        Node asNode = sp;
+        System.println(String.valueOf(sp.value));
+        System.println(String.valueOf(asNode.value));
+        System.println(String.valueOf(sp.sum()));
+    }
+}
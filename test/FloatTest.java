@@ -0,0 +1,50 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：float与double的运算、比较（含NaN与无穷）及与int、long之间的转换
+ * @Author aries
+ * @Data 2026-10-18 12:47
+ */
+public class FloatTest {
+
+    static int order(double a, double b) {
+        int r = 0;
+        if (a < b) {
+            r += 1;
+        }
+        if (a > b) {
+            r += 2;
+        }
+        if (a == b) {
+            r += 4;
+        }
+        return r;
+    }
+
+    public static void main(String[] args) {
+        double d = 1.0;
+        float f = 0.5f;
+        for (int i = 0; i < 1500; i++) {
+            d = d * 1.0001 + (i & 1);
+            f += i % 2 == 0 ? 0.25f : -0.125f;
+        }
+        System.println(String.valueOf((int) d));
+        System.println(String.valueOf((int) (f * 8)));
+        System.println(String.valueOf(d > 1000.5 ? 1 : 0));
+
+        double nan = 0.0 / 0.0;
+        float fnan = 0.0f / 0.0f;
+        System.println(String.valueOf(order(nan, 1.0)));
+        System.println(String.valueOf(order(1.0, 2.0)));
+        System.println(String.valueOf(order(-0.0, 0.0)));
+        System.println(String.valueOf(fnan != fnan ? 1 : 0));
+        System.println(String.valueOf((int) (1.0 / 0.0)));
+        System.println(String.valueOf((int) nan));
+        System.println(String.valueOf((int) ((long) 3.9e18 >> 40)));
+        System.println(String.valueOf((int) (float) 16777217));
+        System.println(String.valueOf((int) (7.5 % 2.0 * 100)));
+        System.println(String.valueOf((int) (-f * 3)));
+    }
+}
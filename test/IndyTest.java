@@ -0,0 +1,73 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：invokedynamic调用点，包括lambda表达式（含捕获值）、静态与绑定的方法引用、
+ * 对null绑定方法引用时的NullPointerException，以及字符串拼接与拼接结果的驻留
+ * @Author aries
+ * @Data 2026-10-18 12:48
+ */
+public class IndyTest {
+
+    interface Op {
+        int apply(int x);
+    }
+
+    static class Add implements Op {
+        int k;
+
+        Add(int k) {
+            this.k = k;
+        }
+
+        public int apply(int x) {
+            return x + k;
+        }
+    }
+
+    int base = 5;
+
+    int offset(int x) {
+        return x + base;
+    }
+
+    static int twice(int x) {
+        return x * 2;
+    }
+
+    public static void main(String[] args) {
+        IndyTest t = new IndyTest();
+        int k = 3;
+        Op[] ops = {new Add(1), x -> x * 3, IndyTest::twice, t::offset, x -> x - k};
+        int acc = 0;
+        for (int i = 0; i < 3000; i++) {
+            acc += ops[i < 1500 ? 0 : i % ops.length].apply(i);
+        }
+        System.println(String.valueOf(acc));
+
+        IndyTest missing = null;
+        try {
+            Op bound = missing::offset;
+            System.println(String.valueOf(bound.apply(1)));
+        } catch (NullPointerException e) {
+            System.println("npe");
+        }
+
+        String s = "a" + 10;
+        System.println(String.valueOf(s.equals("a10") ? 1 : 0));
+        System.println(String.valueOf(s.intern() == "a10" ? 1 : 0));
+
+        int sum = 0;
+        for (int i = 0; i < 2000; i++) {
+            String w = "a" + (i % 3 == 0 ? 10 : 11);
+            sum += w.equals(s) ? i & 7 : 1;
+        }
+        System.println(String.valueOf(sum));
+
+        long big = 1L << 40;
+        double half = 2.5;
+        char c = 'x';
+        System.println("long=" + big + " double=" + half + " char=" + c + " bool=" + (sum > 0) + " null=" + null);
+    }
+}
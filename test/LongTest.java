@@ -0,0 +1,45 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：long值的运算、移位、比较与转换，局部变量与参数中的long占两个slot
+ * @Author aries
+ * @Data 2026-10-18 12:47
+ */
+public class LongTest {
+
+    static long mix(long a, int k, long b) {
+        return (a << k) ^ (b >>> (k + 1)) ^ (a >> 3);
+    }
+
+    static int sign(long a, long b) {
+        return a < b ? -1 : a == b ? 0 : 1;
+    }
+
+    public static void main(String[] args) {
+        long l = 1;
+        for (int i = 0; i < 1500; i++) {
+            l = l * 31 + i;
+        }
+        System.println(String.valueOf((int) (l ^ (l >>> 32))));
+        System.println(String.valueOf(l < 0 ? 1 : 0));
+
+        long m = 0x123456789L;
+        long acc = 0;
+        for (int i = 0; i < 1000; i++) {
+            m = mix(m, i & 15, acc + i);
+            acc += m / 7 + m % 1000;
+        }
+        System.println(String.valueOf((int) acc));
+        System.println(String.valueOf((int) (acc >> 40)));
+
+        long min = -9223372036854775808L;
+        long max = 9223372036854775807L;
+        System.println(String.valueOf(sign(min, max)));
+        System.println(String.valueOf(sign(max, min)));
+        System.println(String.valueOf(sign(max, max)));
+        System.println(String.valueOf((int) (min >>> 63) + (int) (max >> 62)));
+        System.println(String.valueOf((int) -min + (int) (max + 1 == min ? 1 : 0)));
+    }
+}
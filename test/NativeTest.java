@@ -0,0 +1,39 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：本地方法的绑定。未能绑定实现的本地方法在调用时抛出UnsatisfiedLinkError，可由程序捕获；
+ * 已绑定的本地方法正常执行
+ * @Author aries
+ * @Data 2026-10-18 12:48
+ */
+public class NativeTest {
+
+    static native int missing(int x);
+
+    native String missingVirtual();
+
+    public static void main(String[] args) {
+        try {
+            System.println(String.valueOf(missing(1)));
+        } catch (UnsatisfiedLinkError e) {
+            System.println("static unsatisfied");
+        }
+        try {
+            System.println(new NativeTest().missingVirtual());
+        } catch (LinkageError e) {
+            System.println("virtual unsatisfied");
+        }
+        int caught = 0;
+        for (int i = 0; i < 100; i++) {
+            try {
+                missing(i);
+            } catch (Error e) {
+                caught++;
+            }
+        }
+        System.println(String.valueOf(caught));
+        System.println(String.valueOf(42).intern());
+    }
+}
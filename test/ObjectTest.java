@@ -0,0 +1,99 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：实例字段（含long、double与引用字段）、静态字段、数组的创建、存取、clone及类型检查
+ * @Author aries
+ * @Data 2026-10-18 12:07
+ */
+public class ObjectTest {
+
+    static class Node {
+        int value;
+        long weight = 1L << 36;
+        double ratio = 0.25;
+        Node next;
+
+        Node(int value, Node next) {
+            this.value = value;
+            this.next = next;
+        }
+
+        int sum() {
+            return value + (int) (weight >> 34) + (int) (ratio * 8) + (next == null ? 0 : next.value);
+        }
+    }
+
+    static class Special extends Node {
+        Special(int value) {
+            super(value, null);
+        }
+    }
+
+    static int created;
+    static long total = 10;
+
+    public static void main(String[] args) {
+        Node head = null;
+        for (int i = 0; i < 100; i++) {
+            head = i % 10 == 0 ? new Special(i) : new Node(i, head);
+            created++;
+        }
+        int s = 0;
+        for (int round = 0; round < 30; round++) {
+            for (Node n = head; n != null; n = n.next) {
+                s += n.sum();
+                n.weight += round;
+                total += n.value;
+            }
+        }
+        System.println(String.valueOf(s));
+        System.println(String.valueOf(created) + " " + total);
+
+        int[] ints = {1, 2, 3, 4};
+        int[] copy = ints.clone();
+        copy[0] = 9;
+        long[] longs = new long[]{5L, 6L}.clone();
+        String[] names = {"x", "y"};
+        String[] namesCopy = names.clone();
+        System.println("" + ints[0] + copy[0] + copy.length + longs[1] + (namesCopy[1] == names[1]) + (namesCopy != names));
+
+        int[][] grid = new int[6][7];
+        byte[] bytes = new byte[16];
+        char[] chars = new char[4];
+        double[] ds = new double[5];
+        int acc = 0;
+        for (int i = 0; i < 1500; i++) {
+            grid[i % 6][i % 7] += i;
+            bytes[i & 15] += (byte) i;
+            chars[i & 3] = (char) ('a' + i % 26);
+            ds[i % 5] += i * 0.5;
+            acc += grid[i % 6][(i + 1) % 7] + bytes[(i + 3) & 15];
+        }
+        System.println(String.valueOf(acc) + " " + chars[1] + " " + (int) ds[2]);
+
+        Object[] things = {head, new Special(1), names, ints, "s"};
+        int kinds = 0;
+        for (int i = 0; i < 1000; i++) {
+            Object o = things[i % things.length];
+            if (o instanceof Special) {
+                kinds += 1;
+            } else if (o instanceof Node) {
+                kinds += 10;
+            } else if (o instanceof String[]) {
+                kinds += 100;
+            } else if (o instanceof int[]) {
+                kinds += 1000;
+            }
+        }
+        System.println(String.valueOf(kinds));
+        try {
+            Object o = things[2];
+            Node n = (Node) o;
+            System.println(String.valueOf(n.value));
+        } catch (ClassCastException e) {
+            System.println("cce");
+        }
+    }
+}
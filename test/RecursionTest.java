@@ -0,0 +1,49 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：深层递归调用与参数传递（含long参数），以及栈深度超出上限时抛出的StackOverflowError
+ * @Author aries
+ * @Data 2026-10-18 12:47
+ */
+public class RecursionTest {
+
+    static int depth(int n, long acc, int k) {
+        if (n == 0) {
+            return (int) (acc % 100000) + k;
+        }
+        return depth(n - 1, acc * 3 + n, k ^ n);
+    }
+
+    static int ackermann(int m, int n) {
+        if (m == 0) {
+            return n + 1;
+        }
+        if (n == 0) {
+            return ackermann(m - 1, 1);
+        }
+        return ackermann(m - 1, ackermann(m, n - 1));
+    }
+
+    static int endless(int n) {
+        return endless(n + 1) + 1;
+    }
+
+    public static void main(String[] args) {
+        int s = 0;
+        for (int i = 0; i < 200; i++) {
+            s += depth(1000 + i, i, i);
+        }
+        System.println(String.valueOf(s));
+        System.println(String.valueOf(ackermann(2, 300)));
+        for (int i = 0; i < 3; i++) {
+            try {
+                System.println(String.valueOf(endless(0)));
+            } catch (StackOverflowError e) {
+                System.println("overflow");
+            }
+        }
+        System.println(String.valueOf(depth(3000, 1, 1)));
+    }
+}
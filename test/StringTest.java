@@ -0,0 +1,57 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：字符串的equals/hashCode/toString（以String及Object类型调用），以及依赖二者的字符串switch
+ * @Author aries
+ * @Data 2026-10-18 12:07
+ */
+public class StringTest {
+
+    static int code(String s) {
+        switch (s) {
+            case "alpha":
+                return 1;
+            case "beta":
+                return 2;
+            case "10":
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    static String word(int i) {
+        switch (i & 3) {
+            case 0:
+                return "alpha";
+            case 1:
+                return "beta";
+            case 2:
+                return "gamma";
+            default:
+                return String.valueOf(10);
+        }
+    }
+
+    public static void main(String[] args) {
+        String s = String.valueOf(10);
+        Object os = s;
+        System.println(String.valueOf(s.equals("10") ? 1 : 0));
+        System.println(String.valueOf(os.equals(String.valueOf(10)) ? 1 : 0));
+        System.println(String.valueOf(s.equals("11") ? 1 : 0));
+        System.println(String.valueOf(os.equals(null) ? 1 : 0));
+        System.println(String.valueOf(s.hashCode() == "10".hashCode() ? 1 : 0));
+        System.println(String.valueOf(os.hashCode()));
+        System.println(os.toString());
+        System.println(s.toString());
+
+        int sum = 0;
+        for (int i = 0; i < 2000; i++) {
+            String w = i % 5 == 4 ? String.valueOf(i % 3 == 0 ? 10 : 11) : word(i);
+            sum += code(w) * (i & 7);
+        }
+        System.println(String.valueOf(sum));
+    }
+}
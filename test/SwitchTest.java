@@ -0,0 +1,101 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 行为测试：tableswitch与lookupswitch（含case取值接近int边界的跳转表）、嵌套循环中的break/continue及条件跳转
+ * @Author aries
+ * @Data 2026-10-18 12:47
+ */
+public class SwitchTest {
+
+    static int classify(int i) {
+        switch (i % 6) {
+            case 0:
+                return 1;
+            case 1:
+                return 3;
+            case 2:
+            case 3:
+                return 7;
+            default:
+                return -2;
+        }
+    }
+
+    static int sparse(int i) {
+        switch (i) {
+            case -1000:
+                return 5;
+            case 7:
+                return 11;
+            case 90000:
+                return 13;
+            default:
+                return 0;
+        }
+    }
+
+    static int top(int i) {
+        switch (i) {
+            case 2147483645:
+                return 1;
+            case 2147483646:
+                return 2;
+            case 2147483647:
+                return 3;
+            default:
+                return 0;
+        }
+    }
+
+    static int bottom(int i) {
+        switch (i) {
+            case -2147483648:
+                return 4;
+            case -2147483647:
+                return 5;
+            case -2147483646:
+                return 6;
+            default:
+                return 0;
+        }
+    }
+
+    public static void main(String[] args) {
+        int s = 0;
+        for (int i = 0; i < 3000; i++) {
+            s += classify(i) + sparse(i % 9 == 0 ? 7 : i) + sparse(-1000);
+            if ((i & 3) == 0) {
+                s ^= i;
+            } else if (i % 3 == 0) {
+                s -= i >> 2;
+            }
+        }
+        System.println(String.valueOf(s));
+
+        int edges = 0;
+        for (int i = 0; i < 1000; i++) {
+            int k = i % 5;
+            edges += top(2147483647 - k) * 10 + bottom(-2147483648 + k);
+        }
+        System.println(String.valueOf(edges));
+        System.println(String.valueOf(top(2147483647)));
+        System.println(String.valueOf(top(0)));
+        System.println(String.valueOf(bottom(-2147483648)));
+
+        int nested = 0;
+        for (int i = 0; i < 60; i++) {
+            for (int j = i; j < 60; j++) {
+                if (j % 7 == 3) {
+                    continue;
+                }
+                if (j > 50 && i > 40) {
+                    break;
+                }
+                nested += i * j;
+            }
+        }
+        System.println(String.valueOf(nested));
+    }
+}
@@ -0,0 +1,30 @@
+package test;
+
+import java.lang.*;
+
+/**
+ * @Description: 编译ConstantTest时代替test/ConstantHolder.java的桩类：字段类型相同但不是常量，
+ * 编译器因此在ConstantTest中生成getstatic而不是内联常量值。仅用于编译，其类文件会被真正的ConstantHolder覆盖
+ * @Author aries
+ * @Data 2026-10-18 14:20
+ */
+public class ConstantHolder {
+
+    static String NAME;
+
+    static int LIMIT;
+
+    static long MASK;
+
+    static float BIAS;
+
+    static double SCALE;
+
+    static char MARK;
+
+    static boolean ENABLED;
+
+    static String GREETING;
+
+    static int initialized;
+}